@@ -25,9 +25,11 @@ import io.seqware.webservice.generated.model.Sample;
 import io.seqware.webservice.generated.model.SequencerRun;
 import io.seqware.webservice.generated.model.Study;
 import io.seqware.webservice.generated.model.WorkflowRun;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
-import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -48,6 +50,22 @@ public class UtilityREST {
     @PersistenceContext(unitName = "io.seqware_seqware-admin-webservice_war_1.0-SNAPSHOTPU")
     private EntityManager em;
 
+    /**
+     * The models that an accession can be translated to, by the table the sw_accession_registry gives for the accession
+     */
+    private static final Map<String, Class<?>> TRANSLATED_MODELS = new HashMap<>();
+
+    static {
+        TRANSLATED_MODELS.put("workflow_run", WorkflowRun.class);
+        TRANSLATED_MODELS.put("experiment", Experiment.class);
+        TRANSLATED_MODELS.put("ius", Ius.class);
+        TRANSLATED_MODELS.put("lane", Lane.class);
+        TRANSLATED_MODELS.put("processing", Processing.class);
+        TRANSLATED_MODELS.put("sample", Sample.class);
+        TRANSLATED_MODELS.put("sequencer_run", SequencerRun.class);
+        TRANSLATED_MODELS.put("study", Study.class);
+    }
+
     /**
      * Returns a tuple describing the class and accession given only an accession
      * 
@@ -58,69 +76,15 @@ public class UtilityREST {
     @Path("translateSWID/{accession}")
     @Produces({ "application/json" })
     public ModelAccessionIDTuple find(@PathParam("accession") Integer accession) {
-        Object target;
-        try {
-            target = em.createQuery("select wr from WorkflowRun wr WHERE wr.swAccession = " + accession, WorkflowRun.class)
-                    .getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((WorkflowRun) target).getWorkflowRunId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-            /**
-             * ignore, does the JPA API really have no way of checking whether a result is available except by exception?
-             */
-        }
-        try {
-            target = em.createQuery("select e from Experiment e WHERE e.swAccession = " + accession, Experiment.class).getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((Experiment) target).getExperimentId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-        }
-        try {
-            target = em.createQuery("select i from Ius i WHERE i.swAccession = " + accession, Ius.class).getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((Ius) target).getIusId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-        }
-        try {
-            target = em.createQuery("select l from Lane l WHERE l.swAccession = " + accession, Lane.class).getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((Lane) target).getLaneId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-        }
-        try {
-            target = em.createQuery("select p from Processing p WHERE p.swAccession = " + accession, Processing.class).getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((Processing) target).getProcessingId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-        }
-        try {
-            target = em.createQuery("select s from Sample s WHERE s.swAccession = " + accession, Sample.class).getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((Sample) target).getSampleId(), target.getClass().getName());
+        List<?> rows = em.createNativeQuery("SELECT table_name, id FROM sw_accession_registry WHERE sw_accession = ?1 ORDER BY table_name")
+                .setParameter(1, accession).getResultList();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            Class<?> model = TRANSLATED_MODELS.get((String) columns[0]);
+            if (model != null) {
+                return new ModelAccessionIDTuple(accession, ((Number) columns[1]).intValue(), model.getName());
             }
-        } catch (NoResultException ex) {
         }
-        try {
-            target = em.createQuery("select sr from SequencerRun sr WHERE sr.swAccession = " + accession, SequencerRun.class)
-                    .getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((SequencerRun) target).getSequencerRunId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-        }
-        try {
-            target = em.createQuery("select s from Study s WHERE s.swAccession = " + accession, Study.class).getSingleResult();
-            if (target != null) {
-                return new ModelAccessionIDTuple(accession, ((Study) target).getStudyId(), target.getClass().getName());
-            }
-        } catch (NoResultException ex) {
-        }
-
         throw new NotFoundException();
     }
 
@@ -38,6 +38,7 @@ import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.context.ContextLoader;
 
 /**
@@ -74,6 +75,7 @@ public class ContextImpl {
     private WorkflowParamService workflowParamService;
     private WorkflowParamValueService workflowParamValueService;
     private SessionFactory sessionFactory;
+    private PlatformTransactionManager transactionManager;
     private PlatformService platformService;
     private StudyTypeService studyTypeService;
     private LibrarySelectionService librarySelectionService;
@@ -514,6 +516,17 @@ public class ContextImpl {
         this.sessionFactory = sessionFactory;
     }
 
+    /**
+     * @return the transaction manager the services run their transactions with
+     */
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
     /**
      * <p>
      * Getter for the field <code>workflowParamService</code>.
@@ -108,6 +108,25 @@ public interface RegistrationService {
      */
     Registration updateDetached(Registration registration);
 
+    /**
+     * Tells the listener about each registration inserted or updated through this service from now on.
+     * 
+     * @param listener
+     */
+    void addChangeListener(ChangeListener listener);
+
+    /**
+     * Told when a registration changes, such as to forget credentials that were checked against it.
+     */
+    interface ChangeListener {
+
+        /**
+         * @param emailAddress
+         *            of the registration as it is now
+         */
+        void registrationChanged(String emailAddress);
+    }
+
 }
 
 // ex:sw=4:ts=4:
@@ -1,6 +1,8 @@
 package net.sourceforge.seqware.common.business.impl;
 
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import net.sourceforge.seqware.common.business.RegistrationService;
 import net.sourceforge.seqware.common.dao.RegistrationDAO;
 import net.sourceforge.seqware.common.invitation.InvitationParams;
@@ -22,6 +24,7 @@ import org.springframework.mail.SimpleMailMessage;
  */
 public class RegistrationServiceImpl implements RegistrationService {
     private RegistrationDAO registrationDAO = null;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * <p>
@@ -57,6 +60,7 @@ public class RegistrationServiceImpl implements RegistrationService {
         Registration registration = this.populateRegistration(registrationDTO);
         registration.setCreateTimestamp(new Date());
         registrationDAO.insert(registration);
+        changed(registration);
     }
 
     /* Updates an instance of Registration in the database. */
@@ -69,6 +73,7 @@ public class RegistrationServiceImpl implements RegistrationService {
     public void update(RegistrationDTO registrationDTO) {
         Registration registration = this.populateRegistration(registrationDTO);
         registrationDAO.update(registration);
+        changed(registration);
     }
 
     /** {@inheritDoc} */
@@ -252,7 +257,21 @@ public class RegistrationServiceImpl implements RegistrationService {
     /** {@inheritDoc} */
     @Override
     public Registration updateDetached(Registration registration) {
-        return registrationDAO.updateDetached(registration);
+        Registration updated = registrationDAO.updateDetached(registration);
+        changed(registration);
+        return updated;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    private void changed(Registration registration) {
+        for (ChangeListener listener : listeners) {
+            listener.registrationChanged(registration.getEmailAddress());
+        }
     }
 }
 
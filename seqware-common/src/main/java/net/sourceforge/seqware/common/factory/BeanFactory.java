@@ -35,6 +35,7 @@ import net.sourceforge.seqware.common.business.WorkflowParamValueService;
 import net.sourceforge.seqware.common.business.WorkflowRunService;
 import net.sourceforge.seqware.common.business.WorkflowService;
 import org.hibernate.SessionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  * <p>
@@ -283,6 +284,13 @@ public abstract class BeanFactory {
 
     }
 
+    /**
+     * @return the transaction manager the services run their transactions with, for work that spans several of them
+     */
+    public static PlatformTransactionManager getTransactionManagerBean() {
+        return ContextImpl.getInstance().getTransactionManager();
+    }
+
     /**
      * <p>
      * getPlatformServiceBean.
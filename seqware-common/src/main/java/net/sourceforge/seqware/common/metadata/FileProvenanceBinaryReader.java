@@ -0,0 +1,239 @@
+package net.sourceforge.seqware.common.metadata;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sourceforge.seqware.common.metadata.FileProvenanceBinaryWriter.ColumnType;
+
+/**
+ * Reads a report written by {@link FileProvenanceBinaryWriter}, one block of rows at a time.
+ *
+ * Each block is read into a reused buffer and decoded straight into per-column arrays. Integer columns are never turned into strings
+ * unless {@link #getString(int)} is called, and a repeated dictionary value is the same String instance on every row it appears in.
+ *
+ * <pre>
+ * while (reader.next()) {
+ *     int fileSWID = reader.getInt(fileColumn);
+ * }
+ * </pre>
+ */
+public class FileProvenanceBinaryReader implements Closeable {
+
+    private final DataInputStream in;
+    private final String[] names;
+    private final ColumnType[] types;
+    private final List<List<String>> dictionaries = new ArrayList<>();
+
+    private byte[] buffer = new byte[8192];
+    private ByteBuffer payload;
+    private boolean[][] nulls;
+    private long[][] integers;
+    private String[][] strings;
+    private int rows = 0;
+    private int row = -1;
+    private boolean done = false;
+
+    public FileProvenanceBinaryReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[FileProvenanceBinaryWriter.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, FileProvenanceBinaryWriter.MAGIC)) {
+            throw new IOException("Not a binary file provenance report");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != FileProvenanceBinaryWriter.VERSION) {
+            throw new IOException("Unsupported binary file provenance report version " + version);
+        }
+        int columns = (int) readVarint(this.in);
+        names = new String[columns];
+        types = new ColumnType[columns];
+        for (int col = 0; col < columns; col++) {
+            byte[] name = new byte[(int) readVarint(this.in)];
+            this.in.readFully(name);
+            names[col] = new String(name, StandardCharsets.UTF_8).intern();
+            types[col] = ColumnType.values()[this.in.readUnsignedByte()];
+            dictionaries.add(new ArrayList<String>());
+        }
+        nulls = new boolean[columns][];
+        integers = new long[columns][];
+        strings = new String[columns][];
+    }
+
+    /**
+     * @return the column names, in order
+     */
+    public List<String> getHeader() {
+        List<String> list = new ArrayList<>(names.length);
+        Collections.addAll(list, names);
+        return list;
+    }
+
+    public ColumnType getType(int col) {
+        return types[col];
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return false once every row has been read
+     */
+    public boolean next() throws IOException {
+        row++;
+        while (row >= rows) {
+            if (done || !readBlock()) {
+                done = true;
+                return false;
+            }
+            row = 0;
+        }
+        return true;
+    }
+
+    public boolean isNull(int col) {
+        return nulls[col][row];
+    }
+
+    /**
+     * @return the value of an INTEGER column, 0 when null
+     */
+    public long getLong(int col) {
+        if (types[col] != ColumnType.INTEGER) {
+            throw new IllegalStateException("Column " + names[col] + " is not an integer column");
+        }
+        return integers[col][row];
+    }
+
+    /**
+     * @return the value of an INTEGER column, 0 when null
+     */
+    public int getInt(int col) {
+        return (int) getLong(col);
+    }
+
+    /**
+     * @return the value of any column as a string, null when null
+     */
+    public String getString(int col) {
+        if (nulls[col][row]) {
+            return null;
+        }
+        if (types[col] == ColumnType.INTEGER) {
+            return Long.toString(integers[col][row]);
+        }
+        return strings[col][row];
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        in.close();
+    }
+
+    private boolean readBlock() throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            throw new IOException("Binary file provenance report ended without an end marker", e);
+        }
+        if (length == 0) {
+            return false;
+        }
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        in.readFully(buffer, 0, length);
+        payload = ByteBuffer.wrap(buffer, 0, length);
+        rows = (int) readVarint(payload);
+        for (int col = 0; col < names.length; col++) {
+            nulls[col] = readNulls(nulls[col], rows);
+            switch (types[col]) {
+            case INTEGER:
+                integers[col] = integers[col] == null || integers[col].length < rows ? new long[rows] : integers[col];
+                for (int i = 0; i < rows; i++) {
+                    if (nulls[col][i]) {
+                        integers[col][i] = 0;
+                    } else {
+                        long zigzag = readVarint(payload);
+                        integers[col][i] = (zigzag >>> 1) ^ -(zigzag & 1);
+                    }
+                }
+                break;
+            case DICTIONARY:
+                strings[col] = strings[col] == null || strings[col].length < rows ? new String[rows] : strings[col];
+                List<String> dictionary = dictionaries.get(col);
+                for (int i = 0; i < rows; i++) {
+                    if (nulls[col][i]) {
+                        strings[col][i] = null;
+                    } else {
+                        int index = (int) readVarint(payload);
+                        if (index == dictionary.size()) {
+                            dictionary.add(readString(payload));
+                        }
+                        strings[col][i] = dictionary.get(index);
+                    }
+                }
+                break;
+            case TEXT:
+                strings[col] = strings[col] == null || strings[col].length < rows ? new String[rows] : strings[col];
+                for (int i = 0; i < rows; i++) {
+                    strings[col][i] = nulls[col][i] ? null : readString(payload);
+                }
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean[] readNulls(boolean[] reuse, int count) {
+        boolean[] result = reuse == null || reuse.length < count ? new boolean[count] : reuse;
+        int bytes = (count + 7) / 8;
+        for (int b = 0; b < bytes; b++) {
+            int bits = payload.get() & 0xFF;
+            for (int bit = 0; bit < 8 && b * 8 + bit < count; bit++) {
+                result[b * 8 + bit] = (bits & (1 << bit)) != 0;
+            }
+        }
+        return result;
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = (int) readVarint(buf);
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+
+    private static long readVarint(ByteBuffer buf) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+}
@@ -0,0 +1,223 @@
+package net.sourceforge.seqware.common.metadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the file provenance report in a compact binary form, the alternative to the tab-separated report for clients that ask for
+ * {@link #MEDIA_TYPE}. Read it back with {@link FileProvenanceBinaryReader}.
+ *
+ * Layout:
+ *
+ * <pre>
+ * "SWFP" version:byte columns:varint (name:string type:byte)*
+ * (length:int32 payload)* 0:int32
+ * payload = rows:varint (nulls:bitmap values)* -- one entry per column
+ * </pre>
+ *
+ * Values are stored column by column within each block of rows. INTEGER columns hold zig-zag varints, TEXT columns hold strings and
+ * DICTIONARY columns hold an index into a per-column dictionary that grows as the report is written: an index equal to the current size
+ * of the dictionary is followed by the new string. Strings are a varint byte length followed by UTF-8. Null values are only recorded in
+ * the bitmap.
+ */
+public class FileProvenanceBinaryWriter implements Closeable {
+
+    public static final String MEDIA_TYPE = "application/x-seqware-file-provenance";
+    static final byte[] MAGIC = { 'S', 'W', 'F', 'P' };
+    static final int VERSION = 1;
+    /**
+     * Rows per block, bounds the memory used on both ends of the connection.
+     */
+    static final int BLOCK_ROWS = 1024;
+
+    public enum ColumnType {
+        INTEGER, DICTIONARY, TEXT
+    }
+
+    private final OutputStream out;
+    private final ColumnType[] types;
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    private final List<Object[]> block = new ArrayList<>(BLOCK_ROWS);
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private boolean finished = false;
+
+    /**
+     * @param out
+     *            where the report is written, not closed by this writer
+     * @param names
+     *            column names, in order
+     * @param types
+     *            column types, in the same order
+     */
+    public FileProvenanceBinaryWriter(OutputStream out, List<String> names, List<ColumnType> types) throws IOException {
+        if (names.size() != types.size()) {
+            throw new IllegalArgumentException("Expected a type for each of the " + names.size() + " columns but got " + types.size());
+        }
+        this.out = out;
+        this.types = types.toArray(new ColumnType[types.size()]);
+        for (int i = 0; i < this.types.length; i++) {
+            dictionaries.add(new HashMap<String, Integer>());
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(MAGIC);
+        header.write(VERSION);
+        writeVarint(header, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            writeString(header, names.get(i));
+            header.write(this.types[i].ordinal());
+        }
+        header.writeTo(out);
+    }
+
+    /**
+     * Writes every row of a report query.
+     *
+     * @param rs
+     *            the report rows, columns in the same order as names
+     * @param names
+     *            the column names sent to clients
+     * @param textColumns
+     *            labels of result set columns whose values rarely repeat, these are sent as plain strings rather than dictionary encoded
+     * @param out
+     *            where the report is written
+     */
+    public static void write(ResultSet rs, List<String> names, Set<String> textColumns, OutputStream out) throws SQLException, IOException {
+        ResultSetMetaData md = rs.getMetaData();
+        List<ColumnType> types = new ArrayList<>();
+        for (int col = 1; col <= md.getColumnCount(); col++) {
+            switch (md.getColumnType(col)) {
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                types.add(ColumnType.INTEGER);
+                break;
+            default:
+                types.add(textColumns.contains(md.getColumnLabel(col)) ? ColumnType.TEXT : ColumnType.DICTIONARY);
+            }
+        }
+        try (FileProvenanceBinaryWriter writer = new FileProvenanceBinaryWriter(out, names, types)) {
+            Object[] row = new Object[types.size()];
+            while (rs.next()) {
+                for (int col = 0; col < row.length; col++) {
+                    row[col] = rs.getObject(col + 1);
+                }
+                writer.writeRow(row);
+            }
+        }
+    }
+
+    /**
+     * @param values
+     *            one value per column, numbers for INTEGER columns, anything else is written as its string form
+     */
+    public void writeRow(Object[] values) throws IOException {
+        if (values.length != types.length) {
+            throw new IllegalArgumentException("Expected " + types.length + " values but got " + values.length);
+        }
+        block.add(values.clone());
+        if (block.size() >= BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Writes any buffered rows and the end marker. The underlying stream is flushed but left open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        flushBlock();
+        writeInt(out, 0);
+        out.flush();
+    }
+
+    private void flushBlock() throws IOException {
+        if (block.isEmpty()) {
+            return;
+        }
+        payload.reset();
+        writeVarint(payload, block.size());
+        byte[] nulls = new byte[(block.size() + 7) / 8];
+        for (int col = 0; col < types.length; col++) {
+            for (int i = 0; i < nulls.length; i++) {
+                nulls[i] = 0;
+            }
+            for (int row = 0; row < block.size(); row++) {
+                if (block.get(row)[col] == null) {
+                    nulls[row >> 3] |= 1 << (row & 7);
+                }
+            }
+            payload.write(nulls);
+            for (Object[] row : block) {
+                Object value = row[col];
+                if (value != null) {
+                    writeValue(col, value);
+                }
+            }
+        }
+        writeInt(out, payload.size());
+        payload.writeTo(out);
+        block.clear();
+    }
+
+    private void writeValue(int col, Object value) throws IOException {
+        switch (types[col]) {
+        case INTEGER:
+            long l = ((Number) value).longValue();
+            writeVarint(payload, (l << 1) ^ (l >> 63));
+            break;
+        case DICTIONARY:
+            String s = value.toString();
+            Map<String, Integer> dictionary = dictionaries.get(col);
+            Integer index = dictionary.get(s);
+            if (index == null) {
+                writeVarint(payload, dictionary.size());
+                writeString(payload, s);
+                dictionary.put(s, dictionary.size());
+            } else {
+                writeVarint(payload, index);
+            }
+            break;
+        case TEXT:
+            writeString(payload, value.toString());
+            break;
+        }
+    }
+
+    private static void writeString(OutputStream os, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(os, bytes.length);
+        os.write(bytes);
+    }
+
+    private static void writeVarint(OutputStream os, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            os.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        os.write((int) value);
+    }
+
+    private static void writeInt(OutputStream os, int value) throws IOException {
+        os.write(value >>> 24);
+        os.write(value >>> 16);
+        os.write(value >>> 8);
+        os.write(value);
+    }
+}
@@ -0,0 +1,225 @@
+package net.sourceforge.seqware.common.metadata;
+
+import com.google.common.collect.AbstractIterator;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.Rethrow;
+
+/**
+ * Reads the file provenance report one row at a time, either from the tab-separated report or from the binary form written by
+ * {@link FileProvenanceBinaryWriter}.
+ *
+ * Only the current line (or block, for the binary form) is held in memory. Column names are interned, so every row map shares the same
+ * key instances. Callers must close the iterator (or exhaust it) to release the underlying connection.
+ */
+public abstract class FileProvenanceRowIterator extends AbstractIterator<Map<String, String>> implements Closeable {
+
+    private final Closeable resource;
+    private String[] header = new String[0];
+    private boolean closed = false;
+
+    private FileProvenanceRowIterator(Closeable resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * @param reader
+     *            the tab-separated report, starting with the header line
+     * @param resource
+     *            released when the iterator is closed, may be null
+     * @return an iterator over the rows of the report
+     */
+    public static FileProvenanceRowIterator tsv(Reader reader, Closeable resource) {
+        return new TsvRowIterator(reader, resource);
+    }
+
+    /**
+     * @param in
+     *            the binary report
+     * @param resource
+     *            released when the iterator is closed, may be null
+     * @return an iterator over the rows of the report
+     * @throws IOException
+     *             if the stream does not start with a binary report header
+     */
+    public static FileProvenanceRowIterator binary(InputStream in, Closeable resource) throws IOException {
+        return new BinaryRowIterator(new FileProvenanceBinaryReader(in), resource);
+    }
+
+    /**
+     * An iterator over an empty report.
+     *
+     * @return an iterator with no rows
+     */
+    public static FileProvenanceRowIterator empty() {
+        return tsv(new StringReader(""), null);
+    }
+
+    /**
+     * @return the column names of the report, in order
+     */
+    public List<String> getHeader() {
+        List<String> list = new ArrayList<>(header.length);
+        Collections.addAll(list, header);
+        return list;
+    }
+
+    @Override
+    protected Map<String, String> computeNext() {
+        Map<String, String> row = null;
+        if (!closed) {
+            try {
+                row = readRow();
+            } catch (IOException ex) {
+                close();
+                throw Rethrow.rethrow(ex);
+            }
+        }
+        if (row == null) {
+            close();
+            return endOfData();
+        }
+        return row;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeSource();
+        } catch (IOException ex) {
+            Log.error("Could not close file provenance report", ex);
+        }
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (IOException ex) {
+                Log.error("Could not release file provenance report", ex);
+            }
+        }
+    }
+
+    /**
+     * @return the next row, null at the end of the report
+     */
+    protected abstract Map<String, String> readRow() throws IOException;
+
+    protected abstract void closeSource() throws IOException;
+
+    protected String[] header() {
+        return header;
+    }
+
+    protected void setHeader(List<String> columns) {
+        header = new String[columns.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = columns.get(i).intern();
+        }
+    }
+
+    protected Map<String, String> newRow() {
+        return new HashMap<>((int) (header.length / 0.75f) + 1);
+    }
+
+    private static class TsvRowIterator extends FileProvenanceRowIterator {
+
+        private final BufferedReader reader;
+
+        TsvRowIterator(Reader reader, Closeable resource) {
+            super(resource);
+            this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+            String line;
+            try {
+                line = this.reader.readLine();
+            } catch (IOException ex) {
+                close();
+                throw Rethrow.rethrow(ex);
+            }
+            if (line != null) {
+                setHeader(split(line));
+            }
+        }
+
+        @Override
+        protected Map<String, String> readRow() throws IOException {
+            String line = reader.readLine();
+            while (line != null && line.isEmpty()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            String[] header = header();
+            List<String> values = split(line);
+            Map<String, String> m = newRow();
+            for (int col = 0; col < values.size() && col < header.length; col++) {
+                m.put(header[col], values.get(col));
+            }
+            return m;
+        }
+
+        @Override
+        protected void closeSource() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Unlike String.split, keeps empty columns so that values stay aligned with the header.
+         */
+        private static List<String> split(String line) {
+            List<String> columns = new ArrayList<>();
+            int start = 0;
+            int tab;
+            while ((tab = line.indexOf('\t', start)) >= 0) {
+                columns.add(line.substring(start, tab));
+                start = tab + 1;
+            }
+            columns.add(line.substring(start));
+            return columns;
+        }
+    }
+
+    private static class BinaryRowIterator extends FileProvenanceRowIterator {
+
+        private final FileProvenanceBinaryReader reader;
+
+        BinaryRowIterator(FileProvenanceBinaryReader reader, Closeable resource) {
+            super(resource);
+            this.reader = reader;
+            setHeader(reader.getHeader());
+        }
+
+        @Override
+        protected Map<String, String> readRow() throws IOException {
+            if (!reader.next()) {
+                return null;
+            }
+            String[] header = header();
+            Map<String, String> m = newRow();
+            for (int col = 0; col < header.length; col++) {
+                // the tab-separated report has no nulls, keep rows identical whichever form was read
+                String value = reader.getString(col);
+                m.put(header[col], value == null ? "" : value);
+            }
+            return m;
+        }
+
+        @Override
+        protected void closeSource() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -472,6 +472,52 @@ public interface Metadata {
      */
     List<WorkflowRun> getWorkflowRunsAssociatedWithInputFiles(List<Integer> fileAccessions, List<Integer> workflowAccessions);
 
+    /**
+     * Finds the same workflow runs as {@link #getWorkflowRunsAssociatedWithInputFiles(List, List)} in a single query, for callers that
+     * only need to know which files each run used and how it ended.
+     * 
+     * Only the accession, workflow accession, status and input file accessions of the returned runs are filled in.
+     * 
+     * @param fileAccessions
+     * @param workflowAccessions
+     *            may be empty to find runs of any workflow
+     * @return
+     */
+    List<WorkflowRun> getWorkflowRunStatusesByInputFiles(List<Integer> fileAccessions, List<Integer> workflowAccessions);
+
+    /**
+     * Records processing events that have already run, such as a batch of file provisioning steps, with their files and final status.
+     * 
+     * All events are written in one transaction, either all of them are recorded or none are. Through the web service they are sent in a
+     * single request. A reserved event that already has its final status was recorded by an earlier call and is not recorded again, so a
+     * call whose answer was lost can be repeated.
+     * 
+     * @param events
+     * @return the sw_accession of each processing event, in the order given
+     */
+    List<Integer> addProcessingEvents(List<ProcessingEvent> events);
+
+    /**
+     * Queues the updates to existing objects that follow, such as annotations, instead of sending each one on its own. The queued updates
+     * are sent in chunks of chunkSize, and each chunk is applied in one transaction.
+     * 
+     * Creating an object sends the queued updates first. Reads are not held back, so a caller that reads back an object it updated in
+     * the batch must call {@link #endBatch()} first. Without a web service connection the updates are written directly and this does
+     * nothing.
+     * 
+     * @param chunkSize
+     *            the number of updates sent at a time
+     */
+    void startBatch(int chunkSize);
+
+    /**
+     * Sends the updates queued since {@link #startBatch(int)} and stops queueing.
+     * 
+     * @throws RuntimeException
+     *             if a chunk could not be applied, none of the updates of that chunk are applied
+     */
+    void endBatch();
+
     /**
      * Returns the workflow_runs associated with a group of files. Search types are defined as:
      * 
@@ -545,6 +591,21 @@ public interface Metadata {
 
     void updateWorkflowRun(WorkflowRun wr);
 
+    /**
+     * Appends output to the stdout and stderr stored for a workflow run, keeping the head and the tail of each when it grows beyond the
+     * retained size.
+     *
+     * @param workflowRunAccession
+     *            the SWID of the workflow run
+     * @param stdOut
+     *            output to append to stdout, may be null
+     * @param stdErr
+     *            output to append to stderr, may be null
+     * @param retainedSize
+     *            the maximum number of characters of stdout and of stderr to keep
+     */
+    void appendWorkflowRunLogs(int workflowRunAccession, String stdOut, String stdErr, int retainedSize);
+
     /**
      * <p>
      * addWorkflow.
@@ -629,6 +690,15 @@ public interface Metadata {
      */
     public void fileProvenanceReportTrigger();
 
+    /**
+     * Triggers the file provenance report.
+     * 
+     * @param rebuild
+     *            if true, the report is rebuilt from scratch, otherwise only the rows affected by changes since the last refresh are
+     *            re-derived
+     */
+    public void fileProvenanceReportTrigger(boolean rebuild);
+
     /**
      * Retrieves the file provenance report, writing it to the specified output stream as a TSV.
      * 
@@ -648,6 +718,19 @@ public interface Metadata {
      */
     public List<Map<String, String>> fileProvenanceReport(Map<FileProvenanceParam, List<String>> params);
 
+    /**
+     * Streams the file provenance report one row at a time rather than loading it into memory. The returned iterator must be closed
+     * once the caller is done with it.
+     * 
+     * @param params
+     *            the parameters to filter the results
+     * @param groupBy
+     *            optional report header (e.g. "Sample SWID"). When given, rows sharing a value in this column are returned next to each
+     *            other, and groups are ordered by their most recent file SWID, newest first. May be null.
+     * @return an iterator over the report rows, keyed by header
+     */
+    public FileProvenanceRowIterator fileProvenanceReportIterator(Map<FileProvenanceParam, List<String>> params, String groupBy);
+
     /**
      * <p>
      * isDuplicateFile.
@@ -670,6 +753,20 @@ public interface Metadata {
      */
     public List<WorkflowRun> getWorkflowRunsByStatus(WorkflowRunStatus status);
 
+    /**
+     * Finds the workflow runs in any of a set of statuses for callers that poll them, such as the status checker and the launcher,
+     * without their logs, INI or workflow.
+     * 
+     * Only the accession, workflow accession, status, status command, workflow engine, host, owner user name, working directory and
+     * update time of the returned runs are filled in.
+     * 
+     * @param statuses
+     * @param updatedSince
+     *            if not null, only runs updated after this time are returned
+     * @return
+     */
+    List<WorkflowRun> getWorkflowRunStatuses(Set<WorkflowRunStatus> statuses, Date updatedSince);
+
     /**
      * <p>
      * getWorkflowRunWithWorkflow.
@@ -1175,6 +1272,14 @@ public interface Metadata {
      */
     public List<Object> getViaAccessions(int[] potentialAccessions);
 
+    /**
+     * Finds which kind of entity an accession belongs to, in a single lookup of the sw_accession_registry table.
+     * 
+     * @param swAccession
+     * @return the table of the entity, such as sample or workflow_run, or null if no entity has this accession
+     */
+    public String getAccessionTable(int swAccession);
+
     public Study getStudyByName(String name);
 
     public List<Sample> getSampleByName(String name);
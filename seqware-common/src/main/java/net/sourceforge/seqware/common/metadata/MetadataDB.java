@@ -15,12 +15,12 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import javax.sql.DataSource;
-import net.sourceforge.seqware.common.factory.DBAccess;
 import net.sourceforge.seqware.common.model.Experiment;
 import net.sourceforge.seqware.common.model.ExperimentAttribute;
 import net.sourceforge.seqware.common.model.ExperimentLibraryDesign;
@@ -56,10 +56,12 @@ import net.sourceforge.seqware.common.module.FileMetadata;
 import net.sourceforge.seqware.common.module.ReturnValue;
 import net.sourceforge.seqware.common.util.Bool;
 import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.TruncatedLog;
 import net.sourceforge.seqware.common.util.maptools.MapTools;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.lang.NotImplementedException;
+import org.apache.commons.lang.StringUtils;
 import org.apache.tomcat.dbcp.dbcp.BasicDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -132,6 +134,11 @@ public class MetadataDB implements Metadata {
         throw new NotImplementedException("This is currently not implemented for a direct DB connection!");
     }
 
+    @Override
+    public FileProvenanceRowIterator fileProvenanceReportIterator(Map<FileProvenanceParam, List<String>> params, String groupBy) {
+        throw new NotImplementedException("This is currently not implemented for a direct DB connection!");
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -309,8 +316,6 @@ public class MetadataDB implements Metadata {
             logger.error("SQL Command failed: " + sql.toString());
             return new ReturnValue(null, "Could not execute one of the SQL commands: " + sql.toString() + "\nException: " + e.getMessage(),
                     ReturnValue.SQLQUERYFAILED);
-        } finally {
-            DBAccess.close();
         }
 
         /*
@@ -851,6 +856,37 @@ public class MetadataDB implements Metadata {
         throw new NotImplementedException("This is currently not implemented for a direct DB connection!");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void appendWorkflowRunLogs(int workflowRunAccession, String stdOut, String stdErr, int retainedSize) {
+        String sql = "select stdout, stderr from workflow_run where sw_accession = " + workflowRunAccession;
+        PreparedStatement ps = null;
+        try {
+            String[] logs = executeQuery(sql, new ResultSetHandler<String[]>() {
+                @Override
+                public String[] handle(ResultSet rs) throws SQLException {
+                    return rs.next() ? new String[] { rs.getString("stdout"), rs.getString("stderr") } : null;
+                }
+            });
+            if (logs == null) {
+                throw new RuntimeException("No workflow run found with SWID " + workflowRunAccession);
+            }
+            sql = "update workflow_run set stdout = ?, stderr = ?, update_tstmp = now() where sw_accession = ?";
+            ps = this.getDb().prepareStatement(sql);
+            ps.setString(1, TruncatedLog.append(logs[0], stdOut, retainedSize));
+            ps.setString(2, TruncatedLog.append(logs[1], stdErr, retainedSize));
+            ps.setInt(3, workflowRunAccession);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("SQL Command failed: " + sql + ":" + e.getMessage());
+            throw new RuntimeException(e);
+        } finally {
+            DbUtils.closeQuietly(ps);
+        }
+    }
+
     /**
      * <p>
      * linkProcessingAndFile.
@@ -1320,6 +1356,11 @@ public class MetadataDB implements Metadata {
         throw new NotImplementedException("This method is not supported through the direct MetaDB connection!");
     }
 
+    @Override
+    public void fileProvenanceReportTrigger(boolean rebuild) {
+        throw new NotImplementedException("This method is not supported through the direct MetaDB connection!");
+    }
+
     @Override
     public List<Sample> getSampleByName(String name) {
         throw new NotImplementedException("This method is not supported through the direct MetaDB connection!");
@@ -1453,6 +1494,54 @@ public class MetadataDB implements Metadata {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * Reads the short columns of workflow_run only, using the (status, update_tstmp) index.
+     */
+    @Override
+    public List<WorkflowRun> getWorkflowRunStatuses(Set<WorkflowRunStatus> statuses, Date updatedSince) {
+        if (statuses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT r.workflow_run_id, r.sw_accession, w.sw_accession AS workflow_swa, r.status, r.status_cmd, r.workflow_engine, ");
+        sql.append("r.host, reg.email, r.current_working_dir, r.update_tstmp ");
+        sql.append("FROM workflow_run r JOIN workflow w ON w.workflow_id = r.workflow_id ");
+        sql.append("LEFT JOIN registration reg ON reg.registration_id = r.owner_id ");
+        sql.append("WHERE r.status IN ('").append(StringUtils.join(statuses, "','")).append("')");
+        if (updatedSince != null) {
+            sql.append(" AND r.update_tstmp > '").append(new Timestamp(updatedSince.getTime())).append("'");
+        }
+        sql.append(" ORDER BY r.sw_accession");
+        try {
+            return executeQuery(sql.toString(), new ResultSetHandler<List<WorkflowRun>>() {
+                @Override
+                public List<WorkflowRun> handle(ResultSet rs) throws SQLException {
+                    List<WorkflowRun> results = new ArrayList<>();
+                    while (rs.next()) {
+                        WorkflowRun wr = new WorkflowRun();
+                        wr.setWorkflowRunId(rs.getInt("workflow_run_id"));
+                        wr.setSwAccession(rs.getInt("sw_accession"));
+                        wr.setWorkflowAccession(rs.getInt("workflow_swa"));
+                        wr.setStatus(WorkflowRunStatus.valueOf(rs.getString("status")));
+                        wr.setStatusCmd(rs.getString("status_cmd"));
+                        wr.setWorkflowEngine(rs.getString("workflow_engine"));
+                        wr.setHost(rs.getString("host"));
+                        wr.setOwnerUserName(rs.getString("email"));
+                        wr.setCurrentWorkingDir(rs.getString("current_working_dir"));
+                        wr.setUpdateTimestamp(rs.getTimestamp("update_tstmp"));
+                        results.add(wr);
+                    }
+                    return results;
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("SQL Command failed: " + sql + ":" + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1784,6 +1873,128 @@ public class MetadataDB implements Metadata {
         throw new NotImplementedException("This method is not supported through the direct MetaDB connection!");
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * Answered from workflow_run_input_files alone, one row per run with its input files aggregated.
+     */
+    @Override
+    public List<WorkflowRun> getWorkflowRunStatusesByInputFiles(List<Integer> fileAccessions, List<Integer> workflowAccessions) {
+        if (fileAccessions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT r.sw_accession AS workflow_run_swa, w.sw_accession AS workflow_swa, r.status, ");
+        sql.append("string_agg(f.sw_accession::text, ',' ORDER BY f.sw_accession) AS input_file_swas ");
+        sql.append("FROM workflow_run r JOIN workflow w ON w.workflow_id = r.workflow_id ");
+        sql.append("JOIN workflow_run_input_files rf ON rf.workflow_run_id = r.workflow_run_id ");
+        sql.append("JOIN file f ON f.file_id = rf.file_id ");
+        sql.append("WHERE r.workflow_run_id IN (SELECT mrf.workflow_run_id FROM workflow_run_input_files mrf ");
+        sql.append("JOIN file mf ON mf.file_id = mrf.file_id WHERE mf.sw_accession IN (");
+        sql.append(StringUtils.join(fileAccessions, ',')).append("))");
+        if (!workflowAccessions.isEmpty()) {
+            sql.append(" AND w.sw_accession IN (").append(StringUtils.join(workflowAccessions, ',')).append(")");
+        }
+        sql.append(" GROUP BY r.sw_accession, w.sw_accession, r.status ORDER BY r.sw_accession");
+        try {
+            return executeQuery(sql.toString(), new ResultSetHandler<List<WorkflowRun>>() {
+                @Override
+                public List<WorkflowRun> handle(ResultSet rs) throws SQLException {
+                    List<WorkflowRun> results = new ArrayList<>();
+                    while (rs.next()) {
+                        WorkflowRun wr = new WorkflowRun();
+                        wr.setSwAccession(rs.getInt("workflow_run_swa"));
+                        wr.setWorkflowAccession(rs.getInt("workflow_swa"));
+                        String status = rs.getString("status");
+                        wr.setStatus(status == null ? null : WorkflowRunStatus.valueOf(status));
+                        Set<Integer> inputFiles = new HashSet<>();
+                        for (String swa : rs.getString("input_file_swas").split(",")) {
+                            inputFiles.add(Integer.valueOf(swa));
+                        }
+                        wr.setInputFileAccessions(inputFiles);
+                        results.add(wr);
+                    }
+                    return results;
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("SQL Command failed: " + sql + ":" + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> addProcessingEvents(List<ProcessingEvent> events) {
+        boolean autoCommit = true;
+        try {
+            autoCommit = db.getAutoCommit();
+            db.setAutoCommit(false);
+            List<Integer> accessions = ProcessingEvent.record(this, events, new ProcessingEvent.StatusLookup() {
+                @Override
+                public ProcessingStatus getStatus(int processingId) {
+                    return lockProcessingStatus(processingId);
+                }
+            });
+            db.commit();
+            return accessions;
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Could not record " + events.size() + " processing events, rolling back: " + e.getMessage());
+            try {
+                db.rollback();
+            } catch (SQLException ex) {
+                logger.error("Rollback failed: " + ex.getMessage());
+            }
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+        } finally {
+            try {
+                db.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                logger.error("Could not restore auto-commit: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Locks the row of a processing event until the end of the transaction, so that two calls recording the same event take turns and
+     * the second one finds the status the first one recorded.
+     * 
+     * @return the status of the processing event, null if there is none
+     */
+    private ProcessingStatus lockProcessingStatus(int processingId) {
+        String sql = "select status from processing where processing_id = " + processingId + " for update";
+        try {
+            String status = executeQuery(sql, new ResultSetHandler<String>() {
+                @Override
+                public String handle(ResultSet rs) throws SQLException {
+                    return rs.next() ? rs.getString("status") : null;
+                }
+            });
+            return status == null ? null : ProcessingStatus.valueOf(status);
+        } catch (SQLException e) {
+            logger.error("SQL Command failed: " + sql);
+            throw new RuntimeException(e);
+        } catch (IllegalArgumentException e) {
+            // a status this version does not know, which cannot be a final one
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Updates through the direct MetaDB connection are not queued.
+     */
+    @Override
+    public void startBatch(int chunkSize) {
+    }
+
+    @Override
+    public void endBatch() {
+    }
+
     @Override
     public List<WorkflowRun> getWorkflowRunsAssociatedWithFiles(List<Integer> fileAccessions, String search_type) {
         throw new NotImplementedException("This method is not supported through the direct MetaDB connection!");
@@ -1839,4 +2050,20 @@ public class MetadataDB implements Metadata {
         throw new NotImplementedException("This method is not supported through the direct MetaDB connection!");
     }
 
+    @Override
+    public String getAccessionTable(int swAccession) {
+        String sql = "SELECT table_name FROM sw_accession_registry WHERE sw_accession = " + swAccession + " ORDER BY table_name LIMIT 1";
+        try {
+            return executeQuery(sql, new ResultSetHandler<String>() {
+                @Override
+                public String handle(ResultSet rs) throws SQLException {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("SQL Command failed: " + sql + ":" + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
 }
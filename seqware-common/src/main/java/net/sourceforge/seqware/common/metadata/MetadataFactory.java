@@ -29,7 +29,9 @@ public final class MetadataFactory {
             throw new RuntimeException("Missing some of the following required settings: SW_REST_URL, SW_REST_USER, SW_REST_PASS");
         }
 
-        return new MetadataWS(url, user, pass);
+        MetadataWS ws = new MetadataWS(url, user, pass);
+        ws.setJson("json".equalsIgnoreCase(settings.get("SW_REST_FORMAT")));
+        return ws;
     }
 
     public static MetadataDB getDB(Map<String, String> settings) {
@@ -80,6 +80,11 @@ public class MetadataNoConnection implements Metadata {
         return Collections.emptyList();
     }
 
+    @Override
+    public FileProvenanceRowIterator fileProvenanceReportIterator(Map<FileProvenanceParam, List<String>> params, String groupBy) {
+        return FileProvenanceRowIterator.empty();
+    }
+
     /** {@inheritDoc} */
     @Override
     public ReturnValue addStudy(String title, String description, String centerName, String centerProjectName, Integer studyTypeId) {
@@ -325,6 +330,12 @@ public class MetadataNoConnection implements Metadata {
         logger.info("No metadata connection");
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void appendWorkflowRunLogs(int workflowRunAccession, String stdOut, String stdErr, int retainedSize) {
+        logger.info("No metadata connection");
+    }
+
     /** {@inheritDoc} */
     @Override
     public ReturnValue update_processing_event(int processingID, ReturnValue retval) {
@@ -412,6 +423,13 @@ public class MetadataNoConnection implements Metadata {
         return new ArrayList<>();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<WorkflowRun> getWorkflowRunStatuses(Set<WorkflowRunStatus> statuses, Date updatedSince) {
+        logger.info("No metadata connection");
+        return new ArrayList<>();
+    }
+
     /** {@inheritDoc} */
     @Override
     public WorkflowRun getWorkflowRunWithWorkflow(String workflowRunAccession) {
@@ -668,6 +686,24 @@ public class MetadataNoConnection implements Metadata {
         return new ArrayList<>();
     }
 
+    @Override
+    public List<WorkflowRun> getWorkflowRunStatusesByInputFiles(List<Integer> fileAccessions, List<Integer> workflowAccessions) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Integer> addProcessingEvents(List<ProcessingEvent> events) {
+        return ProcessingEvent.record(this, events);
+    }
+
+    @Override
+    public void startBatch(int chunkSize) {
+    }
+
+    @Override
+    public void endBatch() {
+    }
+
     @Override
     public List<WorkflowRun> getWorkflowRunsAssociatedWithFiles(List<Integer> fileAccessions, String search_type) {
         return new ArrayList<>();
@@ -731,11 +767,22 @@ public class MetadataNoConnection implements Metadata {
         return null;
     }
 
+    @Override
+    public String getAccessionTable(int swAccession) {
+        logger.info("No metadata connection");
+        return null;
+    }
+
     @Override
     public void fileProvenanceReportTrigger() {
         logger.info("No metadata connection");
     }
 
+    @Override
+    public void fileProvenanceReportTrigger(boolean rebuild) {
+        logger.info("No metadata connection");
+    }
+
     @Override
     public Study getStudyByName(String name) {
         logger.info("No metadata connection");
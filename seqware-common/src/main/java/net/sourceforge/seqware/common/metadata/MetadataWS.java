@@ -19,6 +19,8 @@ package net.sourceforge.seqware.common.metadata;
 import io.seqware.common.model.ProcessingStatus;
 import io.seqware.common.model.SequencerRunStatus;
 import io.seqware.common.model.WorkflowRunStatus;
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
@@ -29,9 +31,12 @@ import java.security.cert.X509Certificate;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,6 +47,7 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import javax.xml.bind.JAXBException;
 import net.sourceforge.seqware.common.err.NotFoundException;
+import net.sourceforge.seqware.common.model.BatchOperation;
 import net.sourceforge.seqware.common.model.Experiment;
 import net.sourceforge.seqware.common.model.ExperimentAttribute;
 import net.sourceforge.seqware.common.model.ExperimentLibraryDesign;
@@ -76,6 +82,7 @@ import net.sourceforge.seqware.common.model.WorkflowParam;
 import net.sourceforge.seqware.common.model.WorkflowParamValue;
 import net.sourceforge.seqware.common.model.WorkflowRun;
 import net.sourceforge.seqware.common.model.WorkflowRunAttribute;
+import net.sourceforge.seqware.common.model.lists.BatchOperationList;
 import net.sourceforge.seqware.common.model.lists.ExperimentLibraryDesignList;
 import net.sourceforge.seqware.common.model.lists.ExperimentList;
 import net.sourceforge.seqware.common.model.lists.ExperimentSpotDesignList;
@@ -88,6 +95,7 @@ import net.sourceforge.seqware.common.model.lists.LibrarySourceList;
 import net.sourceforge.seqware.common.model.lists.LibraryStrategyList;
 import net.sourceforge.seqware.common.model.lists.OrganismList;
 import net.sourceforge.seqware.common.model.lists.PlatformList;
+import net.sourceforge.seqware.common.model.lists.ProcessingEventList;
 import net.sourceforge.seqware.common.model.lists.SampleList;
 import net.sourceforge.seqware.common.model.lists.SequencerRunList;
 import net.sourceforge.seqware.common.model.lists.StudyList;
@@ -102,19 +110,21 @@ import net.sourceforge.seqware.common.util.maptools.MapTools;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang.StringUtils;
 import org.restlet.Client;
 import org.restlet.Context;
 import org.restlet.data.ChallengeScheme;
+import org.restlet.data.MediaType;
 import org.restlet.data.Parameter;
 import org.restlet.data.Protocol;
 import org.restlet.data.Status;
 import org.restlet.ext.ssl.SslContextFactory;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
 import org.restlet.util.Series;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -128,8 +138,23 @@ public class MetadataWS implements Metadata {
         System.getProperties().put("org.restlet.engine.loggerFacadeClass", "org.restlet.ext.slf4j.Slf4jLoggerFacade");
     }
 
+    private static final int ACCESSION_CACHE_SIZE = 10000;
+
     private String version;
     private LowLevel ll;
+    /**
+     * The table of each accession looked up in the registry, least recently used first. Accessions never move to another table.
+     */
+    private final Map<Integer, String> accessionTables = Collections.synchronizedMap(new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > ACCESSION_CACHE_SIZE;
+        }
+    });
+    /**
+     * False once the web service turns out to have no accession registry, accessions are then resolved by trying each table.
+     */
+    private volatile boolean accessionRegistry = true;
 
     /**
      * <p>
@@ -143,6 +168,15 @@ public class MetadataWS implements Metadata {
         ll = new LowLevel(database, username, password);
     }
 
+    /**
+     * Sends and asks for JSON rather than XML, which is smaller to send for the same objects. The web service has to support it.
+     * 
+     * @param json
+     */
+    public void setJson(boolean json) {
+        ll.setJson(json);
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -660,7 +694,56 @@ public class MetadataWS implements Metadata {
         return results;
     }
 
+    @Override
+    public String getAccessionTable(int swAccession) {
+        String table = accessionTables.get(swAccession);
+        if (table == null) {
+            table = ll.findAccessionTable(swAccession);
+            if (table == null) {
+                return null;
+            }
+            if (!table.matches("[a-z_]+")) {
+                // older web services answer with a description of the accession
+                accessionRegistry = false;
+                throw new NotImplementedException("This web service has no accession registry");
+            }
+            accessionTables.put(swAccession, table);
+        }
+        return table;
+    }
+
+    /**
+     * @param searchString
+     *            an accession "/SWA" or parent_id "?id=X"
+     * @return the table of the accession, "" if no entity has it, or null if the registry cannot tell and each table must be tried
+     */
+    private String registeredTable(String searchString) {
+        if (!accessionRegistry || !searchString.matches("/\\d+")) {
+            return null;
+        }
+        try {
+            String table = getAccessionTable(Integer.parseInt(searchString.substring(1)));
+            return table == null ? "" : table;
+        } catch (NotImplementedException e) {
+            Log.info(e.getMessage() + ", trying each table instead");
+            return null;
+        }
+    }
+
     private Object resolveSWA(String searchString) {
+        String table = registeredTable(searchString);
+        if (table != null) {
+            switch (table) {
+            case "workflow_run":
+                return ll.existsWorkflowRun(searchString);
+            case "file":
+                return ll.existsFile(searchString);
+            case "workflow":
+                return ll.existsWorkflow(searchString);
+            default:
+                return resolveParentAccession(searchString, table);
+            }
+        }
         ParentAccessionModel resolveParentAccession = this.resolveParentAccession(searchString);
         if (resolveParentAccession == null) {
             // check SWA in classes that are not parent accessions
@@ -681,12 +764,44 @@ public class MetadataWS implements Metadata {
         return resolveParentAccession;
     }
 
+    /**
+     * @param searchString
+     *            an accession "/SWA"
+     * @param table
+     *            the table of the accession in the registry
+     * @return null if the accession does not belong to a parent
+     */
+    private ParentAccessionModel resolveParentAccession(String searchString, String table) {
+        switch (table) {
+        case "processing":
+            return ll.existsProcessing(searchString);
+        case "lane":
+            return ll.existsLane(searchString);
+        case "ius":
+            return ll.existsIUS(searchString);
+        case "sequencer_run":
+            return ll.existsSequencerRun(searchString);
+        case "study":
+            return ll.existsStudy(searchString);
+        case "experiment":
+            return ll.existsExperiment(searchString);
+        case "sample":
+            return ll.existsSample(searchString);
+        default:
+            return null;
+        }
+    }
+
     /**
      * @param searchString
      *            resolve an accession "/SWA" or parent_id "?id=X"
      * @return null if the searchString cannot be resolved;
      */
     private ParentAccessionModel resolveParentAccession(String searchString) {
+        String table = registeredTable(searchString);
+        if (table != null) {
+            return resolveParentAccession(searchString, table);
+        }
 
         Processing pr;
         Lane l;
@@ -1005,31 +1120,41 @@ public class MetadataWS implements Metadata {
 
     @Override
     public void fileProvenanceReportTrigger() {
-        ll.getString("/reports/file-provenance/generate", new HashMap());
+        fileProvenanceReportTrigger(false);
+    }
+
+    @Override
+    public void fileProvenanceReportTrigger(boolean rebuild) {
+        Map<String, List<String>> params = new HashMap<>();
+        if (rebuild) {
+            params.put("rebuild", Arrays.asList("true"));
+        }
+        ll.getString("/reports/file-provenance/generate", params);
     }
 
     @Override
     public List<Map<String, String>> fileProvenanceReport(Map<FileProvenanceParam, List<String>> params) {
-        String tsv = ll.getString("/reports/file-provenance", params);
         List<Map<String, String>> list = new ArrayList<>();
-        if (tsv == null) {
-            return list;
-        }
-        String[] lines = tsv.split("\n");
-        if (lines.length > 1) {
-            String[] header = lines[0].split("\t");
-            for (int line = 1; line < lines.length; line++) {
-                Map<String, String> m = new HashMap<>();
-                String[] row = lines[line].split("\t");
-                for (int col = 0; col < row.length; col++) {
-                    m.put(header[col], row[col]);
-                }
-                list.add(m);
+        try (FileProvenanceRowIterator rows = fileProvenanceReportIterator(params, null)) {
+            while (rows.hasNext()) {
+                list.add(rows.next());
             }
         }
         return list;
     }
 
+    @Override
+    public FileProvenanceRowIterator fileProvenanceReportIterator(Map<FileProvenanceParam, List<String>> params, String groupBy) {
+        Map<String, List<String>> query = new HashMap<>();
+        for (Map.Entry<FileProvenanceParam, List<String>> e : params.entrySet()) {
+            query.put(e.getKey().toString(), e.getValue());
+        }
+        if (groupBy != null) {
+            query.put("group-by", Arrays.asList(groupBy));
+        }
+        return ll.readRows("/reports/file-provenance", query);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1397,6 +1522,18 @@ public class MetadataWS implements Metadata {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void appendWorkflowRunLogs(int workflowRunAccession, String stdOut, String stdErr, int retainedSize) {
+        try {
+            ll.appendWorkflowRunLogs(workflowRunAccession, stdOut, stdErr, retainedSize);
+        } catch (IOException | JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private String format(String variable, String defaultStr) {
 
         if ((variable == null || "".equals(variable)) && (defaultStr != null && !"".equals(defaultStr))) {
@@ -1599,6 +1736,23 @@ public class MetadataWS implements Metadata {
         return new ArrayList<>();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WorkflowRun> getWorkflowRunStatuses(Set<WorkflowRunStatus> statuses, Date updatedSince) {
+        try {
+            if (statuses.size() > 0) {
+                return ll.findWorkflowRunStatuses(statuses, updatedSince);
+            } else {
+                return new ArrayList<>();
+            }
+        } catch (IOException ex) {
+            Log.fatal("IOException", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -2501,6 +2655,54 @@ public class MetadataWS implements Metadata {
         }
     }
 
+    @Override
+    public List<WorkflowRun> getWorkflowRunStatusesByInputFiles(List<Integer> fileAccessions, List<Integer> workflowAccessions) {
+        try {
+            if (fileAccessions.size() > 0) {
+                return ll.findWorkflowRunStatusesByFiles(fileAccessions, workflowAccessions);
+            } else {
+                return new ArrayList<>();
+            }
+        } catch (IOException ex) {
+            Log.fatal("IOException", ex);
+            throw new RuntimeException(ex);
+        } catch (JAXBException ex) {
+            Log.fatal("JAXBException", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The web service has no transactions, so the events are recorded one after the other and a failure part way leaves the earlier
+     * events in place.
+     */
+    @Override
+    public List<Integer> addProcessingEvents(List<ProcessingEvent> events) {
+        try {
+            return ll.addProcessingEvents(events);
+        } catch (IOException | JAXBException ex) {
+            Log.error("Could not record " + events.size() + " processing events " + ex.getMessage());
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public void startBatch(int chunkSize) {
+        ll.startBatch(chunkSize);
+    }
+
+    @Override
+    public void endBatch() {
+        try {
+            ll.endBatch();
+        } catch (IOException ex) {
+            Log.error("IOException while sending a batch " + ex.getMessage());
+            wrapAsRuntimeException(ex);
+        }
+    }
+
     @Override
     public List<WorkflowRun> getWorkflowRunsAssociatedWithFiles(List<Integer> fileAccessions, String search_type) {
         try {
@@ -2637,6 +2839,15 @@ public class MetadataWS implements Metadata {
     protected class LowLevel {
 
         private ClientResource resource;
+        /**
+         * The updates queued since {@link #startBatch(int)}, null when updates are sent directly.
+         */
+        private BatchOperationList batch = null;
+        private int batchSize;
+        /**
+         * The format objects are sent and asked for in, see {@link MetadataWS#setJson(boolean)}.
+         */
+        private MediaType mediaType = MediaType.APPLICATION_XML;
 
         public LowLevel(String database, String username, String password) {
             Client client = null;
@@ -3049,6 +3260,85 @@ public class MetadataWS implements Metadata {
             return wrl2.getList();
         }
 
+        /**
+         * Reads the tab-separated answer of /reports/fileworkflowruns/status, one workflow run per line after the header.
+         */
+        private List<WorkflowRun> findWorkflowRunStatusesByFiles(List<Integer> files, List<Integer> workflows) throws IOException,
+                JAXBException {
+            IntegerList fileInput = new IntegerList();
+            fileInput.setList(files);
+            String query = workflows.size() > 0 ? "?workflows=" + StringUtils.join(workflows.iterator(), ',') : "";
+            ClientResource cResource = resource.getChild(version + "/reports/fileworkflowruns/status" + query);
+            Representation result = cResource.post(XmlTools.getRepresentation(new JaxbObject<IntegerList>(), fileInput));
+            List<WorkflowRun> runs = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(result.getReader())) {
+                // skip the header
+                String line = reader.readLine();
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    String[] columns = line.split("\t");
+                    WorkflowRun run = new WorkflowRun();
+                    run.setSwAccession(Integer.valueOf(columns[0]));
+                    run.setWorkflowAccession(Integer.valueOf(columns[1]));
+                    run.setStatus("null".equals(columns[2]) ? null : WorkflowRunStatus.valueOf(columns[2]));
+                    Set<Integer> inputFiles = new HashSet<>();
+                    for (String file : columns[3].split(",")) {
+                        inputFiles.add(Integer.valueOf(file));
+                    }
+                    run.setInputFileAccessions(inputFiles);
+                    runs.add(run);
+                }
+            } finally {
+                result.release();
+                cResource.release();
+            }
+            return runs;
+        }
+
+        /**
+         * Reads the tab-separated answer of /reports/workflowrunstatuses, one workflow run per line after the header.
+         */
+        private List<WorkflowRun> findWorkflowRunStatuses(Set<WorkflowRunStatus> statuses, Date updatedSince) throws IOException {
+            String query = "?status=" + StringUtils.join(statuses.iterator(), ',');
+            if (updatedSince != null) {
+                query += "&updated-since=" + updatedSince.getTime();
+            }
+            ClientResource cResource = resource.getChild(version + "/reports/workflowrunstatuses" + query);
+            Representation result = cResource.get();
+            List<WorkflowRun> runs = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(result.getReader())) {
+                // skip the header
+                String line = reader.readLine();
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    String[] columns = line.split("\t", -1);
+                    WorkflowRun run = new WorkflowRun();
+                    run.setSwAccession(Integer.valueOf(columns[0]));
+                    run.setWorkflowAccession(Integer.valueOf(columns[1]));
+                    run.setStatus(WorkflowRunStatus.valueOf(columns[2]));
+                    run.setStatusCmd(emptyToNull(columns[3]));
+                    run.setWorkflowEngine(emptyToNull(columns[4]));
+                    run.setHost(emptyToNull(columns[5]));
+                    run.setOwnerUserName(emptyToNull(columns[6]));
+                    run.setCurrentWorkingDir(emptyToNull(columns[7]));
+                    run.setUpdateTimestamp(columns[8].isEmpty() ? null : new Date(Long.parseLong(columns[8])));
+                    runs.add(run);
+                }
+            } finally {
+                result.release();
+                cResource.release();
+            }
+            return runs;
+        }
+
+        private String emptyToNull(String column) {
+            return column.isEmpty() ? null : column;
+        }
+
         private List<WorkflowRun> findWorkflowRunsByFiles(List<Integer> files, String search_type) throws IOException, JAXBException {
             WorkflowRunList2 w = new WorkflowRunList2();
             JaxbObject<WorkflowRunList2> jaxb = new JaxbObject<>();
@@ -3142,6 +3432,32 @@ public class MetadataWS implements Metadata {
             }
         }
 
+        /**
+         * Asks for the binary form of a report, falling back to the tab-separated form when the server does not offer it.
+         */
+        private FileProvenanceRowIterator readRows(String url, Map<?, ? extends List<?>> params) {
+            final ClientResource cResource = resource.getChild(version + url);
+            addQueryParams(cResource, params);
+            final Representation result = cResource.get(MediaType.valueOf(FileProvenanceBinaryWriter.MEDIA_TYPE));
+            Closeable release = new Closeable() {
+                @Override
+                public void close() throws IOException {
+                    result.release();
+                    cResource.release();
+                }
+            };
+            try {
+                if (MediaType.valueOf(FileProvenanceBinaryWriter.MEDIA_TYPE).equals(result.getMediaType(), true)) {
+                    return FileProvenanceRowIterator.binary(result.getStream(), release);
+                }
+                return FileProvenanceRowIterator.tsv(result.getReader(), release);
+            } catch (IOException e) {
+                result.release();
+                cResource.release();
+                throw Rethrow.rethrow(e);
+            }
+        }
+
         private void writeTo(String url, Writer out) {
             writeTo(url, null, out);
         }
@@ -3250,9 +3566,8 @@ public class MetadataWS implements Metadata {
             ClientResource cResource = resource.getChild(version + uri + searchString);
             try {
                 Log.info("getObject: " + cResource);
-                result = cResource.get();
-                String text = result.getText();
-                parent = XmlTools.unMarshal(jaxb, parent, text);
+                result = cResource.get(mediaType);
+                parent = XmlTools.unMarshal(jaxb, parent, result);
             } catch (SAXException ex) {
                 Log.error("MetadataWS.findObject with search string " + searchString + " encountered error " + ex.getMessage());
                 ex.printStackTrace();
@@ -3278,6 +3593,111 @@ public class MetadataWS implements Metadata {
             return parent;
         }
 
+        /**
+         * @return the table the web service has registered for the accession, null if it has none
+         */
+        private String findAccessionTable(int swAccession) {
+            Representation result = null;
+            ClientResource cResource = resource.getChild(version + "/SWA/" + swAccession);
+            try {
+                result = cResource.get();
+                return result.getText().trim();
+            } catch (ResourceException e) {
+                if (e.getStatus().equals(Status.CLIENT_ERROR_NOT_FOUND)) {
+                    return null;
+                }
+                throw e;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                if (result != null) {
+                    result.release();
+                }
+                if (cResource.getResponseEntity() != null) {
+                    cResource.getResponseEntity().release();
+                }
+                cResource.release();
+            }
+        }
+
+        private void setJson(boolean json) {
+            mediaType = json ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_XML;
+        }
+
+        /**
+         * @return the object as the entity of a request in the format of this client
+         */
+        private Representation entity(JaxbObject jaxb, Object o) {
+            return XmlTools.getRepresentation(jaxb, o, mediaType);
+        }
+
+        /**
+         * @return the object as the entity of a request in a batch, in the format of this client
+         */
+        private String entityText(JaxbObject jaxb, Object o) throws JAXBException {
+            return MediaType.APPLICATION_JSON.equals(mediaType) ? jaxb.marshalJson(o) : jaxb.marshal(o);
+        }
+
+        private void startBatch(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("A batch needs at least one update per chunk, not " + chunkSize);
+            }
+            if (batch == null) {
+                batch = new BatchOperationList();
+            }
+            batchSize = chunkSize;
+        }
+
+        private void endBatch() throws IOException {
+            try {
+                flushBatch();
+            } finally {
+                batch = null;
+            }
+        }
+
+        /**
+         * Sends the queued updates to the batch resource, which applies them in one transaction.
+         */
+        private void flushBatch() throws IOException {
+            if (batch == null || batch.getList().isEmpty()) {
+                return;
+            }
+            BatchOperationList chunk = batch;
+            batch = new BatchOperationList();
+            JaxbObject<BatchOperationList> jaxb = new JaxbObject<>();
+            Representation result = null;
+            ClientResource cResource = resource.getChild(version + "/batch");
+            Log.debug("flushBatch: " + chunk.getList().size() + " updates to " + cResource);
+            try {
+                result = cResource.post(entity(jaxb, chunk), mediaType);
+            } catch (ResourceException e) {
+                // the response lists each update that ran, the last one is the one that failed
+                try {
+                    BatchOperationList ran = (BatchOperationList) XmlTools.unMarshal(jaxb, new BatchOperationList(),
+                            cResource.getResponseEntity());
+                    for (BatchOperation operation : ran.getList()) {
+                        if (operation.getStatus() >= 400) {
+                            Log.error("Batch failed at " + operation + ": " + operation.getResponse());
+                        }
+                    }
+                } catch (IOException | SAXException | RuntimeException ex) {
+                    Log.error("Could not read the response of the failed batch " + ex.getMessage());
+                }
+                Log.fatal("Batch of " + chunk.getList().size() + " updates was rolled back: " + e.getMessage());
+                throw new RuntimeException(e);
+            } finally {
+                if (result != null) {
+                    result.exhaust();
+                    result.release();
+                }
+                if (cResource.getResponseEntity() != null) {
+                    cResource.getResponseEntity().release();
+                }
+                cResource.release();
+            }
+        }
+
         private void updateWorkflow(String searchString, Workflow parent) throws IOException, JAXBException, ResourceException {
             JaxbObject<Workflow> jaxbProcess = new JaxbObject<>();
             updateObject("/workflows", searchString, jaxbProcess, parent);
@@ -3293,6 +3713,41 @@ public class MetadataWS implements Metadata {
             updateObject("/workflowruns", searchString, jaxb, parent);
         }
 
+        /**
+         * Posts only the new output of a run, or queues it when a batch is open. The web service appends it to what it has stored.
+         */
+        private void appendWorkflowRunLogs(int workflowRunAccession, String stdOut, String stdErr, int retainedSize) throws IOException,
+                JAXBException, ResourceException {
+            WorkflowRun logs = new WorkflowRun();
+            logs.setSwAccession(workflowRunAccession);
+            logs.setStdOut(stdOut);
+            logs.setStdErr(stdErr);
+            JaxbObject<WorkflowRun> jaxb = new JaxbObject<>();
+            String uri = "/workflowruns/" + workflowRunAccession + "/logs?retainedSize=" + retainedSize;
+            if (batch != null) {
+                batch.add(new BatchOperation("POST", uri, entityText(jaxb, logs)));
+                if (batch.getList().size() >= batchSize) {
+                    flushBatch();
+                }
+                return;
+            }
+            Representation result = null;
+            ClientResource cResource = resource.getChild(version + uri);
+            Log.debug("appendWorkflowRunLogs: " + cResource);
+            try {
+                result = cResource.post(entity(jaxb, logs), mediaType);
+            } catch (ResourceException e) {
+                Log.fatal("appendWorkflowRunLogs did not complete successfully: " + cResource);
+                throw new RuntimeException(e);
+            } finally {
+                if (result != null) {
+                    result.exhaust();
+                    result.release();
+                }
+                cResource.release();
+            }
+        }
+
         private void updateLane(String searchString, Lane parent) throws IOException, JAXBException, ResourceException {
             JaxbObject<Lane> jaxb = new JaxbObject<>();
             updateObject("/lanes", searchString, jaxb, parent);
@@ -3332,12 +3787,18 @@ public class MetadataWS implements Metadata {
                 ResourceException {
             Representation result = null;
             Log.debug("Updating object: " + parent.getClass().getCanonicalName() + " " + searchString);
+            if (batch != null) {
+                batch.add(new BatchOperation("PUT", uri + searchString, entityText(jaxb, parent)));
+                if (batch.getList().size() >= batchSize) {
+                    flushBatch();
+                }
+                return;
+            }
             ClientResource cResource = resource.getChild(version + uri + searchString);
             Log.debug("updateObject: " + cResource);
             try {
-                Document text = XmlTools.marshalToDocument(jaxb, parent);
-                result = cResource.put(XmlTools.getRepresentation(text));
-                Log.info("update object \n" + XmlTools.getRepresentation(text).getText());
+                result = cResource.put(entity(jaxb, parent), mediaType);
+                Log.info("updated object " + parent.getClass().getSimpleName() + " " + searchString);
             } catch (ResourceException ex) {
                 Log.fatal("updateObject did not complete successfully: " + cResource);
                 throw new RuntimeException(ex);
@@ -3411,18 +3872,33 @@ public class MetadataWS implements Metadata {
             return (IUS) addObject("/ius", "", jaxb, ius);
         }
 
+        /**
+         * Records the events in one transaction on the web service, which follows the queued updates.
+         */
+        private List<Integer> addProcessingEvents(List<ProcessingEvent> events) throws IOException, JAXBException {
+            ProcessingEventList list = new ProcessingEventList();
+            list.setList(events);
+            Object result = addObject("/processingevents", "", new JaxbObject<ProcessingEventList>(), list, new JaxbObject<IntegerList>(),
+                    new IntegerList());
+            if (!(result instanceof IntegerList) || ((IntegerList) result).getList().size() != events.size()) {
+                throw new RuntimeException("The web service did not return the accessions of the " + events.size() + " processing events");
+            }
+            return ((IntegerList) result).getList();
+        }
+
         private Object addObject(String uri, String searchString, JaxbObject jaxb, Object parent) throws IOException, JAXBException {
             return this.addObject(uri, searchString, jaxb, parent, jaxb, parent);
         }
 
         private Object addObject(String uri, String searchString, JaxbObject jaxb, Object parent, JaxbObject outJaxb, Object outParent)
                 throws IOException, JAXBException, ResourceException {
+            // the new object may depend on the queued updates
+            flushBatch();
             Representation result = null;
             ClientResource cResource = resource.getChild(version + uri + searchString);
             Log.debug("addObject: " + cResource);
-            Document s = XmlTools.marshalToDocument(jaxb, parent);
             try {
-                result = cResource.post(XmlTools.getRepresentation(s));
+                result = cResource.post(entity(jaxb, parent), mediaType);
                 if (result != null) {
                     String text = result.getText();
                     Log.info("addObject to web service: \n " + text);
@@ -3431,7 +3907,7 @@ public class MetadataWS implements Metadata {
                     } else {
                         try {
                             Log.debug("addObject:" + text);
-                            parent = XmlTools.unMarshal(outJaxb, outParent, text);
+                            parent = XmlTools.unMarshal(outJaxb, outParent, new StringRepresentation(text, result.getMediaType()));
                         } catch (SAXException ex) {
                             throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY);
                         }
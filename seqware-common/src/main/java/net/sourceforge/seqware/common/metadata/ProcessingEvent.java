@@ -0,0 +1,178 @@
+package net.sourceforge.seqware.common.metadata;
+
+import io.seqware.common.model.ProcessingStatus;
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import net.sourceforge.seqware.common.util.Log;
+
+/**
+ * A processing event that has already run, for recording after the fact with {@link Metadata#addProcessingEvents(List)}.
+ *
+ * Carries what the Runner would otherwise write piecemeal around a single module run: the parents, the workflow run links, the module's
+ * ReturnValue (including its files) and the final status. An event can also be one that was reserved before it ran, with
+ * add_empty_processing_event, in which case that processing event is filled in instead of a new one being created.
+ */
+public class ProcessingEvent {
+
+    private int processingId = 0;
+    private int swAccession = 0;
+    private int[] parentAccessions = new int[0];
+    private int workflowRunAccession = 0;
+    private int ancestorWorkflowRunAccession = 0;
+    private ReturnValue returnValue = new ReturnValue();
+    private ProcessingStatus status = ProcessingStatus.success;
+
+    public int getProcessingId() {
+        return processingId;
+    }
+
+    /**
+     * @param processingId
+     *            the processing event reserved for this event, 0 to create a new one. Its parents are already set.
+     */
+    public void setProcessingId(int processingId) {
+        this.processingId = processingId;
+    }
+
+    public int getSwAccession() {
+        return swAccession;
+    }
+
+    /**
+     * @param swAccession
+     *            the sw_accession of the reserved processing event, if known
+     */
+    public void setSwAccession(int swAccession) {
+        this.swAccession = swAccession;
+    }
+
+    public int[] getParentAccessions() {
+        return parentAccessions;
+    }
+
+    public void setParentAccessions(int[] parentAccessions) {
+        this.parentAccessions = parentAccessions;
+    }
+
+    public int getWorkflowRunAccession() {
+        return workflowRunAccession;
+    }
+
+    public void setWorkflowRunAccession(int workflowRunAccession) {
+        this.workflowRunAccession = workflowRunAccession;
+    }
+
+    public int getAncestorWorkflowRunAccession() {
+        return ancestorWorkflowRunAccession;
+    }
+
+    public void setAncestorWorkflowRunAccession(int ancestorWorkflowRunAccession) {
+        this.ancestorWorkflowRunAccession = ancestorWorkflowRunAccession;
+    }
+
+    public ReturnValue getReturnValue() {
+        return returnValue;
+    }
+
+    public void setReturnValue(ReturnValue returnValue) {
+        this.returnValue = returnValue;
+    }
+
+    public ProcessingStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ProcessingStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Looks up the status of a processing event that was reserved before it ran.
+     */
+    interface StatusLookup {
+
+        /**
+         * @param processingId
+         * @return the status the processing event has now, null if it cannot be found
+         */
+        ProcessingStatus getStatus(int processingId);
+    }
+
+    /**
+     * Records each event with the same calls the Runner makes for a single one, without skipping events that were recorded already.
+     *
+     * @see #record(Metadata, List, StatusLookup)
+     */
+    static List<Integer> record(Metadata meta, List<ProcessingEvent> events) {
+        return record(meta, events, new StatusLookup() {
+            @Override
+            public ProcessingStatus getStatus(int processingId) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Records each event with the same calls the Runner makes for a single one.
+     *
+     * The final status is the last thing recorded for an event, in the same transaction as the rest, so a reserved event that already has
+     * one was recorded by an earlier call whose answer was lost, such as a run that died before it could journal the commit. Such an
+     * event is skipped rather than recorded again, which would add its files a second time.
+     *
+     * @param lookup
+     *            finds the status of reserved events
+     * @return the sw_accession of each processing event, in order
+     * @throws RuntimeException
+     *             on the first call that fails
+     */
+    static List<Integer> record(Metadata meta, List<ProcessingEvent> events, StatusLookup lookup) {
+        List<Integer> accessions = new ArrayList<>(events.size());
+        for (ProcessingEvent event : events) {
+            int processingId = event.getProcessingId();
+            if (processingId != 0 && isFinal(lookup.getStatus(processingId))) {
+                Log.info("Processing event " + processingId + " was already recorded, skipping it");
+                accessions.add(accession(meta, event, processingId));
+                continue;
+            }
+            if (processingId == 0) {
+                ReturnValue ret;
+                if (event.getParentAccessions().length > 0) {
+                    ret = meta.add_empty_processing_event_by_parent_accession(event.getParentAccessions());
+                } else {
+                    ret = meta.add_empty_processing_event(new int[0]);
+                }
+                check(ret, "add processing event");
+                processingId = ret.getReturnValue();
+            }
+            if (event.getAncestorWorkflowRunAccession() > 0) {
+                meta.add_workflow_run_ancestor(event.getAncestorWorkflowRunAccession(), processingId);
+            }
+            if (event.getWorkflowRunAccession() > 0) {
+                check(meta.update_processing_workflow_run(processingId, event.getWorkflowRunAccession()), "link workflow run");
+            }
+            check(meta.update_processing_event(processingId, event.getReturnValue()), "update processing event " + processingId);
+            check(meta.update_processing_status(processingId, event.getStatus()), "update status of processing event " + processingId);
+            accessions.add(accession(meta, event, processingId));
+        }
+        return accessions;
+    }
+
+    private static boolean isFinal(ProcessingStatus status) {
+        return status == ProcessingStatus.success || status == ProcessingStatus.failed;
+    }
+
+    private static int accession(Metadata meta, ProcessingEvent event, int processingId) {
+        int accession = event.getSwAccession() != 0 ? event.getSwAccession() : meta.mapProcessingIdToAccession(processingId);
+        if (accession < 0) {
+            throw new RuntimeException("Could not find the accession of processing event " + processingId);
+        }
+        return accession;
+    }
+
+    private static void check(ReturnValue ret, String what) {
+        if (ret == null || ret.getExitStatus() != ReturnValue.SUCCESS) {
+            throw new RuntimeException("Could not " + what + (ret == null || ret.getStderr() == null ? "" : ": " + ret.getStderr()));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.sourceforge.seqware.common.model;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * One request in a batch sent to the web service's /batch resource, and once the batch has run, its response.
+ */
+@XmlRootElement
+public class BatchOperation {
+
+    private String method;
+    private String path;
+    private String entity;
+    private int status = 0;
+    private String response;
+
+    public BatchOperation() {
+    }
+
+    /**
+     * @param method
+     *            the HTTP method, such as PUT
+     * @param path
+     *            relative to the web service root, such as /files/123
+     * @param entity
+     *            the XML request body, or null
+     */
+    public BatchOperation(String method, String path, String entity) {
+        this.method = method;
+        this.path = path;
+        this.entity = entity;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * @return the HTTP status of the response, 0 if the request was not run
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the response body
+     */
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path + (status == 0 ? "" : " -> " + status);
+    }
+}
@@ -0,0 +1,29 @@
+package net.sourceforge.seqware.common.model.lists;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.seqware.common.model.BatchOperation;
+
+/**
+ * The requests of a batch for the /batch resource, in the order they are run.
+ */
+public class BatchOperationList {
+
+    protected List<BatchOperation> tList;
+
+    public BatchOperationList() {
+        tList = new ArrayList<>();
+    }
+
+    public List<BatchOperation> getList() {
+        return tList;
+    }
+
+    public void setList(List<BatchOperation> list) {
+        this.tList = list;
+    }
+
+    public void add(BatchOperation operation) {
+        tList.add(operation);
+    }
+}
@@ -0,0 +1,29 @@
+package net.sourceforge.seqware.common.model.lists;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.seqware.common.metadata.ProcessingEvent;
+
+/**
+ * The processing events sent to the web service's /processingevents resource, recorded in the order they are listed.
+ */
+public class ProcessingEventList {
+
+    protected List<ProcessingEvent> tList;
+
+    public ProcessingEventList() {
+        tList = new ArrayList<>();
+    }
+
+    public List<ProcessingEvent> getList() {
+        return tList;
+    }
+
+    public void setList(List<ProcessingEvent> list) {
+        this.tList = list;
+    }
+
+    public void add(ProcessingEvent event) {
+        tList.add(event);
+    }
+}
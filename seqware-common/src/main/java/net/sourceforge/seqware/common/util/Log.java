@@ -16,9 +16,16 @@
  */
 package net.sourceforge.seqware.common.util;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.lang.time.FastDateFormat;
+import org.apache.log4j.Appender;
+import org.apache.log4j.AsyncAppender;
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -29,13 +36,58 @@ import org.apache.log4j.PatternLayout;
  * Log class.
  * </p>
  * 
+ * The logger of the calling class is found from the classes on the call stack rather than a full stack trace, kept once found, and only
+ * asked to log when its level is enabled. With {@link #setAsynchronous(int)} the appenders are fed from a buffer by a background thread.
+ * 
  * @author yongliang
  * @version $Id: $Id
  */
 public class Log {
 
-    private static boolean verbose;
-    private final static DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+    /**
+     * The system property that turns on asynchronous logging with the given buffer size, see {@link #setAsynchronous(int)}.
+     */
+    public static final String ASYNC_BUFFER_SIZE_PROPERTY = "seqware.log.async";
+
+    private static volatile boolean verbose;
+    private final static FastDateFormat dateFormat = FastDateFormat.getInstance("yyyy/MM/dd HH:mm:ss");
+    /**
+     * The logger of each class that has logged, already set up for verbose output when that was asked for.
+     */
+    private static final ConcurrentMap<String, Logger> loggers = new ConcurrentHashMap<>();
+    private static final CallerResolver callerResolver = CallerResolver.create();
+    private static Appender verboseAppender;
+    private static final List<AsyncAppender> asyncAppenders = Collections.synchronizedList(new ArrayList<AsyncAppender>());
+
+    static {
+        setAsynchronousFromProperty(System.getProperty(ASYNC_BUFFER_SIZE_PROPERTY));
+    }
+
+    /**
+     * Turns on asynchronous logging with the buffer size given by {@link #ASYNC_BUFFER_SIZE_PROPERTY}. A value that is not a positive
+     * number leaves logging synchronous with a warning, rather than failing the class initialization.
+     * 
+     * @param bufferSize
+     *            the value of the property, null when it is not set
+     * @return whether logging is now asynchronous
+     */
+    static boolean setAsynchronousFromProperty(String bufferSize) {
+        if (bufferSize == null) {
+            return false;
+        }
+        try {
+            int size = Integer.parseInt(bufferSize.trim());
+            if (size > 0) {
+                setAsynchronous(size);
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            // warned below
+        }
+        Logger.getLogger(Log.class).warn(
+                ASYNC_BUFFER_SIZE_PROPERTY + " is set to " + bufferSize + ", which is not a positive number, logging synchronously");
+        return false;
+    }
 
     /**
      * See {@link org.apache.log4j.Logger#debug(Object)}.
@@ -44,9 +96,10 @@ public class Log {
      *            the message to log.
      */
     public static void trace(final Object message) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.trace(message);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.TRACE)) {
+            logger.trace(message);
+        }
     }
 
     /**
@@ -58,9 +111,10 @@ public class Log {
      *            the error stack trace.
      */
     public static void trace(final Object message, final Throwable t) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.trace(message, t);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.TRACE)) {
+            logger.trace(message, t);
+        }
     }
 
     /**
@@ -70,9 +124,10 @@ public class Log {
      *            the message to log.
      */
     public static void debug(final Object message) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.debug(message);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.DEBUG)) {
+            logger.debug(message);
+        }
     }
 
     /**
@@ -84,9 +139,10 @@ public class Log {
      *            the error stack trace.
      */
     public static void debug(final Object message, final Throwable t) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.debug(message, t);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.DEBUG)) {
+            logger.debug(message, t);
+        }
     }
 
     /**
@@ -96,9 +152,10 @@ public class Log {
      *            the message to log.
      */
     public static void info(final Object message) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.info(message);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.INFO)) {
+            logger.info(message);
+        }
     }
 
     /**
@@ -110,9 +167,10 @@ public class Log {
      *            the error stack trace.
      */
     public static void info(final Object message, final Throwable t) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.info(message, t);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.INFO)) {
+            logger.info(message, t);
+        }
     }
 
     /**
@@ -122,9 +180,10 @@ public class Log {
      *            the message to log.
      */
     public static void warn(final Object message) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.warn(message);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.WARN)) {
+            logger.warn(message);
+        }
     }
 
     /**
@@ -136,9 +195,10 @@ public class Log {
      *            the error stack trace.
      */
     public static void warn(final Object message, final Throwable t) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.warn(message, t);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.WARN)) {
+            logger.warn(message, t);
+        }
     }
 
     /**
@@ -148,9 +208,10 @@ public class Log {
      *            the message to log.
      */
     public static void error(final Object message) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.error(message);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.ERROR)) {
+            logger.error(message);
+        }
     }
 
     /**
@@ -162,9 +223,10 @@ public class Log {
      *            the error stack trace.
      */
     public static void error(final Object message, final Throwable t) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.error(message, t);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.ERROR)) {
+            logger.error(message, t);
+        }
     }
 
     /**
@@ -174,9 +236,10 @@ public class Log {
      *            the message to log.
      */
     public static void fatal(final Object message) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.fatal(message);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.FATAL)) {
+            logger.fatal(message);
+        }
     }
 
     /**
@@ -188,9 +251,10 @@ public class Log {
      *            the error stack trace.
      */
     public static void fatal(final Object message, final Throwable t) {
-        Logger logger = Logger.getLogger(getCallerClassName());
-        if (verbose) setVerboseLogger(logger);
-        logger.fatal(message, t);
+        Logger logger = getLogger();
+        if (logger.isEnabledFor(Level.FATAL)) {
+            logger.fatal(message, t);
+        }
     }
 
     /**
@@ -238,6 +302,65 @@ public class Log {
      */
     public static void setVerbose(boolean b) {
         Log.verbose = b;
+        // loggers are set up again the next time they are used
+        loggers.clear();
+    }
+
+    /**
+     * Hands the events of the root logger, and of verbose loggers, to a background thread that writes them, so that logging does not wait
+     * for the console or a file.
+     * 
+     * Events are buffered up to the given number. When the buffer is full further events are dropped and counted rather than blocking the
+     * caller, a summary of what was dropped is logged once there is room again. Buffered events are written when the JVM shuts down.
+     * 
+     * @param bufferSize
+     *            the number of events that can wait to be written
+     */
+    public static synchronized void setAsynchronous(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The log buffer needs room for at least one event, not " + bufferSize);
+        }
+        if (!asyncAppenders.isEmpty()) {
+            for (AsyncAppender async : asyncAppenders) {
+                async.setBufferSize(bufferSize);
+            }
+            return;
+        }
+        Logger root = Logger.getRootLogger();
+        AsyncAppender async = wrap(root.getAllAppenders(), bufferSize);
+        // removing them one by one leaves them open
+        Enumeration<?> appenders = async.getAllAppenders();
+        while (appenders.hasMoreElements()) {
+            root.removeAppender((Appender) appenders.nextElement());
+        }
+        root.addAppender(async);
+        verboseAppender = null;
+        loggers.clear();
+        Runtime.getRuntime().addShutdownHook(new Thread("log-flush") {
+            @Override
+            public void run() {
+                synchronized (asyncAppenders) {
+                    for (AsyncAppender appender : asyncAppenders) {
+                        // waits for the buffered events to be written
+                        appender.close();
+                    }
+                }
+            }
+        });
+    }
+
+    private static AsyncAppender wrap(Enumeration<?> appenders, int bufferSize) {
+        AsyncAppender async = new AsyncAppender();
+        async.setName("async");
+        async.setBufferSize(bufferSize);
+        // drop rather than wait when the buffer is full
+        async.setBlocking(false);
+        async.setLocationInfo(false);
+        while (appenders.hasMoreElements()) {
+            async.addAppender((Appender) appenders.nextElement());
+        }
+        asyncAppenders.add(async);
+        return async;
     }
 
     // Private means that this class is a static singleton.
@@ -245,54 +368,93 @@ public class Log {
     }
 
     /**
-     * Info about the logger caller
+     * @return the logger of the class actually logging the message
      */
-    private static class CallInfo {
-
-        public String className;
-        public String methodName;
-
-        public CallInfo() {
+    private static Logger getLogger() {
+        String className = callerResolver.getCallerClassName();
+        Logger logger = loggers.get(className);
+        if (logger == null) {
+            logger = Logger.getLogger(className);
+            if (verbose) {
+                setVerboseLogger(logger);
+            }
+            loggers.put(className, logger);
         }
+        return logger;
+    }
 
-        public CallInfo(String className, String methodName) {
-            this.className = className;
-            this.methodName = methodName;
+    private static synchronized void setVerboseLogger(Logger logger) {
+        if (verboseAppender == null) {
+            Appender console = new ConsoleAppender(new PatternLayout("%p [%d{yyyy/MM/dd HH:mm:ss}] | %m%n"));
+            if (asyncAppenders.isEmpty()) {
+                verboseAppender = console;
+            } else {
+                verboseAppender = wrap(Collections.enumeration(Collections.singletonList(console)), asyncAppenders.get(0)
+                        .getBufferSize());
+            }
+        }
+        logger.setLevel(Level.DEBUG);
+        if (!logger.isAttached(verboseAppender)) {
+            logger.removeAllAppenders();
+            logger.addAppender(verboseAppender);
         }
     }
 
     /**
-     * @return the className of the class actually logging the message
+     * Finds the class that called Log.
      */
-    private static String getCallerClassName() {
-        final int level = 5;
-        return getCallerClassName(level);
-    }
+    private static class CallerResolver {
 
-    /**
-     * @return the className of the class actually logging the message
-     */
-    private static String getCallerClassName(final int level) {
-        CallInfo ci = getCallerInformations(level);
-        return ci.className;
+        static CallerResolver create() {
+            try {
+                return new ClassContextResolver();
+            } catch (SecurityException e) {
+                // an installed security manager does not allow this, fall back to the stack trace
+                return new CallerResolver();
+            }
+        }
+
+        String getCallerClassName() {
+            for (StackTraceElement element : new Throwable().getStackTrace()) {
+                if (!isLog(element.getClassName())) {
+                    return element.getClassName();
+                }
+            }
+            return Log.class.getName();
+        }
+
+        /**
+         * @return true for Log and its nested classes
+         */
+        static boolean isLog(String className) {
+            return className.startsWith(Log.class.getName())
+                    && (className.length() == Log.class.getName().length() || className.charAt(Log.class.getName().length()) == '$');
+        }
     }
 
     /**
-     * Examine stack trace to get caller
-     * 
-     * @param level
-     *            method stack depth
-     * @return who called the logger
+     * Reads the classes on the call stack, which is much cheaper than building a stack trace with its method names and line numbers.
      */
-    private static CallInfo getCallerInformations(int level) {
-        StackTraceElement[] callStack = Thread.currentThread().getStackTrace();
-        StackTraceElement caller = callStack[level];
-        return new CallInfo(caller.getClassName(), caller.getMethodName());
+    private static final class ClassContextResolver extends CallerResolver {
+
+        private final ClassContext context = new ClassContext();
+
+        @Override
+        String getCallerClassName() {
+            for (Class<?> c : context.getClassContext()) {
+                if (!isLog(c.getName())) {
+                    return c.getName();
+                }
+            }
+            return Log.class.getName();
+        }
     }
 
-    private static void setVerboseLogger(Logger logger) {
-        logger.setLevel(Level.DEBUG);
-        logger.removeAllAppenders();
-        logger.addAppender(new ConsoleAppender(new PatternLayout("%p [%d{yyyy/MM/dd HH:mm:ss}] | %m%n")));
+    private static final class ClassContext extends SecurityManager {
+
+        @Override
+        protected Class<?>[] getClassContext() {
+            return super.getClassContext();
+        }
     }
 }
@@ -0,0 +1,69 @@
+package net.sourceforge.seqware.common.util;
+
+/**
+ * Keeps the output of a workflow run within a retained size, as its first half and its last half with a marker in between.
+ *
+ * Since the head of a truncated log is always the same number of characters, truncating a log again after more output was appended to it
+ * keeps the same head and moves the tail along, so a log can be grown a piece at a time without ever holding more than the retained size
+ * plus the piece.
+ */
+public class TruncatedLog {
+
+    /**
+     * The number of characters of stdout and of stderr that are kept for a run when nothing else is configured.
+     */
+    public static final int DEFAULT_RETAINED_SIZE = 4 * 1024 * 1024;
+    public static final String MARKER = "\n[... output truncated ...]\n";
+
+    /**
+     * @param retained
+     *            the output kept so far, may be null
+     * @param more
+     *            output to append, may be null
+     * @param retainedSize
+     *            the maximum number of characters to keep
+     * @return the appended output, truncated to the retained size
+     */
+    public static String append(String retained, String more, int retainedSize) {
+        if (more == null || more.isEmpty()) {
+            return retained;
+        }
+        return truncate(retained == null ? more : retained + more, retainedSize);
+    }
+
+    /**
+     * @param log
+     * @param retainedSize
+     *            the maximum number of characters to keep, a negative size keeps nothing
+     * @return the log if it fits, otherwise its head, the marker and its tail
+     */
+    public static String truncate(String log, int retainedSize) {
+        int size = Math.max(0, retainedSize);
+        if (log == null || log.length() <= size) {
+            return log;
+        }
+        if (size <= MARKER.length()) {
+            int head = size;
+            if (head > 0 && Character.isHighSurrogate(log.charAt(head - 1))) {
+                head--;
+            }
+            return log.substring(0, head);
+        }
+        // when the size leaves little room beside the marker, the tail goes first
+        int head = Math.min(size / 2, size - MARKER.length());
+        int tail = log.length() - (size - head - MARKER.length());
+        // do not split a surrogate pair, the head keeps a whole one so that it stays the same when the log is truncated again
+        if (Character.isHighSurrogate(log.charAt(head - 1))) {
+            if (tail < log.length()) {
+                head++;
+                tail++;
+            } else {
+                head--;
+            }
+        }
+        if (tail < log.length() && Character.isLowSurrogate(log.charAt(tail))) {
+            tail++;
+        }
+        return log.substring(0, head) + MARKER + log.substring(tail);
+    }
+}
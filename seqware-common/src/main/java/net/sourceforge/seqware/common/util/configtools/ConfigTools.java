@@ -21,12 +21,31 @@ public class ConfigTools {
     /** Constant <code>SEQWARE_SETTINGS_PROPERTY="SEQWARE_SETTINGS"</code> */
     public static final String SEQWARE_SETTINGS_PROPERTY = "SEQWARE_SETTINGS";
 
+    /**
+     * The settings file last read, and what it held. Replaced when the file is changed or another file is used.
+     */
+    private static volatile Snapshot snapshot;
+
     /**
      * The output keys are always uppercase!
      * 
+     * The file is only read again when it has changed since the last call, the map returned is a copy that the caller can change.
+     * 
      * @return a {@link java.util.Map} object.
      */
     public static Map<String, String> getSettings() {
+        return new HashMap<>(getSettingsSnapshot().asMap());
+    }
+
+    /**
+     * Returns the settings without copying them, for callers that only read them or read them often.
+     * 
+     * The settings file is read once per process and read again only when its modification time or size changes, or when the settings
+     * file path changes.
+     * 
+     * @return the settings as the file holds them now
+     */
+    public static Settings getSettingsSnapshot() {
 
         // first, try to figure out the location of the settings file
         String settings = getSettingsFilePath();
@@ -41,12 +60,37 @@ public class ConfigTools {
             throw new RuntimeException("The settings file " + settings + " is not a file!");
         }
 
+        long lastModified = settingsFile.lastModified();
+        long length = settingsFile.length();
+        Snapshot current = snapshot;
+        if (current != null && current.path.equals(settings) && current.lastModified == lastModified && current.length == length) {
+            return current.settings;
+        }
+
         HashMap<String, String> hm = new HashMap<>();
 
         // now read back the values from the settings file
         MapTools.ini2Map(settings, hm, true);
 
-        return (hm);
+        // threads that find the same change read the file each, the result is the same
+        current = new Snapshot(settings, lastModified, length, new Settings(hm));
+        snapshot = current;
+        return current.settings;
+    }
+
+    private static final class Snapshot {
+
+        private final String path;
+        private final long lastModified;
+        private final long length;
+        private final Settings settings;
+
+        private Snapshot(String path, long lastModified, long length, Settings settings) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.settings = settings;
+        }
     }
 
     /**
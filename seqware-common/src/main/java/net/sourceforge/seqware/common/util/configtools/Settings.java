@@ -0,0 +1,104 @@
+package net.sourceforge.seqware.common.util.configtools;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The contents of a settings file as read at one point in time, see {@link ConfigTools#getSettingsSnapshot()}.
+ *
+ * Keys are uppercase. A snapshot never changes, it can be shared between threads and kept for the length of an operation.
+ */
+public final class Settings {
+
+    private final Map<String, String> values;
+
+    Settings(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+    }
+
+    public boolean containsKey(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * @param key
+     * @return the value of the setting, or null if it is not set
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @param key
+     * @param defaultValue
+     * @return the value of the setting, or the default if it is not set
+     */
+    public String get(String key, String defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * @param key
+     * @param defaultValue
+     * @return the value of the setting, or the default if it is not set or empty
+     * @throws IllegalArgumentException
+     *             if the setting is not a number
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = trimmed(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The setting " + key + " is not a number: " + value, e);
+        }
+    }
+
+    /**
+     * @param key
+     * @param defaultValue
+     * @return the value of the setting, or the default if it is not set or empty
+     * @throws IllegalArgumentException
+     *             if the setting is not a number
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = trimmed(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The setting " + key + " is not a number: " + value, e);
+        }
+    }
+
+    /**
+     * @param key
+     * @param defaultValue
+     * @return true if the setting is "true" in any case, the default if it is not set or empty, false otherwise
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = trimmed(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * @return all the settings, read-only
+     */
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    private String trimmed(String key) {
+        String value = values.get(key);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,299 @@
+package net.sourceforge.seqware.common.util.filetools;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.sourceforge.seqware.common.util.Log;
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Downloads a remote object as a set of byte ranges fetched concurrently.
+ *
+ * The output file is preallocated to the size of the object and every range is written in place with positional writes on a shared
+ * FileChannel, so the ranges can complete in any order. A range that fails is retried on its own, resuming after the bytes it already
+ * wrote.
+ *
+ * The number of concurrent ranges per file and the range size are read from the SeqWare settings, see {@link #fromSettings(Map)}.
+ */
+public class ParallelDownloader {
+
+    /**
+     * Number of ranges of one file fetched at the same time. 1, the default, leaves downloads sequential.
+     */
+    public static final String SW_PROVISION_DOWNLOAD_THREADS = "SW_PROVISION_DOWNLOAD_THREADS";
+    /**
+     * Size of each range in megabytes.
+     */
+    public static final String SW_PROVISION_DOWNLOAD_PART_MB = "SW_PROVISION_DOWNLOAD_PART_MB";
+    public static final int DEFAULT_THREADS = 1;
+    public static final int DEFAULT_PART_MB = 64;
+    private static final int RANGE_ATTEMPTS = 5;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Something that can be read one byte range at a time.
+     */
+    public interface RangeSource {
+
+        /**
+         * @return the size of the object in bytes
+         */
+        long size() throws IOException;
+
+        /**
+         * @param start
+         *            first byte of the range
+         * @param end
+         *            one past the last byte of the range
+         * @return a stream over exactly the requested bytes
+         */
+        InputStream open(long start, long end) throws IOException;
+    }
+
+    private final int threads;
+    private final long partSize;
+
+    public ParallelDownloader(int threads, long partSize) {
+        if (threads < 1 || partSize < 1) {
+            throw new IllegalArgumentException("Need at least one thread and a positive part size, got " + threads + " and " + partSize);
+        }
+        this.threads = threads;
+        this.partSize = partSize;
+    }
+
+    /**
+     * @param settings
+     *            the SeqWare settings
+     * @return a downloader configured by SW_PROVISION_DOWNLOAD_THREADS and SW_PROVISION_DOWNLOAD_PART_MB
+     */
+    public static ParallelDownloader fromSettings(Map<String, String> settings) {
+        int threads = intSetting(settings, SW_PROVISION_DOWNLOAD_THREADS, DEFAULT_THREADS);
+        int partMb = intSetting(settings, SW_PROVISION_DOWNLOAD_PART_MB, DEFAULT_PART_MB);
+        return new ParallelDownloader(threads, partMb * 1024L * 1024L);
+    }
+
+    private static int intSetting(Map<String, String> settings, String key, int defaultValue) {
+        String value = settings == null ? null : settings.get(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(value.trim());
+            if (i > 0) {
+                return i;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the warning
+        }
+        Log.warn("Ignoring invalid value " + value + " for " + key + ", using " + defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * @return true if more than one range is fetched at a time
+     */
+    public boolean isEnabled() {
+        return threads > 1;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Download source into output, replacing any existing file.
+     *
+     * @param source
+     *            the object to download
+     * @param output
+     *            the file to write
+     * @return the number of bytes written
+     * @throws IOException
+     *             if a range still fails after its retries
+     */
+    public long download(final RangeSource source, File output) throws IOException {
+        final long size = source.size();
+        if (size < 0) {
+            throw new IOException("Unknown size for ranged download");
+        }
+        int parts = (int) ((size + partSize - 1) / partSize);
+        Log.debug("Downloading " + size + " bytes in " + parts + " ranges with " + Math.min(threads, parts) + " threads");
+
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+            file.setLength(size);
+            if (parts == 0) {
+                return 0;
+            }
+            final FileChannel channel = file.getChannel();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, parts));
+            try {
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i < parts; i++) {
+                    final long start = i * partSize;
+                    final long end = Math.min(size, start + partSize);
+                    futures.add(pool.submit(new Callable<Long>() {
+                        @Override
+                        public Long call() throws IOException {
+                            return fetchRange(source, channel, start, end);
+                        }
+                    }));
+                }
+                long written = 0;
+                for (Future<Long> future : futures) {
+                    written += future.get();
+                }
+                channel.force(false);
+                return written;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during ranged download", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private long fetchRange(RangeSource source, FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_SIZE, end - start));
+        long position = start;
+        int attempts = 0;
+        while (position < end) {
+            try (ReadableByteChannel in = Channels.newChannel(source.open(position, end))) {
+                while (position < end) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    if (in.read(buffer) < 0) {
+                        throw new IOException("Range ended early at " + position + " of " + start + "-" + end);
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+            } catch (IOException | AmazonClientException e) {
+                attempts++;
+                // interrupted when another range has already failed the download
+                if (attempts >= RANGE_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Giving up on range " + start + "-" + end + " after " + attempts + " attempts", e);
+                }
+                Log.warn("Retrying range " + start + "-" + end + " at " + position + ": " + e.getMessage());
+            }
+        }
+        return end - start;
+    }
+
+    /**
+     * A source for an http or https URL. Credentials may be embedded in the URL as in
+     * {@link ProvisionFilesUtil#getHttpInputStream(String, int, long)}. The server has to honour Range requests.
+     *
+     * @param input
+     *            the URL
+     * @return a range source for the URL
+     */
+    public static RangeSource http(String input) throws IOException {
+        Matcher m = Pattern.compile("(https*)://(\\S+):(\\S+)@(\\S+)").matcher(input);
+        final String authorization;
+        final URL url;
+        if (m.find()) {
+            String userPassword = m.group(2) + ":" + m.group(3);
+            authorization = "Basic " + Base64.encodeBase64String(userPassword.getBytes()).trim();
+            url = new URL(m.group(1) + "://" + m.group(4));
+        } else {
+            authorization = null;
+            url = new URL(input);
+        }
+        return new RangeSource() {
+            @Override
+            public long size() throws IOException {
+                HttpURLConnection conn = connect("HEAD");
+                try {
+                    checkResponse(conn, HttpURLConnection.HTTP_OK);
+                    String length = conn.getHeaderField("Content-Length");
+                    return length == null ? -1 : Long.parseLong(length.trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Bad Content-Length from " + url, e);
+                } finally {
+                    conn.disconnect();
+                }
+            }
+
+            @Override
+            public InputStream open(long start, long end) throws IOException {
+                HttpURLConnection conn = connect("GET");
+                conn.setRequestProperty("Range", "bytes=" + start + "-" + (end - 1));
+                // a 200 would be the whole object, which must not be written at this offset
+                checkResponse(conn, HttpURLConnection.HTTP_PARTIAL);
+                return conn.getInputStream();
+            }
+
+            private HttpURLConnection connect(String method) throws IOException {
+                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                conn.setRequestMethod(method);
+                if (authorization != null) {
+                    conn.setRequestProperty("Authorization", authorization);
+                }
+                return conn;
+            }
+
+            private void checkResponse(HttpURLConnection conn, int expected) throws IOException {
+                int code = conn.getResponseCode();
+                if (code != expected) {
+                    conn.disconnect();
+                    throw new IOException("Expected HTTP " + expected + " from " + url + " but got " + code);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param s3
+     *            a client, shared by all ranges
+     * @param bucket
+     * @param key
+     * @return a range source for the object
+     */
+    public static RangeSource s3(final AmazonS3 s3, final String bucket, final String key) {
+        return new RangeSource() {
+            @Override
+            public long size() {
+                return s3.getObjectMetadata(bucket, key).getContentLength();
+            }
+
+            @Override
+            public InputStream open(long start, long end) {
+                GetObjectRequest gor = new GetObjectRequest(bucket, key);
+                gor.setRange(start, end - 1);
+                return s3.getObject(gor).getObjectContent();
+            }
+        };
+    }
+}
@@ -16,7 +16,6 @@ import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.Upload;
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -27,10 +26,14 @@ import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.Key;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.crypto.Cipher;
@@ -39,6 +42,7 @@ import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.SecretKeySpec;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.configtools.ConfigTools;
+import net.sourceforge.seqware.common.util.configtools.Settings;
 import org.apache.commons.codec.binary.Base64;
 //import org.apache.hadoop.conf.Configuration;
 //import org.apache.hadoop.fs.FSDataInputStream;
@@ -70,6 +74,20 @@ public class ProvisionFilesUtil {
     private AmazonS3Client s3;
     private static final String DATA_ENCRYPTION_ALGORITHM = "DESede";
     private static final int MAXRETRY = 3;
+    /**
+     * Unit of work for copyToFile: bytes moved per transferTo call or per fill of the copy buffer, and the granularity at which an
+     * interrupted read is resumed.
+     */
+    private static final int COPY_CHUNK_SIZE = 8 * 1024 * 1024;
+    /**
+     * Buffer of a source reopened to resume a copy. The channel over the stream reads a few KB at a time, so a larger buffer would only
+     * add a copy.
+     */
+    private static final int RESUME_BUFFER_SIZE = 8 * 1024;
+    /**
+     * Allocated by the first stream copy and reused by the following ones.
+     */
+    private ByteBuffer copyBuffer = null;
 
     /**
      * Default ctor.
@@ -191,8 +209,37 @@ public class ProvisionFilesUtil {
         return cipher;
     }
 
+    /**
+     * Copy reader into the output directory.
+     * 
+     * @param reader
+     *            a {@link java.io.BufferedInputStream} object.
+     * @param output
+     *            a {@link java.lang.String} object.
+     * @param input
+     *            a {@link java.lang.String} object.
+     * @return written File object
+     */
+    public File copyToFile(BufferedInputStream reader, String output, String input) {
+        return copyToFile(reader, output, false, input, null, null);
+    }
+
+    /**
+     * @deprecated the buffer length is not used, use {@link #copyToFile(BufferedInputStream, String, String)}
+     */
+    @Deprecated
     public File copyToFile(BufferedInputStream reader, String output, int bufLen, String input) {
-        return copyToFile(reader, output, false, bufLen, input, null, null);
+        return copyToFile(reader, output, input);
+    }
+
+    /**
+     * @deprecated the buffer length is not used, use
+     *             {@link #copyToFile(BufferedInputStream, String, boolean, String, Cipher, Cipher)}
+     */
+    @Deprecated
+    public File copyToFile(BufferedInputStream reader, String output, boolean fullOutputPath, int bufLen, String input,
+            Cipher decryptCipher, Cipher encryptCipher) {
+        return copyToFile(reader, output, fullOutputPath, input, decryptCipher, encryptCipher);
     }
 
     /**
@@ -203,8 +250,6 @@ public class ProvisionFilesUtil {
      * @param output
      *            a {@link java.lang.String} object.
      * @param fullOutputPath
-     * @param bufLen
-     *            a int.
      * @param input
      *            a {@link java.lang.String} object.
      * @return written File object
@@ -213,10 +258,8 @@ public class ProvisionFilesUtil {
      * @param encryptCipher
      *            a {@link javax.crypto.Cipher} object.
      */
-    public File copyToFile(BufferedInputStream reader, String output, boolean fullOutputPath, int bufLen, String input,
-            Cipher decryptCipher, Cipher encryptCipher) {
-
-        OutputStream writer;
+    public File copyToFile(BufferedInputStream reader, String output, boolean fullOutputPath, String input, Cipher decryptCipher,
+            Cipher encryptCipher) {
 
         // then it's a remote input (or we want to copy regardless) just a
         // directory output
@@ -226,127 +269,275 @@ public class ProvisionFilesUtil {
             outputObj = new File(output);
         }
         outputObj.getParentFile().mkdirs();
+        // the reader always starts at the beginning of the input, don't carry over the position of an earlier copy
+        this.position = 0L;
         // now write input to output
         try {
-            int attempts = 0; // READ_ATTEMPTS
-
-            writer = new FileOutputStream(outputObj);
-
-            // add decryption to the output stream
-            if (decryptCipher != null) {
-                writer = new CipherOutputStream(writer, decryptCipher);
+            boolean copied;
+            if (decryptCipher == null && encryptCipher == null && this.inputFile != null && this.inputFile.equals(new File(input))) {
+                copied = transferFile(reader, outputObj);
+            } else {
+                copied = copyStream(reader, outputObj, input, decryptCipher, encryptCipher);
             }
-
-            // add encryption to the output stream
-            if (encryptCipher != null) {
-                writer = new CipherOutputStream(writer, encryptCipher);
+            if (!copied) {
+                return null;
             }
 
-            // wrap in a buffered stream
-            writer = new BufferedOutputStream(writer, bufLen);
-
-            boolean cont = true;
+            // print newline
+            Log.stdout("");
 
-            // count of positions, every thousand do an update
-            long positionCount = 0;
+        } catch (FileNotFoundException e) {
+            Log.error(e.getMessage());
+            return null;
+        } catch (IOException e) {
+            Log.error(e.getMessage());
+            return null;
+        }
 
-            while (cont) {
+        // now that the copy is complete, make sure the file out and the input size are equal
+        if (this.inputSize != outputObj.length() && decryptCipher == null && encryptCipher == null) {
+            Log.error("The output file size of " + outputObj.length() + " and the input file size of " + this.inputSize
+                    + " do not match so the file provisioning failed!");
+            return (null);
+        }
 
-                int data = -1;
-                positionCount++;
+        return outputObj;
+    }
 
-                // calculate stats
-                int divisions = (int) (this.inputSize / 1000);
-                if (positionCount > 0 && divisions > 0 && positionCount % divisions == 0 && isVerbose()) {
-                    float percent = (positionCount * 100.0f) / this.inputSize;
-                    System.out.printf("  + completed: %.2f", percent);
-                    System.out.print("%\r");
+    /**
+     * Copy an S3 or HTTP input into output as concurrently fetched byte ranges, see {@link ParallelDownloader}. Ciphers are not
+     * supported here since the ranges are written out of order, use copyToFile for encrypted copies.
+     * 
+     * @param input
+     *            an s3:// or http(s):// URL
+     * @param output
+     *            a {@link java.lang.String} object.
+     * @param fullOutputPath
+     * @param downloader
+     *            a {@link net.sourceforge.seqware.common.util.filetools.ParallelDownloader} object.
+     * @return written File object, null if the download failed
+     */
+    public File copyToFileInParallel(String input, String output, boolean fullOutputPath, ParallelDownloader downloader) {
+        this.originalFileName = input;
+        this.inputFile = null;
+        ParallelDownloader.RangeSource source;
+        String path;
+        try {
+            if (input.startsWith("s3://")) {
+                String[] credentials = getS3Credentials(input);
+                if (credentials == null) {
+                    return null;
+                }
+                Matcher m = Pattern.compile("s3://([^/]+)/(\\S+)").matcher(credentials[2]);
+                if (!m.find()) {
+                    Log.error("Couldn't figure out the bucket and key from the URL provided: " + input);
+                    return null;
                 }
+                path = m.group(2);
+                source = ParallelDownloader.s3(new AmazonS3Client(new BasicAWSCredentials(credentials[0], credentials[1])), m.group(1),
+                        path);
+            } else if (input.startsWith("http://") || input.startsWith("https://")) {
+                path = new URL(input).getPath();
+                source = ParallelDownloader.http(input);
+            } else {
+                Log.error("Ranged downloads are only supported for S3 and HTTP inputs: " + input);
+                return null;
+            }
+        } catch (IOException e) {
+            Log.error(e.getMessage());
+            return null;
+        }
+        String[] paths = path.split("/");
+        this.fileName = paths[paths.length - 1];
+
+        File outputObj = new File(output + File.separator + fileName);
+        if (fullOutputPath) {
+            outputObj = new File(output);
+        }
+        outputObj.getParentFile().mkdirs();
+        try {
+            this.inputSize = downloader.download(source, outputObj);
+        } catch (IOException | AmazonClientException e) {
+            Log.error("Ranged download of " + input + " failed: " + e.getMessage());
+            return null;
+        }
+        if (this.inputSize != outputObj.length()) {
+            Log.error("The output file size of " + outputObj.length() + " and the input file size of " + this.inputSize
+                    + " do not match so the file provisioning failed!");
+            return null;
+        }
+        return outputObj;
+    }
 
-                while (true) {
+    /**
+     * @return access key, secret key and the URL with any embedded credentials removed, null if no credentials are available
+     */
+    private String[] getS3Credentials(String input) {
+        Matcher m = Pattern.compile("s3://(\\S+):(\\S+)@(\\S+)").matcher(input);
+        if (m.find()) {
+            return new String[] { m.group(1), m.group(2), "s3://" + m.group(3) };
+        }
+        String accessKey;
+        String secretKey;
+        try {
+            Settings settings = ConfigTools.getSettingsSnapshot();
+            accessKey = settings.get("AWS_ACCESS_KEY");
+            secretKey = settings.get("AWS_SECRET_KEY");
+        } catch (Exception e) {
+            Log.error(e.getMessage());
+            return null;
+        }
+        if (accessKey == null || secretKey == null) {
+            Log.error("Couldn't continue because missing S3 access key and/or secret key");
+            return null;
+        }
+        return new String[] { accessKey, secretKey, input };
+    }
 
-                    try {
-                        data = reader.read();
-                        this.position++;
-                        if (data == -1) {
-                            cont = false;
-                        }
+    /**
+     * Local to local copy without ciphers: let the kernel move the data with FileChannel.transferTo one chunk at a time. The reader
+     * handed to copyToFile is not needed and is closed.
+     */
+    private boolean transferFile(BufferedInputStream reader, File outputObj) throws IOException {
+        reader.close();
+        int attempts = 0;
+        try (FileInputStream source = new FileInputStream(this.inputFile);
+                FileOutputStream target = new FileOutputStream(outputObj)) {
+            FileChannel in = source.getChannel();
+            FileChannel out = target.getChannel();
+            long size = in.size();
+            while (this.position < size) {
+                try {
+                    long transferred = in.transferTo(this.position, Math.min(COPY_CHUNK_SIZE, size - this.position), out);
+                    if (transferred == 0) {
+                        // the input was truncated underneath us, the size check will report it
                         break;
-                    } catch (IOException e) {
+                    }
+                    this.position += transferred;
+                    printProgress();
+                } catch (IOException e) {
+                    attempts++;
+                    Log.error("There has been an exception while transferring the file: " + e.getMessage());
+                    if (attempts > this.READ_ATTEMPTS) {
+                        Log.error("Giving up after " + attempts + " attempts!");
+                        return false;
+                    }
+                    Log.error("Trying to recover from transfer error, restarting at position " + this.position);
+                    // drop whatever part of the failed chunk made it to the output
+                    out.position(this.position);
+                    sleepBeforeRetry();
+                }
+            }
+        }
+        return true;
+    }
 
-                        attempts++;
-                        Log.error("There has been an exception while reading the stream: " + e.getMessage());
+    /**
+     * Copies a stream source (or any source when ciphers are used) through a buffer of COPY_CHUNK_SIZE bytes. If reading fails, the
+     * partially read chunk is dropped and the source is reopened where the last complete chunk ended.
+     */
+    private boolean copyStream(BufferedInputStream reader, File outputObj, String input, Cipher decryptCipher, Cipher encryptCipher)
+            throws IOException {
+        int attempts = 0; // READ_ATTEMPTS
+
+        FileOutputStream file = new FileOutputStream(outputObj);
+        OutputStream writer = file;
+        // add decryption to the output stream
+        if (decryptCipher != null) {
+            writer = new CipherOutputStream(writer, decryptCipher);
+        }
+        // add encryption to the output stream
+        if (encryptCipher != null) {
+            writer = new CipherOutputStream(writer, encryptCipher);
+        }
+        // without ciphers the buffer goes straight to the file channel
+        WritableByteChannel out = writer == file ? file.getChannel() : Channels.newChannel(writer);
+        ReadableByteChannel in = Channels.newChannel(reader);
+        if (copyBuffer == null) {
+            copyBuffer = ByteBuffer.allocate(COPY_CHUNK_SIZE);
+        }
+        ByteBuffer buffer = copyBuffer;
+        buffer.clear();
 
-                        if (attempts > this.READ_ATTEMPTS) {
-                            Log.error("Giving up after " + attempts + " attempts!");
-                            return null;
+        try {
+            boolean eof = false;
+            while (!eof) {
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (in.read(buffer) < 0) {
+                            eof = true;
+                            break;
                         }
+                    }
+                } catch (IOException e) {
+                    attempts++;
+                    Log.error("There has been an exception while reading the stream: " + e.getMessage());
 
-                        Log.error("Trying to recover from read or write error, opening the reader at position " + this.position);
-                        // FIXME: notice I'm assuming this is a problem with the reader
-                        try {
-                            reader.close();
-                        } catch (IOException e1) {
-                            Log.error(e1.getMessage());
-                        }
-                        try {
-                            Thread.sleep(2000);
-                        } catch (java.lang.InterruptedException e2) {
-                            Log.error("thread sleep failed: " + e2.getMessage());
-                        }
-                        reader = getSourceReader(input, bufLen, this.position);
-                        if (reader == null) {
-                            return null;
-                        }
+                    if (attempts > this.READ_ATTEMPTS) {
+                        Log.error("Giving up after " + attempts + " attempts!");
+                        return false;
                     }
+
+                    Log.error("Trying to recover from read error, opening the reader at position " + this.position);
+                    buffer.clear();
+                    try {
+                        in.close();
+                    } catch (IOException e1) {
+                        Log.error(e1.getMessage());
+                    }
+                    sleepBeforeRetry();
+                    reader = getSourceReader(input, RESUME_BUFFER_SIZE, this.position);
+                    if (reader == null) {
+                        return false;
+                    }
+                    in = Channels.newChannel(reader);
+                    continue;
                 }
 
-                while (true && cont) {
+                buffer.flip();
+                int length = buffer.remaining();
+                while (buffer.hasRemaining()) {
                     try {
-                        writer.write(data);
-                        break;
+                        out.write(buffer);
                     } catch (IOException e) {
                         attempts++;
                         Log.error("There has been an exception while writing the stream: " + e.getMessage());
                         if (attempts > this.READ_ATTEMPTS) {
                             Log.error("Giving up after " + attempts + " attempts!");
-                            return null;
-                        }
-                        try {
-                            Thread.sleep(2000);
-                        } catch (java.lang.InterruptedException e2) {
-                            Log.error("thread sleep failed: " + e2.getMessage());
+                            return false;
                         }
+                        sleepBeforeRetry();
                     }
                 }
-
-                // possibly print out status
-
+                buffer.clear();
+                this.position += length;
+                printProgress();
+            }
+        } finally {
+            try {
+                in.close();
+            } finally {
+                // closing the outermost stream finishes the ciphers and closes the file
+                writer.close();
             }
-
-            // print newline
-            Log.stdout("");
-
-            // close reader/writer
-            reader.close();
-            writer.close();
-
-        } catch (FileNotFoundException e) {
-            Log.error(e.getMessage());
-            return null;
-        } catch (IOException e) {
-            Log.error(e.getMessage());
-            return null;
         }
+        return true;
+    }
 
-        // now that the copy is complete, make sure the file out and the input size are equal
-        if (this.inputSize != outputObj.length() && decryptCipher == null && encryptCipher == null) {
-            Log.error("The output file size of " + outputObj.length() + " and the input file size of " + this.inputSize
-                    + " do not match so the file provisioning failed!");
-            return (null);
+    private void printProgress() {
+        if (isVerbose() && this.inputSize > 0) {
+            float percent = (this.position * 100.0f) / this.inputSize;
+            System.out.printf("  + completed: %.2f", percent);
+            System.out.print("%\r");
         }
+    }
 
-        return outputObj;
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(2000);
+        } catch (java.lang.InterruptedException e2) {
+            Log.error("thread sleep failed: " + e2.getMessage());
+        }
     }
 
     /**
@@ -507,7 +698,7 @@ public class ProvisionFilesUtil {
         } else {
             // get the access/secret key from the .seqware/settings file
             try {
-                HashMap<String, String> settings = (HashMap<String, String>) ConfigTools.getSettings();
+                Settings settings = ConfigTools.getSettingsSnapshot();
                 accessKey = settings.get("AWS_ACCESS_KEY");
                 secretKey = settings.get("AWS_SECRET_KEY");
             } catch (Exception e) {
@@ -685,7 +876,7 @@ public class ProvisionFilesUtil {
             } else {
                 // get the access/secret key from the .seqware/settings file
                 try {
-                    HashMap<String, String> settings = (HashMap<String, String>) ConfigTools.getSettings();
+                    Settings settings = ConfigTools.getSettingsSnapshot();
                     accessKey = settings.get("AWS_ACCESS_KEY");
                     secretKey = settings.get("AWS_SECRET_KEY");
                 } catch (Exception e) {
@@ -1012,7 +1203,7 @@ public class ProvisionFilesUtil {
         if (!result) {
             // get the access/secret key from the .seqware/settings file
             try {
-                HashMap<String, String> settings = (HashMap<String, String>) ConfigTools.getSettings();
+                Settings settings = ConfigTools.getSettingsSnapshot();
                 accessKey = settings.get("AWS_ACCESS_KEY");
                 secretKey = settings.get("AWS_SECRET_KEY");
             } catch (Exception e) {
@@ -1203,7 +1394,7 @@ public class ProvisionFilesUtil {
                 URL = "s3://" + m.group(3);
             } else {
                 try {
-                    HashMap<String, String> settings = (HashMap<String, String>) ConfigTools.getSettings();
+                    Settings settings = ConfigTools.getSettingsSnapshot();
                     accessKey = settings.get("AWS_ACCESS_KEY");
                     secretKey = settings.get("AWS_SECRET_KEY");
                 } catch (Exception e) {
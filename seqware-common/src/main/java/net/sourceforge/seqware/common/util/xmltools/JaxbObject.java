@@ -16,22 +16,35 @@
  */
 package net.sourceforge.seqware.common.util.xmltools;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.MarshalException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.stream.StreamSource;
+import net.sourceforge.seqware.common.metadata.ProcessingEvent;
+import net.sourceforge.seqware.common.model.BatchOperation;
 import net.sourceforge.seqware.common.model.Experiment;
 import net.sourceforge.seqware.common.model.ExperimentAttribute;
 import net.sourceforge.seqware.common.model.ExperimentLibraryDesign;
@@ -63,6 +76,7 @@ import net.sourceforge.seqware.common.model.WorkflowParam;
 import net.sourceforge.seqware.common.model.WorkflowParamValue;
 import net.sourceforge.seqware.common.model.WorkflowRun;
 import net.sourceforge.seqware.common.model.WorkflowRunParam;
+import net.sourceforge.seqware.common.model.lists.BatchOperationList;
 import net.sourceforge.seqware.common.model.lists.ExperimentLibraryDesignList;
 import net.sourceforge.seqware.common.model.lists.ExperimentList;
 import net.sourceforge.seqware.common.model.lists.ExperimentSpotDesignList;
@@ -76,6 +90,7 @@ import net.sourceforge.seqware.common.model.lists.LibrarySourceList;
 import net.sourceforge.seqware.common.model.lists.LibraryStrategyList;
 import net.sourceforge.seqware.common.model.lists.OrganismList;
 import net.sourceforge.seqware.common.model.lists.PlatformList;
+import net.sourceforge.seqware.common.model.lists.ProcessingEventList;
 import net.sourceforge.seqware.common.model.lists.ProcessingList;
 import net.sourceforge.seqware.common.model.lists.ReturnValueList;
 import net.sourceforge.seqware.common.model.lists.SampleList;
@@ -87,6 +102,11 @@ import net.sourceforge.seqware.common.model.lists.WorkflowParamList;
 import net.sourceforge.seqware.common.model.lists.WorkflowParamValueList;
 import net.sourceforge.seqware.common.model.lists.WorkflowRunList;
 import net.sourceforge.seqware.common.model.lists.WorkflowRunList2;
+import org.codehaus.jettison.mapped.Configuration;
+import org.codehaus.jettison.mapped.MappedNamespaceConvention;
+import org.codehaus.jettison.mapped.MappedXMLInputFactory;
+import org.codehaus.jettison.mapped.MappedXMLStreamWriter;
+import org.codehaus.jettison.mapped.SimpleConverter;
 import org.w3c.dom.Document;
 
 /**
@@ -98,18 +118,20 @@ import org.w3c.dom.Document;
  */
 public class JaxbObject<T> {
 
-    private static JAXBContext context = null;
-
     /**
      * JAXB has a memory leak when it comes to making new JAXBContext instances, so one JAXBContext is created for the entire lifetime of
      * the program and initialized with all of the classes that we marshal and unmarshal at the moment, as per the instructions at *
      * http://whileonefork.blogspot.com/2010/09/leaking-of-jaxb.html and * http://jaxb.java.net/guide/Performance_and_thread_safety.html .
-     * In order to marshall or unmarshall new objects, they must be added to the context creation in this constructor.
+     * In order to marshall or unmarshall new objects, they must be added to the context creation in this holder. It is created the first
+     * time it is used, once even when several threads get there at the same time.
      */
-    public JaxbObject() {
-        try {
-            if (context == null) {
-                context = JAXBContext.newInstance(
+    private static class ContextHolder {
+
+        private static final JAXBContext CONTEXT = newContext();
+
+        private static JAXBContext newContext() {
+            try {
+                return JAXBContext.newInstance(
                         Experiment.class,
                         ExperimentAttribute.class,
                         ExperimentLibraryDesign.class, // ExperimentLink.class,
@@ -145,11 +167,92 @@ public class JaxbObject<T> {
                         LibraryStrategyList.class, OrganismList.class, PlatformList.class, ProcessingList.class, ReturnValueList.class,
                         SampleList.class, SequencerRunList.class, StudyList.class, StudyTypeList.class, WorkflowList.class,
                         WorkflowRunList.class, WorkflowRunList2.class, WorkflowParamList.class, WorkflowParamValueList.class,
-                        ArrayList.class, IntegerList.class);
+                        ArrayList.class, IntegerList.class, BatchOperation.class, BatchOperationList.class, ProcessingEvent.class,
+                        ProcessingEventList.class);
+            } catch (JAXBException e) {
+                e.printStackTrace();
+                throw new IllegalStateException("Could not create the JAXB context", e);
+            }
+        }
+    }
+
+    /**
+     * The context is thread-safe but marshallers, unmarshallers and document builders are not, and creating them costs more than using
+     * them for the small objects sent to and from the web service. Each thread keeps one of each for all its JaxbObjects. None of them
+     * holds on to what it last read or wrote.
+     */
+    private static final ThreadLocal<Marshaller> MARSHALLER = new ThreadLocal<Marshaller>() {
+        @Override
+        protected Marshaller initialValue() {
+            try {
+                return context().createMarshaller();
+            } catch (JAXBException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<Marshaller> FRAGMENT_MARSHALLER = new ThreadLocal<Marshaller>() {
+        @Override
+        protected Marshaller initialValue() {
+            try {
+                Marshaller m = context().createMarshaller();
+                m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+                return m;
+            } catch (JAXBException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<Unmarshaller> UNMARSHALLER = new ThreadLocal<Unmarshaller>() {
+        @Override
+        protected Unmarshaller initialValue() {
+            try {
+                return context().createUnmarshaller();
+            } catch (JAXBException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+                dbf.setNamespaceAware(true);
+                return dbf.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException(e);
             }
-        } catch (JAXBException e) {
-            e.printStackTrace();
         }
+    };
+
+    /**
+     * JSON is written and read through the same JAXB mapping as XML, so that the two never disagree about the model classes. Values are
+     * kept as strings rather than guessed at, a sample named 0123 stays 0123.
+     */
+    private static final MappedNamespaceConvention JSON_CONVENTION = new MappedNamespaceConvention(jsonConfiguration());
+    private static final MappedXMLInputFactory JSON_INPUT_FACTORY = new MappedXMLInputFactory(jsonConfiguration());
+
+    private static Configuration jsonConfiguration() {
+        Map<String, String> namespaces = new HashMap<>();
+        namespaces.put(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "xsi");
+        Configuration configuration = new Configuration(namespaces);
+        configuration.setTypeConverter(new SimpleConverter());
+        return configuration;
+    }
+
+    /**
+     * Creates the JAXB context if it was not created yet.
+     */
+    public JaxbObject() {
+        context();
+    }
+
+    private static JAXBContext context() {
+        return ContextHolder.CONTEXT;
     }
 
     /**
@@ -162,29 +265,9 @@ public class JaxbObject<T> {
      *             if any.
      */
     public Document marshalToDocument(T t) throws JAXBException {
-        Document doc = null;
+        Document doc = DOCUMENT_BUILDER.get().newDocument();
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            doc = db.newDocument();
-
-            T object = t;
-
-            // get the XML
-            // JAXBContext context = JAXBContext.newInstance(object.getClass());
-            Marshaller m = context.createMarshaller();
-            m.marshal(new JAXBElement(new QName(object.getClass().getSimpleName()), object.getClass(), object), doc);
-
-            // try {
-            // XmlTools.getDocument(output);
-            // } catch (Exception ex) {
-            // Log.info("Exception while marshaling: " + ex.getMessage() + ". Trying again.");
-            // output = marshal(t);
-            // }
-
-        } catch (ParserConfigurationException ex) {
-            Logger.getLogger(JaxbObject.class.getName()).log(Level.SEVERE, null, ex);
+            MARSHALLER.get().marshal(element(t), doc);
         } catch (JAXBException jbe) {
             jbe.printStackTrace();
             throw jbe;
@@ -202,33 +285,114 @@ public class JaxbObject<T> {
      *             if any.
      */
     public String marshal(T t) throws JAXBException {
-        String output = null;
+        StringWriter writer = new StringWriter();
         try {
-            StreamResult result = new StreamResult(new StringWriter());
-            T object = t;
+            MARSHALLER.get().marshal(element(t), writer);
+        } catch (JAXBException jbe) {
+            jbe.printStackTrace();
+            throw jbe;
+        }
+        return writer.toString();
+    }
 
-            // get the XML
-            // JAXBContext context = JAXBContext.newInstance(object.getClass());
-            Marshaller m = context.createMarshaller();
-            m.marshal(new JAXBElement(new QName(object.getClass().getSimpleName()), object.getClass(), object), result);
+    /**
+     * Turn an object into XML using JAXB written straight to a stream in UTF-8, the same XML as {@link #marshal(java.lang.Object)} without
+     * building a String or a DOM of it first.
+     * 
+     * @param t
+     *            The object to XMLize.
+     * @param out
+     *            where the XML is written, it is not closed
+     * @throws javax.xml.bind.JAXBException
+     *             if any.
+     */
+    public void marshal(T t, OutputStream out) throws JAXBException {
+        MARSHALLER.get().marshal(element(t), out);
+    }
 
-            // convert to String
-            StringWriter writer = (StringWriter) result.getWriter();
-            StringBuffer buffer = writer.getBuffer();
-            output = buffer.toString();
+    /**
+     * Turn an object into an XML element written to a stream, as part of a larger document such as a list written one element at a time.
+     * 
+     * @param elementName
+     *            the name of the element, such as list for an element of one of the lists in
+     *            {@link net.sourceforge.seqware.common.model.lists}
+     * @param t
+     *            The object to XMLize.
+     * @param writer
+     *            where the element is written, positioned inside its parent element
+     * @throws javax.xml.bind.JAXBException
+     *             if any.
+     */
+    public void marshalFragment(String elementName, T t, XMLStreamWriter writer) throws JAXBException {
+        FRAGMENT_MARSHALLER.get().marshal(new JAXBElement(new QName(elementName), t.getClass(), t), writer);
+    }
+
+    /**
+     * Turn an object into JSON with the same structure as its XML, written straight to a stream in UTF-8. The root object has one property
+     * named like the root element, and every value is a string as it is in the XML.
+     * 
+     * @param t
+     *            The object to JSONize.
+     * @param out
+     *            where the JSON is written, it is not closed
+     * @throws javax.xml.bind.JAXBException
+     *             if any.
+     */
+    public void marshalJson(T t, OutputStream out) throws JAXBException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        marshalJson(t, writer);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new MarshalException(e);
+        }
+    }
 
-            // try {
-            // XmlTools.getDocument(output);
-            // } catch (Exception ex) {
-            // Log.info("Exception while marshaling: " + ex.getMessage() + ". Trying again.");
-            // output = marshal(t);
-            // }
+    /**
+     * Turn an object into JSON with the same structure as its XML, see {@link #marshalJson(java.lang.Object, java.io.OutputStream)}.
+     * 
+     * @param t
+     *            The object to JSONize.
+     * @return the JSON
+     * @throws javax.xml.bind.JAXBException
+     *             if any.
+     */
+    public String marshalJson(T t) throws JAXBException {
+        StringWriter writer = new StringWriter();
+        marshalJson(t, writer);
+        return writer.toString();
+    }
 
-        } catch (JAXBException jbe) {
-            jbe.printStackTrace();
-            throw jbe;
+    private void marshalJson(T t, Writer writer) throws JAXBException {
+        XMLStreamWriter json = new MappedXMLStreamWriter(JSON_CONVENTION, writer);
+        MARSHALLER.get().marshal(element(t), json);
+        try {
+            json.flush();
+        } catch (XMLStreamException e) {
+            throw new MarshalException(e);
         }
-        return output;
+    }
+
+    /**
+     * Turn JSON written by {@link #marshalJson(java.lang.Object, java.io.OutputStream)} into an object, if possible.
+     * 
+     * @param expectedType
+     *            a T object.
+     * @param in
+     *            the JSON in UTF-8, it is not closed
+     * @return a T object.
+     * @throws javax.xml.bind.JAXBException
+     *             if any.
+     */
+    public T unMarshalJson(T expectedType, InputStream in) throws JAXBException {
+        XMLStreamReader json;
+        try {
+            json = JSON_INPUT_FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new UnmarshalException(e);
+        }
+        JAXBElement o = UNMARSHALLER.get().unmarshal(json, expectedType.getClass());
+        return (T) o.getValue();
     }
 
     /**
@@ -245,9 +409,7 @@ public class JaxbObject<T> {
     public T unMarshal(T expectedType, Reader reader) throws JAXBException {
         T object = null;
         try {
-            // JAXBContext context = JAXBContext.newInstance(expectedType.getClass());
-            Unmarshaller m = context.createUnmarshaller();
-            JAXBElement o = m.unmarshal(new StreamSource(reader), expectedType.getClass());
+            JAXBElement o = UNMARSHALLER.get().unmarshal(new StreamSource(reader), expectedType.getClass());
             object = (T) o.getValue();
         } catch (JAXBException jbe) {
             jbe.printStackTrace();
@@ -256,6 +418,23 @@ public class JaxbObject<T> {
         return object;
     }
 
+    /**
+     * Turn an XML stream into an object as it is read, without building a String or a DOM of it first. The encoding is taken from the XML
+     * declaration.
+     * 
+     * @param expectedType
+     *            a T object.
+     * @param in
+     *            the XML, it is not closed
+     * @return a T object.
+     * @throws javax.xml.bind.JAXBException
+     *             if any.
+     */
+    public T unMarshal(T expectedType, InputStream in) throws JAXBException {
+        JAXBElement o = UNMARSHALLER.get().unmarshal(new StreamSource(in), expectedType.getClass());
+        return (T) o.getValue();
+    }
+
     /**
      * Turn an XML stream into an object, if possible.
      * 
@@ -270,9 +449,7 @@ public class JaxbObject<T> {
     public T unMarshal(Document d, T expectedType) throws JAXBException {
         T object = null;
         try {
-            // JAXBContext context = JAXBContext.newInstance(expectedType.getClass());
-            Unmarshaller m = context.createUnmarshaller();
-            JAXBElement o = m.unmarshal(d, expectedType.getClass());
+            JAXBElement o = UNMARSHALLER.get().unmarshal(d, expectedType.getClass());
             object = (T) o.getValue();
         } catch (JAXBException jbe) {
             jbe.printStackTrace();
@@ -280,4 +457,11 @@ public class JaxbObject<T> {
         }
         return object;
     }
+
+    /**
+     * The root element of an object is named after its class.
+     */
+    private JAXBElement element(T t) {
+        return new JAXBElement(new QName(t.getClass().getSimpleName()), t.getClass(), t);
+    }
 }
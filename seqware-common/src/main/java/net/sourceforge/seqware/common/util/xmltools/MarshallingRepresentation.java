@@ -0,0 +1,69 @@
+package net.sourceforge.seqware.common.util.xmltools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.xml.bind.JAXBException;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.representation.OutputRepresentation;
+
+/**
+ * The XML of an object, marshalled by JAXB straight into the response or request as it is written rather than into a DOM that is then
+ * serialized again. The XML is the same as {@link XmlTools#getRepresentation(org.w3c.dom.Document)} sends for the object.
+ *
+ * With the JSON media type the object is written as JSON with the same structure instead, see
+ * {@link JaxbObject#marshalJson(java.lang.Object, java.io.OutputStream)}.
+ *
+ * The object is marshalled each time the representation is written, so it should not be changed in between.
+ */
+public class MarshallingRepresentation extends OutputRepresentation {
+
+    private final JaxbObject jaxbTool;
+    private final Object object;
+
+    /**
+     * @param jaxbTool
+     * @param object
+     *            the object to marshal
+     */
+    public MarshallingRepresentation(JaxbObject jaxbTool, Object object) {
+        this(jaxbTool, object, MediaType.APPLICATION_XML);
+    }
+
+    /**
+     * @param jaxbTool
+     * @param object
+     *            the object to marshal
+     * @param mediaType
+     *            {@link MediaType#APPLICATION_JSON} for JSON, XML otherwise
+     */
+    public MarshallingRepresentation(JaxbObject jaxbTool, Object object, MediaType mediaType) {
+        super(MediaType.APPLICATION_JSON.equals(mediaType) ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_XML);
+        setCharacterSet(CharacterSet.UTF_8);
+        this.jaxbTool = jaxbTool;
+        this.object = object;
+    }
+
+    /**
+     * @param mediaType
+     * @return a representation of the same object in the media type
+     */
+    public MarshallingRepresentation as(MediaType mediaType) {
+        return new MarshallingRepresentation(jaxbTool, object, mediaType);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        try {
+            if (MediaType.APPLICATION_JSON.equals(getMediaType())) {
+                jaxbTool.marshalJson(object, outputStream);
+            } else {
+                jaxbTool.marshal(object, outputStream);
+            }
+        } catch (JAXBException e) {
+            XmlTools.logger.error("Error mashalling XML document", e);
+            throw new IOException(e);
+        }
+    }
+}
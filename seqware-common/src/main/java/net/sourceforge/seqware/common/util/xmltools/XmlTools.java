@@ -1,18 +1,20 @@
 package net.sourceforge.seqware.common.util.xmltools;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
 import javax.xml.bind.JAXBException;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import org.restlet.data.MediaType;
 import org.restlet.data.Status;
 import org.restlet.ext.xml.DomRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.resource.ResourceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 /**
  * <p>
@@ -25,19 +27,40 @@ import org.xml.sax.SAXException;
 public class XmlTools {
 
     static final Logger logger = LoggerFactory.getLogger(XmlTools.class);
+    /**
+     * The most bytes looked at for the first tag of a stream.
+     */
+    private static final int PROLOGUE_LIMIT = 1024;
 
-    private static Document getDocument(String string) throws ParserConfigurationException, IOException, SAXException {
-        Document document;
-        if (string == null) {
-            logger.debug("String is :" + string);
-            return null;
-        }
-        // UTF-8 Encoded strings occasionally have silly byte-order marks
-        // Solution from http://mark.koli.ch/2009/02/resolving-orgxmlsaxsaxparseexception-content-is-not-allowed-in-prolog.html
-        string = string.trim().replaceFirst("^([\\W]+)<", "<");
+    /**
+     * UTF-8 Encoded strings occasionally have silly byte-order marks. Solution from
+     * http://mark.koli.ch/2009/02/resolving-orgxmlsaxsaxparseexception-content-is-not-allowed-in-prolog.html
+     */
+    private static String stripPrologue(String string) {
+        return string.trim().replaceFirst("^([\\W]+)<", "<");
+    }
 
-        document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(string.getBytes()));
-        return document;
+    /**
+     * Skips what {@link #stripPrologue(String)} strips from the start of a stream: whitespace, a byte-order mark or other junk without
+     * letters or digits before the first tag. When no such tag is found near the start the stream is left as it was.
+     */
+    private static InputStream skipPrologue(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(PROLOGUE_LIMIT + 1);
+        int skipped = 0;
+        for (int b = buffered.read(); b != -1 && skipped < PROLOGUE_LIMIT; b = buffered.read()) {
+            if (b == '<') {
+                buffered.reset();
+                buffered.skip(skipped);
+                return buffered;
+            }
+            if (b < 0x80 && (Character.isLetterOrDigit(b) || b == '_')) {
+                break;
+            }
+            skipped++;
+        }
+        buffered.reset();
+        return buffered;
     }
 
     /**
@@ -53,6 +76,43 @@ public class XmlTools {
         return new DomRepresentation(MediaType.APPLICATION_XML, document);
     }
 
+    /**
+     * The XML of an object, marshalled as the representation is written without building a DOM of it first. Prefer this to
+     * getRepresentation(marshalToDocument(jaxbTool, o)) when the document is not needed for anything else.
+     * 
+     * @param jaxbTool
+     *            a {@link net.sourceforge.seqware.common.util.xmltools.JaxbObject} object.
+     * @param o
+     *            a {@link java.lang.Object} object.
+     * @return a {@link org.restlet.representation.Representation} object.
+     */
+    public static Representation getRepresentation(JaxbObject jaxbTool, Object o) {
+        return new MarshallingRepresentation(jaxbTool, o);
+    }
+
+    /**
+     * The XML or JSON of an object, marshalled as the representation is written.
+     * 
+     * @param jaxbTool
+     *            a {@link net.sourceforge.seqware.common.util.xmltools.JaxbObject} object.
+     * @param o
+     *            a {@link java.lang.Object} object.
+     * @param mediaType
+     *            {@link MediaType#APPLICATION_JSON} for JSON, XML otherwise
+     * @return a {@link org.restlet.representation.Representation} object.
+     */
+    public static Representation getRepresentation(JaxbObject jaxbTool, Object o, MediaType mediaType) {
+        return new MarshallingRepresentation(jaxbTool, o, mediaType);
+    }
+
+    /**
+     * @param representation
+     * @return true if the representation is JSON rather than XML
+     */
+    public static boolean isJson(Representation representation) {
+        return representation != null && MediaType.APPLICATION_JSON.equals(representation.getMediaType(), true);
+    }
+
     /**
      * <p>
      * marshalToDocument.
@@ -111,16 +171,81 @@ public class XmlTools {
             if (string == null) {
                 throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST);
             }
-            Document document = XmlTools.getDocument(string);
-            o = jaxbTool.unMarshal(document, expectedType);
-
-        } catch (ParserConfigurationException | IOException ex) {
-            logger.error(string, ex);
-            throw new ResourceException(Status.SERVER_ERROR_INTERNAL);
+            o = jaxbTool.unMarshal(expectedType, new StringReader(stripPrologue(string)));
         } catch (JAXBException e) {
             logger.error(string, e);
-            throw new ResourceException(Status.CLIENT_ERROR_NOT_ACCEPTABLE);
+            throw notAcceptable(e);
         }
         return o;
     }
+
+    /**
+     * Unmarshals XML as it is read from a stream, such as the entity of a response, without reading it into a String or a DOM first.
+     * 
+     * @param jaxbTool
+     *            a {@link net.sourceforge.seqware.common.util.xmltools.JaxbObject} object.
+     * @param expectedType
+     *            a {@link java.lang.Object} object.
+     * @param in
+     *            the XML, it is not closed
+     * @return a {@link java.lang.Object} object.
+     * @throws org.xml.sax.SAXException
+     *             if the XML is not well-formed
+     */
+    public static Object unMarshal(JaxbObject jaxbTool, Object expectedType, InputStream in) throws SAXException {
+        // SEQWARE-1549
+        if (in == null) {
+            throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST);
+        }
+        try {
+            return jaxbTool.unMarshal(expectedType, in);
+        } catch (JAXBException e) {
+            logger.error("Error unmarshalling " + expectedType.getClass().getSimpleName(), e);
+            throw notAcceptable(e);
+        }
+    }
+
+    /**
+     * Unmarshals the entity of a request or response as it is read, as JSON if that is its media type and as XML otherwise. Like a String,
+     * XML may start with a byte-order mark or whitespace.
+     * 
+     * @param jaxbTool
+     *            a {@link net.sourceforge.seqware.common.util.xmltools.JaxbObject} object.
+     * @param expectedType
+     *            a {@link java.lang.Object} object.
+     * @param entity
+     *            the XML or JSON
+     * @return a {@link java.lang.Object} object.
+     * @throws org.xml.sax.SAXException
+     *             if XML is not well-formed
+     * @throws java.io.IOException
+     *             if the entity cannot be read
+     */
+    public static Object unMarshal(JaxbObject jaxbTool, Object expectedType, Representation entity) throws SAXException, IOException {
+        // SEQWARE-1549
+        if (entity == null || entity.isEmpty()) {
+            throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST);
+        }
+        if (!isJson(entity)) {
+            return unMarshal(jaxbTool, expectedType, skipPrologue(entity.getStream()));
+        }
+        try {
+            return jaxbTool.unMarshalJson(expectedType, entity.getStream());
+        } catch (JAXBException e) {
+            logger.error("Error unmarshalling " + expectedType.getClass().getSimpleName() + " from JSON", e);
+            throw new ResourceException(Status.CLIENT_ERROR_NOT_ACCEPTABLE);
+        }
+    }
+
+    /**
+     * XML that is not well-formed fails to parse as it did when it was parsed into a DOM before unmarshalling, XML that does not match the
+     * expected type is not acceptable.
+     */
+    private static ResourceException notAcceptable(JAXBException e) throws SAXException {
+        Throwable cause = e.getLinkedException() != null ? e.getLinkedException() : e.getCause();
+        if (cause instanceof SAXParseException) {
+            throw (SAXParseException) cause;
+        }
+        return new ResourceException(Status.CLIENT_ERROR_NOT_ACCEPTABLE);
+    }
 }
@@ -0,0 +1,77 @@
+package net.sourceforge.seqware.common.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import net.sourceforge.seqware.common.metadata.FileProvenanceBinaryWriter.ColumnType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class FileProvenanceBinaryWriterTest {
+
+    private static final int ROWS = FileProvenanceBinaryWriter.BLOCK_ROWS * 2 + 7;
+
+    private byte[] writeReport() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileProvenanceBinaryWriter writer = new FileProvenanceBinaryWriter(out, Arrays.asList("File SWID", "Study Title", "File Path"),
+                Arrays.asList(ColumnType.INTEGER, ColumnType.DICTIONARY, ColumnType.TEXT))) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.writeRow(new Object[] { i % 7 == 0 ? null : (long) i - 100, "study " + (i % 3), i % 5 == 0 ? null : "/data/" + i });
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        try (FileProvenanceBinaryReader reader = new FileProvenanceBinaryReader(new ByteArrayInputStream(writeReport()))) {
+            assertEquals(Arrays.asList("File SWID", "Study Title", "File Path"), reader.getHeader());
+            String first = null;
+            for (int i = 0; i < ROWS; i++) {
+                assertTrue(reader.next());
+                assertEquals(i % 7 == 0, reader.isNull(0));
+                if (i % 7 != 0) {
+                    assertEquals(i - 100, reader.getLong(0));
+                }
+                assertEquals("study " + (i % 3), reader.getString(1));
+                if (i == 0) {
+                    first = reader.getString(1);
+                } else if (i % 3 == 0) {
+                    // dictionary values are shared rather than decoded on every row
+                    assertSame(first, reader.getString(1));
+                }
+                if (i % 5 == 0) {
+                    assertNull(reader.getString(2));
+                } else {
+                    assertEquals("/data/" + i, reader.getString(2));
+                }
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testRowIterator() throws IOException {
+        int count = 0;
+        try (FileProvenanceRowIterator rows = FileProvenanceRowIterator.binary(new ByteArrayInputStream(writeReport()), null)) {
+            while (rows.hasNext()) {
+                Map<String, String> row = rows.next();
+                assertEquals(count % 7 == 0 ? "" : String.valueOf(count - 100), row.get("File SWID"));
+                assertEquals(count % 5 == 0 ? "" : "/data/" + count, row.get("File Path"));
+                count++;
+            }
+        }
+        assertEquals(ROWS, count);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTsv() throws IOException {
+        new FileProvenanceBinaryReader(new ByteArrayInputStream("Last Modified\tStudy Title\n".getBytes("UTF-8")));
+    }
+}
@@ -0,0 +1,180 @@
+package net.sourceforge.seqware.common.metadata;
+
+import io.seqware.common.model.ProcessingStatus;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.sourceforge.seqware.common.module.FileMetadata;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessingEventTest {
+
+    private TransactionalMetadata meta;
+
+    @Before
+    public void setUp() {
+        meta = new TransactionalMetadata();
+    }
+
+    @Test
+    public void testRecord() {
+        ProcessingEvent event = newEvent(0, "/data/first.bam");
+        List<Integer> accessions = meta.addProcessingEvents(Arrays.asList(event));
+        int processingId = accessions.get(0) - TransactionalMetadata.ACCESSION_OFFSET;
+        assertEquals(ProcessingStatus.success, meta.statuses.get(processingId));
+        assertEquals(Arrays.asList("/data/first.bam"), meta.files.get(processingId));
+
+        // an event that was not reserved cannot be told apart from a new one
+        assertNotEquals(accessions, meta.addProcessingEvents(Arrays.asList(event)));
+    }
+
+    /**
+     * The call was recorded but the caller died before it got the answer, and sends the same event again.
+     */
+    @Test
+    public void testReplayAfterCrash() {
+        int processingId = meta.reserve();
+        ProcessingEvent event = newEvent(processingId, "/data/first.bam");
+        List<Integer> accessions = meta.addProcessingEvents(Arrays.asList(event));
+
+        assertEquals(accessions, meta.addProcessingEvents(Arrays.asList(event)));
+        assertEquals(ProcessingStatus.success, meta.statuses.get(processingId));
+        assertEquals("the files should be recorded once", Arrays.asList("/data/first.bam"), meta.files.get(processingId));
+    }
+
+    /**
+     * A replay does not change an event that was recorded as failed either, the rerun of a failed step gets a new event.
+     */
+    @Test
+    public void testReplayAfterFailure() {
+        int processingId = meta.reserve();
+        ProcessingEvent event = newEvent(processingId, "/data/first.bam");
+        event.setStatus(ProcessingStatus.failed);
+        meta.addProcessingEvents(Arrays.asList(event));
+
+        event.setStatus(ProcessingStatus.success);
+        meta.addProcessingEvents(Arrays.asList(event));
+        assertEquals(ProcessingStatus.failed, meta.statuses.get(processingId));
+        assertEquals(Arrays.asList("/data/first.bam"), meta.files.get(processingId));
+    }
+
+    /**
+     * The call failed after some of its steps, which were rolled back, and is sent again.
+     */
+    @Test
+    public void testReplayAfterPartialCommit() {
+        int first = meta.reserve();
+        int second = meta.reserve();
+        List<ProcessingEvent> events = Arrays.asList(newEvent(first, "/data/first.bam"), newEvent(second, "/data/second.bam"));
+        meta.failingStatus = second;
+        try {
+            meta.addProcessingEvents(events);
+            fail("the status of the second event should not be recorded");
+        } catch (RuntimeException e) {
+            // rolled back
+        }
+        assertEquals(ProcessingStatus.pending, meta.statuses.get(first));
+        assertEquals(new ArrayList<String>(), meta.files.get(first));
+
+        meta.failingStatus = 0;
+        meta.addProcessingEvents(events);
+        assertEquals(ProcessingStatus.success, meta.statuses.get(first));
+        assertEquals(ProcessingStatus.success, meta.statuses.get(second));
+        assertEquals(Arrays.asList("/data/first.bam"), meta.files.get(first));
+        assertEquals(Arrays.asList("/data/second.bam"), meta.files.get(second));
+    }
+
+    private static ProcessingEvent newEvent(int processingId, String file) {
+        ProcessingEvent event = new ProcessingEvent();
+        event.setProcessingId(processingId);
+        ReturnValue ret = new ReturnValue();
+        ret.getFiles().add(new FileMetadata(file, "application/bam"));
+        event.setReturnValue(ret);
+        return event;
+    }
+
+    /**
+     * Keeps the status and files of each processing event, and like MetadataDB records either every step of a call or, when one fails,
+     * none of them.
+     */
+    private static class TransactionalMetadata extends MetadataNoConnection {
+
+        private static final int ACCESSION_OFFSET = 1000;
+
+        private Map<Integer, ProcessingStatus> statuses = new HashMap<>();
+        private Map<Integer, List<String>> files = new HashMap<>();
+        private int lastId = 0;
+        private int failingStatus = 0;
+
+        private int reserve() {
+            lastId++;
+            statuses.put(lastId, ProcessingStatus.pending);
+            files.put(lastId, new ArrayList<String>());
+            return lastId;
+        }
+
+        @Override
+        public ReturnValue add_empty_processing_event(int[] parentIDs) {
+            ReturnValue ret = new ReturnValue();
+            ret.setReturnValue(reserve());
+            return ret;
+        }
+
+        @Override
+        public ReturnValue add_empty_processing_event_by_parent_accession(int[] parentAccessions) {
+            return add_empty_processing_event(parentAccessions);
+        }
+
+        @Override
+        public int mapProcessingIdToAccession(int processingId) {
+            return ACCESSION_OFFSET + processingId;
+        }
+
+        @Override
+        public ReturnValue update_processing_event(int processingID, ReturnValue retval) {
+            for (FileMetadata file : retval.getFiles()) {
+                files.get(processingID).add(file.getFilePath());
+            }
+            return new ReturnValue();
+        }
+
+        @Override
+        public ReturnValue update_processing_status(int processingID, ProcessingStatus status) {
+            if (processingID == failingStatus) {
+                return new ReturnValue(ReturnValue.SQLQUERYFAILED);
+            }
+            statuses.put(processingID, status);
+            return new ReturnValue();
+        }
+
+        @Override
+        public List<Integer> addProcessingEvents(List<ProcessingEvent> events) {
+            Map<Integer, ProcessingStatus> statusesBefore = new HashMap<>(statuses);
+            Map<Integer, List<String>> filesBefore = new HashMap<>();
+            for (Map.Entry<Integer, List<String>> entry : files.entrySet()) {
+                filesBefore.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+            int lastIdBefore = lastId;
+            try {
+                return ProcessingEvent.record(this, events, new ProcessingEvent.StatusLookup() {
+                    @Override
+                    public ProcessingStatus getStatus(int processingId) {
+                        return statuses.get(processingId);
+                    }
+                });
+            } catch (RuntimeException e) {
+                statuses = statusesBefore;
+                files = filesBefore;
+                lastId = lastIdBefore;
+                throw e;
+            }
+        }
+    }
+}
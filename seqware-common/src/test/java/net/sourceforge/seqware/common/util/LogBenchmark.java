@@ -0,0 +1,75 @@
+package net.sourceforge.seqware.common.util;
+
+import java.io.IOException;
+import org.apache.log4j.FileAppender;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+
+/**
+ * Compares the cost of a disabled Log.debug call with how Log used to find the caller's logger, a full stack trace and a lookup by name for
+ * every call, and times enabled calls with and without {@link Log#setAsynchronous(int)}.
+ * 
+ * Not a test, run it with an optional file to log to, /dev/null by default:
+ * 
+ * <pre>
+ * mvn -pl seqware-common test-compile exec:java -Dexec.mainClass=net.sourceforge.seqware.common.util.LogBenchmark -Dexec.classpathScope=test
+ * </pre>
+ */
+public class LogBenchmark {
+
+    private static final int WARMUP = 200000;
+    private static final int CALLS = 2000000;
+
+    public static void main(String[] args) throws IOException {
+        // the loggers of the nested classes below
+        Logger logger = Logger.getLogger(LogBenchmark.class.getPackage().getName());
+        logger.setLevel(Level.WARN);
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("disabled debug, stack trace and lookup: " + time(new StackTraceDebug()) + " ns/call");
+            System.out.println("disabled debug, Log.debug:              " + time(new LogDebug()) + " ns/call");
+        }
+
+        // enabled, everything goes to a file rather than the console
+        Logger root = Logger.getRootLogger();
+        root.removeAllAppenders();
+        root.addAppender(new FileAppender(new PatternLayout("%p [%d{yyyy/MM/dd HH:mm:ss}] | %m%n"), args.length > 0 ? args[0]
+                : "/dev/null"));
+        logger.setLevel(Level.DEBUG);
+        System.out.println("enabled debug, synchronous:             " + time(new LogDebug()) + " ns/call");
+        Log.setAsynchronous(8192);
+        System.out.println("enabled debug, asynchronous:            " + time(new LogDebug()) + " ns/call");
+    }
+
+    private static long time(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / CALLS;
+    }
+
+    private static final class LogDebug implements Runnable {
+
+        @Override
+        public void run() {
+            Log.debug("message");
+        }
+    }
+
+    /**
+     * What each call cost before.
+     */
+    private static final class StackTraceDebug implements Runnable {
+
+        @Override
+        public void run() {
+            StackTraceElement caller = Thread.currentThread().getStackTrace()[1];
+            Logger.getLogger(caller.getClassName()).debug("message");
+        }
+    }
+}
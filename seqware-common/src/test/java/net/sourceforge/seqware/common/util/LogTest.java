@@ -0,0 +1,115 @@
+package net.sourceforge.seqware.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogTest {
+
+    private final Logger logger = Logger.getLogger(LogTest.class);
+    private final List<LoggingEvent> events = new ArrayList<>();
+    private final AppenderSkeleton appender = new AppenderSkeleton() {
+        @Override
+        protected void append(LoggingEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        logger.addAppender(appender);
+        logger.setAdditivity(false);
+    }
+
+    @After
+    public void tearDown() {
+        logger.removeAppender(appender);
+        logger.setAdditivity(true);
+        logger.setLevel(null);
+    }
+
+    @Test
+    public void testLogsToCallerLogger() {
+        logger.setLevel(Level.DEBUG);
+        Log.debug("debug");
+        Log.error("error", new RuntimeException());
+        assertEquals(2, events.size());
+        assertEquals(LogTest.class.getName(), events.get(0).getLoggerName());
+        assertEquals("debug", events.get(0).getMessage());
+        assertEquals(Level.ERROR, events.get(1).getLevel());
+    }
+
+    @Test
+    public void testNestedCaller() {
+        Logger nested = Logger.getLogger(Caller.class);
+        nested.addAppender(appender);
+        nested.setAdditivity(false);
+        nested.setLevel(Level.INFO);
+        try {
+            new Caller().run();
+        } finally {
+            nested.removeAppender(appender);
+            nested.setAdditivity(true);
+            nested.setLevel(null);
+        }
+        assertEquals(1, events.size());
+        assertEquals(Caller.class.getName(), events.get(0).getLoggerName());
+    }
+
+    @Test
+    public void testLevelOff() {
+        logger.setLevel(Level.WARN);
+        Log.trace("trace");
+        Log.debug("debug");
+        Log.info("info");
+        assertTrue(events.isEmpty());
+        Log.warn("warn");
+        assertEquals(1, events.size());
+        // a level changed after the logger was first used still applies
+        logger.setLevel(Level.DEBUG);
+        Log.debug("debug");
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void testBadAsyncProperty() {
+        Logger logLogger = Logger.getLogger(Log.class);
+        logLogger.addAppender(appender);
+        try {
+            assertFalse(Log.setAsynchronousFromProperty(null));
+            assertTrue(events.isEmpty());
+            assertFalse(Log.setAsynchronousFromProperty("lots"));
+            assertFalse(Log.setAsynchronousFromProperty("0"));
+        } finally {
+            logLogger.removeAppender(appender);
+        }
+        assertEquals(2, events.size());
+        assertEquals(Level.WARN, events.get(0).getLevel());
+    }
+
+    private static final class Caller implements Runnable {
+
+        @Override
+        public void run() {
+            Log.info("nested");
+        }
+    }
+}
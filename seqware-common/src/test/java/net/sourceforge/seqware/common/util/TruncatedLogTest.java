@@ -0,0 +1,104 @@
+package net.sourceforge.seqware.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class TruncatedLogTest {
+
+    private static final int SIZE = 100;
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testFits() {
+        assertEquals("abc", TruncatedLog.truncate("abc", SIZE));
+        assertEquals("abcdef", TruncatedLog.append("abc", "def", SIZE));
+        assertEquals("def", TruncatedLog.append(null, "def", SIZE));
+        assertEquals("abc", TruncatedLog.append("abc", null, SIZE));
+        assertNull(TruncatedLog.truncate(null, SIZE));
+    }
+
+    @Test
+    public void testHeadAndTail() {
+        String log = repeat('h', SIZE) + repeat('t', SIZE);
+        String truncated = TruncatedLog.truncate(log, SIZE);
+        assertEquals(SIZE, truncated.length());
+        assertTrue(truncated.startsWith(repeat('h', SIZE / 2) + TruncatedLog.MARKER));
+        assertTrue(truncated.endsWith(repeat('t', SIZE / 2 - TruncatedLog.MARKER.length())));
+    }
+
+    @Test
+    public void testAppendKeepsHead() {
+        String log = TruncatedLog.truncate(repeat('h', SIZE) + repeat('m', SIZE), SIZE);
+        for (int i = 0; i < 10; i++) {
+            log = TruncatedLog.append(log, repeat('t', 7), SIZE);
+            assertEquals(SIZE, log.length());
+            assertTrue(log.startsWith(repeat('h', SIZE / 2) + TruncatedLog.MARKER));
+        }
+        // the tail is the most recent output only, the earlier marker is gone
+        assertEquals(log.indexOf(TruncatedLog.MARKER), log.lastIndexOf(TruncatedLog.MARKER));
+        assertTrue(log.endsWith(repeat('t', SIZE / 2 - TruncatedLog.MARKER.length())));
+    }
+
+    @Test
+    public void testNothingRetained() {
+        assertEquals("", TruncatedLog.truncate("abc", 0));
+        assertEquals("", TruncatedLog.truncate("abc", -1));
+        assertEquals("", TruncatedLog.append("abc", "def", -5));
+    }
+
+    /**
+     * A size just beyond the marker leaves little or no room for a tail.
+     */
+    @Test
+    public void testLittleMoreThanMarker() {
+        String log = repeat('h', SIZE) + repeat('t', SIZE);
+        assertEquals("h" + TruncatedLog.MARKER, TruncatedLog.truncate(log, TruncatedLog.MARKER.length() + 1));
+        for (int size = TruncatedLog.MARKER.length() + 1; size <= 2 * TruncatedLog.MARKER.length() + 2; size++) {
+            String truncated = TruncatedLog.truncate(log, size);
+            assertEquals(size, truncated.length());
+            String head = truncated.substring(0, truncated.indexOf(TruncatedLog.MARKER));
+            assertTrue(head.length() > 0);
+            assertEquals(repeat('h', head.length()), head);
+            assertTrue(TruncatedLog.append(truncated, "tt", size).startsWith(head + TruncatedLog.MARKER));
+        }
+    }
+
+    /**
+     * A surrogate pair at the end of the head is kept whole, and one at the start of the tail is dropped whole.
+     */
+    @Test
+    public void testSurrogatePairs() {
+        String pair = new String(Character.toChars(0x1F600));
+        // the pair straddles the end of the head
+        String log = repeat('h', SIZE / 2 - 1) + pair + repeat('t', SIZE);
+        String truncated = TruncatedLog.truncate(log, SIZE);
+        assertEquals(SIZE, truncated.length());
+        assertTrue(truncated.startsWith(repeat('h', SIZE / 2 - 1) + pair + TruncatedLog.MARKER));
+        assertTrue(TruncatedLog.truncate(truncated + "t", SIZE).startsWith(repeat('h', SIZE / 2 - 1) + pair + TruncatedLog.MARKER));
+
+        // the pair straddles the start of the tail
+        int tailLength = SIZE / 2 - TruncatedLog.MARKER.length();
+        log = repeat('h', SIZE) + pair + repeat('t', tailLength - 1);
+        truncated = TruncatedLog.truncate(log, SIZE);
+        assertEquals(SIZE - 1, truncated.length());
+        assertTrue(truncated.endsWith(TruncatedLog.MARKER + repeat('t', tailLength - 1)));
+
+        // the pair straddles the end of a log too short for a marker
+        log = repeat('h', TruncatedLog.MARKER.length() - 1) + pair + "h";
+        assertEquals(repeat('h', TruncatedLog.MARKER.length() - 1), TruncatedLog.truncate(log, TruncatedLog.MARKER.length()));
+
+        // with no room for a tail the head gives the pair up
+        log = repeat('h', SIZE);
+        log = log.substring(0, 3) + pair + log;
+        assertEquals("hhh" + TruncatedLog.MARKER, TruncatedLog.truncate(log, TruncatedLog.MARKER.length() + 4));
+    }
+}
@@ -17,14 +17,24 @@
 
 package net.sourceforge.seqware.common.util.configtools;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 import static net.sourceforge.seqware.common.util.configtools.ConfigTools.SEQWARE_SETTINGS_PROPERTY;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * <p>
@@ -37,6 +47,9 @@ import org.junit.Test;
  */
 public class ConfigToolsTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * <p>
      * Constructor for ConfigToolsTest.
@@ -103,4 +116,51 @@ public class ConfigToolsTest {
         assertEquals(settings.get("SETTING2"), "TWO");
     }
 
+    @Test
+    public void testSnapshotIsReadAgainOnlyWhenChanged() throws IOException {
+        File file = folder.newFile("settings");
+        FileUtils.writeStringToFile(file, "setting1=one\n");
+        System.setProperty(SEQWARE_SETTINGS_PROPERTY, file.getAbsolutePath());
+
+        Settings first = ConfigTools.getSettingsSnapshot();
+        assertEquals("one", first.get("SETTING1"));
+        assertSame(first, ConfigTools.getSettingsSnapshot());
+
+        // callers can still change the map they get
+        Map<String, String> copy = ConfigTools.getSettings();
+        copy.put("SETTING1", "changed");
+        assertEquals("one", ConfigTools.getSettingsSnapshot().get("SETTING1"));
+
+        FileUtils.writeStringToFile(file, "setting1=uno\n");
+        // the same size, so only the modification time tells
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        Settings second = ConfigTools.getSettingsSnapshot();
+        assertNotSame(first, second);
+        assertEquals("uno", second.get("SETTING1"));
+        assertEquals("one", first.get("SETTING1"));
+    }
+
+    @Test
+    public void testTypedAccessors() throws IOException {
+        File file = folder.newFile("settings");
+        FileUtils.writeStringToFile(file, "count=42\nbig=5000000000\nflag=TRUE\nempty=\nword=abc\n");
+        System.setProperty(SEQWARE_SETTINGS_PROPERTY, file.getAbsolutePath());
+
+        Settings settings = ConfigTools.getSettingsSnapshot();
+        assertEquals(42, settings.getInt("COUNT", 1));
+        assertEquals(1, settings.getInt("MISSING", 1));
+        assertEquals(1, settings.getInt("EMPTY", 1));
+        assertEquals(5000000000L, settings.getLong("BIG", 1));
+        assertTrue(settings.getBoolean("FLAG", false));
+        assertFalse(settings.getBoolean("WORD", true));
+        assertTrue(settings.getBoolean("MISSING", true));
+        assertEquals("abc", settings.get("WORD", "x"));
+        assertEquals("x", settings.get("MISSING", "x"));
+        try {
+            settings.getInt("WORD", 1);
+            fail("a word is not a number");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("WORD"));
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package net.sourceforge.seqware.common.util.filetools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelDownloaderTest {
+
+    private static final byte[] DATA = new byte[3 * 1024 * 1024 + 17];
+    static {
+        new Random(42).nextBytes(DATA);
+    }
+
+    private HttpServer server;
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private volatile boolean honourRanges = true;
+    private File output;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/data/sample.bam", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int start = 0;
+                int end = DATA.length;
+                int code = 200;
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                if (range != null && honourRanges) {
+                    Matcher m = Pattern.compile("bytes=(\\d+)-(\\d+)").matcher(range);
+                    assertTrue(m.matches());
+                    start = Integer.parseInt(m.group(1));
+                    end = Integer.parseInt(m.group(2)) + 1;
+                    code = 206;
+                    rangeRequests.incrementAndGet();
+                }
+                boolean head = "HEAD".equals(exchange.getRequestMethod());
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(end - start));
+                exchange.sendResponseHeaders(code, head ? -1 : end - start);
+                if (!head) {
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(DATA, start, end - start);
+                    }
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        output = File.createTempFile("download", ".bam");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        output.delete();
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/data/sample.bam";
+    }
+
+    @Test
+    public void testHttpRanges() throws IOException {
+        ParallelDownloader downloader = new ParallelDownloader(4, 512 * 1024);
+        assertEquals(DATA.length, downloader.download(ParallelDownloader.http(url()), output));
+        assertArrayEquals(DATA, Files.readAllBytes(output.toPath()));
+        assertEquals(7, rangeRequests.get());
+    }
+
+    @Test
+    public void testCopyToFileInParallel() throws IOException {
+        ProvisionFilesUtil util = new ProvisionFilesUtil();
+        File result = util.copyToFileInParallel(url(), output.getAbsolutePath(), true, new ParallelDownloader(3, 1024 * 1024));
+        assertEquals(output, result);
+        assertEquals("sample.bam", util.getFileName());
+        assertArrayEquals(DATA, Files.readAllBytes(output.toPath()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testServerWithoutRanges() throws IOException {
+        honourRanges = false;
+        new ParallelDownloader(2, 1024 * 1024).download(ParallelDownloader.http(url()), output);
+    }
+
+    /**
+     * Stands in for an S3 object whose connections drop: the first attempt at each range fails to open and the second stops halfway.
+     */
+    @Test
+    public void testRetriesFailedRanges() throws IOException {
+        // keyed by the end of the range, since a resumed range starts where the last attempt stopped
+        final Map<Long, Integer> attempts = new HashMap<>();
+        ParallelDownloader.RangeSource flaky = new ParallelDownloader.RangeSource() {
+            @Override
+            public long size() {
+                return DATA.length;
+            }
+
+            @Override
+            public InputStream open(long start, long end) throws IOException {
+                int attempt;
+                synchronized (attempts) {
+                    attempt = attempts.containsKey(end) ? attempts.get(end) + 1 : 1;
+                    attempts.put(end, attempt);
+                }
+                if (attempt == 1) {
+                    throw new IOException("connection reset");
+                }
+                final int length = (int) (end - start);
+                final int cut = attempt == 2 ? length / 2 : length;
+                return new FilterInputStream(new ByteArrayInputStream(DATA, (int) start, length)) {
+                    private int served = 0;
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        if (served >= cut && cut < length) {
+                            throw new IOException("connection dropped");
+                        }
+                        int n = super.read(b, off, Math.min(len, cut - served));
+                        served += n;
+                        return n;
+                    }
+                };
+            }
+        };
+        new ParallelDownloader(3, 1024 * 1024).download(flaky, output);
+        assertArrayEquals(DATA, Files.readAllBytes(output.toPath()));
+        assertEquals(4, attempts.size());
+        for (int attempt : attempts.values()) {
+            assertEquals(3, attempt);
+        }
+    }
+
+    @Test
+    public void testFromSettings() {
+        Map<String, String> settings = new HashMap<>();
+        assertFalse(ParallelDownloader.fromSettings(settings).isEnabled());
+        settings.put(ParallelDownloader.SW_PROVISION_DOWNLOAD_THREADS, "8");
+        settings.put(ParallelDownloader.SW_PROVISION_DOWNLOAD_PART_MB, "not a number");
+        ParallelDownloader downloader = ParallelDownloader.fromSettings(settings);
+        assertTrue(downloader.isEnabled());
+        assertEquals(8, downloader.getThreads());
+        assertEquals(ParallelDownloader.DEFAULT_PART_MB * 1024L * 1024L, downloader.getPartSize());
+    }
+}
@@ -0,0 +1,109 @@
+package net.sourceforge.seqware.common.util.filetools;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.xml.bind.DatatypeConverter;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProvisionFilesUtilTest {
+
+    /**
+     * More than one chunk of copyToFile, so that a copy is resumed past the start of the input.
+     */
+    private static final byte[] DATA = new byte[11 * 1024 * 1024 + 17];
+    static {
+        new Random(42).nextBytes(DATA);
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File input;
+
+    @Before
+    public void setUp() throws IOException {
+        input = folder.newFile("sample.bam");
+        Files.write(input.toPath(), DATA);
+    }
+
+    /**
+     * A local copy without ciphers goes through FileChannel.transferTo, twice to check that the position of the first copy is not
+     * carried over.
+     */
+    @Test
+    public void testTransferLocalFile() throws IOException {
+        ProvisionFilesUtil util = new ProvisionFilesUtil();
+        for (String name : new String[] { "first.bam", "second.bam" }) {
+            File output = new File(folder.getRoot(), name);
+            BufferedInputStream reader = util.getSourceReader(input.getAbsolutePath(), 1024, 0L);
+            assertEquals(output, util.copyToFile(reader, output.getAbsolutePath(), true, input.getAbsolutePath(), null, null));
+            assertArrayEquals(DATA, Files.readAllBytes(output.toPath()));
+        }
+    }
+
+    @Test
+    public void testCipherRoundTrip() throws Exception {
+        String key = DatatypeConverter.printBase64Binary(KeyGenerator.getInstance("DESede").generateKey().getEncoded());
+        ProvisionFilesUtil util = new ProvisionFilesUtil();
+
+        File encrypted = new File(folder.getRoot(), "encrypted.bam");
+        Cipher encrypt = util.getEncryptCipher(key);
+        assertNotNull(encrypt);
+        BufferedInputStream reader = util.getSourceReader(input.getAbsolutePath(), 1024, 0L);
+        assertEquals(encrypted, util.copyToFile(reader, encrypted.getAbsolutePath(), true, input.getAbsolutePath(), null, encrypt));
+        byte[] ciphertext = Files.readAllBytes(encrypted.toPath());
+        assertFalse(Arrays.equals(DATA, Arrays.copyOf(ciphertext, DATA.length)));
+
+        File decrypted = new File(folder.getRoot(), "decrypted.bam");
+        Cipher decrypt = util.getDecryptCipher(key);
+        assertNotNull(decrypt);
+        reader = util.getSourceReader(encrypted.getAbsolutePath(), 1024, 0L);
+        assertEquals(decrypted, util.copyToFile(reader, decrypted.getAbsolutePath(), true, encrypted.getAbsolutePath(), decrypt, null));
+        assertArrayEquals(DATA, Files.readAllBytes(decrypted.toPath()));
+    }
+
+    /**
+     * A stream that breaks after the first chunk is reopened at the end of that chunk, and the part of the second chunk read before
+     * the break is not written twice.
+     */
+    @Test
+    public void testResumeStream() throws IOException {
+        ProvisionFilesUtil util = new ProvisionFilesUtil();
+        // sets the size and name of the input
+        util.getSourceReader(input.getAbsolutePath(), 1024, 0L).close();
+        // read the input as a stream rather than transfer it
+        util.inputFile = null;
+
+        final int cut = 10 * 1024 * 1024;
+        BufferedInputStream breaking = new BufferedInputStream(new FilterInputStream(new FileInputStream(input)) {
+            private int served = 0;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (served >= cut) {
+                    throw new IOException("connection dropped");
+                }
+                int n = super.read(b, off, Math.min(len, cut - served));
+                served += Math.max(n, 0);
+                return n;
+            }
+        });
+        File output = new File(folder.getRoot(), "resumed.bam");
+        assertEquals(output, util.copyToFile(breaking, output.getAbsolutePath(), true, input.getAbsolutePath(), null, null));
+        assertArrayEquals(DATA, Files.readAllBytes(output.toPath()));
+    }
+}
@@ -0,0 +1,171 @@
+package net.sourceforge.seqware.common.util.xmltools;
+
+import io.seqware.common.model.WorkflowRunStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import net.sourceforge.seqware.common.model.File;
+import net.sourceforge.seqware.common.model.Processing;
+import net.sourceforge.seqware.common.model.Sample;
+import net.sourceforge.seqware.common.model.SampleAttribute;
+import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.model.lists.SampleList;
+import org.w3c.dom.Document;
+
+/**
+ * Times marshalling and unmarshalling the objects sent to and from the web service, through a DOM as the resources and MetadataWS did and
+ * streamed as {@link MarshallingRepresentation} and {@link XmlTools#unMarshal(JaxbObject, Object, java.io.InputStream)} do, and reports the
+ * bytes allocated for each object where the JVM can count them.
+ *
+ * Not a test, run it with:
+ *
+ * <pre>
+ * mvn -pl seqware-common test-compile exec:java -Dexec.mainClass=net.sourceforge.seqware.common.util.xmltools.JaxbObjectBenchmark -Dexec.classpathScope=test
+ * </pre>
+ */
+public class JaxbObjectBenchmark {
+
+    private static final int WARMUP = 2000;
+    private static final int CALLS = 20000;
+
+    public static void main(String[] args) throws Exception {
+        List<Object> objects = new ArrayList<>();
+        objects.add(sample(0));
+        objects.add(workflowRun());
+        objects.add(processing());
+        objects.add(file());
+        SampleList samples = new SampleList();
+        samples.setList(new ArrayList<Sample>());
+        for (int i = 0; i < 100; i++) {
+            samples.add(sample(i));
+        }
+        objects.add(samples);
+
+        for (int round = 0; round < 2; round++) {
+            for (Object o : objects) {
+                run(o);
+            }
+        }
+    }
+
+    private static void run(final Object o) throws Exception {
+        final JaxbObject jaxbTool = new JaxbObject();
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        final byte[] xml = jaxbTool.marshal(o).getBytes("UTF-8");
+        String name = o.getClass().getSimpleName() + " (" + xml.length + " bytes)";
+
+        report(name, "marshal via DOM", new Call() {
+            @Override
+            public void run() throws Exception {
+                Document doc = jaxbTool.marshalToDocument(o);
+                transformer.transform(new DOMSource(doc), new StreamResult(new ByteArrayOutputStream()));
+            }
+        });
+        report(name, "marshal streamed", new Call() {
+            @Override
+            public void run() throws Exception {
+                new MarshallingRepresentation(jaxbTool, o).write(new ByteArrayOutputStream());
+            }
+        });
+        report(name, "unmarshal via DOM", new Call() {
+            @Override
+            public void run() throws Exception {
+                Document doc = dbf.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+                jaxbTool.unMarshal(doc, o.getClass().newInstance());
+            }
+        });
+        report(name, "unmarshal streamed", new Call() {
+            @Override
+            public void run() throws Exception {
+                XmlTools.unMarshal(jaxbTool, o.getClass().newInstance(), new ByteArrayInputStream(xml));
+            }
+        });
+    }
+
+    private interface Call {
+
+        void run() throws Exception;
+    }
+
+    private static void report(String name, String path, Call call) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        String bytes = allocated < 0 ? "n/a" : String.valueOf((allocatedBytes() - allocated) / CALLS);
+        System.out.println(String.format("%-30s %-20s %10.0f ops/s %10s bytes/op", name, path, CALLS * 1e9 / elapsed, bytes));
+    }
+
+    /**
+     * @return the bytes allocated by this thread so far, or -1 if the JVM does not count them
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static Sample sample(int i) {
+        Sample sample = new Sample();
+        sample.setSampleId(i);
+        sample.setSwAccession(1000 + i);
+        sample.setName("sample_" + i);
+        sample.setTitle("A sample title");
+        sample.setDescription("A longer description of the sample and where it came from");
+        for (int a = 0; a < 3; a++) {
+            SampleAttribute attribute = new SampleAttribute();
+            attribute.setTag("tag" + a);
+            attribute.setValue("value" + a);
+            sample.getSampleAttributes().add(attribute);
+        }
+        return sample;
+    }
+
+    private static WorkflowRun workflowRun() {
+        WorkflowRun run = new WorkflowRun();
+        run.setSwAccession(6654);
+        run.setStatus(WorkflowRunStatus.running);
+        run.setStatusCmd("0000012-140312120035045-oozie-oozi-W");
+        run.setCurrentWorkingDir("/tmp/oozie-1");
+        StringBuilder ini = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            ini.append("key").append(i).append("=value").append(i).append('\n');
+        }
+        run.setIniFile(ini.toString());
+        return run;
+    }
+
+    private static Processing processing() {
+        Processing processing = new Processing();
+        processing.setSwAccession(7000);
+        processing.setAlgorithm("BamQC");
+        processing.setFilePath("/oicr/data/archive/processing/7000");
+        return processing;
+    }
+
+    private static File file() {
+        File file = new File();
+        file.setSwAccession(8000);
+        file.setFilePath("/oicr/data/archive/files/sample_1.bam");
+        file.setMetaType("application/bam");
+        return file;
+    }
+}
@@ -16,11 +16,20 @@
  */
 package net.sourceforge.seqware.common.util.xmltools;
 
+import io.seqware.common.model.ProcessingStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.sourceforge.seqware.common.metadata.ProcessingEvent;
 import net.sourceforge.seqware.common.model.Experiment;
 import net.sourceforge.seqware.common.model.ExperimentAttribute;
 import net.sourceforge.seqware.common.model.FileType;
@@ -38,6 +47,7 @@ import net.sourceforge.seqware.common.model.Study;
 import net.sourceforge.seqware.common.model.StudyAttribute;
 import net.sourceforge.seqware.common.model.Workflow;
 import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.model.lists.ProcessingEventList;
 import net.sourceforge.seqware.common.model.lists.ReturnValueList;
 import net.sourceforge.seqware.common.model.lists.WorkflowList;
 import net.sourceforge.seqware.common.model.lists.WorkflowRunList2;
@@ -51,6 +61,9 @@ import static org.junit.Assert.assertEquals;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.restlet.data.MediaType;
+import org.restlet.representation.StringRepresentation;
+import org.xml.sax.SAXException;
 
 /**
  * <p>
@@ -575,4 +588,186 @@ public class JaxbObjectTest {
         }
 
     }
+
+    /**
+     * The processing events that MetadataWS sends to /processingevents in one request.
+     * 
+     * @throws java.lang.Exception
+     *             if any.
+     */
+    @Test
+    public void testProcessingEventListJaxb() throws Exception {
+        ReturnValue ret = new ReturnValue();
+        ret.setAlgorithm("ProvisionFiles");
+        ret.setStdout("out");
+        FileMetadata fm = new FileMetadata();
+        fm.setFilePath("/tmp/out.bam");
+        fm.setMetaType("application/bam");
+        ret.getFiles().add(fm);
+        ProcessingEvent event = new ProcessingEvent();
+        event.setProcessingId(12);
+        event.setSwAccession(3456);
+        event.setParentAccessions(new int[] { 1, 2 });
+        event.setWorkflowRunAccession(78);
+        event.setReturnValue(ret);
+        event.setStatus(ProcessingStatus.failed);
+        ProcessingEventList events = new ProcessingEventList();
+        events.add(event);
+        events.add(new ProcessingEvent());
+
+        JaxbObject<ProcessingEventList> jaxb = new JaxbObject<>();
+        for (String text : new String[] { jaxb.marshal(events), jaxb.marshalJson(events) }) {
+            ProcessingEventList read = text.startsWith("{") ? jaxb.unMarshalJson(new ProcessingEventList(), new ByteArrayInputStream(
+                    text.getBytes("UTF-8"))) : (ProcessingEventList) XmlTools.unMarshal(jaxb, new ProcessingEventList(), text);
+            assertEquals(2, read.getList().size());
+            ProcessingEvent first = read.getList().get(0);
+            assertEquals(12, first.getProcessingId());
+            assertEquals(3456, first.getSwAccession());
+            Assert.assertArrayEquals(new int[] { 1, 2 }, first.getParentAccessions());
+            assertEquals(78, first.getWorkflowRunAccession());
+            assertEquals(ProcessingStatus.failed, first.getStatus());
+            assertEquals("ProvisionFiles", first.getReturnValue().getAlgorithm());
+            assertEquals(1, first.getReturnValue().getFiles().size());
+            assertEquals("/tmp/out.bam", first.getReturnValue().getFiles().get(0).getFilePath());
+            assertEquals(0, read.getList().get(1).getProcessingId());
+        }
+    }
+
+    /**
+     * The stream methods write and read the same XML as the String ones.
+     * 
+     * @throws java.lang.Exception
+     *             if any.
+     */
+    @Test
+    public void testStreamJaxb() throws Exception {
+        Sample sample = new Sample();
+        sample.setSampleId(Integer.MIN_VALUE);
+        sample.setTitle("t\u00e9st");
+        SampleAttribute sa1 = new SampleAttribute();
+        sa1.setTag("t1");
+        sa1.setValue("v1");
+        sample.getSampleAttributes().add(sa1);
+
+        JaxbObject<Sample> instance = new JaxbObject<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.marshal(sample, out);
+        assertEquals(instance.marshal(sample), out.toString("UTF-8"));
+
+        Sample sample2 = instance.unMarshal(new Sample(), new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(sample, sample2);
+        assertEquals("t\u00e9st", sample2.getTitle());
+
+        Sample sample3 = (Sample) XmlTools.unMarshal(instance, new Sample(), new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(sample, sample3);
+    }
+
+    /**
+     * Objects come back from JSON as they do from XML, and strings that look like numbers stay strings.
+     *
+     * @throws java.lang.Exception
+     *             if any.
+     */
+    @Test
+    public void testJsonJaxb() throws Exception {
+        Sample sample = new Sample();
+        sample.setSampleId(Integer.MIN_VALUE);
+        sample.setTitle("t\u00e9st");
+        sample.setName("0123");
+        SampleAttribute sa1 = new SampleAttribute();
+        sa1.setTag("t1");
+        sa1.setValue("v1");
+        sample.getSampleAttributes().add(sa1);
+
+        JaxbObject<Sample> instance = new JaxbObject<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.marshalJson(sample, out);
+        assertEquals(instance.marshalJson(sample), out.toString("UTF-8"));
+        Assert.assertTrue(out.toString("UTF-8").startsWith("{\"Sample\":"));
+
+        Sample sample2 = instance.unMarshalJson(new Sample(), new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(sample, sample2);
+        assertEquals("t\u00e9st", sample2.getTitle());
+        assertEquals("0123", sample2.getName());
+        assertEquals(1, sample2.getSampleAttributes().size());
+
+        WorkflowRun wr = new WorkflowRun();
+        wr.setWorkflowRunId(Integer.MIN_VALUE);
+        IUS ius = new IUS();
+        ius.setIusId(Integer.MAX_VALUE);
+        SortedSet<IUS> iuses = new TreeSet<>();
+        iuses.add(ius);
+        wr.setIus(iuses);
+
+        JaxbObject<WorkflowRun> jaxb = new JaxbObject<>();
+        WorkflowRun x = jaxb.unMarshalJson(new WorkflowRun(), new ByteArrayInputStream(jaxb.marshalJson(wr).getBytes("UTF-8")));
+        assertEquals(wr.getWorkflowRunId(), x.getWorkflowRunId());
+        assertEquals(1, x.getIus().size());
+    }
+
+    /**
+     * An entity is read as XML or JSON by its media type, and XML sent with a byte-order mark or leading whitespace is still read.
+     *
+     * @throws java.lang.Exception
+     *             if any.
+     */
+    @Test
+    public void testUnMarshalEntity() throws Exception {
+        Sample sample = new Sample();
+        sample.setSampleId(Integer.MIN_VALUE);
+        sample.setName("0123");
+        JaxbObject<Sample> instance = new JaxbObject<>();
+
+        String xml = "\ufeff\n  " + instance.marshal(sample);
+        Sample fromXml = (Sample) XmlTools.unMarshal(instance, new Sample(), new StringRepresentation(xml, MediaType.APPLICATION_XML));
+        assertEquals(sample, fromXml);
+        assertEquals("0123", fromXml.getName());
+
+        String json = instance.marshalJson(sample);
+        Sample fromJson = (Sample) XmlTools.unMarshal(instance, new Sample(), new StringRepresentation(json, MediaType.APPLICATION_JSON));
+        assertEquals(sample, fromJson);
+        assertEquals("0123", fromJson.getName());
+    }
+
+    /**
+     * XML that is not well-formed still fails to parse rather than being taken for the wrong type.
+     * 
+     * @throws java.lang.Exception
+     *             if any.
+     */
+    @Test(expected = SAXException.class)
+    public void testUnMarshalMalformed() throws Exception {
+        XmlTools.unMarshal(new JaxbObject<Sample>(), new Sample(), "<Sample><title>");
+    }
+
+    /**
+     * Each thread marshals with its own marshaller.
+     * 
+     * @throws java.lang.Exception
+     *             if any.
+     */
+    @Test
+    public void testConcurrentJaxb() throws Exception {
+        final JaxbObject<Study> instance = new JaxbObject<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Study>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final Study study = new Study();
+                study.setStudyId(i);
+                study.setTitle("study " + i);
+                results.add(executor.submit(new Callable<Study>() {
+                    @Override
+                    public Study call() throws Exception {
+                        return instance.unMarshal(new Study(), new StringReader(instance.marshal(study)));
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("study " + i, results.get(i).get().getTitle());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -3810,6 +3810,13 @@ CREATE INDEX file_id_processing_files ON processing_files USING btree (file_id);
 CREATE INDEX file_id_workflow_run_input_files ON workflow_run_input_files USING btree (file_id);
 
 
+--
+-- Name: workflow_run_input_files_file_run; Type: INDEX; Schema: public; Owner: seqware; Tablespace: 
+--
+
+CREATE INDEX workflow_run_input_files_file_run ON workflow_run_input_files USING btree (file_id, workflow_run_id);
+
+
 --
 -- Name: file_report_study_id_idx; Type: INDEX; Schema: public; Owner: seqware; Tablespace: 
 --
@@ -3887,6 +3894,13 @@ CREATE INDEX sample_report_study_id_child_sample_id_workflow_id_idx ON sample_re
 CREATE INDEX status_workflow_run ON workflow_run USING btree (status);
 
 
+--
+-- Name: status_update_tstmp_workflow_run; Type: INDEX; Schema: public; Owner: seqware; Tablespace: 
+--
+
+CREATE INDEX status_update_tstmp_workflow_run ON workflow_run USING btree (status, update_tstmp);
+
+
 --
 -- Name: sw_accession_file; Type: INDEX; Schema: public; Owner: seqware; Tablespace: 
 --
@@ -3922,6 +3936,13 @@ CREATE INDEX workflow_run_id_ius_workflow_runs ON ius_workflow_runs USING btree
 CREATE INDEX workflow_run_id_workflow_run_input_files ON workflow_run_input_files USING btree (workflow_run_id);
 
 
+--
+-- Name: workflow_run_input_files_run_file; Type: INDEX; Schema: public; Owner: seqware; Tablespace: 
+--
+
+CREATE INDEX workflow_run_input_files_run_file ON workflow_run_input_files USING btree (workflow_run_id, file_id);
+
+
 --
 -- Name: workflow_run_processing; Type: INDEX; Schema: public; Owner: seqware; Tablespace: 
 --
@@ -4596,6 +4617,136 @@ ALTER TABLE workflow_run_input_files
 ALTER TABLE ONLY workflow_run
     ADD CONSTRAINT workflow_run_workflow_id_fkey FOREIGN KEY (workflow_id) REFERENCES workflow(workflow_id);
 
+--
+-- Name: file_provenance_report_dirty; Type: TABLE; Schema: public; Owner: seqware; Tablespace: 
+--
+-- Keys of rows that changed since the file provenance report was last refreshed. 
+-- The incremental refresh (file-provenance-report-incremental.sql) consumes these and 
+-- re-derives only the report rows that are affected. 
+--
+
+CREATE TABLE file_provenance_report_dirty (
+    kind character varying(32) NOT NULL,
+    id integer NOT NULL
+);
+
+
+ALTER TABLE public.file_provenance_report_dirty OWNER TO seqware;
+
+--
+-- Name: file_provenance_report_mark_dirty(); Type: FUNCTION; Schema: public; Owner: seqware
+-- 
+-- TG_ARGV[0] is the kind of key recorded, TG_ARGV[1] is the column of the changed row holding the key
+--
+
+CREATE FUNCTION file_provenance_report_mark_dirty() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+  _id INTEGER;
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    EXECUTE 'SELECT ($1).' || quote_ident(TG_ARGV[1]) INTO _id USING OLD;
+  ELSE
+    EXECUTE 'SELECT ($1).' || quote_ident(TG_ARGV[1]) INTO _id USING NEW;
+  END IF;
+
+  IF _id IS NOT NULL THEN
+    INSERT INTO file_provenance_report_dirty(kind, id) VALUES (TG_ARGV[0], _id);
+  END IF;
+
+  RETURN NULL;
+END
+  $$;
+
+
+ALTER FUNCTION public.file_provenance_report_mark_dirty() OWNER TO seqware;
+
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON file FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('file', 'sw_accession');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON file_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('file_id', 'file_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON processing_files FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('file_id', 'file_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON processing FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('processing', 'processing_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON processing_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('processing', 'processing_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON processing_ius FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('processing_tree', 'processing_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON processing_samples FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('processing_tree', 'processing_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON processing_relationship FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('processing_tree', 'child_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON workflow_run FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('workflow_run', 'workflow_run_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON workflow FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('workflow', 'workflow_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON study FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('study', 'study_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON study_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('study', 'study_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON experiment FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('experiment', 'experiment_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON experiment_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('experiment', 'experiment_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON sample FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('sample', 'sample_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON sample_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('sample', 'sample_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON sample_hierarchy FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('sample', 'sample_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON sequencer_run FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('sequencer_run', 'sequencer_run_id');
+-- sequencer_run_attribute keys its parent through a column named sample_id, see file-provenance-report.sql
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON sequencer_run_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('sequencer_run', 'sample_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON lane FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('lane', 'lane_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON lane_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('lane', 'lane_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER UPDATE ON ius FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('ius', 'ius_id');
+CREATE TRIGGER file_provenance_report_dirty AFTER INSERT OR UPDATE OR DELETE ON ius_attribute FOR EACH ROW EXECUTE PROCEDURE file_provenance_report_mark_dirty('ius', 'ius_id');
+
+--
+-- Name: sw_accession_registry; Type: TABLE; Schema: public; Owner: seqware; Tablespace: 
+--
+-- The table and primary key of each entity that has an sw_accession, so that an accession can be resolved 
+-- without looking in every table. Kept current by sw_accession_register(). 
+--
+
+CREATE TABLE sw_accession_registry (
+    sw_accession integer NOT NULL,
+    table_name character varying(32) NOT NULL,
+    id integer NOT NULL,
+    CONSTRAINT sw_accession_registry_pkey PRIMARY KEY (sw_accession, table_name)
+);
+
+
+ALTER TABLE public.sw_accession_registry OWNER TO seqware;
+
+--
+-- Name: sw_accession_register(); Type: FUNCTION; Schema: public; Owner: seqware
+-- 
+-- TG_ARGV[0] is the primary key column of the changed row
+--
+
+CREATE FUNCTION sw_accession_register() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+  _id INTEGER;
+BEGIN
+  IF TG_OP <> 'INSERT' THEN
+    DELETE FROM sw_accession_registry WHERE sw_accession = OLD.sw_accession AND table_name = TG_TABLE_NAME;
+  END IF;
+
+  IF TG_OP <> 'DELETE' THEN
+    IF NEW.sw_accession IS NOT NULL THEN
+      EXECUTE 'SELECT ($1).' || quote_ident(TG_ARGV[0]) INTO _id USING NEW;
+      INSERT INTO sw_accession_registry(sw_accession, table_name, id) VALUES (NEW.sw_accession, TG_TABLE_NAME, _id);
+    END IF;
+  END IF;
+
+  RETURN NULL;
+END
+  $$;
+
+
+ALTER FUNCTION public.sw_accession_register() OWNER TO seqware;
+
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON experiment FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('experiment_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON file FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('file_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON ius FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('ius_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON lane FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('lane_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON processing FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('processing_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON sample FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('sample_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON sequencer_run FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('sequencer_run_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON study FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('study_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON workflow FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('workflow_id');
+CREATE TRIGGER sw_accession_register AFTER INSERT OR DELETE OR UPDATE OF sw_accession ON workflow_run FOR EACH ROW EXECUTE PROCEDURE sw_accession_register('workflow_run_id');
+
+
+
 
 -- Name: public; Type: ACL; Schema: -; Owner: postgres
 --
@@ -8,7 +8,7 @@ import java.util.Set;
 public class Engines {
 
     public enum TYPES {
-        oozie("oozie"), oozie_sge("oozie-sge");
+        oozie("oozie"), oozie_sge("oozie-sge"), local("local");
         private final String cliString;
 
         TYPES(String cliString) {
@@ -28,7 +28,7 @@ public class Engines {
         }
     }
 
-    public static final String ENGINES_LIST = Engines.TYPES.oozie + ", " + Engines.TYPES.oozie_sge;
+    public static final String ENGINES_LIST = Engines.TYPES.oozie + ", " + Engines.TYPES.oozie_sge + ", " + Engines.TYPES.local;
     public static final String DEFAULT_ENGINE = Engines.TYPES.oozie.toString();
     public static final Set<String> ENGINES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(ENGINES_LIST.split(", "))));
 
@@ -42,6 +42,16 @@ public class Engines {
         return engine != null && engine.startsWith("oozie");
     }
 
+    /**
+     * Check whether the workflow engine runs the workflow within the launcher, so the run is over once it has been launched.
+     * 
+     * @param engine
+     * @return
+     */
+    public static boolean isLocal(final String engine) {
+        return TYPES.local.toString().equals(engine);
+    }
+
     /**
      * Check whether the workflow engine supports cancel.
      * 
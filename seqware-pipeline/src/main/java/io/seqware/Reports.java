@@ -7,7 +7,11 @@ import net.sourceforge.seqware.common.util.configtools.ConfigTools;
 public class Reports {
 
     public static void triggerProvenanceReport() {
+        triggerProvenanceReport(false);
+    }
+
+    public static void triggerProvenanceReport(boolean rebuild) {
         Metadata md = MetadataFactory.get(ConfigTools.getSettings());
-        md.fileProvenanceReportTrigger();
+        md.fileProvenanceReportTrigger(rebuild);
     }
 }
@@ -973,6 +973,29 @@ public class Main {
         }
     }
 
+    private static void filesRefresh(List<String> args) {
+        if (isHelp(args, false)) {
+            out("");
+            out("Usage: seqware files refresh --help");
+            out("       seqware files refresh [params]");
+            out("");
+            out("Description:");
+            out("  Refresh the static simplified provenance report table.");
+            out("  Only rows affected by changes since the last refresh are updated.");
+            out("");
+            out("Optional parameters:");
+            out("  --rebuild                      Rebuild the whole table from scratch");
+            out("");
+        } else {
+            boolean rebuild = flag(args, "--rebuild");
+
+            extras(args, "files refresh");
+
+            Log.stdoutWithTime("Triggered provenance report");
+            Reports.triggerProvenanceReport(rebuild);
+        }
+    }
+
     private static void files(List<String> args) {
         if (isHelp(args, true)) {
             out("");
@@ -993,8 +1016,7 @@ public class Main {
                 filesReport(args);
                 break;
             case "refresh":
-                Log.stdoutWithTime("Triggered provenance report");
-                Reports.triggerProvenanceReport();
+                filesRefresh(args);
                 break;
             default:
                 invalid("files", cmd);
@@ -1428,8 +1450,10 @@ public class Main {
             out("                       to provide multiple runs.");
             out("  --host <value>       Use the specified value instead of the local hostname");
             out("                       when selecting which workflow-runs to launch.");
+            out("  --threads <num>      The number of workflow-runs to launch at a time (default 1)");
             out("");
         } else {
+            String threads = optVal(args, "--threads", null);
             List<String> ids = optVals(args, "--accession");
             String host = optVal(args, "--host", null);
 
@@ -1449,6 +1473,11 @@ public class Main {
                 runnerArgs.add(host);
             }
 
+            if (threads != null) {
+                runnerArgs.add("--threads-in-thread-pool");
+                runnerArgs.add(threads);
+            }
+
             runnerArgs.add("--launch-scheduled");
             if (!ids.isEmpty()) {
                 runnerArgs.add(cdl(ids));
@@ -1,6 +1,7 @@
 package io.seqware.pipeline.api;
 
 import io.seqware.common.model.WorkflowRunStatus;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -77,15 +78,53 @@ public class Scheduler {
 
         Map<String, String> workflowMetadata = this.metadata.get_workflow_info(Integer.parseInt(workflowAccession));
         WorkflowInfo wi = parseWorkflowMetadata(workflowMetadata);
-        return scheduleWorkflow(wi, iniFiles, metadataWriteback, parentAccessions, parentsLinkedToWR, cmdLineOptions, scheduledHost,
-                workflowEngine, inputFiles);
+        return scheduleWorkflow(wi, loadIniConfigs(wi.getWorkflowAccession()), iniFiles, metadataWriteback, parentAccessions,
+                parentsLinkedToWR, cmdLineOptions, scheduledHost, workflowEngine, inputFiles);
 
     }
 
+    /**
+     * Schedules several runs of one installed workflow. The workflow and its default parameters are looked up once for the whole batch
+     * rather than once per run, and runs are scheduled in the order given.
+     * 
+     * @param workflowAccession
+     * @param runs
+     *            the per-run ini files, parents and input files
+     * @param metadataWriteback
+     * @param cmdLineOptions
+     *            applied to every run
+     * @param scheduledHost
+     * @param workflowEngine
+     * @return one return value per run, in the same order, holding the accession of the new workflow run, or a failure for a run that
+     *         could not be scheduled
+     */
+    public List<ReturnValue> scheduleInstalledBundle(String workflowAccession, List<ScheduledRun> runs, boolean metadataWriteback,
+            List<String> cmdLineOptions, String scheduledHost, String workflowEngine) {
+        List<ReturnValue> results = new ArrayList<>(runs.size());
+        if (runs.isEmpty()) {
+            return results;
+        }
+        Map<String, String> workflowMetadata = this.metadata.get_workflow_info(Integer.parseInt(workflowAccession));
+        WorkflowInfo wi = parseWorkflowMetadata(workflowMetadata);
+        Map<String, String> defaultIniConfig = loadIniConfigs(wi.getWorkflowAccession());
+        for (ScheduledRun run : runs) {
+            try {
+                results.add(scheduleWorkflow(wi, defaultIniConfig, run.getIniFiles(), metadataWriteback, run.getParentAccessions(),
+                        run.getParentsLinkedToWR(), cmdLineOptions, scheduledHost, workflowEngine, run.getInputFiles()));
+            } catch (Exception e) {
+                // a run that cannot be scheduled, such as for a missing ini file, does not stop the rest of the batch
+                Log.error("Could not schedule workflow " + workflowAccession + " with ini files " + run.getIniFiles(), e);
+                results.add(new ReturnValue(ReturnValue.FAILURE));
+            }
+        }
+        return results;
+    }
+
     /**
      * 
      * @param wi
-     * @param workflowRunAccession
+     * @param defaultIniConfig
+     *            the default parameters of the installed workflow, not modified
      * @param iniFiles
      * @param metadataWriteback
      * @param parentAccessions
@@ -96,9 +135,9 @@ public class Scheduler {
      * @param inputFiles
      * @return
      */
-    private ReturnValue scheduleWorkflow(WorkflowInfo wi, List<String> iniFiles, boolean metadataWriteback, List<String> parentAccessions,
-            List<String> parentsLinkedToWR, List<String> cmdLineOptions, String scheduledHost, String workflowEngine,
-            Set<Integer> inputFiles) {
+    private ReturnValue scheduleWorkflow(WorkflowInfo wi, Map<String, String> defaultIniConfig, List<String> iniFiles,
+            boolean metadataWriteback, List<String> parentAccessions, List<String> parentsLinkedToWR, List<String> cmdLineOptions,
+            String scheduledHost, String workflowEngine, Set<Integer> inputFiles) {
 
         // keep this id handy
         int workflowRunId = 0;
@@ -121,7 +160,6 @@ public class Scheduler {
         map.put(ReservedIniKeys.WORKFLOW_RUN_ACCESSION_DASHED.getKey(), "0");
 
         // load up default ini values from installed workflow
-        Map<String, String> defaultIniConfig = this.loadIniConfigs(wi.getWorkflowAccession());
         map.putAll(defaultIniConfig);
 
         // if we're doing metadata writeback will need to parameterize the
@@ -283,4 +321,37 @@ public class Scheduler {
         return (wi);
     }
 
+    /**
+     * The parts of a scheduling request that differ from one run to the next in a batch.
+     */
+    public static class ScheduledRun {
+        private final List<String> iniFiles;
+        private final List<String> parentAccessions;
+        private final List<String> parentsLinkedToWR;
+        private final Set<Integer> inputFiles;
+
+        public ScheduledRun(List<String> iniFiles, List<String> parentAccessions, List<String> parentsLinkedToWR, Set<Integer> inputFiles) {
+            this.iniFiles = iniFiles;
+            this.parentAccessions = parentAccessions;
+            this.parentsLinkedToWR = parentsLinkedToWR;
+            this.inputFiles = inputFiles;
+        }
+
+        public List<String> getIniFiles() {
+            return iniFiles;
+        }
+
+        public List<String> getParentAccessions() {
+            return parentAccessions;
+        }
+
+        public List<String> getParentsLinkedToWR() {
+            return parentsLinkedToWR;
+        }
+
+        public Set<Integer> getInputFiles() {
+            return inputFiles;
+        }
+    }
+
 }
@@ -19,6 +19,7 @@ package io.seqware.pipeline.api;
 
 import java.util.Map;
 import net.sourceforge.seqware.pipeline.workflowV2.AbstractWorkflowDataModel;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.local.LocalWorkflowEngine;
 import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.OozieWorkflowEngine;
 import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieJob;
 
@@ -59,6 +60,8 @@ public class WorkflowTools {
                                 + OozieJob.SGE_MAX_MEMORY_PARAM_VARIABLE + "' variable.");
             }
             wfEngine = new OozieWorkflowEngine(dataModel, true, threadsSgeParamFormat, maxMemorySgeParamFormat, createDirectories);
+        } else if (engine.equalsIgnoreCase("local")) {
+            wfEngine = new LocalWorkflowEngine(dataModel, config, createDirectories);
         } else {
             throw new IllegalArgumentException("Unknown workflow engine: " + engine);
         }
@@ -1,17 +1,25 @@
 package io.seqware.pipeline.plugins;
 
+import io.seqware.Engines;
 import io.seqware.WorkflowRuns;
 import io.seqware.common.model.WorkflowRunStatus;
 import io.seqware.pipeline.api.WorkflowEngine;
 import io.seqware.pipeline.api.WorkflowTools;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import joptsimple.ArgumentAcceptingOptionSpec;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpecBuilder;
 import net.sourceforge.seqware.common.metadata.Metadata;
+import net.sourceforge.seqware.common.metadata.MetadataWS;
 import net.sourceforge.seqware.common.model.WorkflowRun;
 import net.sourceforge.seqware.common.module.ReturnValue;
 import net.sourceforge.seqware.common.util.Log;
@@ -20,6 +28,7 @@ import net.sourceforge.seqware.pipeline.plugin.Plugin;
 import net.sourceforge.seqware.pipeline.plugin.PluginInterface;
 import net.sourceforge.seqware.pipeline.tools.RunLock;
 import net.sourceforge.seqware.pipeline.workflowV2.AbstractWorkflowDataModel;
+import net.sourceforge.seqware.pipeline.workflowV2.WorkflowBundleCache;
 import net.sourceforge.seqware.pipeline.workflowV2.WorkflowDataModelFactory;
 import net.sourceforge.seqware.pipeline.workflowV2.WorkflowV2Utility;
 import org.openide.util.lookup.ServiceProvider;
@@ -43,6 +52,11 @@ public class WorkflowLauncher extends Plugin {
     private final ArgumentAcceptingOptionSpec<String> launchScheduledSpec;
     private final ArgumentAcceptingOptionSpec<String> forceHostSpec;
     private final OptionSpecBuilder noRunSpec;
+    private final ArgumentAcceptingOptionSpec<Integer> threadsSpec;
+    /**
+     * Shared by the runs launched together, so runs of the same workflow load its bundle once.
+     */
+    private final WorkflowBundleCache bundleCache = new WorkflowBundleCache();
 
     public WorkflowLauncher() {
         super();
@@ -58,6 +72,10 @@ public class WorkflowLauncher extends Plugin {
                         "If specified, the scheduled workflow will only be launched if this parameter value and the host field in the workflow run table match. This is a mechanism to target workflows to particular servers for launching.")
                 .withRequiredArg();
         this.noRunSpec = createNoRunSpec(parser);
+        this.threadsSpec = parser
+                .acceptsAll(Arrays.asList("threads-in-thread-pool", "tp"),
+                        "Optional: the number of workflow runs to prepare and submit at the same time. Default: 1").withRequiredArg()
+                .ofType(Integer.class).defaultsTo(1);
     }
 
     public static final OptionSpecBuilder createNoRunSpec(OptionParser parser) {
@@ -99,12 +117,32 @@ public class WorkflowLauncher extends Plugin {
 
     @Override
     public ReturnValue do_run() {
+        int threads = options.valueOf(threadsSpec);
+        if (threads <= 0) {
+            Log.fatal("Inappropriate number of threads selected");
+            return new ReturnValue(ReturnValue.INVALIDPARAMETERS);
+        }
         RunLock.acquire();
-        launchScheduledWorkflows();
+        launchScheduledWorkflows(launchThreads(threads, metadata));
         return new ReturnValue();
 
     }
 
+    /**
+     * @param threads
+     *            the number of threads asked for
+     * @param metadata
+     *            the metadata the launches share
+     * @return the number of threads, or 1 unless the metadata can be called from several threads at once, see {@link LaunchTask}
+     */
+    static int launchThreads(int threads, Metadata metadata) {
+        if (threads > 1 && !(metadata instanceof MetadataWS)) {
+            Log.warn("Launching one run at a time instead of " + threads + ", only the web service metadata can be shared by threads");
+            return 1;
+        }
+        return threads;
+    }
+
     /**
      * Check whether a particular workflow run is valid on this host
      * 
@@ -128,18 +166,23 @@ public class WorkflowLauncher extends Plugin {
     /**
      * Grab valid scheduled workflows from the database and run them
      * 
+     * @param threads
+     *            the number of runs to launch at the same time
      */
-    private void launchScheduledWorkflows() {
+    private void launchScheduledWorkflows(int threads) {
         // then you are either launching all workflows scheduled in the DB
         // workflow_run table or just particular ones
         List<String> scheduledAccessions = options.valuesOf(launchScheduledSpec);
 
         // then need to loop over these and just launch those workflows or
         // launch all if accession not specified
-        List<WorkflowRun> scheduledWorkflows = this.metadata.getWorkflowRunsByStatus(WorkflowRunStatus.submitted);
+        // only the status fields are needed to pick the runs, each launched run is read in full
+        List<WorkflowRun> scheduledWorkflows = this.metadata.getWorkflowRunStatuses(EnumSet.of(WorkflowRunStatus.submitted), null);
 
         Log.stdoutWithTime("Number of submitted workflows: " + scheduledWorkflows.size());
 
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(scheduledWorkflows.size());
         for (WorkflowRun wr : scheduledWorkflows) {
             Log.stdout("Working Run: " + wr.getSwAccession());
 
@@ -153,13 +196,42 @@ public class WorkflowLauncher extends Plugin {
                 continue;
             }
 
+            futures.add(pool.submit(new LaunchTask(wr)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                Log.fatal(ex);
+            }
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Launches one workflow run. Runs share the plugin's metadata connection and bundle cache.
+     *
+     * With more than one thread in the pool several launches call the shared Metadata at once, so it has to be thread-safe. MetadataWS is,
+     * since each call goes through its own child ClientResource, as long as no batch is started on it: startBatch queues the updates of
+     * every caller into one list. MetadataDB wraps a single JDBC connection and is not, so with it the runs are launched one at a time.
+     */
+    private final class LaunchTask implements Runnable {
+
+        private final WorkflowRun wr;
+
+        private LaunchTask(WorkflowRun wr) {
+            this.wr = wr;
+        }
+
+        @Override
+        public void run() {
             // SEQWARE-1451
             // Workflow launcher totally dies one workflow freemarker run dies
             // let's just wrap and report these errors and fail onto the next one
             try {
 
                 Log.stdout("Valid run by host check: " + wr.getSwAccession());
-                WorkflowRun wrWithWorkflow = this.metadata.getWorkflowRunWithWorkflow(wr.getSwAccession().toString());
+                WorkflowRun wrWithWorkflow = metadata.getWorkflowRunWithWorkflow(wr.getSwAccession().toString());
                 boolean requiresNewLauncher = WorkflowV2Utility.requiresNewLauncher(wrWithWorkflow.getWorkflow());
                 if (!requiresNewLauncher) {
                     Log.stdout("Launching via old launcher: " + wr.getSwAccession());
@@ -212,7 +284,7 @@ public class WorkflowLauncher extends Plugin {
         ReturnValue localRet = new ReturnValue();
         AbstractWorkflowDataModel dataModel;
         try {
-            final WorkflowDataModelFactory factory = new WorkflowDataModelFactory(config, metadata);
+            final WorkflowDataModelFactory factory = new WorkflowDataModelFactory(config, metadata, bundleCache);
             String bundlePath = determineBundlePath(options, workflowAccession, metadata);
 
             dataModel = factory.getWorkflowDataModel(bundlePath, workflowAccession, workflowRunAccession, workflowEngineString);
@@ -240,6 +312,9 @@ public class WorkflowLauncher extends Plugin {
         }
 
         Log.info("Running the workflow");
+        if (Engines.isLocal(workflowEngineString)) {
+            markLocalRunRunning(metadata, dataModel, engine);
+        }
         ReturnValue localReturn = engine.runWorkflow();
 
         Log.info("Completing metadata tracking of workflow run");
@@ -253,28 +328,46 @@ public class WorkflowLauncher extends Plugin {
 
         // int workflowrunId = Integer.parseInt(wra);
         int workflowrunaccession = Integer.parseInt(wra); // metadata.get_workflow_run_accession(workflowrunId);
-        int workflowrunId = metadata.get_workflow_run_id(workflowrunaccession);
-        // need to pull back the workflow run object since some fields may
-        // already be set
-        // and we need to use their values before writing back to the DB!
-        WorkflowRun wr = metadata.getWorkflowRun(workflowrunaccession);
 
         String workflowRunToken = engine.getLookupToken();
 
         if (localReturn.getProcessExitStatus() != ReturnValue.SUCCESS || workflowRunToken == null) {
             // then something went wrong trying to call the workflow engine
-            metadata.update_workflow_run(workflowrunId, dataModel.getTags().get("workflow_command"),
-                    dataModel.getTags().get("workflow_template"), WorkflowRunStatus.failed, workflowRunToken, engine.getWorkingDirectory(),
-                    wr.getDax(), wr.getIniFile(), wr.getHost(), localReturn.getStderr(), localReturn.getStdout(),
-                    dataModel.getWorkflow_engine(), wr.getInputFileAccessions());
+            updateWorkflowRun(metadata, dataModel, engine, workflowrunaccession, WorkflowRunStatus.failed, workflowRunToken,
+                    localReturn.getStderr(), localReturn.getStdout());
             return localReturn;
         } else {
-            // determine status based on object model
-            metadata.update_workflow_run(workflowrunId, dataModel.getTags().get("workflow_command"),
-                    dataModel.getTags().get("workflow_template"), WorkflowRunStatus.pending, workflowRunToken,
-                    engine.getWorkingDirectory(), wr.getDax(), wr.getIniFile(), wr.getHost(), localReturn.getStderr(),
-                    localReturn.getStdout(), dataModel.getWorkflow_engine(), wr.getInputFileAccessions());
+            // determine status based on object model, a local run is already over
+            WorkflowRunStatus status = Engines.isLocal(workflowEngineString) ? WorkflowRunStatus.completed : WorkflowRunStatus.pending;
+            updateWorkflowRun(metadata, dataModel, engine, workflowrunaccession, status, workflowRunToken, localReturn.getStderr(),
+                    localReturn.getStdout());
             return localRet;
         }
     }
+
+    /**
+     * The local engine only returns from runWorkflow once the workflow is over, record that it is running in the meantime.
+     */
+    private void markLocalRunRunning(Metadata metadata, AbstractWorkflowDataModel dataModel, WorkflowEngine engine) {
+        String wra = dataModel.getWorkflow_run_accession();
+        if (wra == null || wra.isEmpty()) {
+            return;
+        }
+        updateWorkflowRun(metadata, dataModel, engine, Integer.parseInt(wra), WorkflowRunStatus.running, engine.getWorkingDirectory(),
+                null, null);
+    }
+
+    /**
+     * Writes the status of the run back, keeping the fields that are already set on the workflow run.
+     */
+    private void updateWorkflowRun(Metadata metadata, AbstractWorkflowDataModel dataModel, WorkflowEngine engine, int workflowrunaccession,
+            WorkflowRunStatus status, String workflowRunToken, String stderr, String stdout) {
+        // need to pull back the workflow run object since some fields may
+        // already be set
+        // and we need to use their values before writing back to the DB!
+        WorkflowRun wr = metadata.getWorkflowRun(workflowrunaccession);
+        metadata.update_workflow_run(metadata.get_workflow_run_id(workflowrunaccession), dataModel.getTags().get("workflow_command"),
+                dataModel.getTags().get("workflow_template"), status, workflowRunToken, engine.getWorkingDirectory(), wr.getDax(),
+                wr.getIniFile(), wr.getHost(), stderr, stdout, dataModel.getWorkflow_engine(), wr.getInputFileAccessions());
+    }
 }
@@ -3,13 +3,17 @@ package io.seqware.pipeline.plugins;
 import io.seqware.Engines;
 import io.seqware.pipeline.api.Scheduler;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import joptsimple.ArgumentAcceptingOptionSpec;
 import joptsimple.NonOptionArgumentSpec;
+import joptsimple.OptionException;
 import joptsimple.OptionParser;
+import joptsimple.OptionSet;
 import joptsimple.OptionSpecBuilder;
 import net.sourceforge.seqware.common.model.File;
 import net.sourceforge.seqware.common.module.ReturnValue;
@@ -112,12 +116,22 @@ public class WorkflowScheduler extends Plugin {
     private String getEngineParam() {
         String engine = options.valueOf(workflowEngineSpec);
         if (engine == null) {
-            engine = config.get("SW_DEFAULT_WORKFLOW_ENGINE");
+            engine = getDefaultEngine(config);
         }
+
+        return engine;
+    }
+
+    /**
+     * @param config
+     *            the SeqWare settings
+     * @return the engine used when none is asked for on the command line
+     */
+    public static String getDefaultEngine(Map<String, String> config) {
+        String engine = config == null ? null : config.get("SW_DEFAULT_WORKFLOW_ENGINE");
         if (engine == null) {
             engine = Engines.DEFAULT_ENGINE;
         }
-
         return engine;
     }
 
@@ -210,6 +224,96 @@ public class WorkflowScheduler extends Plugin {
         }
     }
 
+    /**
+     * Parses the arguments of a run of this plugin, such as a decider builds, into a run that can be scheduled together with other runs
+     * that share the rest of the arguments.
+     * 
+     * @param params
+     *            the arguments of the plugin
+     * @param config
+     *            the SeqWare settings
+     * @return the run, or null if the arguments ask for something only running the plugin does, or cannot be parsed
+     */
+    public static BatchableRun parseBatchable(List<String> params, Map<String, String> config) {
+        WorkflowScheduler plugin = new WorkflowScheduler();
+        OptionSet options;
+        try {
+            options = plugin.parser.parse(params.toArray(new String[params.size()]));
+        } catch (OptionException e) {
+            return null;
+        }
+        if (options.has("help") || options.has(plugin.outFile) || !options.has(plugin.hostSpec)) {
+            return null;
+        }
+        String engine = options.has(plugin.workflowEngineSpec) ? options.valueOf(plugin.workflowEngineSpec) : getDefaultEngine(config);
+        if (!Engines.ENGINES.contains(engine)) {
+            return null;
+        }
+        Set<Integer> inputFiles = null;
+        if (options.has(plugin.inputFilesSpec)) {
+            inputFiles = new HashSet<>();
+            for (Long fileAccession : options.valuesOf(plugin.inputFilesSpec)) {
+                inputFiles.add(fileAccession.intValue());
+            }
+        }
+        Scheduler.ScheduledRun run = new Scheduler.ScheduledRun(new ArrayList<>(options.valuesOf(plugin.iniFilesSpec)), new ArrayList<>(
+                options.valuesOf(plugin.parentAccessionsSpec)), new ArrayList<>(options.valuesOf(plugin.linkWorkflowRunToParentsSpec)),
+                inputFiles);
+        return new BatchableRun(options.valueOf(plugin.workflowAccessionSpec), options.valueOf(plugin.hostSpec), engine,
+                !options.has(plugin.metadataWriteBackOffSpec), new ArrayList<>(options.valuesOf(plugin.nonOptionSpec)), run);
+    }
+
+    /**
+     * A run of this plugin parsed by {@link WorkflowScheduler#parseBatchable(List, Map)}.
+     */
+    public static final class BatchableRun {
+        private final String workflowAccession;
+        private final String host;
+        private final String engine;
+        private final boolean metadataWriteback;
+        private final List<String> overrides;
+        private final Scheduler.ScheduledRun run;
+
+        private BatchableRun(String workflowAccession, String host, String engine, boolean metadataWriteback, List<String> overrides,
+                Scheduler.ScheduledRun run) {
+            this.workflowAccession = workflowAccession;
+            this.host = host;
+            this.engine = engine;
+            this.metadataWriteback = metadataWriteback;
+            this.overrides = overrides;
+            this.run = run;
+        }
+
+        /**
+         * @param other
+         * @return true if the two runs can be scheduled in one call
+         */
+        public boolean isSameBatch(BatchableRun other) {
+            return workflowAccession.equals(other.workflowAccession) && host.equals(other.host) && engine.equals(other.engine)
+                    && metadataWriteback == other.metadataWriteback && overrides.equals(other.overrides);
+        }
+
+        /**
+         * Schedules the runs of a batch, which must all be the same batch as the first.
+         * 
+         * @param scheduler
+         * @param batch
+         * @return the result of scheduling each run
+         */
+        public static List<ReturnValue> schedule(Scheduler scheduler, List<BatchableRun> batch) {
+            if (batch.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<Scheduler.ScheduledRun> runs = new ArrayList<>(batch.size());
+            for (BatchableRun run : batch) {
+                runs.add(run.run);
+            }
+            BatchableRun first = batch.get(0);
+            return scheduler.scheduleInstalledBundle(first.workflowAccession, runs, first.metadataWriteback, first.overrides, first.host,
+                    first.engine);
+        }
+    }
+
     private Set<Integer> collectInputFiles() throws Exception {
         Set<Integer> inputFiles = null;
         if (options.has(inputFilesSpec)) {
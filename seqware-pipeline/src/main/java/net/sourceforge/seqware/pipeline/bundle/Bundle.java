@@ -2,6 +2,7 @@ package net.sourceforge.seqware.pipeline.bundle;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -103,15 +104,17 @@ public class Bundle {
         }
 
         BundleInfo bi = new BundleInfo();
-        ReturnValue returned;
-        // unbundle
-        // FIXME: no need to unzip the bundle, replace with code to read metadata files directly from zip
         if (bundle.isDirectory()) {
             outputDir = bundle.getAbsolutePath();
             FileTools.listFilesRecursive(bundle, filesArray);
-        } else {
-            returned = unpackageBundle(bundle);
-            outputDir = returned.getAttribute("outputDir");
+        } else if (metadataFile == null || !metadataFile.exists()) {
+            // read the metadata straight from the zip rather than unzipping the whole bundle
+            try (BundleZip zip = openBundleZip(bundle)) {
+                return zip.getBundleInfo();
+            } catch (IOException e) {
+                Log.error("ERROR: Could not read the metadata from the bundle " + bundle.getAbsolutePath(), e);
+                return (null);
+            }
         }
 
         // now read metadata info
@@ -134,6 +137,22 @@ public class Bundle {
         return (bi);
     }
 
+    /**
+     * Opens a bundle zip for reading in place, indexed under SW_BUNDLE_DIR when that is defined.
+     * 
+     * @param bundle
+     *            the bundle zip
+     * @return the reader, which the caller closes
+     * @throws IOException
+     */
+    public BundleZip openBundleZip(File bundle) throws IOException {
+        File indexDir = null;
+        if (bundleDir != null && !"".equals(bundleDir)) {
+            indexDir = new File(bundleDir, BundleZip.INDEX_DIR);
+        }
+        return new BundleZip(bundle, indexDir);
+    }
+
     /**
      * <p>
      * unpackageBundle.
@@ -446,13 +465,11 @@ public class Bundle {
             return (localRet);
         }
 
-        if (bundle.isDirectory()) {
-            outputDir = bundle.getAbsolutePath();
-            FileTools.listFilesRecursive(bundle, filesArray);
-        } else {
-            localRet = unpackageBundle(bundle);
-            outputDir = localRet.getAttribute("outputDir");
+        if (bundle.isFile()) {
+            return validateBundleZip(bundle);
         }
+        outputDir = bundle.getAbsolutePath();
+        FileTools.listFilesRecursive(bundle, filesArray);
 
         try {
             BundleInfo bi = new BundleInfo();
@@ -487,6 +504,31 @@ public class Bundle {
         return (localRet);
     }
 
+    /**
+     * Validates a bundle zip without unzipping it: its metadata.xml must parse and the config file of each workflow must be in the zip.
+     */
+    private ReturnValue validateBundleZip(File bundle) {
+        ReturnValue localRet = new ReturnValue(ReturnValue.SUCCESS);
+        try (BundleZip zip = openBundleZip(bundle)) {
+            for (WorkflowInfo wi : zip.getBundleInfo().getWorkflowInfo()) {
+                String orig = wi.getConfigPath();
+                String member = orig.replaceAll("^\\$\\{workflow_bundle_dir\\}/*", "");
+                if (!zip.hasEntry(member)) {
+                    localRet.setExitStatus(ReturnValue.FAILURE);
+                    localRet.setStderr("ERROR: Configuration file does not exist: " + orig);
+                }
+            }
+        } catch (IOException e) {
+            localRet.setExitStatus(ReturnValue.FAILURE);
+            localRet.setStderr("ERROR: problems validating " + bundle.getAbsolutePath());
+        }
+
+        if (localRet.getExitStatus() == ReturnValue.SUCCESS) {
+            Log.info("Validated Bundle: " + bundle.getAbsolutePath());
+        }
+        return (localRet);
+    }
+
     /**
      * <p>
      * installBundleZipOnly.
@@ -571,9 +613,8 @@ public class Bundle {
                         + permanentBundleLocation + " Please be aware, this process can take hours if the bundle is many GB in size.");
                 localRet = packageBundle(bundle, new File(permanentBundleLocation));
             }
-        } // installing from a zip file (will be unzipped below by getBundleInfo) copy to permanent location
+        } // installing from a zip file (unzipped below only if asked for) copy to permanent location
         else if (bundle != null && bundle.isFile() && bundle.getName().endsWith(".zip")) {
-            // FIXME: the getBundleInfo will unzip this below, should only do that if the request is for unzip
             if (permanentBundleLocation == null) {
                 Log.error("You tried to install a bundle from a .zip file without having a SW_BUNDLE_REPO_DIR defined in your seqware settings file! This needs to be defined and pointed to a location where a .zip file can be copied to.");
                 return (new ReturnValue(ReturnValue.FAILURE));
@@ -593,10 +634,68 @@ public class Bundle {
             return localRet;
         }
 
-        // asumption here is this unbundles it, in the future this won't be the case!
-        // FIXME: this code should reach inside a zip file to get metadata.xml without unzipping it!
+        if (bundle != null && bundle.isFile() && unzipIntoDir) {
+            localRet = unpackageBundle(bundle);
+            if (localRet.getExitStatus() != ReturnValue.SUCCESS) {
+                Log.error("The workflow install failed: " + localRet.getStderr());
+                return localRet;
+            }
+        }
+
         BundleInfo info = getBundleInfo(bundle, metadataFile);
+        if (info == null) {
+            Log.error("The workflow install failed");
+            return (new ReturnValue(ReturnValue.FAILURE));
+        }
 
+        if (bundle.isFile() && !unzipIntoDir) {
+            // the workflow params are read from the INI files under the provision dir, so extract just those
+            File iniDir;
+            try {
+                iniDir = extractConfigFiles(bundle, info);
+            } catch (IOException e) {
+                Log.error("The workflow install failed, could not extract the INI files from " + bundle.getAbsolutePath(), e);
+                return (new ReturnValue(ReturnValue.FAILURE));
+            }
+            try {
+                return addWorkflows(info, iniDir.getAbsolutePath(), packageIntoZip, unzipIntoDir, workflows);
+            } finally {
+                FileUtils.deleteQuietly(iniDir);
+            }
+        }
+        return addWorkflows(info, this.outputDir, packageIntoZip, unzipIntoDir, workflows);
+    }
+
+    /**
+     * Extracts the config file of each workflow of a bundle zip to a new temporary directory, where each lies as it would under the
+     * workflow_bundle_dir.
+     * 
+     * @return the temporary directory, which the caller deletes
+     */
+    private File extractConfigFiles(File bundle, BundleInfo info) throws IOException {
+        File iniDir = Files.createTempDirectory("bundle-ini").toFile();
+        try (BundleZip zip = openBundleZip(bundle)) {
+            for (WorkflowInfo w : info.getWorkflowInfo()) {
+                if (w.getConfigPath() != null && w.getConfigPath().startsWith("${workflow_bundle_dir}")) {
+                    zip.extract(w.getConfigPath().replaceAll("^\\$\\{workflow_bundle_dir\\}/*", ""), iniDir);
+                }
+            }
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(iniDir);
+            throw e;
+        }
+        return iniDir;
+    }
+
+    /**
+     * Adds each workflow of the bundle to the metadb.
+     * 
+     * @param provisionDir
+     *            the directory the workflow_bundle_dir of the workflows' config files points to
+     */
+    private ReturnValue addWorkflows(BundleInfo info, String provisionDir, boolean packageIntoZip, boolean unzipIntoDir,
+            List<String> workflows) {
+        ReturnValue localRet = new ReturnValue(ReturnValue.SUCCESS);
         for (WorkflowInfo w : info.getWorkflowInfo()) {
 
             // FIXME: this could cause a lot of problems since the downstream tools may not do this substitution
@@ -606,15 +705,15 @@ public class Bundle {
 
             if (packageIntoZip && unzipIntoDir) {
                 localRet = metadata.addWorkflow(w.getName(), w.getVersion(), w.getDescription(), w.getCommand(), w.getConfigPath(),
-                        w.getTemplatePath(), this.outputDir, true, this.outputZip, true, w.getWorkflowClass(), w.getWorkflowType(),
+                        w.getTemplatePath(), provisionDir, true, this.outputZip, true, w.getWorkflowClass(), w.getWorkflowType(),
                         w.getWorkflowEngine());
             } else if (packageIntoZip && !unzipIntoDir) {
                 localRet = metadata.addWorkflow(w.getName(), w.getVersion(), w.getDescription(), w.getCommand(), w.getConfigPath(),
-                        w.getTemplatePath(), this.outputDir, false, this.outputZip, true, w.getWorkflowClass(), w.getWorkflowType(),
+                        w.getTemplatePath(), provisionDir, false, this.outputZip, true, w.getWorkflowClass(), w.getWorkflowType(),
                         w.getWorkflowEngine());
             } else if (!packageIntoZip && unzipIntoDir) {
                 localRet = metadata.addWorkflow(w.getName(), w.getVersion(), w.getDescription(), w.getCommand(), w.getConfigPath(),
-                        w.getTemplatePath(), this.outputDir, true, this.outputZip, false, w.getWorkflowClass(), w.getWorkflowType(),
+                        w.getTemplatePath(), provisionDir, true, this.outputZip, false, w.getWorkflowClass(), w.getWorkflowType(),
                         w.getWorkflowEngine());
             } else {
                 Log.error("You need to specify an workflow bundle dir, workflow bundle zip file or both when you install a workflow.");
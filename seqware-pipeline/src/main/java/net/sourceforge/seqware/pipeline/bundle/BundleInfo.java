@@ -2,6 +2,7 @@ package net.sourceforge.seqware.pipeline.bundle;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -35,91 +36,109 @@ public class BundleInfo {
      *            a {@link java.io.File} object.
      */
     public void parseFromFile(File metadata) {
-
         try {
+            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+            parse(dBuilder.parse(metadata), metadata);
+        } catch (SAXException e) {
+            // TODO Auto-generated catch block
+            e.printStackTrace();
+        } catch (IOException e) {
+            // TODO Auto-generated catch block
+            e.printStackTrace();
+        } catch (ParserConfigurationException e) {
+            // TODO Auto-generated catch block
+            e.printStackTrace();
+        }
+    }
 
+    /**
+     * Parses a metadata.xml that is not a file of its own, such as one read straight out of a bundle zip.
+     * 
+     * @param metadata
+     *            the contents of the metadata.xml
+     * @param source
+     *            where the metadata.xml was read from, reported by {@link #parsedFrom()}
+     * @throws IOException
+     */
+    public void parseFromStream(InputStream metadata, File source) throws IOException {
+        try {
             DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
             DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            Document doc = dBuilder.parse(metadata);
-            doc.getDocumentElement().normalize();
+            parse(dBuilder.parse(metadata), source);
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Could not parse the metadata.xml in " + source, e);
+        }
+    }
 
-            NodeList nList = doc.getElementsByTagName("workflow");
+    private void parse(Document doc, File metadata) {
+        doc.getDocumentElement().normalize();
 
-            for (int temp = 0; temp < nList.getLength(); temp++) {
+        NodeList nList = doc.getElementsByTagName("workflow");
 
-                Node nNode = nList.item(temp);
-                if (nNode.getNodeType() == Node.ELEMENT_NODE) {
+        for (int temp = 0; temp < nList.getLength(); temp++) {
 
-                    Element eElement = (Element) nNode;
+            Node nNode = nList.item(temp);
+            if (nNode.getNodeType() == Node.ELEMENT_NODE) {
 
-                    String templatePath = null;
-                    NodeList nodes = eElement.getElementsByTagName("workflow_template");
-                    if (nodes.getLength() > 0) {
-                        templatePath = nodes.item(0).getAttributes().getNamedItem("path").getNodeValue();
-                    }
+                Element eElement = (Element) nNode;
 
-                    String classesPath = null;
-                    if (null != eElement.getElementsByTagName("classes").item(0)) {
-                        classesPath = eElement.getElementsByTagName("classes").item(0).getAttributes().getNamedItem("path").getNodeValue();
-                    }
+                String templatePath = null;
+                NodeList nodes = eElement.getElementsByTagName("workflow_template");
+                if (nodes.getLength() > 0) {
+                    templatePath = nodes.item(0).getAttributes().getNamedItem("path").getNodeValue();
+                }
 
-                    String configPath = eElement.getElementsByTagName("config").item(0).getAttributes().getNamedItem("path").getNodeValue();
+                String classesPath = null;
+                if (null != eElement.getElementsByTagName("classes").item(0)) {
+                    classesPath = eElement.getElementsByTagName("classes").item(0).getAttributes().getNamedItem("path").getNodeValue();
+                }
 
-                    String computeReq = eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("compute")
-                            .getNodeValue();
-                    String memReq = eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("memory")
-                            .getNodeValue();
-                    String networkReq = eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("network")
-                            .getNodeValue();
+                String configPath = eElement.getElementsByTagName("config").item(0).getAttributes().getNamedItem("path").getNodeValue();
+
+                String computeReq = eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("compute")
+                        .getNodeValue();
+                String memReq = eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("memory")
+                        .getNodeValue();
+                String networkReq = eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("network")
+                        .getNodeValue();
 
-                    String workflowEngineReq = null;
-                    if (null != eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("workflow_engine")) {
-                        workflowEngineReq = eElement.getElementsByTagName("requirements").item(0).getAttributes()
-                                .getNamedItem("workflow_engine").getNodeValue();
-                    }
-                    String workflowTypeReq = null;
-                    if (null != eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("workflow_type")) {
-                        workflowTypeReq = eElement.getElementsByTagName("requirements").item(0).getAttributes()
-                                .getNamedItem("workflow_type").getNodeValue();
-                    }
-                    String workflowClass = null;
-                    if (null != eElement.getElementsByTagName("workflow_class").item(0)) {
-                        workflowClass = eElement.getElementsByTagName("workflow_class").item(0).getAttributes().getNamedItem("path")
-                                .getNodeValue();
-                    }
-
-                    WorkflowInfo wi = new WorkflowInfo();
-                    wi.setName(eElement.getAttribute("name"));
-                    wi.setVersion(eElement.getAttribute("version"));
-                    wi.setDescription(getTagValue("description", eElement));
-                    wi.setTemplatePath(templatePath);
-                    wi.setConfigPath(configPath);
-                    wi.setComputeReq(computeReq);
-                    wi.setMemReq(memReq);
-                    wi.setNetworkReq(networkReq);
-                    wi.setClassesDir(classesPath);
-                    wi.setBaseDir(eElement.getAttribute("basedir"));
-                    wi.setWorkflowSqwVersion(eElement.getAttribute("seqware_version"));
-                    wi.setWorkflowClass(workflowClass);
-                    wi.setWorkflowEngine(workflowEngineReq);
-                    wi.setWorkflowType(workflowTypeReq);
-
-                    workflows.add(wi);
-                    this.metadata = metadata;
+                String workflowEngineReq = null;
+                if (null != eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("workflow_engine")) {
+                    workflowEngineReq = eElement.getElementsByTagName("requirements").item(0).getAttributes()
+                            .getNamedItem("workflow_engine").getNodeValue();
+                }
+                String workflowTypeReq = null;
+                if (null != eElement.getElementsByTagName("requirements").item(0).getAttributes().getNamedItem("workflow_type")) {
+                    workflowTypeReq = eElement.getElementsByTagName("requirements").item(0).getAttributes()
+                            .getNamedItem("workflow_type").getNodeValue();
+                }
+                String workflowClass = null;
+                if (null != eElement.getElementsByTagName("workflow_class").item(0)) {
+                    workflowClass = eElement.getElementsByTagName("workflow_class").item(0).getAttributes().getNamedItem("path")
+                            .getNodeValue();
                 }
-            }
 
-        } catch (SAXException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        } catch (ParserConfigurationException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+                WorkflowInfo wi = new WorkflowInfo();
+                wi.setName(eElement.getAttribute("name"));
+                wi.setVersion(eElement.getAttribute("version"));
+                wi.setDescription(getTagValue("description", eElement));
+                wi.setTemplatePath(templatePath);
+                wi.setConfigPath(configPath);
+                wi.setComputeReq(computeReq);
+                wi.setMemReq(memReq);
+                wi.setNetworkReq(networkReq);
+                wi.setClassesDir(classesPath);
+                wi.setBaseDir(eElement.getAttribute("basedir"));
+                wi.setWorkflowSqwVersion(eElement.getAttribute("seqware_version"));
+                wi.setWorkflowClass(workflowClass);
+                wi.setWorkflowEngine(workflowEngineReq);
+                wi.setWorkflowType(workflowTypeReq);
+
+                workflows.add(wi);
+                this.metadata = metadata;
+            }
         }
-
     }
 
     public File parsedFrom() {
@@ -0,0 +1,305 @@
+package net.sourceforge.seqware.pipeline.bundle;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.filetools.FileTools;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads a workflow bundle zip in place. The metadata.xml is found from the zip's central directory and parsed straight out of the zip,
+ * and members are only extracted when a caller asks for them, so inspecting a bundle does not unzip its binaries and reference data.
+ *
+ * When given an index directory, the names of the members and the metadata.xml are kept there under the checksum of the zip's central
+ * directory. The central directory holds the CRC of every member, so a bundle with the same checksum has the same contents, and a repeat
+ * inspection reads only the central directory before using the index.
+ */
+public class BundleZip implements Closeable {
+
+    public static final String METADATA = "metadata.xml";
+    /**
+     * The directory under SW_BUNDLE_DIR that holds the index.
+     */
+    public static final String INDEX_DIR = ".bundle-index";
+
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_LENGTH = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_LENGTH = 56;
+    private static final long UNSIGNED_INT_MAX = 0xffffffffL;
+
+    private final File zip;
+    private final File indexDir;
+    private final String checksum;
+    private ZipFile zipFile = null;
+    private List<String> entries = null;
+    private Set<String> entrySet = null;
+
+    /**
+     * @param zip
+     *            the bundle zip
+     * @param indexDir
+     *            the directory of the index, or null to always read the zip
+     * @throws IOException
+     *             if the zip cannot be read or is not a zip
+     */
+    public BundleZip(File zip, File indexDir) throws IOException {
+        this.zip = zip;
+        this.indexDir = indexDir;
+        this.checksum = centralDirectoryChecksum(zip);
+    }
+
+    /**
+     * @return the SHA-1 of the zip's central directory
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return the names of the members of the zip, in the order of the central directory
+     * @throws IOException
+     */
+    public List<String> getEntries() throws IOException {
+        if (entries == null) {
+            File indexed = indexFile(".entries");
+            if (indexed != null && indexed.exists()) {
+                entries = Files.readAllLines(indexed.toPath(), StandardCharsets.UTF_8);
+            } else {
+                List<String> names = new ArrayList<>();
+                Enumeration<? extends ZipEntry> zipEntries = zipFile().entries();
+                while (zipEntries.hasMoreElements()) {
+                    names.add(zipEntries.nextElement().getName());
+                }
+                writeIndex(".entries", joinLines(names).getBytes(StandardCharsets.UTF_8));
+                entries = names;
+            }
+            entries = Collections.unmodifiableList(entries);
+            entrySet = new HashSet<>(entries);
+        }
+        return entries;
+    }
+
+    /**
+     * @param name
+     *            the path of a member relative to the root of the bundle
+     * @return whether the zip has the member, either as a file or a directory
+     * @throws IOException
+     */
+    public boolean hasEntry(String name) throws IOException {
+        getEntries();
+        return entrySet.contains(name) || entrySet.contains(name + "/");
+    }
+
+    /**
+     * Finds the metadata.xml closest to the root of the bundle.
+     *
+     * @return the name of its member, or null if the bundle has none
+     * @throws IOException
+     */
+    public String findMetadataEntry() throws IOException {
+        String found = null;
+        for (String name : getEntries()) {
+            if ((METADATA.equals(name) || name.endsWith("/" + METADATA)) && (found == null || found.length() > name.length())) {
+                found = name;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Parses the bundle's metadata.xml without extracting anything.
+     *
+     * @return the bundle info, which is empty if the bundle has no metadata.xml
+     * @throws IOException
+     */
+    public BundleInfo getBundleInfo() throws IOException {
+        BundleInfo bi = new BundleInfo();
+        byte[] metadata;
+        File indexed = indexFile("." + METADATA);
+        if (indexed != null && indexed.exists()) {
+            metadata = Files.readAllBytes(indexed.toPath());
+        } else {
+            String name = findMetadataEntry();
+            if (name == null) {
+                Log.error("ERROR: There is no " + METADATA + " in " + zip.getAbsolutePath());
+                return bi;
+            }
+            try (InputStream in = zipFile().getInputStream(zipFile().getEntry(name))) {
+                metadata = IOUtils.toByteArray(in);
+            }
+            writeIndex("." + METADATA, metadata);
+        }
+        bi.parseFromStream(new ByteArrayInputStream(metadata), zip);
+        return bi;
+    }
+
+    /**
+     * Extracts one member, and the directories above it, unless it has already been extracted.
+     *
+     * @param name
+     *            the name of the member
+     * @param outputDir
+     *            the directory the bundle is extracted to
+     * @return the extracted file
+     * @throws IOException
+     */
+    public File extract(String name, File outputDir) throws IOException {
+        File target = new File(outputDir, name);
+        if (!target.getCanonicalPath().startsWith(outputDir.getCanonicalPath() + File.separator)) {
+            throw new ZipException("The member " + name + " of " + zip.getAbsolutePath() + " is outside of the bundle");
+        }
+        if (target.exists()) {
+            return target;
+        }
+        ZipEntry entry = zipFile().getEntry(name);
+        if (entry == null) {
+            throw new ZipException("There is no " + name + " in " + zip.getAbsolutePath());
+        }
+        if (entry.isDirectory()) {
+            target.mkdirs();
+            return target;
+        }
+        target.getParentFile().mkdirs();
+        File part = new File(target.getParentFile(), target.getName() + ".part");
+        try (InputStream in = zipFile().getInputStream(entry)) {
+            Files.copy(in, part.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(part.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        Log.debug("Extracted: " + name);
+        return target;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (zipFile != null) {
+            zipFile.close();
+            zipFile = null;
+        }
+    }
+
+    private ZipFile zipFile() throws IOException {
+        if (zipFile == null) {
+            zipFile = new ZipFile(zip);
+        }
+        return zipFile;
+    }
+
+    private File indexFile(String suffix) {
+        if (indexDir == null) {
+            return null;
+        }
+        return new File(indexDir, checksum + suffix);
+    }
+
+    /**
+     * The index is only a cache, so it is written best effort and a bundle dir that cannot be written just goes without.
+     */
+    private void writeIndex(String suffix, byte[] contents) {
+        File file = indexFile(suffix);
+        if (file == null) {
+            return;
+        }
+        try {
+            indexDir.mkdirs();
+            File part = File.createTempFile(checksum, ".part", indexDir);
+            Files.write(part.toPath(), contents);
+            Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.debug("Could not index " + zip.getAbsolutePath() + " in " + indexDir.getAbsolutePath(), e);
+        }
+    }
+
+    private static String joinLines(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Hashes the central directory, found from the end of central directory record (or its zip64 version) at the end of the zip, without
+     * reading any of the members.
+     */
+    private static String centralDirectoryChecksum(File zip) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(zip, "r")) {
+            long length = file.length();
+            // the end record is followed by a comment of up to 64k
+            int tailLength = (int) Math.min(length, END_LENGTH + 0xffff);
+            ByteBuffer tail = read(file, length - tailLength, tailLength);
+            int end = -1;
+            for (int i = tailLength - END_LENGTH; i >= 0 && end < 0; i--) {
+                if (tail.getInt(i) == END_SIGNATURE) {
+                    end = i;
+                }
+            }
+            if (end < 0) {
+                throw new ZipException(zip.getAbsolutePath() + " is not a zip file");
+            }
+            long size = tail.getInt(end + 12) & UNSIGNED_INT_MAX;
+            long offset = tail.getInt(end + 16) & UNSIGNED_INT_MAX;
+            if (size == UNSIGNED_INT_MAX || offset == UNSIGNED_INT_MAX) {
+                ByteBuffer locator = read(file, length - tailLength + end - ZIP64_LOCATOR_LENGTH, ZIP64_LOCATOR_LENGTH);
+                if (locator.getInt(0) != ZIP64_LOCATOR_SIGNATURE) {
+                    throw new ZipException(zip.getAbsolutePath() + " has no zip64 end of central directory");
+                }
+                ByteBuffer end64 = read(file, locator.getLong(8), ZIP64_END_LENGTH);
+                if (end64.getInt(0) != ZIP64_END_SIGNATURE) {
+                    throw new ZipException(zip.getAbsolutePath() + " has no zip64 end of central directory");
+                }
+                size = end64.getLong(40);
+                offset = end64.getLong(48);
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] chunk = new byte[64 * 1024];
+            file.seek(offset);
+            for (long remaining = size; remaining > 0;) {
+                int count = file.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                if (count < 0) {
+                    throw new EOFException(zip.getAbsolutePath() + " is truncated");
+                }
+                digest.update(chunk, 0, count);
+                remaining -= count;
+            }
+            return FileTools.byte2HexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static ByteBuffer read(RandomAccessFile file, long position, int length) throws IOException {
+        if (position < 0) {
+            throw new ZipException("Not a zip file");
+        }
+        byte[] bytes = new byte[length];
+        file.seek(position);
+        file.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
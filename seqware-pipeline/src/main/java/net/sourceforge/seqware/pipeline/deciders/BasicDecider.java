@@ -16,9 +16,11 @@
  */
 package net.sourceforge.seqware.pipeline.deciders;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.seqware.common.model.ProcessingStatus;
 import io.seqware.common.model.WorkflowRunStatus;
+import io.seqware.pipeline.api.Scheduler;
 import io.seqware.pipeline.plugins.WorkflowScheduler;
 import java.io.File;
 import java.io.FileWriter;
@@ -27,6 +29,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,10 +37,13 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.MissingResourceException;
+import java.util.Objects;
 import java.util.PropertyResourceBundle;
 import java.util.Random;
 import java.util.ResourceBundle;
@@ -45,12 +51,19 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import joptsimple.NonOptionArgumentSpec;
 import joptsimple.OptionSpec;
 import net.sourceforge.seqware.common.hibernate.FindAllTheFiles;
 import net.sourceforge.seqware.common.hibernate.FindAllTheFiles.Header;
+import net.sourceforge.seqware.common.metadata.FileProvenanceRowIterator;
 import net.sourceforge.seqware.common.metadata.Metadata;
 import net.sourceforge.seqware.common.model.FileProvenanceParam;
 import net.sourceforge.seqware.common.model.WorkflowParam;
@@ -58,6 +71,7 @@ import net.sourceforge.seqware.common.model.WorkflowRun;
 import net.sourceforge.seqware.common.module.FileMetadata;
 import net.sourceforge.seqware.common.module.ReturnValue;
 import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.Rethrow;
 import net.sourceforge.seqware.common.util.filetools.FileTools;
 import net.sourceforge.seqware.common.util.filetools.FileTools.LocalhostPair;
 import net.sourceforge.seqware.pipeline.decider.DeciderInterface;
@@ -95,7 +109,19 @@ public class BasicDecider extends Plugin implements DeciderInterface {
     private Boolean skipStuff = null;
     private int launchMax = Integer.MAX_VALUE, launched = 0;
     private int rerunMax = 5;
+    private int threads = 1;
     private String host = null;
+    /**
+     * Previous runs of the relevant workflows keyed by input file SWID, when they have been fetched in bulk for the groups being
+     * considered.
+     */
+    private Map<Integer, List<WorkflowRun>> prefetchedRuns = null;
+    private final Map<Integer, String> filePaths = new ConcurrentHashMap<>();
+
+    /**
+     * How many groups each thread has queued up, the groups considered between launch decisions.
+     */
+    private static final int GROUPS_PER_THREAD = 8;
 
     private final Map<String, OptionSpec> configureFileProvenanceParams;
     private final NonOptionArgumentSpec<String> nonOptionSpec;
@@ -140,6 +166,11 @@ public class BasicDecider extends Plugin implements DeciderInterface {
                 .withRequiredArg();
         // SEQWARE-1622 - check whether files exist
         parser.acceptsAll(Arrays.asList("check-file-exists", "cf"), "Optional: only launch on the file if the file exists");
+        parser.acceptsAll(Arrays.asList("stream-report"),
+                "Optional: stream the file provenance report and consider each group as it arrives instead of loading the whole report");
+        parser.acceptsAll(Arrays.asList("threads"),
+                "Optional: check this many groups for previous runs at once, fetching the previous runs of their files in one request "
+                        + "and scheduling the resulting workflow runs in one batch. Default: 1").withRequiredArg().defaultsTo("1");
         this.nonOptionSpec = parser.nonOptions(WorkflowScheduler.OVERRIDE_INI_DESC);
         ret.setExitStatus(ReturnValue.SUCCESS);
     }
@@ -315,6 +346,19 @@ public class BasicDecider extends Plugin implements DeciderInterface {
             }
         }
 
+        if (options.has("threads")) {
+            try {
+                threads = Integer.parseInt(options.valueOf("threads").toString());
+            } catch (NumberFormatException e) {
+                Log.error("The threads parameter must be an integer. Unparseable integer: " + options.valueOf("threads").toString());
+                ret.setExitStatus(ReturnValue.INVALIDPARAMETERS);
+            }
+            if (threads <= 0) {
+                Log.error("The threads parameter must be at least 1");
+                ret.setExitStatus(ReturnValue.INVALIDPARAMETERS);
+            }
+        }
+
         if (workflowAccession == null || "".equals(workflowAccession)) {
             Log.error("The wf-accession must be defined.");
             ret.setExitStatus(ReturnValue.INVALIDPARAMETERS);
@@ -331,6 +375,13 @@ public class BasicDecider extends Plugin implements DeciderInterface {
     @Override
     public ReturnValue do_run() {
         String groupBy = header.getTitle();
+        if (options.has("stream-report")) {
+            // the report arrives ordered by group, so only the group under consideration is held in memory
+            try (FileProvenanceRowIterator rows = metadata.fileProvenanceReportIterator(createFileProvenanceParams(), groupBy)) {
+                ret = launchWorkflows(new StreamingGroupIterator(rows, groupBy));
+            }
+            return ret;
+        }
         Map<String, List<ReturnValue>> mappedFiles;
         List<ReturnValue> vals = createListOfRelevantFilePaths();
 
@@ -345,116 +396,329 @@ public class BasicDecider extends Plugin implements DeciderInterface {
             List<Entry<String, List<ReturnValue>>> entryList = new ArrayList<>();
             entryList.addAll(mappedFiles.entrySet());
             Collections.sort(entryList, new ReturnValueProcessingTimeComparator());
+            return launchWorkflows(entryList.iterator());
+        } else {
+            Log.stdout("There are no files");
+        }
+        return ret;
+    }
 
-            for (Entry<String, List<ReturnValue>> entry : entryList) {
-                Log.info("Considering key:" + entry.getKey());
-                for (ReturnValue r : entry.getValue()) {
-                    Log.info("Group contains: " + r.getAttribute(FindAllTheFiles.FILE_SWA));
+    /**
+     * Considers each group of files in turn, launching (or in test mode, reporting) a workflow run for each group that needs one, until
+     * launch-max is reached.
+     * 
+     * @param groups
+     *            groups of files keyed by the group-by value, in the order they should be launched
+     * @return
+     */
+    private ReturnValue launchWorkflows(Iterator<Entry<String, List<ReturnValue>>> groups) {
+        if (threads > 1) {
+            return launchWorkflowsConcurrently(groups);
+        }
+        while (groups.hasNext()) {
+            collectFiles(groups.next());
+            if (hasFilesToRun()) {
+                // SEQWARE-1773 short-circuit this with forceRunAll to ensure that sample fingerprinting workflow launches
+                if (ignorePreviousRuns) {
+                    Log.debug("Ignoring previous runs because --ignore-previous-runs was enabled");
+                }
+                boolean rerun = ignorePreviousRuns || rerunWorkflowRun(filesToRun, fileSWIDsToRun);
+                if (considerLaunch(rerun, null)) {
+                    return ret;
                 }
+            }
+        }
+        return ret;
+    }
 
-                parentAccessionsToRun = new HashSet<>();
-                filesToRun = new HashSet<>();
-                workflowParentAccessionsToRun = new HashSet<>();
-                fileSWIDsToRun = new HashSet<>();
-                studyReporterOutput = new HashSet<>();
-
-                // for each grouping (e.g. sample), iterate through the files
-                List<ReturnValue> files = entry.getValue();
-                Log.info("key:" + entry.getKey() + " consists of " + files.size() + " files");
-
-                for (ReturnValue file : files) {
-                    String wfAcc = file.getAttribute(Header.WORKFLOW_SWA.getTitle());
-                    Log.debug(Header.WORKFLOW_SWA.getTitle() + ": WF accession is " + wfAcc);
-
-                    // if there is no parent accessions, or if the parent accession is correct
-                    // this makes an assumption that if the wfAcc is null then the parentWorkflowAccessions will be empty
-                    // and thus we are able to find files of a particular metatype with no wfAcc
-
-                    // check for each file if the metatype is correct (if it exists),
-                    // or just add it
-                    for (FileMetadata fm : file.getFiles()) {
-                        if (metaTypes != null) {
-                            if (metaTypes.contains(fm.getMetaType())) {
-                                addFileToSets(file, fm, workflowParentAccessionsToRun, parentAccessionsToRun, filesToRun, fileSWIDsToRun);
-                            }
-                        } else {
-                            addFileToSets(file, fm, workflowParentAccessionsToRun, parentAccessionsToRun, filesToRun, fileSWIDsToRun);
-                        }
+    /**
+     * Same decisions as launching group by group, but the previous runs of a window of groups are fetched in one request and checked on
+     * a pool of threads. Launches are still considered in group order, so launch-max cuts off at the same group, and the accepted runs of
+     * each window are scheduled in one batch in this process.
+     * 
+     * Overrides of {@link #rerunWorkflowRun(Collection, Collection)} and the methods it calls must be thread-safe in this mode.
+     * 
+     * @param groups
+     *            groups of files keyed by the group-by value, in the order they should be launched
+     * @return
+     */
+    private ReturnValue launchWorkflowsConcurrently(Iterator<Entry<String, List<ReturnValue>>> groups) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            while (groups.hasNext()) {
+                // collecting files calls checkFileDetails, which subclasses do not expect to be called concurrently
+                List<Group> window = new ArrayList<>();
+                while (groups.hasNext() && window.size() < threads * GROUPS_PER_THREAD) {
+                    collectFiles(groups.next());
+                    if (hasFilesToRun()) {
+                        window.add(new Group());
                     }
-
-                }// end iterate through files
-
-                if (!parentAccessionsToRun.isEmpty() && !filesToRun.isEmpty() && !workflowParentAccessionsToRun.isEmpty()) {
-                    final String parentAccessionString = commaSeparateMy(parentAccessionsToRun);
-                    final String fileString = commaSeparateMy(filesToRun);
-                    Log.debug("FileString: " + fileString);
-                    // SEQWARE-1773 short-circuit this with forceRunAll to ensure that sample fingerprinting workflow launches
+                }
+                if (!ignorePreviousRuns) {
+                    prefetchPreviousRuns(window);
+                }
+                List<Future<Boolean>> decisions = new ArrayList<>(window.size());
+                for (final Group group : window) {
+                    decisions.add(pool.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            return ignorePreviousRuns || rerunWorkflowRun(group.files, group.fileSWIDs);
+                        }
+                    }));
+                }
+                List<List<String>> batch = new ArrayList<>();
+                boolean full = false;
+                for (int i = 0; i < window.size() && !full; i++) {
+                    window.get(i).restore();
                     if (ignorePreviousRuns) {
                         Log.debug("Ignoring previous runs because --ignore-previous-runs was enabled");
                     }
-                    boolean rerun = ignorePreviousRuns || rerunWorkflowRun(filesToRun, fileSWIDsToRun);
+                    full = considerLaunch(getDecision(decisions.get(i)), batch);
+                }
+                scheduleBatch(batch);
+                if (full) {
+                    return ret;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            prefetchedRuns = null;
+        }
+        return ret;
+    }
 
-                    // SEQWARE-1728 - move creation of ini to launches (and test launches) to conserve disk space
-                    iniFiles = new ArrayList<>();
+    private boolean getDecision(Future<Boolean> decision) {
+        try {
+            return decision.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw Rethrow.rethrow(ex);
+        } catch (ExecutionException ex) {
+            throw Rethrow.rethrow(ex.getCause());
+        }
+    }
 
-                    ReturnValue newRet = this.doFinalCheck(fileString, parentAccessionString);
-                    if (newRet.getExitStatus() != ReturnValue.SUCCESS) {
-                        Log.warn("Final check failed, aborting run. Return value was: " + newRet.getExitStatus());
-                        rerun = false;
-                    }
+    /**
+     * Fetches the previous runs of every file in the window in one request, to be shared out to the groups by
+     * {@link #produceAccessionListWithFileList(List)}.
+     */
+    private void prefetchPreviousRuns(List<Group> window) {
+        Set<Integer> fileSWIDs = new TreeSet<>();
+        for (Group group : window) {
+            fileSWIDs.addAll(group.fileSWIDs);
+        }
+        Map<Integer, List<WorkflowRun>> runsByFile = new HashMap<>();
+        for (Integer fileSWID : fileSWIDs) {
+            runsByFile.put(fileSWID, new ArrayList<WorkflowRun>());
+        }
+        List<WorkflowRun> runs = this.metadata.getWorkflowRunStatusesByInputFiles(new ArrayList<>(fileSWIDs), relevantWorkflows());
+        Log.debug("Found " + runs.size() + " workflow runs via direct search for " + fileSWIDs.size() + " files in " + window.size()
+                + " groups");
+        for (WorkflowRun run : runs) {
+            for (Integer input : run.getInputFileAccessions()) {
+                List<WorkflowRun> list = runsByFile.get(input);
+                if (list != null) {
+                    list.add(run);
+                }
+            }
+        }
+        prefetchedRuns = runsByFile;
+    }
 
-                    // if we're in testing mode or we don't want to rerun and we don't want to force the re-processing
-                    if (test || !rerun) {
-                        // we need to simplify the logic and make it more readable here for testing
-                        if (rerun) {
-                            iniFiles.add(createIniFile(fileString, parentAccessionString));
-                            for (String line : studyReporterOutput) {
-                                Log.stdout(line);
-                            }
-                            Log.debug("NOT RUNNING (but would have ran). test=" + test + " or !rerun=" + !rerun);
-                            reportLaunch();
-                            // SEQWARE-1642 - output to stdout only whether a decider would launch
-                            ret = do_summary();
-                            launched++;
-                        } else {
-                            for (String line : studyReporterOutput) {
-                                Log.debug(line);
-                            }
-                            Log.debug("NOT RUNNING (and would not have ran). test=" + test + " or !rerun=" + !rerun);
-                        }
-                    } else if (launched < launchMax) {
-                        iniFiles.add(createIniFile(fileString, parentAccessionString));
-                        launched++;
-                        // construct the INI and run it
-                        for (String line : studyReporterOutput) {
-                            Log.stdout(line);
-                        }
-                        Log.debug("Scheduling");
-                        // construct the INI and run it
-                        ArrayList<String> runArgs = constructCommand();
-                        PluginRunner.main(runArgs.toArray(new String[runArgs.size()]));
-                        Log.stdout("Scheduling.");
-                        do_summary();
+    /**
+     * Runs the commands built by {@link #constructCommand()} in order. Consecutive commands that only schedule a run with the
+     * WorkflowScheduler, on the same workflow and host with the same options, are scheduled in one call in this process; any other
+     * command is run as a plugin, as it would be one at a time. A command that fails does not stop the ones after it, the failures are
+     * counted apart from the runs that were scheduled.
+     */
+    private void scheduleBatch(List<List<String>> commands) {
+        if (commands.isEmpty()) {
+            return;
+        }
+        Log.debug("Scheduling " + commands.size() + " workflow runs");
+        Scheduler scheduler = new Scheduler(metadata, config);
+        List<WorkflowScheduler.BatchableRun> pending = new ArrayList<>();
+        ScheduleCount count = new ScheduleCount();
+        for (List<String> command : commands) {
+            WorkflowScheduler.BatchableRun run = null;
+            if (command.size() > 3 && "--plugin".equals(command.get(0)) && WorkflowScheduler.class.getName().equals(command.get(1))
+                    && "--".equals(command.get(2))) {
+                run = WorkflowScheduler.parseBatchable(command.subList(3, command.size()), config);
+            }
+            if (run != null && (pending.isEmpty() || pending.get(0).isSameBatch(run))) {
+                pending.add(run);
+                continue;
+            }
+            count.addAll(WorkflowScheduler.BatchableRun.schedule(scheduler, pending));
+            pending.clear();
+            if (run != null) {
+                pending.add(run);
+            } else {
+                count.add(runPlugin(command));
+            }
+        }
+        count.addAll(WorkflowScheduler.BatchableRun.schedule(scheduler, pending));
+        Log.info("Scheduled " + count.scheduled + " workflow runs");
+        if (count.failed > 0) {
+            Log.error("Failed to schedule " + count.failed + " workflow runs");
+            ret.setExitStatus(ReturnValue.FAILURE);
+        }
+    }
 
-                    }
-                    // separate this out so that it is reachable when in --test
-                    if (launched >= launchMax) {
-                        Log.info("The maximum number of jobs has been scheduled"
-                                + ". The next jobs will be launched when the decider runs again.");
-                        ret.setExitStatus(ReturnValue.QUEUED);
-                        // SEQWARE-1666 - short-circuit and exit when the maximum number of jobs have been launched
-                        return ret;
+    /**
+     * Runs a command as a plugin, reporting a failure rather than exiting as {@link PluginRunner#main(String[])} would.
+     */
+    private static ReturnValue runPlugin(List<String> command) {
+        try {
+            new PluginRunner().run(command.toArray(new String[command.size()]));
+            return new ReturnValue(ReturnValue.SUCCESS);
+        } catch (PluginRunner.ExitException e) {
+            return new ReturnValue(e.getExitCode());
+        }
+    }
+
+    /**
+     * The runs a batch scheduled and failed to schedule.
+     */
+    private static final class ScheduleCount {
+        private int scheduled = 0;
+        private int failed = 0;
+
+        private void add(ReturnValue result) {
+            if (result.getExitStatus() == ReturnValue.SUCCESS) {
+                scheduled++;
+            } else {
+                failed++;
+            }
+        }
+
+        private void addAll(List<ReturnValue> results) {
+            for (ReturnValue result : results) {
+                add(result);
+            }
+        }
+    }
+
+    /**
+     * Gathers the files of a group that this workflow should run on into filesToRun and the related accession sets.
+     */
+    private void collectFiles(Entry<String, List<ReturnValue>> entry) {
+        Log.info("Considering key:" + entry.getKey());
+        for (ReturnValue r : entry.getValue()) {
+            Log.info("Group contains: " + r.getAttribute(FindAllTheFiles.FILE_SWA));
+        }
+
+        parentAccessionsToRun = new HashSet<>();
+        filesToRun = new HashSet<>();
+        workflowParentAccessionsToRun = new HashSet<>();
+        fileSWIDsToRun = new HashSet<>();
+        studyReporterOutput = new HashSet<>();
+
+        // for each grouping (e.g. sample), iterate through the files
+        List<ReturnValue> files = entry.getValue();
+        Log.info("key:" + entry.getKey() + " consists of " + files.size() + " files");
+
+        for (ReturnValue file : files) {
+            String wfAcc = file.getAttribute(Header.WORKFLOW_SWA.getTitle());
+            Log.debug(Header.WORKFLOW_SWA.getTitle() + ": WF accession is " + wfAcc);
+
+            // if there is no parent accessions, or if the parent accession is correct
+            // this makes an assumption that if the wfAcc is null then the parentWorkflowAccessions will be empty
+            // and thus we are able to find files of a particular metatype with no wfAcc
+
+            // check for each file if the metatype is correct (if it exists),
+            // or just add it
+            for (FileMetadata fm : file.getFiles()) {
+                if (metaTypes != null) {
+                    if (metaTypes.contains(fm.getMetaType())) {
+                        addFileToSets(file, fm, workflowParentAccessionsToRun, parentAccessionsToRun, filesToRun, fileSWIDsToRun);
                     }
                 } else {
-                    Log.debug("Cannot run: parentAccessions: " + parentAccessionsToRun.size() + " filesToRun: " + filesToRun.size()
-                            + " workflowParentAccessions: " + workflowParentAccessionsToRun.size());
+                    addFileToSets(file, fm, workflowParentAccessionsToRun, parentAccessionsToRun, filesToRun, fileSWIDsToRun);
                 }
+            }
+
+        }// end iterate through files
+    }
+
+    private boolean hasFilesToRun() {
+        if (!parentAccessionsToRun.isEmpty() && !filesToRun.isEmpty() && !workflowParentAccessionsToRun.isEmpty()) {
+            return true;
+        }
+        Log.debug("Cannot run: parentAccessions: " + parentAccessionsToRun.size() + " filesToRun: " + filesToRun.size()
+                + " workflowParentAccessions: " + workflowParentAccessionsToRun.size());
+        return false;
+    }
+
+    /**
+     * Launches (or in test mode, reports) the collected group if it should be run.
+     * 
+     * @param rerun
+     *            whether previous runs allow this group to be run
+     * @param batch
+     *            if not null, the launch is added to this batch instead of being scheduled right away
+     * @return true once launch-max has been reached
+     */
+    private boolean considerLaunch(boolean rerun, List<List<String>> batch) {
+        final String parentAccessionString = commaSeparateMy(parentAccessionsToRun);
+        final String fileString = commaSeparateMy(filesToRun);
+        Log.debug("FileString: " + fileString);
+
+        // SEQWARE-1728 - move creation of ini to launches (and test launches) to conserve disk space
+        iniFiles = new ArrayList<>();
 
+        ReturnValue newRet = this.doFinalCheck(fileString, parentAccessionString);
+        if (newRet.getExitStatus() != ReturnValue.SUCCESS) {
+            Log.warn("Final check failed, aborting run. Return value was: " + newRet.getExitStatus());
+            rerun = false;
+        }
+
+        // if we're in testing mode or we don't want to rerun and we don't want to force the re-processing
+        if (test || !rerun) {
+            // we need to simplify the logic and make it more readable here for testing
+            if (rerun) {
+                iniFiles.add(createIniFile(fileString, parentAccessionString));
+                for (String line : studyReporterOutput) {
+                    Log.stdout(line);
+                }
+                Log.debug("NOT RUNNING (but would have ran). test=" + test + " or !rerun=" + !rerun);
+                reportLaunch();
+                // SEQWARE-1642 - output to stdout only whether a decider would launch
+                ret = do_summary();
+                launched++;
+            } else {
+                for (String line : studyReporterOutput) {
+                    Log.debug(line);
+                }
+                Log.debug("NOT RUNNING (and would not have ran). test=" + test + " or !rerun=" + !rerun);
             }
-        } else {
-            Log.stdout("There are no files");
+        } else if (launched < launchMax) {
+            iniFiles.add(createIniFile(fileString, parentAccessionString));
+            launched++;
+            // construct the INI and run it
+            for (String line : studyReporterOutput) {
+                Log.stdout(line);
+            }
+            Log.debug("Scheduling");
+            // construct the INI and run it
+            ArrayList<String> runArgs = constructCommand();
+            if (batch == null) {
+                PluginRunner.main(runArgs.toArray(new String[runArgs.size()]));
+                Log.stdout("Scheduling.");
+            } else {
+                batch.add(runArgs);
+            }
+            do_summary();
+
         }
-        return ret;
+        // separate this out so that it is reachable when in --test
+        if (launched >= launchMax) {
+            Log.info("The maximum number of jobs has been scheduled" + ". The next jobs will be launched when the decider runs again.");
+            ret.setExitStatus(ReturnValue.QUEUED);
+            // SEQWARE-1666 - short-circuit and exit when the maximum number of jobs have been launched
+            return true;
+        }
+        return false;
     }
 
     protected ArrayList<String> constructCommand() {
@@ -728,11 +992,7 @@ public class BasicDecider extends Plugin implements DeciderInterface {
         // group files according to the designated header (e.g. sample SWID)
         for (ReturnValue r : vals) {
 
-            String currVal = r.getAttributes().get(groupBy);
-
-            if (currVal != null) {
-                currVal = handleGroupByAttribute(currVal);
-            }
+            String currVal = groupKey(r, groupBy);
 
             List<ReturnValue> vs = map.get(currVal);
             if (vs == null) {
@@ -745,6 +1005,15 @@ public class BasicDecider extends Plugin implements DeciderInterface {
 
     }
 
+    private String groupKey(ReturnValue r, String groupBy) {
+        String currVal = r.getAttributes().get(groupBy);
+
+        if (currVal != null) {
+            currVal = handleGroupByAttribute(currVal);
+        }
+        return currVal;
+    }
+
     @Override
     public ReturnValue clean_up() {
         return ReturnValue.featureNotImplemented();
@@ -904,16 +1173,36 @@ public class BasicDecider extends Plugin implements DeciderInterface {
     }
 
     private List<WorkflowRun> produceAccessionListWithFileList(List<Integer> fileSWIDs) {
-        // grab only the workflows in which we are interested
+        if (prefetchedRuns != null) {
+            // the same runs a direct search would find: those with at least one of these files as input
+            Map<Integer, WorkflowRun> runs = new LinkedHashMap<>();
+            for (Integer fileSWID : fileSWIDs) {
+                List<WorkflowRun> fileRuns = prefetchedRuns.get(fileSWID);
+                if (fileRuns != null) {
+                    for (WorkflowRun run : fileRuns) {
+                        runs.put(run.getSwAccession(), run);
+                    }
+                }
+            }
+            Log.debug("Found " + runs.size() + " workflow runs among prefetched runs");
+            return new ArrayList<>(runs.values());
+        }
+        // find relevant workflow runs for this group of files
+        List<WorkflowRun> wrFiles1 = this.metadata.getWorkflowRunStatusesByInputFiles(fileSWIDs, relevantWorkflows());
+        Log.debug("Found " + wrFiles1.size() + " workflow runs via direct search");
+        return wrFiles1;
+    }
+
+    /**
+     * @return the workflow and the workflows to check, only their runs matter
+     */
+    private List<Integer> relevantWorkflows() {
         List<Integer> relevantWorkflows = new ArrayList<>();
         relevantWorkflows.add(Integer.valueOf(this.workflowAccession));
         for (String accession : this.workflowAccessionsToCheck) {
             relevantWorkflows.add(Integer.valueOf(accession));
         }
-        // find relevant workflow runs for this group of files
-        List<WorkflowRun> wrFiles1 = this.metadata.getWorkflowRunsAssociatedWithInputFiles(fileSWIDs, relevantWorkflows);
-        Log.debug("Found " + wrFiles1.size() + " workflow runs via direct search");
-        return wrFiles1;
+        return relevantWorkflows;
     }
 
     /**
@@ -977,8 +1266,14 @@ public class BasicDecider extends Plugin implements DeciderInterface {
     private Set<String> determineFilePaths(Set<Integer> fileSWIDs) {
         Set<String> results = new HashSet<>();
         for (Integer fileSWID : fileSWIDs) {
-            net.sourceforge.seqware.common.model.File file = metadata.getFile(fileSWID);
-            results.add(file.getFilePath());
+            // the same previous runs are usually compared against several groups
+            String path = filePaths.get(fileSWID);
+            if (path == null) {
+                net.sourceforge.seqware.common.model.File file = metadata.getFile(fileSWID);
+                path = file.getFilePath();
+                filePaths.put(fileSWID, path);
+            }
+            results.add(path);
         }
         return results;
     }
@@ -996,6 +1291,16 @@ public class BasicDecider extends Plugin implements DeciderInterface {
     private List<ReturnValue> createListOfRelevantFilePaths() {
         List<ReturnValue> vals;
         List<Map<String, String>> fileProvenanceReport;
+        Map<FileProvenanceParam, List<String>> map = createFileProvenanceParams();
+
+        fileProvenanceReport = metadata.fileProvenanceReport(map);
+        // convert to list of ReturnValues for backwards compatibility
+        vals = convertFileProvenanceReport(fileProvenanceReport);
+        // consider memory use and GC here
+        return vals;
+    }
+
+    private Map<FileProvenanceParam, List<String>> createFileProvenanceParams() {
         Map<FileProvenanceParam, List<String>> map = ProvenanceUtility.convertOptionsToMap(options, metadata);
         if (skipStuff) {
             map.put(FileProvenanceParam.skip, new ImmutableList.Builder<String>().add("false").build());
@@ -1006,56 +1311,54 @@ public class BasicDecider extends Plugin implements DeciderInterface {
         if (this.parentWorkflowAccessions.size() > 0) {
             map.put(FileProvenanceParam.workflow, new ImmutableList.Builder<String>().addAll(this.parentWorkflowAccessions).build());
         }
-
-        fileProvenanceReport = metadata.fileProvenanceReport(map);
-        // convert to list of ReturnValues for backwards compatibility
-        vals = convertFileProvenanceReport(fileProvenanceReport);
-        // consider memory use and GC here
-        return vals;
+        return map;
     }
 
     private List<ReturnValue> convertFileProvenanceReport(List<Map<String, String>> fileProvenanceReport) {
         List<ReturnValue> list = new ArrayList<>();
         for (Map<String, String> map : fileProvenanceReport) {
-            ReturnValue row = new ReturnValue();
-            row.setAttributes(map);
-            list.add(row);
-            // mutate additional rows into a nested FileMetadata object
-            FileMetadata fm = new FileMetadata();
-            fm.setFilePath(map.get(Header.FILE_PATH.getTitle()));
-            fm.setMetaType(map.get(Header.FILE_META_TYPE.getTitle()));
-            fm.setDescription(map.get(Header.FILE_DESCRIPTION.getTitle()));
-            fm.setMd5sum(map.get(Header.FILE_MD5SUM.getTitle()));
-            if (map.containsKey(Header.FILE_SIZE.getTitle())) {
-                if (!map.get(Header.FILE_SIZE.getTitle()).isEmpty()) {
-                    fm.setSize(Long.valueOf(map.get(Header.FILE_SIZE.getTitle())));
-                }
-            }
-
-            row.setFiles(new ArrayList(new ImmutableList.Builder<FileMetadata>().add(fm).build()));
-            handleAttributes(map, row, Header.STUDY_ATTRIBUTES, Header.STUDY_TAG_PREFIX);
-            handleAttributes(map, row, Header.EXPERIMENT_ATTRIBUTES, Header.EXPERIMENT_TAG_PREFIX);
-            handleAttributes(map, row, Header.PARENT_SAMPLE_ATTRIBUTES, Header.PARENT_SAMPLE_TAG_PREFIX);
-            handleAttributes(map, row, Header.SAMPLE_ATTRIBUTES, Header.SAMPLE_TAG_PREFIX);
-            handleAttributes(map, row, Header.IUS_ATTRIBUTES, Header.IUS_TAG_PREFIX);
-            handleAttributes(map, row, Header.LANE_ATTRIBUTES, Header.LANE_TAG_PREFIX);
-            handleAttributes(map, row, Header.SEQUENCER_RUN_ATTRIBUTES, Header.SEQUENCER_RUN_TAG_PREFIX);
-            handleAttributes(map, row, Header.PROCESSING_ATTRIBUTES, Header.PROCESSING_TAG_PREFIX);
-            handleAttributes(map, row, Header.FILE_ATTRIBUTES, Header.FILE_TAG_PREFIX);
-
-            // handle additional quirks that don't belong in the files report here FindAllTheFiles
-            // parent sample name and parent sample swid end with ':' for some reason and OicrDecider seems to have code relying on this
-            String parentSampleName = map.get(Header.PARENT_SAMPLE_NAME.getTitle());
-            parentSampleName += ":";
-            map.put(Header.PARENT_SAMPLE_NAME.getTitle(), parentSampleName);
-            String parentSampleSWID = map.get(Header.PARENT_SAMPLE_SWA.getTitle());
-            parentSampleSWID += ":";
-            map.put(Header.PARENT_SAMPLE_SWA.getTitle(), parentSampleSWID);
-
+            list.add(convertFileProvenanceRow(map));
         }
         return list;
     }
 
+    private ReturnValue convertFileProvenanceRow(Map<String, String> map) {
+        ReturnValue row = new ReturnValue();
+        row.setAttributes(map);
+        // mutate additional rows into a nested FileMetadata object
+        FileMetadata fm = new FileMetadata();
+        fm.setFilePath(map.get(Header.FILE_PATH.getTitle()));
+        fm.setMetaType(map.get(Header.FILE_META_TYPE.getTitle()));
+        fm.setDescription(map.get(Header.FILE_DESCRIPTION.getTitle()));
+        fm.setMd5sum(map.get(Header.FILE_MD5SUM.getTitle()));
+        if (map.containsKey(Header.FILE_SIZE.getTitle())) {
+            if (!map.get(Header.FILE_SIZE.getTitle()).isEmpty()) {
+                fm.setSize(Long.valueOf(map.get(Header.FILE_SIZE.getTitle())));
+            }
+        }
+
+        row.setFiles(new ArrayList(new ImmutableList.Builder<FileMetadata>().add(fm).build()));
+        handleAttributes(map, row, Header.STUDY_ATTRIBUTES, Header.STUDY_TAG_PREFIX);
+        handleAttributes(map, row, Header.EXPERIMENT_ATTRIBUTES, Header.EXPERIMENT_TAG_PREFIX);
+        handleAttributes(map, row, Header.PARENT_SAMPLE_ATTRIBUTES, Header.PARENT_SAMPLE_TAG_PREFIX);
+        handleAttributes(map, row, Header.SAMPLE_ATTRIBUTES, Header.SAMPLE_TAG_PREFIX);
+        handleAttributes(map, row, Header.IUS_ATTRIBUTES, Header.IUS_TAG_PREFIX);
+        handleAttributes(map, row, Header.LANE_ATTRIBUTES, Header.LANE_TAG_PREFIX);
+        handleAttributes(map, row, Header.SEQUENCER_RUN_ATTRIBUTES, Header.SEQUENCER_RUN_TAG_PREFIX);
+        handleAttributes(map, row, Header.PROCESSING_ATTRIBUTES, Header.PROCESSING_TAG_PREFIX);
+        handleAttributes(map, row, Header.FILE_ATTRIBUTES, Header.FILE_TAG_PREFIX);
+
+        // handle additional quirks that don't belong in the files report here FindAllTheFiles
+        // parent sample name and parent sample swid end with ':' for some reason and OicrDecider seems to have code relying on this
+        String parentSampleName = map.get(Header.PARENT_SAMPLE_NAME.getTitle());
+        parentSampleName += ":";
+        map.put(Header.PARENT_SAMPLE_NAME.getTitle(), parentSampleName);
+        String parentSampleSWID = map.get(Header.PARENT_SAMPLE_SWA.getTitle());
+        parentSampleSWID += ":";
+        map.put(Header.PARENT_SAMPLE_SWA.getTitle(), parentSampleSWID);
+        return row;
+    }
+
     private void handleAttributes(Map<String, String> map, ReturnValue row, Header headerType, Header headerPrefix) {
         // mutate attributes into expected format from FindAllTheFiles
         String studyAttributes = map.remove(headerType.getTitle());
@@ -1099,6 +1402,74 @@ public class BasicDecider extends Plugin implements DeciderInterface {
         FAILED, OTHER, COMPLETED
     }
 
+    /**
+     * The files of one group collected by {@link BasicDecider#collectFiles(Entry)}, kept while the group waits for its previous runs to
+     * be checked.
+     */
+    private class Group {
+        private final Collection<String> parentAccessions = parentAccessionsToRun;
+        private final Collection<String> files = filesToRun;
+        private final Collection<String> workflowParentAccessions = workflowParentAccessionsToRun;
+        private final Collection<Integer> fileSWIDs = fileSWIDsToRun;
+        private final Set<String> reporterOutput = studyReporterOutput;
+
+        /**
+         * Makes this the group under consideration again.
+         */
+        private void restore() {
+            parentAccessionsToRun = parentAccessions;
+            filesToRun = files;
+            workflowParentAccessionsToRun = workflowParentAccessions;
+            fileSWIDsToRun = fileSWIDs;
+            studyReporterOutput = reporterOutput;
+        }
+    }
+
+    /**
+     * Groups a report that is already ordered by the group-by column, emitting each group as soon as the next one starts. Groups arrive
+     * in the same order that ReturnValueProcessingTimeComparator would sort them in, as long as handleGroupByAttribute keeps equal keys
+     * next to each other.
+     */
+    private class StreamingGroupIterator extends AbstractIterator<Entry<String, List<ReturnValue>>> {
+
+        private final Iterator<Map<String, String>> rows;
+        private final String groupBy;
+        private final Set<String> seenKeys = new HashSet<>();
+        private ReturnValue pending = null;
+        private String pendingKey = null;
+
+        StreamingGroupIterator(Iterator<Map<String, String>> rows, String groupBy) {
+            this.rows = rows;
+            this.groupBy = groupBy;
+        }
+
+        @Override
+        protected Entry<String, List<ReturnValue>> computeNext() {
+            if (pending == null && !advance()) {
+                return endOfData();
+            }
+            String key = pendingKey;
+            if (!seenKeys.add(key)) {
+                Log.warn("Group " + key + " is not contiguous in the file provenance report, it will be considered more than once");
+            }
+            List<ReturnValue> group = new ArrayList<>();
+            do {
+                group.add(pending);
+            } while (advance() && Objects.equals(key, pendingKey));
+            return new SimpleImmutableEntry<>(key, group);
+        }
+
+        private boolean advance() {
+            if (!rows.hasNext()) {
+                pending = null;
+                return false;
+            }
+            pending = convertFileProvenanceRow(rows.next());
+            pendingKey = groupKey(pending, groupBy);
+            return true;
+        }
+    }
+
     private class ReturnValueProcessingTimeComparator implements Comparator<Entry<String, List<ReturnValue>>> {
 
         @Override
@@ -22,6 +22,7 @@ import net.sourceforge.seqware.common.module.ReturnValue;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.configtools.ConfigTools;
 import net.sourceforge.seqware.common.util.filetools.FileTools;
+import net.sourceforge.seqware.common.util.filetools.ParallelDownloader;
 import net.sourceforge.seqware.common.util.filetools.ProvisionFilesUtil;
 import net.sourceforge.seqware.pipeline.module.Module;
 import net.sourceforge.seqware.pipeline.module.ModuleInterface;
@@ -47,6 +48,9 @@ public class ProvisionFiles extends Module {
     protected String algorithmName = "ProvisionFiles";
     private final ProvisionFilesUtil filesUtil = new ProvisionFilesUtil();
     private static final String DATA_ENCRYPTION_ALGORITHM = "DESede";
+    private ParallelDownloader downloader = null;
+    private boolean deferAttributes = false;
+    private final Set<ProcessingAttribute> deferredAttributes = new TreeSet<>();
 
     // S3 specific options
     protected int s3ConnectionTimeout = ClientConfiguration.DEFAULT_SOCKET_TIMEOUT;
@@ -332,6 +336,12 @@ public class ProvisionFiles extends Module {
         boolean verbose = options.has("verbose");
         filesUtil.setVerbose(verbose);
         ret.setAlgorithm(algorithmName);
+        try {
+            downloader = ParallelDownloader.fromSettings(ConfigTools.getSettings());
+        } catch (Exception e) {
+            Log.warn("Could not read settings for ranged downloads, downloading sequentially: " + e.getMessage());
+            downloader = null;
+        }
 
         ArrayList<FileMetadata> fileArray = ret.getFiles();
 
@@ -367,8 +377,9 @@ public class ProvisionFiles extends Module {
         for (FileMetadata fmd : fileArray) {
             Log.info("FMD:\nDescription: " + fmd.getDescription() + "\nFile Path: " + fmd.getFilePath() + "\nMeta Type: "
                     + fmd.getMetaType() + "\nType: " + fmd.getType());
-            // handle text/key-value
-            if (fmd.getMetaType().equals("text/key-value") && this.getProcessingAccession() != 0) {
+            // handle text/key-value, when run in a batch the processing event is only created afterwards so keep the attributes for
+            // the batch runner
+            if (fmd.getMetaType().equals("text/key-value") && (this.getProcessingAccession() != 0 || deferAttributes)) {
                 Map<String, String> map = FileTools.getKeyValueFromFile(fmd.getFilePath());
                 Set<ProcessingAttribute> atts = new TreeSet<>();
                 for (Map.Entry<String, String> entry : map.entrySet()) {
@@ -377,7 +388,11 @@ public class ProvisionFiles extends Module {
                     a.setValue(entry.getValue());
                     atts.add(a);
                 }
-                this.getMetadata().annotateProcessing(this.getProcessingAccession(), atts);
+                if (this.getProcessingAccession() != 0) {
+                    this.getMetadata().annotateProcessing(this.getProcessingAccession(), atts);
+                } else {
+                    deferredAttributes.addAll(atts);
+                }
             }
         }
 
@@ -504,6 +519,15 @@ public class ProvisionFiles extends Module {
             }
         }
 
+        // a ranged download opens its own connections, the sequential reader is only opened when it is not taken or fails
+        if (isRangedDownload(input, output)) {
+            if (filesUtil.copyToFileInParallel(input, output, fullOutputPath, downloader) != null) {
+                setFinalPaths(fileArray, output);
+                return true;
+            }
+            Log.warn("Ranged download failed, falling back to a sequential copy of " + input);
+        }
+
         // now try to set these up
         reader = filesUtil.getSourceReader(input, bufLen, 0L);
         // just skip this if this option is set
@@ -538,17 +562,21 @@ public class ProvisionFiles extends Module {
      */
     protected boolean putDestination(BufferedInputStream reader, String output, int bufLen, String input,
             ArrayList<FileMetadata> fileArray, boolean fullOutputPath) {
-
-        // finally record the metadata about the file, update the output path to
-        // prepare this file for adding output-prefix as a prefix
-        for (FileMetadata fmd : fileArray) {
-            Log.info("Examining: " + fmd.getFilePath() + " fileUti's file: " + output + " " + filesUtil.getFileName()
-                    + " fileutil's original file: " + filesUtil.getOriginalFileName());
-            if (fmd.getFilePath() != null && fmd.getFilePath().equals(filesUtil.getOriginalFileName())) {
-                fmd.setFilePath(filesUtil.getFileName());
-                Log.info("    SETTING FINAL PATH: " + filesUtil.getFileName());
+        try {
+            return putDestination(reader, output, input, fileArray, fullOutputPath);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                Log.error(e.getMessage());
             }
         }
+    }
+
+    private boolean putDestination(BufferedInputStream reader, String output, String input, ArrayList<FileMetadata> fileArray,
+            boolean fullOutputPath) {
+
+        setFinalPaths(fileArray, output);
 
         // encryption
         Cipher decryptCipher = getDecryptCipher();
@@ -581,7 +609,7 @@ public class ProvisionFiles extends Module {
             if (input.startsWith("http://") || input.startsWith("https://") || input.startsWith("s3://") || options.has("force-copy")
                     || options.has("recursive")) {
 
-                result = (filesUtil.copyToFile(reader, output, fullOutputPath, bufLen, input, decryptCipher, encryptCipher) != null);
+                result = (filesUtil.copyToFile(reader, output, fullOutputPath, input, decryptCipher, encryptCipher) != null);
 
             } else {
                 // If no "force-copy" and "recursive"
@@ -595,14 +623,51 @@ public class ProvisionFiles extends Module {
 
         }
 
-        try {
-            reader.close();
-        } catch (IOException e) {
-            Log.error(e.getMessage());
-            return false;
+        return (result);
+    }
+
+    /**
+     * @return whether the input is copied to a local output with ranged requests in parallel, which leaves out encrypted copies since
+     *         the ranges arrive out of order
+     */
+    private boolean isRangedDownload(String input, String output) {
+        boolean remote = input.startsWith("http://") || input.startsWith("https://") || input.startsWith("s3://");
+        boolean local = !(output.startsWith("s3://") || output.startsWith("http://") || output.startsWith("https://"));
+        return remote && local && downloader != null && downloader.isEnabled() && getDecryptCipher() == null
+                && getEncryptCipher() == null;
+    }
+
+    /**
+     * Records the metadata about the file, updating the output path to prepare this file for adding output-prefix as a prefix.
+     */
+    private void setFinalPaths(ArrayList<FileMetadata> fileArray, String output) {
+        for (FileMetadata fmd : fileArray) {
+            Log.info("Examining: " + fmd.getFilePath() + " fileUti's file: " + output + " " + filesUtil.getFileName()
+                    + " fileutil's original file: " + filesUtil.getOriginalFileName());
+            if (fmd.getFilePath() != null && fmd.getFilePath().equals(filesUtil.getOriginalFileName())) {
+                fmd.setFilePath(filesUtil.getFileName());
+                Log.info("    SETTING FINAL PATH: " + filesUtil.getFileName());
+            }
         }
+    }
 
-        return (result);
+    /**
+     * Keeps the attributes read from text/key-value files when running without a processing event, as the BatchRunner does, instead of
+     * ignoring them.
+     * 
+     * @param deferAttributes
+     */
+    public void setDeferAttributes(boolean deferAttributes) {
+        this.deferAttributes = deferAttributes;
+    }
+
+    /**
+     * Attributes read from text/key-value files while running without a processing event, to be attached once the event exists.
+     * 
+     * @return the attributes, empty unless attributes are deferred and there is no processing accession
+     */
+    public Set<ProcessingAttribute> getDeferredAttributes() {
+        return deferredAttributes;
     }
 
     /**
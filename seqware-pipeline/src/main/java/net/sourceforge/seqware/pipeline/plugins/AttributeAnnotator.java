@@ -54,6 +54,11 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = PluginInterface.class)
 public class AttributeAnnotator extends Plugin {
 
+    /**
+     * The number of annotations sent to the web service at a time when annotating from a CSV file.
+     */
+    private static final int BULK_BATCH_SIZE = 500;
+
     ReturnValue ret = new ReturnValue();
 
     /**
@@ -358,34 +363,44 @@ public class AttributeAnnotator extends Plugin {
     private void bulkInsert() {
         Map<String, Map<String, Map<String, String>>> bulkMap = new HashMap<>();
         if (this.parseFile(bulkMap)) {
-            for (Map.Entry<String, Map<String, Map<String, String>>> entry : bulkMap.entrySet()) {
-                if (entry.getKey().equals("w") || entry.getKey().equals("workflow-accesion")) {
-                    this.bulkInsertWorkflow(entry.getValue());
-                }
-                if (entry.getKey().equals("wr") || entry.getKey().equals("workflow-run-accession")) {
-                    this.bulkInsertWorkflowRun(entry.getValue());
-                }
-                if (entry.getKey().equals("sr") || entry.getKey().equals("sequencer-run-accession")) {
-                    this.bulkInsertSequencerRun(entry.getValue());
-                }
-                if (entry.getKey().equals("l") || entry.getKey().equals("lane-accession")) {
-                    this.bulkInsertLane(entry.getValue());
-                }
-                if (entry.getKey().equals("i") || entry.getKey().equals("ius-accession")) {
-                    this.bulkInsertIUS(entry.getValue());
-                }
-                if (entry.getKey().equals("e") || entry.getKey().equals("experiment-accession")) {
-                    this.bulkInsertExperiment(entry.getValue());
-                }
-                if (entry.getKey().equals("st") || entry.getKey().equals("study-accession")) {
-                    this.bulkInsertStudy(entry.getValue());
-                }
-                if (entry.getKey().equals("p") || entry.getKey().equals("processing-accession")) {
-                    this.bulkInsertProcessing(entry.getValue());
-                }
-                if (entry.getKey().equals("s") || entry.getKey().equals("sample-accession")) {
-                    this.bulkInsertSample(entry.getValue());
-                }
+            // annotations only update existing objects, so they can go to the web service in batches
+            metadata.startBatch(BULK_BATCH_SIZE);
+            try {
+                bulkInsertAll(bulkMap);
+            } finally {
+                metadata.endBatch();
+            }
+        }
+    }
+
+    private void bulkInsertAll(Map<String, Map<String, Map<String, String>>> bulkMap) {
+        for (Map.Entry<String, Map<String, Map<String, String>>> entry : bulkMap.entrySet()) {
+            if (entry.getKey().equals("w") || entry.getKey().equals("workflow-accesion")) {
+                this.bulkInsertWorkflow(entry.getValue());
+            }
+            if (entry.getKey().equals("wr") || entry.getKey().equals("workflow-run-accession")) {
+                this.bulkInsertWorkflowRun(entry.getValue());
+            }
+            if (entry.getKey().equals("sr") || entry.getKey().equals("sequencer-run-accession")) {
+                this.bulkInsertSequencerRun(entry.getValue());
+            }
+            if (entry.getKey().equals("l") || entry.getKey().equals("lane-accession")) {
+                this.bulkInsertLane(entry.getValue());
+            }
+            if (entry.getKey().equals("i") || entry.getKey().equals("ius-accession")) {
+                this.bulkInsertIUS(entry.getValue());
+            }
+            if (entry.getKey().equals("e") || entry.getKey().equals("experiment-accession")) {
+                this.bulkInsertExperiment(entry.getValue());
+            }
+            if (entry.getKey().equals("st") || entry.getKey().equals("study-accession")) {
+                this.bulkInsertStudy(entry.getValue());
+            }
+            if (entry.getKey().equals("p") || entry.getKey().equals("processing-accession")) {
+                this.bulkInsertProcessing(entry.getValue());
+            }
+            if (entry.getKey().equals("s") || entry.getKey().equals("sample-accession")) {
+                this.bulkInsertSample(entry.getValue());
             }
         }
     }
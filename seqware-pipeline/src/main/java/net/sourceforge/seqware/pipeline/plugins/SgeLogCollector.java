@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2011 SeqWare
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.seqware.pipeline.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.sourceforge.seqware.common.util.TruncatedLog;
+
+/**
+ * Reads what the SGE jobs of a workflow run have written to their .o and .e files since the last time the status checker looked.
+ *
+ * How far each file has been read is kept in a file in the run's scripts directory, so that each poll reads only the bytes appended since,
+ * however long the files grow. More than the retained size is never read from a file in one poll, the middle of a larger piece is skipped
+ * since it would be truncated away anyway.
+ */
+class SgeLogCollector {
+
+    static final String OFFSETS_FILE = ".seqware-log-offsets";
+
+    private static final Pattern SGE_OUT_FILE = Pattern.compile(".+\\.o(\\d+)");
+    private static final Pattern SGE_ERR_FILE = Pattern.compile(".+\\.e(\\d+)");
+    private static final Pattern SGE_FILE = Pattern.compile("(.+)\\.[eo]\\d+");
+    private static final String RULE = "-----------------------------------------------------------------------";
+
+    private final File dir;
+    private final int retainedSize;
+    private final File offsetsFile;
+    private final Properties offsets = new Properties();
+    private final Map<String, Long> read = new HashMap<>();
+
+    /**
+     * @param dir
+     *            the scripts directory of the run
+     * @param retainedSize
+     *            the number of characters of stdout and of stderr kept for the run
+     * @throws IOException
+     */
+    SgeLogCollector(File dir, int retainedSize) throws IOException {
+        this.dir = dir;
+        this.retainedSize = retainedSize;
+        this.offsetsFile = new File(dir, OFFSETS_FILE);
+        if (offsetsFile.exists()) {
+            try (InputStream in = new FileInputStream(offsetsFile)) {
+                offsets.load(in);
+            }
+        }
+    }
+
+    /**
+     * @return true if nothing has been collected for the run yet, output stored for it earlier should be replaced rather than appended to
+     */
+    boolean isFirstCollection() {
+        return !offsetsFile.exists();
+    }
+
+    /**
+     * @return what the jobs of the run have written to stdout since the last commit
+     */
+    String collectStdOut() {
+        return collect(sgeFiles(SGE_OUT_FILE));
+    }
+
+    /**
+     * @return what the jobs of the run have written to stderr since the last commit
+     */
+    String collectStdErr() {
+        return collect(sgeFiles(SGE_ERR_FILE));
+    }
+
+    /**
+     * Records that what was collected has been stored, the next collection starts after it.
+     *
+     * @throws IOException
+     */
+    void commit() throws IOException {
+        for (Map.Entry<String, Long> e : read.entrySet()) {
+            offsets.setProperty(e.getKey(), e.getValue().toString());
+        }
+        File part = new File(dir, OFFSETS_FILE + ".part");
+        try (OutputStream out = new FileOutputStream(part)) {
+            offsets.store(out, "Bytes of each SGE output file sent to the metadata database");
+        }
+        Files.move(part.toPath(), offsetsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        read.clear();
+    }
+
+    /**
+     * The scripts directory only holds the jobs of one run. The files of earlier attempts of a retried run are included, but they do not
+     * grow so they are read once.
+     */
+    private SortedMap<Integer, File> sgeFiles(Pattern p) {
+        SortedMap<Integer, File> idFiles = new TreeMap<>();
+        for (File f : dir.listFiles()) {
+            Matcher m = p.matcher(f.getName());
+            if (m.matches()) {
+                idFiles.put(Integer.parseInt(m.group(1)), f);
+            }
+        }
+        return idFiles;
+    }
+
+    private String collect(SortedMap<Integer, File> idFiles) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Integer, File> e : idFiles.entrySet()) {
+            File f = e.getValue();
+            long offset = Long.parseLong(offsets.getProperty(f.getName(), "0"));
+            long length = f.length();
+            if (length < offset) {
+                // the file was replaced, start over
+                offset = 0;
+            }
+            if (length == offset) {
+                continue;
+            }
+
+            String contents;
+            long end = length;
+            try {
+                byte[] bytes = readFrom(f, offset, length);
+                // a character still being written is left for the next poll
+                int complete = completeLength(bytes);
+                end = length - (bytes.length - complete);
+                contents = new String(bytes, 0, complete, StandardCharsets.UTF_8);
+                contents = WorkflowStatusChecker.stripInvalidXmlCharacters(contents);
+            } catch (IOException ex) {
+                contents = " *** ERROR READING FILE: " + ex.getMessage() + " ***";
+                end = offset;
+            }
+            if (end == offset && contents.isEmpty()) {
+                continue;
+            }
+            read.put(f.getName(), end);
+
+            Matcher m = SGE_FILE.matcher(f.getName());
+            m.find();
+            String jobName = m.group(1);
+
+            sb.append(RULE);
+            sb.append("\nJob Name: ");
+            sb.append(jobName);
+            sb.append("\nJob ID:   ");
+            sb.append(e.getKey());
+            sb.append("\nFile:     ");
+            sb.append(f.getAbsolutePath());
+            sb.append("\nUpdated:  ");
+            sb.append(new Date(f.lastModified()));
+            if (offset == 0) {
+                sb.append("\nContents:\n");
+            } else {
+                sb.append("\nContents from byte ");
+                sb.append(offset);
+                sb.append(":\n");
+            }
+            sb.append(contents);
+            if (sb.charAt(sb.length() - 1) != '\n') {
+                sb.append("\n");
+            }
+            sb.append(RULE);
+            sb.append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the bytes of a file between two offsets, or only the head and the tail of them with the truncation marker in between when there
+     * are more than the retained size. The head and the tail are cut between characters, so that the truncation does not split one.
+     */
+    private byte[] readFrom(File f, long offset, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(f, "r")) {
+            if (length - offset <= retainedSize) {
+                byte[] bytes = new byte[(int) (length - offset)];
+                file.seek(offset);
+                file.readFully(bytes);
+                return bytes;
+            }
+            byte[] marker = TruncatedLog.MARKER.getBytes(StandardCharsets.UTF_8);
+            byte[] head = new byte[retainedSize / 2];
+            byte[] tail = new byte[Math.max(0, retainedSize - head.length - marker.length)];
+            file.seek(offset);
+            file.readFully(head);
+            file.seek(length - tail.length);
+            file.readFully(tail);
+
+            int headEnd = completeLength(head);
+            int tailStart = firstCharacter(tail);
+            byte[] bytes = new byte[headEnd + marker.length + tail.length - tailStart];
+            System.arraycopy(head, 0, bytes, 0, headEnd);
+            System.arraycopy(marker, 0, bytes, headEnd, marker.length);
+            System.arraycopy(tail, tailStart, bytes, headEnd + marker.length, tail.length - tailStart);
+            return bytes;
+        }
+    }
+
+    /**
+     * @return the index of the first byte that is not the continuation of a UTF-8 character begun before the bytes
+     */
+    static int firstCharacter(byte[] bytes) {
+        int i = 0;
+        while (i < bytes.length && i < 3 && (bytes[i] & 0xC0) == 0x80) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the number of bytes up to the end of the last complete UTF-8 character
+     */
+    static int completeLength(byte[] bytes) {
+        // look back over at most three continuation bytes for the lead byte of the last character
+        for (int i = bytes.length - 1; i >= 0 && i >= bytes.length - 4; i--) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                return bytes.length;
+            }
+            if (b >= 0xC0) {
+                int size = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                return bytes.length - i >= size ? bytes.length : i;
+            }
+        }
+        return bytes.length;
+    }
+}
@@ -24,34 +24,34 @@ import java.io.StringBufferInputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import net.sourceforge.seqware.common.metadata.Metadata;
 import net.sourceforge.seqware.common.model.WorkflowRun;
 import net.sourceforge.seqware.common.module.ReturnValue;
 import net.sourceforge.seqware.common.module.ReturnValue.ExitStatus;
 import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.TruncatedLog;
 import net.sourceforge.seqware.common.util.filetools.FileTools;
 import net.sourceforge.seqware.common.util.filetools.FileTools.LocalhostPair;
 import net.sourceforge.seqware.pipeline.plugin.Plugin;
 import net.sourceforge.seqware.pipeline.plugin.PluginInterface;
 import net.sourceforge.seqware.pipeline.tools.RunLock;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.OozieClients;
 import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieJob;
-import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.oozie.client.OozieClient;
+import org.apache.oozie.client.OozieClientException;
 import org.apache.oozie.client.WorkflowAction;
 import org.apache.oozie.client.WorkflowJob;
 import org.apache.xerces.util.XMLChar;
@@ -66,10 +66,29 @@ import org.openide.util.lookup.ServiceProvider;
 @ServiceProvider(service = PluginInterface.class)
 public class WorkflowStatusChecker extends Plugin {
     public static final String WORKFLOW_RUN_ACCESSION = "workflow-run-accession";
+    /**
+     * The setting for the number of characters of stdout and of stderr kept for an oozie-sge run.
+     */
+    public static final String LOG_RETAINED_SIZE = "OOZIE_SGE_LOG_RETAINED_SIZE";
     private static final String metadata_sync = "synch_for_metadata";
+    /**
+     * The Oozie jobs that can still change state, which are fetched in bulk instead of one by one.
+     */
+    private static final String ACTIVE_JOBS_FILTER = "status=PREP;status=RUNNING;status=SUSPENDED";
+    private static final int JOBS_PAGE_SIZE = 1000;
+    /**
+     * The number of status updates sent to the metadata database at a time.
+     */
+    private static final int UPDATE_CHUNK_SIZE = 500;
     // variables for use in the app
     private String hostname = null;
     private String username = null;
+    private int logRetainedSize = TruncatedLog.DEFAULT_RETAINED_SIZE;
+    private String oozieUrl = null;
+    // shared by the checker threads
+    private OozieClient oozieClient = null;
+    private Map<String, WorkflowJob> activeJobs = Collections.emptyMap();
+    private final List<SgeLogCollector> sentLogs = new ArrayList<>();
 
     /**
      * <p>
@@ -119,6 +138,25 @@ public class WorkflowStatusChecker extends Plugin {
         }
         this.username = this.config.get("SW_REST_USER");
 
+        if (this.config.get("OOZIE_URL") == null || this.config.get("OOZIE_URL").trim().isEmpty()) {
+            Log.error("You must define OOZIE_URL in your SeqWare settings file!");
+            return new ReturnValue(ExitStatus.FAILURE);
+        }
+        this.oozieUrl = this.config.get("OOZIE_URL").trim();
+
+        String retainedSize = this.config.get(LOG_RETAINED_SIZE);
+        if (retainedSize != null && !retainedSize.isEmpty()) {
+            try {
+                this.logRetainedSize = Integer.parseInt(retainedSize.trim());
+            } catch (NumberFormatException e) {
+                this.logRetainedSize = -1;
+            }
+            if (this.logRetainedSize < 0) {
+                Log.error(LOG_RETAINED_SIZE + " must be a number of characters, not " + retainedSize);
+                return new ReturnValue(ExitStatus.FAILURE);
+            }
+        }
+
         return new ReturnValue();
 
     }
@@ -154,13 +192,13 @@ public class WorkflowStatusChecker extends Plugin {
                 runningWorkflows.add(wr);
             }
         } else {
-            runningWorkflows.addAll(this.metadata.getWorkflowRunsByStatus(WorkflowRunStatus.running));
-            runningWorkflows.addAll(this.metadata.getWorkflowRunsByStatus(WorkflowRunStatus.pending));
-            runningWorkflows.addAll(this.metadata.getWorkflowRunsByStatus(WorkflowRunStatus.submitted_cancel));
-            runningWorkflows.addAll(this.metadata.getWorkflowRunsByStatus(WorkflowRunStatus.submitted_retry));
+            // only the status fields of the runs are read, updating them leaves the rest as it is
+            Set<WorkflowRunStatus> statuses = EnumSet.of(WorkflowRunStatus.running, WorkflowRunStatus.pending,
+                    WorkflowRunStatus.submitted_cancel, WorkflowRunStatus.submitted_retry);
             if (options.has("check-failed")) {
-                runningWorkflows.addAll(this.metadata.getWorkflowRunsByStatus(WorkflowRunStatus.failed));
+                statuses.add(WorkflowRunStatus.failed);
             }
+            runningWorkflows.addAll(this.metadata.getWorkflowRunStatuses(statuses, null));
         }
 
         // setup thread pool
@@ -177,6 +215,14 @@ public class WorkflowStatusChecker extends Plugin {
             pool = Executors.newSingleThreadExecutor();
         }
 
+        if (runningWorkflows.isEmpty()) {
+            pool.shutdown();
+            return ret;
+        }
+        loadActiveJobs(runningWorkflows);
+        // only runs that changed are updated, and the updates are sent together
+        this.metadata.startBatch(UPDATE_CHUNK_SIZE);
+
         List<Future<?>> futures = new ArrayList<>(runningWorkflows.size());
         // loop over running workflows and check their status
         for (WorkflowRun wr : runningWorkflows) {
@@ -192,9 +238,59 @@ public class WorkflowStatusChecker extends Plugin {
 
         pool.shutdown();
 
+        try {
+            this.metadata.endBatch();
+        } catch (RuntimeException e) {
+            // the output is collected again on the next check, an earlier chunk that went through gets it twice
+            Log.fatal("Could not send the status updates", e);
+            return new ReturnValue(ReturnValue.FAILURE);
+        }
+        for (SgeLogCollector logs : sentLogs) {
+            try {
+                logs.commit();
+            } catch (IOException e) {
+                Log.error("Could not record how much SGE output was sent", e);
+            }
+        }
+
         return ret;
     }
 
+    /**
+     * Fetches the Oozie jobs that are still active with a few requests, so that only the runs whose jobs have finished are looked up one
+     * by one. If that fails, every run is looked up on its own.
+     */
+    private void loadActiveJobs(Set<WorkflowRun> runs) {
+        boolean oozie = false;
+        for (WorkflowRun wr : runs) {
+            oozie |= Engines.isOozie(wr.getWorkflowEngine()) && wr.getStatusCmd() != null;
+        }
+        if (!oozie) {
+            return;
+        }
+        if (this.oozieClient == null) {
+            this.oozieClient = OozieClients.get(oozieUrl);
+        }
+        Map<String, WorkflowJob> jobs = new HashMap<>();
+        try {
+            // Oozie counts from 1
+            for (int start = 1;; start += JOBS_PAGE_SIZE) {
+                List<WorkflowJob> page = oozieClient.getJobsInfo(ACTIVE_JOBS_FILTER, start, JOBS_PAGE_SIZE);
+                for (WorkflowJob job : page) {
+                    jobs.put(job.getId(), job);
+                }
+                if (page.size() < JOBS_PAGE_SIZE) {
+                    break;
+                }
+            }
+        } catch (OozieClientException e) {
+            Log.warn("Could not list the active Oozie jobs, looking them up one by one", e);
+            jobs.clear();
+        }
+        Log.debug("Found " + jobs.size() + " active Oozie jobs");
+        this.activeJobs = jobs;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -224,6 +320,14 @@ public class WorkflowStatusChecker extends Plugin {
         return metadata;
     }
 
+    /**
+     * @param oozieClient
+     *            the client to check the Oozie runs with, instead of the shared one for OOZIE_URL
+     */
+    void setOozieClient(OozieClient oozieClient) {
+        this.oozieClient = oozieClient;
+    }
+
     private final class CheckerThread implements Runnable {
 
         private final WorkflowRun wr;
@@ -267,6 +371,9 @@ public class WorkflowStatusChecker extends Plugin {
 
             if (Engines.isOozie(wr.getWorkflowEngine())) {
                 checkOozie();
+            } else if (Engines.isLocal(wr.getWorkflowEngine())) {
+                // the launcher records the status once the run is over, there is nothing to poll
+                return;
             } else {
                 throw new RuntimeException("No other workflow engines currently supported");
             }
@@ -274,14 +381,19 @@ public class WorkflowStatusChecker extends Plugin {
 
         private void checkOozie() {
             try {
-                OozieClient oc = new OozieClient((String) config.get("OOZIE_URL"));
+                OozieClient oc = WorkflowStatusChecker.this.oozieClient;
                 String jobId = wr.getStatusCmd();
                 if (jobId == null) {
                     handlePreLaunch();
                     return;
                 }
 
-                WorkflowJob wfJob = oc.getJobInfo(jobId);
+                // an active job is only listed, without its actions and configuration
+                WorkflowJob wfJob = activeJobs.get(jobId);
+                boolean listed = wfJob != null;
+                if (!listed) {
+                    wfJob = oc.getJobInfo(jobId);
+                }
                 if (wfJob == null) {
                     throw new IllegalStateException("No Oozie job found for WorkflowRun: swid=" + wr.getSwAccession() + " oozie-id="
                             + jobId);
@@ -333,21 +445,27 @@ public class WorkflowStatusChecker extends Plugin {
                     }
                 }
 
-                String err;
-                String out;
+                // a null leaves the stored output as it is
+                String err = null;
+                String out = null;
+                SgeLogCollector logs = null;
+                String appendOut = null;
+                String appendErr = null;
 
                 if (wr.getWorkflowEngine().equals("oozie-sge")) {
+                    // output is only sent as it grows
                     File dir = OozieJob.scriptsDir(wr.getCurrentWorkingDir());
                     if (dir.exists()) {
-                        Set<String> extIds = sgeIds(wfJob);
-                        out = sgeConcat(sgeFiles(SGE_OUT_FILE, dir, extIds));
-                        err = sgeConcat(sgeFiles(SGE_ERR_FILE, dir, extIds));
-                    } else {
-                        // working dir has been deleted, do not wipe-out the stored output
-                        out = wr.getStdOut();
-                        err = wr.getStdErr();
+                        logs = new SgeLogCollector(dir, logRetainedSize);
+                        if (logs.isFirstCollection()) {
+                            // replace what an earlier status checker stored in full
+                            out = "";
+                            err = "";
+                        }
+                        appendOut = logs.collectStdOut();
+                        appendErr = logs.collectStdErr();
                     }
-                } else {
+                } else if (!listed && nextSqwStatus != curSqwStatus) {
                     StringBuilder sb = new StringBuilder();
                     for (WorkflowAction action : wfJob.getActions()) {
                         if (action.getErrorMessage() != null) {
@@ -360,10 +478,20 @@ public class WorkflowStatusChecker extends Plugin {
                 }
 
                 synchronized (metadata_sync) {
-                    wr.setStatus(nextSqwStatus);
-                    wr.setStdErr(err);
-                    wr.setStdOut(out);
-                    WorkflowStatusChecker.this.metadata.updateWorkflowRun(wr);
+                    if (nextSqwStatus != curSqwStatus || out != null || err != null) {
+                        wr.setStatus(nextSqwStatus);
+                        wr.setStdErr(err);
+                        wr.setStdOut(out);
+                        WorkflowStatusChecker.this.metadata.updateWorkflowRun(wr);
+                    }
+                    if (logs != null) {
+                        if (!appendOut.isEmpty() || !appendErr.isEmpty()) {
+                            WorkflowStatusChecker.this.metadata.appendWorkflowRunLogs(wr.getSwAccession(), appendOut, appendErr,
+                                    logRetainedSize);
+                        }
+                        // recorded once the batch has been sent
+                        sentLogs.add(logs);
+                    }
                 }
             } catch (RuntimeException e) {
                 throw e;
@@ -462,73 +590,6 @@ public class WorkflowStatusChecker extends Plugin {
 
     }
 
-    private static final Pattern SGE_OUT_FILE = Pattern.compile(".+\\.o(\\d+)");
-    private static final Pattern SGE_ERR_FILE = Pattern.compile(".+\\.e(\\d+)");
-
-    private static SortedMap<Integer, File> sgeFiles(Pattern p, File dir, final Set<String> extIds) {
-        SortedMap<Integer, File> idFiles = new TreeMap<>();
-        for (File f : dir.listFiles()) {
-            Matcher m = p.matcher(f.getName());
-            if (m.find()) {
-                String id = m.group(1);
-                if (extIds.contains(id)) {
-                    idFiles.put(Integer.parseInt(id), f);
-                }
-            }
-        }
-        return idFiles;
-    }
-
-    private static final Pattern SGE_FILE = Pattern.compile("(.+)\\.[eo]\\d+");
-
-    private static String sgeConcat(SortedMap<Integer, File> idFiles) {
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<Integer, File> e : idFiles.entrySet()) {
-            File f = e.getValue();
-
-            Matcher m = SGE_FILE.matcher(f.getName());
-            m.find();
-            String jobName = m.group(1);
-
-            sb.append("-----------------------------------------------------------------------");
-            sb.append("\nJob Name: ");
-            sb.append(jobName);
-            sb.append("\nJob ID:   ");
-            sb.append(e.getKey());
-            sb.append("\nFile:     ");
-            sb.append(f.getAbsolutePath());
-            sb.append("\nUpdated:  ");
-            sb.append(new Date(f.lastModified()));
-            sb.append("\nContents:\n");
-            try {
-                sb.append(stripInvalidXmlCharacters(FileUtils.readFileToString(f)));
-            } catch (IOException ex) {
-                sb.append(" *** ERROR READING FILE: ");
-                sb.append(ex.getMessage());
-                sb.append(" ***");
-            }
-            if (sb.charAt(sb.length() - 1) != '\n') {
-                sb.append("\n");
-            }
-            sb.append("-----------------------------------------------------------------------\n\n");
-        }
-        return sb.toString();
-    }
-
-    private static Set<String> sgeIds(WorkflowJob wf) {
-        List<WorkflowAction> actions = wf.getActions();
-        final Set<String> extIds = new HashSet<>();
-        for (WorkflowAction a : actions) {
-            if (a == null) {
-                Log.fatal("Null action in Oozie provided list of actions in " + wf.toString());
-                continue;
-            }
-            String extId = a.getExternalId();
-            extIds.add(extId);
-        }
-        return extIds;
-    }
-
     /**
      * Stolen from https://stackoverflow.com/questions/93655/stripping-invalid-xml-characters-in-java/9635310#9635310
      * 
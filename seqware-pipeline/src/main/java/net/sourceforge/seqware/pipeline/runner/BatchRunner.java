@@ -0,0 +1,416 @@
+package net.sourceforge.seqware.pipeline.runner;
+
+import io.seqware.common.model.ProcessingStatus;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import net.sourceforge.seqware.common.err.NotFoundException;
+import net.sourceforge.seqware.common.metadata.Metadata;
+import net.sourceforge.seqware.common.metadata.MetadataFactory;
+import net.sourceforge.seqware.common.metadata.ProcessingEvent;
+import net.sourceforge.seqware.common.model.Processing;
+import net.sourceforge.seqware.common.model.ProcessingAttribute;
+import net.sourceforge.seqware.common.module.FileMetadata;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.configtools.ConfigTools;
+import net.sourceforge.seqware.common.util.exceptiontools.ExceptionTools;
+import net.sourceforge.seqware.common.util.filetools.lock.LockingFileTools;
+import net.sourceforge.seqware.common.util.processtools.ProcessTools;
+import net.sourceforge.seqware.pipeline.module.Module;
+import net.sourceforge.seqware.pipeline.module.ModuleMethod;
+import net.sourceforge.seqware.pipeline.modules.utilities.ProvisionFiles;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Runs a batch of {@link Runner} invocations in one JVM, typically the ProvisionFiles steps that
+ * {@link net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.BatchedOozieProvisionFileJob} groups together.
+ *
+ * The manifest has one invocation per line, the Runner arguments separated by tabs. The modules run on a pool of --threads threads.
+ * Metadata is only written once every module has finished: all processing events and their files are recorded with a single
+ * {@link Metadata#addProcessingEvents(List)} call, and only then are the processing accession files written, so a batch that fails to
+ * record its metadata is rerun as a whole.
+ *
+ * Only the Runner options that describe a single processing event are supported, options that create workflow runs, use processing IDs
+ * or redirect stdout/stderr are rejected.
+ */
+public class BatchRunner {
+
+    private static final List<String> UNSUPPORTED = Arrays.asList("module-pkg", "output", "stderr", "metadata-config-database",
+            "metadata-parentID", "metadata-parentID-file", "metadata-processingID-file", "metadata-workflow-accession",
+            "metadata-workflow-run-accession-output-file", "sleep-between-steps");
+
+    private final OptionParser parser = new OptionParser();
+    private final Runner runner = new Runner();
+    private Metadata meta;
+
+    public BatchRunner() {
+        this(null);
+    }
+
+    /**
+     * @param meta
+     *            the metadata to record the batch with, null to connect with the settings if any line needs metadata
+     */
+    BatchRunner(Metadata meta) {
+        this.meta = meta;
+        parser.acceptsAll(Arrays.asList("help", "h", "?"), "Provides this help message.");
+        parser.accepts("manifest", "Required: file with one set of tab-separated Runner arguments per line.").withRequiredArg()
+                .ofType(String.class).describedAs("Path to the manifest");
+        parser.accepts("threads", "Optional: number of modules to run at the same time.").withRequiredArg().ofType(Integer.class)
+                .defaultsTo(1).describedAs("Number of threads (Default: 1)");
+        parser.accepts("verbose", "Show debug information");
+    }
+
+    /**
+     * One line of the manifest.
+     */
+    private static class Entry {
+
+        private final int line;
+        private OptionSet options;
+        private String moduleName;
+        private List<String> parameters;
+        private boolean metadata;
+        private File lockFile = null;
+        private final List<File> accessionFiles = new ArrayList<>();
+        private final ProcessingEvent event = new ProcessingEvent();
+        private final Set<ProcessingAttribute> attributes = new TreeSet<>();
+        private final StringBuilder stdout = new StringBuilder();
+        private final StringBuilder stderr = new StringBuilder();
+        private boolean skipped = false;
+        private int accession = 0;
+
+        Entry(int line) {
+            this.line = line;
+        }
+
+        boolean succeeded() {
+            return event.getStatus() == ProcessingStatus.success;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.exit(new BatchRunner().run(args));
+    }
+
+    /**
+     * @param args
+     *            the batch runner arguments
+     * @return the exit status, the first failure in the batch if there was one
+     */
+    public int run(String[] args) {
+        OptionSet options;
+        try {
+            options = parser.parse(args);
+        } catch (OptionException e) {
+            Log.stderr("ERROR: " + e.getMessage());
+            return ReturnValue.INVALIDPARAMETERS;
+        }
+        if (options.has("help") || !options.has("manifest")) {
+            try {
+                parser.printHelpOn(System.err);
+            } catch (IOException e) {
+                Log.error(e.getMessage());
+            }
+            return ReturnValue.INVALIDPARAMETERS;
+        }
+        if (options.has("verbose")) {
+            Log.setVerbose(true);
+        }
+
+        List<Entry> entries;
+        try {
+            entries = readManifest(new File((String) options.valueOf("manifest")));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.error("Could not read batch manifest: " + e.getMessage());
+            return ReturnValue.INVALIDFILE;
+        }
+
+        for (Entry entry : entries) {
+            if (entry.metadata && meta == null) {
+                meta = MetadataFactory.get(ConfigTools.getSettings());
+            }
+            checkLock(entry);
+        }
+
+        int threads = Math.max(1, (Integer) options.valueOf("threads"));
+        runEntries(entries, threads);
+
+        int exitStatus = ReturnValue.SUCCESS;
+        List<Entry> recorded = new ArrayList<>();
+        List<ProcessingEvent> events = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.skipped) {
+                continue;
+            }
+            if (!entry.succeeded() && exitStatus == ReturnValue.SUCCESS) {
+                exitStatus = entry.event.getReturnValue().getExitStatus();
+            }
+            if (entry.metadata && meta != null) {
+                recorded.add(entry);
+                events.add(entry.event);
+            }
+        }
+
+        if (!events.isEmpty()) {
+            List<Integer> accessions;
+            try {
+                accessions = meta.addProcessingEvents(events);
+            } catch (RuntimeException e) {
+                Log.error("Could not record the processing events of the batch: " + e.getMessage());
+                return ReturnValue.SQLQUERYFAILED;
+            }
+            for (int i = 0; i < recorded.size(); i++) {
+                Entry entry = recorded.get(i);
+                entry.accession = accessions.get(i);
+                Log.stdout("MetaDB ProcessingAccession for line " + entry.line + " is: " + entry.accession);
+                if (entry.accession != 0 && !entry.attributes.isEmpty()) {
+                    meta.annotateProcessing(entry.accession, entry.attributes);
+                }
+            }
+            for (Entry entry : recorded) {
+                if (entry.succeeded() && entry.accession != 0 && !writeAccessionFiles(entry)) {
+                    return ReturnValue.METADATAINVALIDIDCHAIN;
+                }
+            }
+        }
+        return exitStatus;
+    }
+
+    private List<Entry> readManifest(File manifest) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : FileUtils.readLines(manifest)) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            Entry entry = new Entry(lineNumber);
+            try {
+                entry.options = runner.parseOptions(line.split("\t"));
+            } catch (OptionException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage());
+            }
+            for (String option : UNSUPPORTED) {
+                if (entry.options.has(option)) {
+                    throw new IllegalArgumentException("line " + lineNumber + ": --" + option + " is not supported in a batch");
+                }
+            }
+            if (!entry.options.has("module")) {
+                throw new IllegalArgumentException("line " + lineNumber + ": no --module");
+            }
+            entry.moduleName = (String) entry.options.valueOf("module");
+            entry.parameters = runner.moduleParameters(entry.options);
+            entry.metadata = !entry.options.has("no-metadata") && !entry.options.has("no-meta-db");
+            readMetadataOptions(entry);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private void readMetadataOptions(Entry entry) throws IOException {
+        OptionSet options = entry.options;
+        List<Integer> parents = new ArrayList<>((List<Integer>) options.valuesOf("metadata-parent-accession"));
+        for (String file : (List<String>) options.valuesOf("metadata-parent-accession-file")) {
+            for (String line : FileUtils.readLines(new File(file))) {
+                if (!line.trim().isEmpty()) {
+                    try {
+                        parents.add(Integer.parseInt(line.trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Non number found when parsing parent accession file " + file + ": '" + line + "'");
+                    }
+                }
+            }
+        }
+        int[] parentAccessions = new int[parents.size()];
+        for (int i = 0; i < parentAccessions.length; i++) {
+            parentAccessions[i] = parents.get(i);
+        }
+        entry.event.setParentAccessions(parentAccessions);
+
+        for (Integer accession : (List<Integer>) options.valuesOf("metadata-workflow-run-accession")) {
+            entry.event.setWorkflowRunAccession(accession);
+        }
+        for (Integer accession : (List<Integer>) options.valuesOf("metadata-workflow-run-ancestor-accession")) {
+            entry.event.setAncestorWorkflowRunAccession(accession);
+        }
+        for (String file : (List<String>) options.valuesOf("metadata-workflow-run-ancestor-accession-input-file")) {
+            for (String line : FileUtils.readLines(new File(file))) {
+                if (!line.trim().isEmpty()) {
+                    entry.event.setAncestorWorkflowRunAccession(Integer.parseInt(line.trim()));
+                }
+            }
+        }
+        for (String file : (List<String>) options.valuesOf("metadata-processing-accession-file")) {
+            entry.accessionFiles.add(new File(file));
+        }
+        if (options.has("metadata-processing-accession-file-lock")) {
+            entry.lockFile = new File((String) options.valueOf("metadata-processing-accession-file-lock"));
+        }
+    }
+
+    /**
+     * Same as the Runner: skip the entry if its lock file points at a processing event that succeeded.
+     */
+    private void checkLock(Entry entry) {
+        if (entry.lockFile == null || meta == null || !entry.lockFile.canRead()) {
+            return;
+        }
+        try {
+            int accession = Integer.valueOf(FileUtils.readFileToString(entry.lockFile).trim());
+            Processing proc = meta.getProcessing(accession);
+            if (proc != null && ProcessingStatus.success.equals(proc.getStatus())) {
+                Log.stdout("Lock file " + entry.lockFile + " exists with a previous success, skipping line " + entry.line);
+                entry.skipped = true;
+            }
+        } catch (NumberFormatException | NotFoundException | IOException e) {
+            Log.debug("Lock file " + entry.lockFile + " has no valid processing accession, running line " + entry.line);
+        }
+    }
+
+    private void runEntries(List<Entry> entries, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final Entry entry : entries) {
+                if (entry.skipped) {
+                    continue;
+                }
+                futures.add(pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        runEntry(entry);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Calls the module methods in order like {@link Runner#evaluateReturn(Module, String)}, collecting what the Runner would have written
+     * to the processing event after each one.
+     */
+    private void runEntry(Entry entry) {
+        ReturnValue summary = new ReturnValue();
+        summary.setFiles(new ArrayList<FileMetadata>());
+        entry.event.setReturnValue(summary);
+        entry.event.setStatus(ProcessingStatus.failed);
+        try {
+            Module app = (Module) Class.forName(entry.moduleName).newInstance();
+            app.setAlgorithm(entry.moduleName);
+            app.setParameters(entry.parameters);
+            if (entry.metadata && meta != null) {
+                app.setMetadata(meta);
+                if (app instanceof ProvisionFiles) {
+                    ((ProvisionFiles) app).setDeferAttributes(true);
+                }
+            }
+            for (ModuleMethod m : ModuleMethod.values()) {
+                ReturnValue ret = (ReturnValue) app.getClass().getMethod(m.name()).invoke(app);
+                merge(entry, summary, ret);
+                if (ret.getExitStatus() > ReturnValue.SUCCESS) {
+                    entry.stderr.append("The method '").append(m.name()).append("' exited abnormally with ").append(ret.getExitStatus())
+                            .append("\n");
+                    summary.setExitStatus(ret.getExitStatus());
+                    Log.error("Line " + entry.line + " failed in " + m.name());
+                    return;
+                }
+            }
+            if (app instanceof ProvisionFiles) {
+                entry.attributes.addAll(((ProvisionFiles) app).getDeferredAttributes());
+            }
+            summary.setExitStatus(ReturnValue.SUCCESS);
+            entry.event.setStatus(ProcessingStatus.success);
+        } catch (Exception e) {
+            entry.stderr.append("Module caught exception: ").append(e.getMessage()).append("\n");
+            entry.stderr.append(ExceptionTools.stackTraceToString(e));
+            summary.setExitStatus(ReturnValue.RUNNERERR);
+            Log.error("Line " + entry.line + " failed: " + e.getMessage());
+        } finally {
+            summary.setStdout(entry.stdout.toString());
+            summary.setStderr(entry.stderr.toString());
+        }
+    }
+
+    private void merge(Entry entry, ReturnValue summary, ReturnValue ret) {
+        if (ret.getStdout() != null) {
+            entry.stdout.append(ret.getStdout()).append("\n");
+        }
+        if (ret.getStderr() != null) {
+            entry.stderr.append(ret.getStderr()).append("\n");
+        }
+        if (ret.getFiles() != null) {
+            for (FileMetadata file : ret.getFiles()) {
+                if (entry.options.has("metadata-output-file-prefix")) {
+                    file.prependToFilePath((String) entry.options.valueOf("metadata-output-file-prefix"));
+                }
+                summary.getFiles().add(file);
+            }
+        }
+        if (ret.getAlgorithm() != null) {
+            summary.setAlgorithm(ret.getAlgorithm());
+        }
+        if (ret.getParameters() != null) {
+            summary.setParameters(ret.getParameters());
+        }
+        if (ret.getDescription() != null) {
+            summary.setDescription(ret.getDescription());
+        }
+        if (ret.getVersion() != null) {
+            summary.setVersion(ret.getVersion());
+        }
+        if (ret.getUrl() != null) {
+            summary.setUrl(ret.getUrl());
+        }
+        if (ret.getUrlLabel() != null) {
+            summary.setUrlLabel(ret.getUrlLabel());
+        }
+        if (ret.getProcessExitStatus() != ReturnValue.NULL) {
+            summary.setProcessExitStatus(ret.getProcessExitStatus());
+        }
+    }
+
+    private boolean writeAccessionFiles(Entry entry) {
+        List<File> files = new ArrayList<>(entry.accessionFiles);
+        if (entry.lockFile != null) {
+            files.add(entry.lockFile);
+        }
+        int maxTries = (Integer) entry.options.valueOf("metadata-tries-number");
+        for (File file : files) {
+            boolean append = !file.equals(entry.lockFile);
+            boolean written = false;
+            for (int i = 0; i < maxTries && !written; i++) {
+                written = LockingFileTools.lockAndWrite(file, entry.accession + System.getProperty("line.separator"), append);
+                if (!written) {
+                    ProcessTools.sleep((Integer) entry.options.valueOf("metadata-tries-delay"));
+                }
+            }
+            if (!written) {
+                Log.error("Could not write processing accession " + entry.accession + " to " + file);
+                return false;
+            }
+        }
+        return true;
+    }
+}
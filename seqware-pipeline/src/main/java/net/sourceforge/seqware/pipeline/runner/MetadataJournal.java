@@ -0,0 +1,130 @@
+package net.sourceforge.seqware.pipeline.runner;
+
+import io.seqware.common.model.ProcessingStatus;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import net.sourceforge.seqware.common.util.Log;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Append-only, write-ahead journal of the metadata write back of a Runner step, see --metadata-journal.
+ *
+ * A step starts with a begin record naming the processing event reserved for it, followed by the exit status of each module method. A
+ * commit record is written right before the final state of the step is sent in a single call, and a committed record once that call
+ * returned. Every record is forced to disk before the Runner moves on, so when a step is rerun its journal tells whether its processing
+ * event was already recorded and which one to reuse otherwise.
+ */
+public class MetadataJournal {
+
+    public enum Record {
+        begin, method, commit, committed
+    }
+
+    /**
+     * The last step found in a journal.
+     */
+    public static class Step {
+
+        private final int processingId;
+        private final int accession;
+        private boolean commitSent = false;
+        private ProcessingStatus committed = null;
+
+        Step(int processingId, int accession) {
+            this.processingId = processingId;
+            this.accession = accession;
+        }
+
+        public int getProcessingId() {
+            return processingId;
+        }
+
+        public int getAccession() {
+            return accession;
+        }
+
+        /**
+         * @return true if the final state was sent, though it may not have been recorded
+         */
+        public boolean isCommitSent() {
+            return commitSent;
+        }
+
+        /**
+         * @return the final status that was recorded, null if none was
+         */
+        public ProcessingStatus getCommitted() {
+            return committed;
+        }
+    }
+
+    private final File file;
+
+    public MetadataJournal(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends a record and forces it to disk.
+     *
+     * @param record
+     * @param fields
+     *            written tab-separated after the record type
+     * @throws IOException
+     */
+    public void append(Record record, Object... fields) throws IOException {
+        StringBuilder line = new StringBuilder(record.name());
+        for (Object field : fields) {
+            line.append('\t').append(field);
+        }
+        line.append('\n');
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * Replays the journal. A record that cannot be read, such as the last one of a Runner that crashed while writing it, is skipped.
+     *
+     * @return the last step that began, null if there is none
+     * @throws IOException
+     */
+    public Step lastStep() throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        Step step = null;
+        for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8.name())) {
+            String[] fields = line.split("\t");
+            try {
+                switch (Record.valueOf(fields[0])) {
+                case begin:
+                    step = new Step(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+                    break;
+                case commit:
+                    if (step != null) {
+                        step.commitSent = true;
+                    }
+                    break;
+                case committed:
+                    if (step != null) {
+                        step.committed = ProcessingStatus.valueOf(fields[1]);
+                    }
+                    break;
+                default:
+                    break;
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                Log.warn("Skipping unreadable record '" + line + "' in metadata journal " + file);
+            }
+        }
+        return step;
+    }
+}
@@ -28,6 +28,7 @@ import net.sourceforge.seqware.common.err.NotFoundException;
 import net.sourceforge.seqware.common.metadata.Metadata;
 import net.sourceforge.seqware.common.metadata.MetadataDB;
 import net.sourceforge.seqware.common.metadata.MetadataFactory;
+import net.sourceforge.seqware.common.metadata.ProcessingEvent;
 import net.sourceforge.seqware.common.model.Processing;
 import net.sourceforge.seqware.common.module.FileMetadata;
 import net.sourceforge.seqware.common.module.ReturnValue;
@@ -40,6 +41,7 @@ import net.sourceforge.seqware.pipeline.module.Module;
 import net.sourceforge.seqware.pipeline.module.ModuleMethod;
 import net.sourceforge.seqware.pipeline.module.StderrRedirect;
 import net.sourceforge.seqware.pipeline.module.StdoutRedirect;
+import net.sourceforge.seqware.pipeline.runner.MetadataJournal.Record;
 import org.apache.commons.io.FileUtils;
 
 // FIXME: auto-adding to rc.data, support "," delimited
@@ -86,6 +88,8 @@ public class Runner {
     private OptionSet options = null;
     private Module app = null;
     private Metadata meta = null;
+    private MetadataJournal journal = null;
+    private ProcessingEvent journalEvent = null;
     // I (Xiaoshu Wang) am not sure if it is a good idea to make these two
     // property static because if the same JVM calls
     // Runner twice, the value of the previous stdout/stderr will be kept.
@@ -160,6 +164,12 @@ public class Runner {
         parser.accepts("metadata-tries-delay",
                 "Optional: After a failure, how long we should wait before trying again (in accordance with metadata-tries-number)")
                 .withRequiredArg().ofType(Integer.class).defaultsTo(5).describedAs("Number of seconds between tries (Default: 5)");
+        parser.accepts(
+                "metadata-journal",
+                "Optional: Keeps a write-ahead journal of the metadata write back of this step in the given file. The processing event is only reserved up front, "
+                        + "its files, output and final status are recorded with a single call once the module is done. A rerun of the step with the same journal reuses "
+                        + "its processing event instead of creating another one.").withRequiredArg().ofType(String.class)
+                .describedAs("Path to the journal of this step");
         parser.accepts(
                 "metadata-workflow-accession",
                 "Optional: Specifies the workflow accession that this run of the workflow should be associated with. This creates a new row in the workflow_run table and links it to the workflow row specified by this accession.")
@@ -288,7 +298,7 @@ public class Runner {
 
         // If metaDB is defined, let's update status to methodName so we know what
         // we are running
-        if (meta != null && processingID != 0) {
+        if (meta != null && processingID != 0 && journal == null) {
             meta.update_processing_status(processingID, ProcessingStatus.running);
         }
 
@@ -320,8 +330,13 @@ public class Runner {
 
             // Update processing table to show it failed
             if (meta != null && processingID != 0) {
-                meta.update_processing_event(processingID, ret);
-                meta.update_processing_status(processingID, ProcessingStatus.failed);
+                if (journal != null) {
+                    journalReturn(methodName, ret);
+                    commitJournal(ProcessingStatus.failed);
+                } else {
+                    meta.update_processing_event(processingID, ret);
+                    meta.update_processing_status(processingID, ProcessingStatus.failed);
+                }
             }
 
             // Exit on error
@@ -348,8 +363,13 @@ public class Runner {
             if (meta != null && processingID != 0) {
                 newReturn.setStdout(stdout.toString());
                 newReturn.setStderr(stderr.toString());
-                meta.update_processing_event(processingID, newReturn);
-                meta.update_processing_status(processingID, ProcessingStatus.failed);
+                if (journal != null) {
+                    journalReturn(methodName, newReturn);
+                    commitJournal(ProcessingStatus.failed);
+                } else {
+                    meta.update_processing_event(processingID, newReturn);
+                    meta.update_processing_status(processingID, ProcessingStatus.failed);
+                }
             }
             System.exit(newReturn.getExitStatus());
         } // Otherwise we will continue, after updating metadata
@@ -371,7 +391,11 @@ public class Runner {
             if (meta != null && processingID != 0) {
                 newReturn.setStdout(stdout.toString());
                 newReturn.setStderr(stderr.toString());
-                meta.update_processing_event(processingID, newReturn);
+                if (journal != null) {
+                    journalReturn(methodName, newReturn);
+                } else {
+                    meta.update_processing_event(processingID, newReturn);
+                }
             }
         }
 
@@ -823,6 +847,18 @@ public class Runner {
         // defining it here as a local variable broke metadata writeback!!
         processingAccession = 0;
         if (meta != null) {
+            if (options.has("metadata-journal")) {
+                journal = new MetadataJournal(new File((String) options.valueOf("metadata-journal")));
+                journalEvent = new ProcessingEvent();
+                journalEvent.setWorkflowRunAccession(workflowRunAccession);
+                journalEvent.setAncestorWorkflowRunAccession(ancestorWorkflowRunAccession);
+                ReturnValue summary = new ReturnValue();
+                summary.setFiles(new ArrayList<FileMetadata>());
+                journalEvent.setReturnValue(summary);
+                if (resumeJournal()) {
+                    return;
+                }
+            }
 
             int[] parents = new int[parentIDs.size()];
             for (int i = 0; i < parentIDs.size(); i++) {
@@ -875,6 +911,14 @@ public class Runner {
                 }
             }
 
+            // the workflow run links are recorded along with the rest of the step
+            if (journal != null) {
+                journalEvent.setProcessingId(processingID);
+                journalEvent.setSwAccession(processingAccession);
+                appendToJournal(Record.begin, processingID, processingAccession);
+                return;
+            }
+
             // now associate processing event ancestor_workflow_run_id
             if (ancestorWorkflowRunAccession > 0 && processingID > 0) {
                 meta.add_workflow_run_ancestor(ancestorWorkflowRunAccession, processingID);
@@ -889,39 +933,170 @@ public class Runner {
 
     private void postProcessMetadata() {
         if (meta != null && processingID != 0) {
+            if (journal != null) {
+                commitJournal(ProcessingStatus.success);
+                writeAccessionFiles();
+                return;
+            }
+            writeAccessionFiles();
+            meta.update_processing_status(processingID, ProcessingStatus.success);
+        }
+    }
 
-            // write out the accessions to file iff success
-            // Try to write to each processingIDFile until success or timeout
-            for (File file : processingIDFiles) {
-                int maxTries = (Integer) options.valueOf("metadata-tries-number");
-                for (int i = 0; i < maxTries; i++) {
-                    // Break on success
-                    if (LockingFileTools.lockAndAppend(file, processingID + System.getProperty("line.separator"))) {
-                        break;
-                    } // Sleep if going to try again
-                    else if (i < maxTries) {
-                        ProcessTools.sleep((Integer) options.valueOf("metadata-tries-delay"));
-                    } // Return error if failed on last try
-                    else {
-                        ReturnValue retval = new ReturnValue();
-                        retval.printAndAppendtoStderr("Could not write to processingID File for metadata");
-                        retval.setExitStatus(ReturnValue.METADATAINVALIDIDCHAIN);
-                        meta.update_processing_event(processingID, retval);
-                        meta.update_processing_status(processingID, ProcessingStatus.failed);
-                        System.exit(retval.getExitStatus());
-                    }
+    private void writeAccessionFiles() {
+        // write out the accessions to file iff success
+        // Try to write to each processingIDFile until success or timeout
+        for (File file : processingIDFiles) {
+            int maxTries = (Integer) options.valueOf("metadata-tries-number");
+            for (int i = 0; i < maxTries; i++) {
+                // Break on success
+                if (LockingFileTools.lockAndAppend(file, processingID + System.getProperty("line.separator"))) {
+                    break;
+                } // Sleep if going to try again
+                else if (i < maxTries) {
+                    ProcessTools.sleep((Integer) options.valueOf("metadata-tries-delay"));
+                } // Return error if failed on last try
+                else {
+                    ReturnValue retval = new ReturnValue();
+                    retval.printAndAppendtoStderr("Could not write to processingID File for metadata");
+                    retval.setExitStatus(ReturnValue.METADATAINVALIDIDCHAIN);
+                    meta.update_processing_event(processingID, retval);
+                    meta.update_processing_status(processingID, ProcessingStatus.failed);
+                    System.exit(retval.getExitStatus());
                 }
             }
+        }
+
+        // Try to write to each processingAccessionFile until success or timeout
+        for (File file : processingAccessionFiles) {
+            writeProcessingAccessionToFile(file, true);
+        }
+        if (processingAccessionFileCheck != null) {
+            writeProcessingAccessionToFile(processingAccessionFileCheck, false);
+        }
+    }
 
-            // Try to write to each processingAccessionFile until success or timeout
-            for (File file : processingAccessionFiles) {
-                writeProcessingAccessionToFile(file, true);
+    /**
+     * Picks up the last step of the metadata journal when this is a rerun of it. A step whose final state was recorded as a success is
+     * not run again, one that failed is run with a new processing event as it would be without a journal.
+     * 
+     * @return true if the processing event reserved by the last step is reused
+     */
+    private boolean resumeJournal() {
+        MetadataJournal.Step last = null;
+        try {
+            last = journal.lastStep();
+        } catch (IOException e) {
+            Log.error("Could not read metadata journal " + journal.getFile() + ": " + e.getMessage());
+            System.exit(ReturnValue.METADATAINVALIDIDCHAIN);
+        }
+        if (last == null) {
+            return false;
+        }
+        ProcessingStatus committed = last.getCommitted();
+        if (committed == null && last.isCommitSent()) {
+            // the previous run may have died after its final state was recorded but before it could note that
+            committed = recordedStatus(last.getAccession());
+            if (committed != null) {
+                appendToJournal(Record.committed, committed);
             }
-            if (processingAccessionFileCheck != null) {
-                writeProcessingAccessionToFile(processingAccessionFileCheck, false);
+        }
+        if (committed == ProcessingStatus.failed) {
+            return false;
+        }
+
+        processingID = last.getProcessingId();
+        processingAccession = last.getAccession();
+        journalEvent.setProcessingId(processingID);
+        journalEvent.setSwAccession(processingAccession);
+        if (committed == ProcessingStatus.success) {
+            Log.stdout("Metadata journal " + journal.getFile() + " shows processing accession " + processingAccession
+                    + " succeeded, skipping");
+            writeAccessionFiles();
+            System.exit(ReturnValue.SUCCESS);
+        }
+        printAndAppendtoStdout("MetaDB ProcessingAccession for this run is: " + processingAccession + " (reused from the metadata journal)");
+        return true;
+    }
+
+    /**
+     * @return the final status of a processing event, null if it has none or cannot be looked up
+     */
+    private ProcessingStatus recordedStatus(int accession) {
+        try {
+            Processing proc = meta.getProcessing(accession);
+            if (proc != null && (proc.getStatus() == ProcessingStatus.success || proc.getStatus() == ProcessingStatus.failed)) {
+                return proc.getStatus();
             }
+        } catch (RuntimeException e) {
+            Log.debug("Could not look up processing accession " + accession + ": " + e.getMessage());
+        }
+        return null;
+    }
 
-            meta.update_processing_status(processingID, ProcessingStatus.success);
+    /**
+     * Journals the outcome of a module method and adds it to what is recorded at the end of the step, the same fields the Runner would
+     * otherwise write after the method.
+     */
+    private void journalReturn(String methodName, ReturnValue ret) {
+        appendToJournal(Record.method, methodName, ret.getExitStatus());
+        ReturnValue summary = journalEvent.getReturnValue();
+        if (ret.getFiles() != null) {
+            summary.getFiles().addAll(ret.getFiles());
+        }
+        if (ret.getExitStatus() != ReturnValue.NULL) {
+            summary.setExitStatus(ret.getExitStatus());
+        }
+        if (ret.getProcessExitStatus() != ReturnValue.NULL) {
+            summary.setProcessExitStatus(ret.getProcessExitStatus());
+        }
+        if (ret.getAlgorithm() != null) {
+            summary.setAlgorithm(ret.getAlgorithm());
+        }
+        if (ret.getParameters() != null) {
+            summary.setParameters(ret.getParameters());
+        }
+        if (ret.getDescription() != null) {
+            summary.setDescription(ret.getDescription());
+        }
+        if (ret.getVersion() != null) {
+            summary.setVersion(ret.getVersion());
+        }
+        if (ret.getUrl() != null) {
+            summary.setUrl(ret.getUrl());
+        }
+        if (ret.getUrlLabel() != null) {
+            summary.setUrlLabel(ret.getUrlLabel());
+        }
+        if (ret.getStdout() != null) {
+            summary.setStdout(ret.getStdout());
+        }
+        if (ret.getStderr() != null) {
+            summary.setStderr(ret.getStderr());
+        }
+    }
+
+    /**
+     * Records the whole step with a single call, between a commit and a committed record in the journal.
+     */
+    private void commitJournal(ProcessingStatus status) {
+        journalEvent.setStatus(status);
+        appendToJournal(Record.commit, status);
+        try {
+            meta.addProcessingEvents(Arrays.asList(journalEvent));
+        } catch (RuntimeException e) {
+            printAndAppendtoStderr("Could not record processing accession " + processingAccession + ": " + e.getMessage());
+            System.exit(ReturnValue.SQLQUERYFAILED);
+        }
+        appendToJournal(Record.committed, status);
+    }
+
+    private void appendToJournal(Record record, Object... fields) {
+        try {
+            journal.append(record, fields);
+        } catch (IOException e) {
+            Log.error("Could not write to metadata journal " + journal.getFile() + ": " + e.getMessage());
+            System.exit(ReturnValue.METADATAINVALIDIDCHAIN);
         }
     }
 
@@ -1005,6 +1180,25 @@ public class Runner {
         System.exit(ReturnValue.SUCCESS);
     }
 
+    /**
+     * Parses one set of Runner arguments without acting on them, for {@link BatchRunner}.
+     * 
+     * @param args
+     * @return the parsed options
+     */
+    OptionSet parseOptions(String[] args) {
+        return parser.parse(args);
+    }
+
+    /**
+     * @param parsed
+     *            options from {@link #parseOptions(String[])}
+     * @return the arguments after -- that are handed to the module
+     */
+    List<String> moduleParameters(OptionSet parsed) {
+        return parsed.valuesOf(nonOptionSpec);
+    }
+
     // -----Utility Method
     private boolean optionHasOneOf(String[] opts) {
         for (String o : opts) {
@@ -40,7 +40,7 @@ public class RunLock {
 
     private static String id() {
         // SEQWARE-1732 custom lock ID
-        String id = ConfigTools.getSettings().get("SW_LOCK_ID");
+        String id = ConfigTools.getSettingsSnapshot().get("SW_LOCK_ID");
         if (id == null) {
             id = "seqware";
         }
@@ -0,0 +1,231 @@
+package net.sourceforge.seqware.pipeline.workflowV2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.Rethrow;
+import net.sourceforge.seqware.common.util.filetools.FileTools;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+
+/**
+ * Caches what every run of a workflow shares, so that launching many runs of one workflow finds its bundle, parses its metadata.xml and
+ * loads its workflow class once.
+ *
+ * Descriptors are keyed by the workflow SWID and a checksum of the bundle's metadata.xml and compiled classes, so a bundle that is
+ * reinstalled in place is loaded again. Runs of one workflow share one class loader, so the static fields of a workflow class are shared by
+ * its runs. The cache is safe to use from several threads, and a bundle that several threads ask for at once is only loaded once.
+ */
+public class WorkflowBundleCache {
+
+    /**
+     * What every run of a workflow shares. The meta info is read-only, each run copies it before adding to it.
+     */
+    public static final class BundleDescriptor {
+
+        private final File bundle;
+        private final String checksum;
+        private final Map<String, String> metaInfo;
+        private final Class<?> workflowClass;
+
+        BundleDescriptor(File bundle, String checksum, Map<String, String> metaInfo, Class<?> workflowClass) {
+            this.bundle = bundle;
+            this.checksum = checksum;
+            this.metaInfo = Collections.unmodifiableMap(new HashMap<>(metaInfo));
+            this.workflowClass = workflowClass;
+        }
+
+        public File getBundle() {
+            return bundle;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        public Map<String, String> getMetaInfo() {
+            return metaInfo;
+        }
+
+        public Class<?> getWorkflowClass() {
+            return workflowClass;
+        }
+    }
+
+    /**
+     * Where a workflow's bundle was found. Finding the metadata.xml walks the whole bundle, so it is only done once per workflow.
+     *
+     * Listing the compiled classes walks the classes dir, so their part of the checksum is kept too. It is taken again once the
+     * metadata.xml or the classes dir is modified, which a reinstall of the bundle does to the metadata.xml.
+     */
+    private static final class Location {
+
+        private final File bundle;
+        private final File metadataFile;
+        private final File classesDir;
+        private final long metadataModified;
+        private final long classesModified;
+        private final byte[] classesDigest;
+
+        private Location(File bundle, File metadataFile, File classesDir) {
+            this.bundle = bundle;
+            this.metadataFile = metadataFile;
+            this.classesDir = classesDir;
+            this.metadataModified = metadataFile.lastModified();
+            this.classesModified = classesDir == null ? 0 : classesDir.lastModified();
+            this.classesDigest = digestClasses(classesDir);
+        }
+
+        private boolean isModified() {
+            return metadataFile.lastModified() != metadataModified || (classesDir != null && classesDir.lastModified() != classesModified);
+        }
+    }
+
+    private final ConcurrentMap<Integer, Location> locations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FutureTask<BundleDescriptor>> descriptors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FutureTask<File>> provisioned = new ConcurrentHashMap<>();
+
+    /**
+     * @param workflowAccession
+     *            the SWID of the workflow
+     * @param bundle
+     *            the bundle directory of the workflow, already provisioned
+     * @return the descriptor, or null if the bundle has no metadata.xml
+     */
+    public BundleDescriptor get(final int workflowAccession, File bundle) {
+        Location location = locations.get(workflowAccession);
+        if (location == null || !location.bundle.equals(bundle) || !location.metadataFile.exists()) {
+            location = locate(bundle);
+            if (location == null) {
+                return null;
+            }
+            locations.put(workflowAccession, location);
+        } else if (location.isModified()) {
+            location = new Location(location.bundle, location.metadataFile, location.classesDir);
+            locations.put(workflowAccession, location);
+        }
+
+        final Location found = location;
+        final String checksum = checksum(found);
+        return once(descriptors, workflowAccession + ":" + checksum, new Callable<BundleDescriptor>() {
+            @Override
+            public BundleDescriptor call() {
+                return load(workflowAccession, found, checksum);
+            }
+        });
+    }
+
+    /**
+     * Provisions a bundle from its permanent location once, however many runs need it.
+     *
+     * @param permanentLocation
+     *            the permanent location of the bundle zip
+     * @param provisioner
+     *            provisions the bundle and returns the bundle directory
+     * @return the bundle directory
+     */
+    public File provision(String permanentLocation, Callable<File> provisioner) {
+        return once(provisioned, permanentLocation, provisioner);
+    }
+
+    /**
+     * Runs the callable for a key once, threads that ask for the same key meanwhile wait for it. A failure is not kept, the next caller
+     * tries again.
+     */
+    private static <T> T once(ConcurrentMap<String, FutureTask<T>> tasks, String key, Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        FutureTask<T> existing = tasks.putIfAbsent(key, task);
+        if (existing == null) {
+            existing = task;
+            task.run();
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Rethrow.rethrow(e);
+        } catch (ExecutionException e) {
+            tasks.remove(key, existing);
+            throw Rethrow.rethrow(e.getCause());
+        }
+    }
+
+    private static Location locate(File bundle) {
+        File metadataFile = WorkflowV2Utility.findMetadataFile(bundle);
+        if (metadataFile == null) {
+            return null;
+        }
+        Map<String, String> metaInfo = WorkflowV2Utility.parseMetadataInfo(metadataFile, bundle.getAbsolutePath());
+        String classpath = metaInfo.get(WorkflowV2Utility.WORKFLOW_CLASS);
+        return new Location(bundle, metadataFile, classpath == null ? null : WorkflowClassFinder.classesDir(classpath));
+    }
+
+    private BundleDescriptor load(int workflowAccession, Location location, String checksum) {
+        Log.info("Loading bundle " + location.bundle.getAbsolutePath() + " for workflow " + workflowAccession);
+        Map<String, String> metaInfo = WorkflowV2Utility.parseMetadataInfo(location.metadataFile, location.bundle.getAbsolutePath());
+        if (metaInfo.get("workflow_template") != null && !metaInfo.get("workflow_template").isEmpty()) {
+            throw new RuntimeException("Non-Java workflows not currently supported");
+        }
+        String classpath = metaInfo.get(WorkflowV2Utility.WORKFLOW_CLASS);
+        Log.debug("Attempting to instantiate " + classpath);
+        Class<?> clazz = classpath == null ? null : new WorkflowClassFinder().findFirstWorkflowClass(classpath);
+        if (clazz == null) {
+            Log.stdout("failed looking for classes at " + classpath);
+            throw new RuntimeException("Unable to construct workflow class");
+        }
+        File classesDir = WorkflowClassFinder.classesDir(classpath);
+        if (!classesDir.equals(location.classesDir)) {
+            // metadata.xml now names other classes, include them in the checksum from the next run on
+            locations.put(workflowAccession, new Location(location.bundle, location.metadataFile, classesDir));
+        }
+        return new BundleDescriptor(location.bundle, checksum, metaInfo, clazz);
+    }
+
+    /**
+     * Hashes the metadata.xml and the name, size and modification time of the compiled classes, which is all a descriptor is made from.
+     */
+    private static String checksum(Location location) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(Files.readAllBytes(location.metadataFile.toPath()));
+            digest.update(location.classesDigest);
+            return FileTools.byte2HexString(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw Rethrow.rethrow(e);
+        }
+    }
+
+    /**
+     * Hashes the name, size and modification time of the compiled classes.
+     */
+    private static byte[] digestClasses(File classesDir) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            if (classesDir != null && classesDir.isDirectory()) {
+                TreeSet<String> classes = new TreeSet<>();
+                for (File file : FileUtils.listFiles(classesDir, TrueFileFilter.TRUE, TrueFileFilter.TRUE)) {
+                    classes.add(file.getPath() + "\t" + file.length() + "\t" + file.lastModified());
+                }
+                for (String line : classes) {
+                    digest.update(line.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw Rethrow.rethrow(e);
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package net.sourceforge.seqware.pipeline.workflowV2;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -47,6 +48,17 @@ public class WorkflowClassFinder {
         this.resourceResolver = new PathMatchingResourcePatternResolver(Thread.currentThread().getContextClassLoader());
     }
 
+    /**
+     * The classes directory that the workflow class is compiled into.
+     * 
+     * @param clazzPath
+     *            the path of the workflow class source, as in metadata.xml
+     * @return
+     */
+    public static File classesDir(String clazzPath) {
+        return new File(clazzPath.substring(0, clazzPath.lastIndexOf("classes") + 7));
+    }
+
     /**
      * find the first .class in the clazzPath
      * 
@@ -57,7 +69,7 @@ public class WorkflowClassFinder {
      */
     public Class<?> findFirstWorkflowClass(String clazzPath) {
         String classWithoutJava = clazzPath.substring(0, clazzPath.length() - 5);
-        String classPathWithoutClass = clazzPath.substring(0, clazzPath.lastIndexOf("classes") + 8);
+        String classPathWithoutClass = classesDir(clazzPath).getPath() + FOLDERS_SEPARATOR_AS_STRING;
         clazzPath = classPathWithoutClass;
 
         String candidateClassesLocationPattern = "file:" + clazzPath + "**" + FOLDERS_SEPARATOR_AS_STRING + "*.class";
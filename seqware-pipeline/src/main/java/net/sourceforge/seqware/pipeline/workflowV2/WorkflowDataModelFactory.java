@@ -8,6 +8,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import net.sourceforge.seqware.common.metadata.Metadata;
@@ -30,6 +31,7 @@ public class WorkflowDataModelFactory {
 
     private final Map<String, String> config;
     private final Metadata metadata;
+    private final WorkflowBundleCache bundleCache;
 
     /**
      * This constructs the factory with only the parameters which shouldn't change from workflow to workflow.
@@ -39,8 +41,22 @@ public class WorkflowDataModelFactory {
      * @param metadata
      */
     public WorkflowDataModelFactory(Map<String, String> config, Metadata metadata) {
+        this(config, metadata, new WorkflowBundleCache());
+    }
+
+    /**
+     * This constructs a factory that shares bundles with other factories, so that runs of the same workflow only load its bundle once.
+     * 
+     * @param config
+     *            config generated from the .seqware/settings
+     * @param metadata
+     * @param bundleCache
+     *            the bundles shared between factories
+     */
+    public WorkflowDataModelFactory(Map<String, String> config, Metadata metadata, WorkflowBundleCache bundleCache) {
         this.config = config;
         this.metadata = metadata;
+        this.bundleCache = bundleCache;
     }
 
     /**
@@ -54,19 +70,28 @@ public class WorkflowDataModelFactory {
      * @param workflowEngine
      * @return
      */
-    public synchronized AbstractWorkflowDataModel getWorkflowDataModel(String bundlePath, int workflowAccession, int workflowRunAccession,
+    public AbstractWorkflowDataModel getWorkflowDataModel(String bundlePath, int workflowAccession, int workflowRunAccession,
             String workflowEngine) {
 
         File bundle = new File(bundlePath);
         // change to absolute path
         bundlePath = bundle.getAbsolutePath();
-        Map<String, String> metaInfo = metadata.get_workflow_info(workflowAccession);
         Log.info("Bundle Path: " + bundlePath);
         if (!bundle.exists()) {
 
             // then first try to see if we can get it from it's permenant location instead
-            if (metaInfo.get("permanent_bundle_location") != null) {
-                bundle = new File(getAndProvisionBundle(metaInfo.get("permanent_bundle_location")));
+            final String permLoc = metadata.get_workflow_info(workflowAccession).get("permanent_bundle_location");
+            if (permLoc != null) {
+                bundle = bundleCache.provision(permLoc, new Callable<File>() {
+                    @Override
+                    public File call() {
+                        String provisioned = getAndProvisionBundle(permLoc);
+                        if (provisioned == null) {
+                            throw new RuntimeException("Unable to provision the bundle from " + permLoc);
+                        }
+                        return new File(provisioned);
+                    }
+                });
             }
             // if we still can't get the bundle then error out
             if (!bundle.exists()) {
@@ -75,50 +100,25 @@ public class WorkflowDataModelFactory {
             }
         }
 
-        metaInfo = WorkflowV2Utility.parseMetaInfo(bundle);
-        if (metaInfo == null) {
+        WorkflowBundleCache.BundleDescriptor descriptor = bundleCache.get(workflowAccession, bundle);
+        if (descriptor == null) {
             Log.error("ERROR: Bundle structure is incorrect, unable to parse metadata.");
             return null;
         }
         Log.info("bundle for workflowdatamodel found");
+        // each run adds its own tags
+        Map<String, String> metaInfo = new HashMap<>(descriptor.getMetaInfo());
 
-        // check FTL exist?
-        boolean workflow_java = true;
-        if (metaInfo.get("workflow_template") != null && !metaInfo.get("workflow_template").isEmpty()) {
-            workflow_java = false;
-        }
-
-        // Java object or FTL
-        AbstractWorkflowDataModel dataModel = null;
-        Class<?> clazz = null;
-        if (workflow_java) {
-            // String clazzPath = metaInfo.get("classes");
-            // Log.stdout("looking for classes at " + clazzPath);
-            // Log.info("CLASSPATH: " + clazzPath);
-            // // get user defined classes
-            String classpath = metaInfo.get("workflow_class");
-            Log.debug("Attempting to instantiate " + classpath);
-            WorkflowClassFinder finder = new WorkflowClassFinder();
-            clazz = finder.findFirstWorkflowClass(classpath);
-
-            if (null != clazz) {
-                Log.debug("using java object");
-                try {
-                    Object object = clazz.newInstance();
-                    dataModel = (AbstractWorkflowDataModel) object;
-                } catch (InstantiationException | IllegalAccessException | SecurityException | IllegalArgumentException ex) {
-                    Log.error(ex, ex);
-                    throw Rethrow.rethrow(ex);
-                }
-            } else {
-                Log.stdout("failed looking for classes at " + classpath);
-                throw new RuntimeException("Unable to construct workflow class");
-            }
-        } else {
-            throw new RuntimeException("Non-Java workflows not currently supported");
-        }
-        if (dataModel == null) {
-            throw new RuntimeException("Unable to construct datamodel");
+        // Java object, FTL workflows are turned away when the bundle is loaded
+        AbstractWorkflowDataModel dataModel;
+        Class<?> clazz = descriptor.getWorkflowClass();
+        Log.debug("using java object");
+        try {
+            Object object = clazz.newInstance();
+            dataModel = (AbstractWorkflowDataModel) object;
+        } catch (InstantiationException | IllegalAccessException | SecurityException | IllegalArgumentException ex) {
+            Log.error(ex, ex);
+            throw Rethrow.rethrow(ex);
         }
         Log.info("datamodel generated");
         // load metadata.xml
@@ -181,42 +181,38 @@ public class WorkflowDataModelFactory {
         dataModel.setWorkflow_run_accession(String.valueOf(workflowRunAccession));
         dataModel.setWorkflow_accession(String.valueOf(workflowAccession));
 
-        // parse XML or Java Object for
-        if (workflow_java) {
-            try {
-                Method m = clazz.getMethod("setupDirectory");
-                m.invoke(dataModel);
-                m = clazz.getMethod("setupFiles");
-                m.invoke(dataModel);
-                // handle the provisionedPath
-                // this.setupProvisionedPath(dataModel.getFiles());
-                m = clazz.getMethod("setupWorkflow");
-                m.invoke(dataModel);
-                m = clazz.getMethod("setupEnvironment");
-                m.invoke(dataModel);
-                m = clazz.getMethod("buildWorkflow");
-                m.invoke(dataModel);
-            } catch (NullPointerException e) {
-                Log.error("NullPointerException", e);
-                throw Rethrow.rethrow(e);
-            } catch (SecurityException e) {
-                Log.error("SecurityException", e);
-                throw Rethrow.rethrow(e);
-            } catch (NoSuchMethodException e) {
-                Log.error("NoSuchMethodException", e);
-                throw Rethrow.rethrow(e);
-            } catch (IllegalArgumentException e) {
-                Log.error("IllegalArgumentException", e);
-                throw Rethrow.rethrow(e);
-            } catch (IllegalAccessException e) {
-                Log.error("IllegalAccessException", e);
-                throw Rethrow.rethrow(e);
-            } catch (InvocationTargetException e) {
-                Log.error("InvocationTargetException", e);
-                throw Rethrow.rethrow(e);
-            }
-        } else {
-            throw new RuntimeException("No other workflow engine is currently supported.");
+        // parse Java Object for
+        try {
+            Method m = clazz.getMethod("setupDirectory");
+            m.invoke(dataModel);
+            m = clazz.getMethod("setupFiles");
+            m.invoke(dataModel);
+            // handle the provisionedPath
+            // this.setupProvisionedPath(dataModel.getFiles());
+            m = clazz.getMethod("setupWorkflow");
+            m.invoke(dataModel);
+            m = clazz.getMethod("setupEnvironment");
+            m.invoke(dataModel);
+            m = clazz.getMethod("buildWorkflow");
+            m.invoke(dataModel);
+        } catch (NullPointerException e) {
+            Log.error("NullPointerException", e);
+            throw Rethrow.rethrow(e);
+        } catch (SecurityException e) {
+            Log.error("SecurityException", e);
+            throw Rethrow.rethrow(e);
+        } catch (NoSuchMethodException e) {
+            Log.error("NoSuchMethodException", e);
+            throw Rethrow.rethrow(e);
+        } catch (IllegalArgumentException e) {
+            Log.error("IllegalArgumentException", e);
+            throw Rethrow.rethrow(e);
+        } catch (IllegalAccessException e) {
+            Log.error("IllegalAccessException", e);
+            throw Rethrow.rethrow(e);
+        } catch (InvocationTargetException e) {
+            Log.error("InvocationTargetException", e);
+            throw Rethrow.rethrow(e);
         }
         AbstractWorkflowDataModel.prepare(dataModel);
         Log.info("returning datamodel");
@@ -48,38 +48,42 @@ public class WorkflowV2Utility {
      * @return map if the parse is successful, null if not
      */
     public static Map<String, String> parseMetaInfo(File bundle) {
-        final String bundlePath = bundle.getAbsolutePath();
-        // parse metadata.xml to Map<String,String>
-        @SuppressWarnings("unchecked")
-        // safe to use <File>
-        Iterator<File> it = FileUtils.iterateFiles(bundle, new String[] { "xml" }, true);
-        if (!it.hasNext()) {
+        File metadataFile = findMetadataFile(bundle);
+        if (metadataFile == null) {
             return null;
         }
+        return parseMetadataInfo(metadataFile, bundle.getAbsolutePath());
+    }
 
-        File metadataFile = null;
+    /**
+     * Locate the metadata.xml of a bundle. This walks the whole bundle.
+     * 
+     * @param bundle
+     * @return the metadata.xml, null if there is none
+     */
+    public static File findMetadataFile(File bundle) {
+        @SuppressWarnings("unchecked")
+        // safe to use <File>
+        Iterator<File> it = FileUtils.iterateFiles(bundle, new String[] { "xml" }, true);
         while (it.hasNext()) {
             File file = it.next();
             if (file.getName().equals("metadata.xml")) {
-                metadataFile = file;
-                break;
+                return file;
             }
         }
-
-        if (metadataFile == null) {
-            return null;
-        }
-        return parseMetadataInfo(metadataFile, bundlePath);
+        return null;
     }
 
     /**
      * Parse the metadata info
      * 
      * @param file
+     *            the metadata.xml
      * @param bundleDir
+     *            the bundle directory that ${workflow_bundle_dir} stands for
      * @return
      */
-    private static Map<String, String> parseMetadataInfo(File file, String bundleDir) {
+    public static Map<String, String> parseMetadataInfo(File file, String bundleDir) {
         Map<String, String> ret = new HashMap<>();
         // parse metadataFile
         SAXBuilder builder = new SAXBuilder();
@@ -0,0 +1,194 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.local;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieJob;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Runs a job graph on the local host.
+ *
+ * A job is started once all of its parents have succeeded and its threads and memory fit into what is left of the host, jobs that do not
+ * fit wait while smaller ready jobs go ahead of them. The jobs themselves run on a fixed pool with one worker per thread of the host,
+ * which is always enough since every running job holds at least one thread, and each worker blocks until its job's process exits. After
+ * a failure no new jobs are started, the running ones are allowed to finish.
+ */
+public class LocalScheduler {
+
+    public enum JobStatus {
+        pending, running, completed, failed
+    }
+
+    /**
+     * Runs a single job.
+     */
+    public interface JobExecutor {
+
+        /**
+         * @return true if the job succeeded
+         */
+        boolean execute(OozieJob job) throws Exception;
+    }
+
+    private final int threads;
+    private final long memoryMb;
+    private int freeThreads;
+    private long freeMemoryMb;
+
+    /**
+     * @param threads
+     *            the threads of the host that jobs may use
+     * @param memoryMb
+     *            the memory of the host that jobs may use, in megabytes
+     */
+    public LocalScheduler(int threads, long memoryMb) {
+        if (threads < 1 || memoryMb < 1) {
+            throw new IllegalArgumentException("Need at least one thread and some memory, got " + threads + " and " + memoryMb);
+        }
+        this.threads = threads;
+        this.memoryMb = memoryMb;
+    }
+
+    /**
+     * @param jobs
+     *            every job of the workflow
+     * @param executor
+     *            runs each job
+     * @return the final status of each job, jobs that never started are pending
+     * @throws InterruptedException
+     *             if interrupted while waiting for jobs, the running jobs are interrupted as well
+     */
+    public Map<OozieJob, JobStatus> run(List<OozieJob> jobs, final JobExecutor executor) throws InterruptedException {
+        final Map<OozieJob, JobStatus> statuses = new LinkedHashMap<>();
+        Map<OozieJob, Integer> waitingOn = new HashMap<>();
+        List<OozieJob> ready = new LinkedList<>();
+        for (OozieJob job : jobs) {
+            statuses.put(job, JobStatus.pending);
+            waitingOn.put(job, job.getParents().size());
+            if (job.getParents().isEmpty()) {
+                ready.add(job);
+            }
+        }
+        freeThreads = threads;
+        freeMemoryMb = memoryMb;
+
+        final BlockingQueue<OozieJob> finished = new LinkedBlockingQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int running = 0;
+        boolean failed = false;
+        try {
+            do {
+                for (Iterator<OozieJob> it = ready.iterator(); !failed && it.hasNext();) {
+                    final OozieJob job = it.next();
+                    if (!acquire(job)) {
+                        continue;
+                    }
+                    it.remove();
+                    running++;
+                    synchronized (statuses) {
+                        statuses.put(job, JobStatus.running);
+                    }
+                    Log.stdout("Starting job " + job.getName());
+                    pool.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            boolean success = false;
+                            try {
+                                success = executor.execute(job);
+                            } catch (Exception e) {
+                                Log.error("Job " + job.getName() + " could not be run", e);
+                            }
+                            synchronized (statuses) {
+                                statuses.put(job, success ? JobStatus.completed : JobStatus.failed);
+                            }
+                            finished.add(job);
+                        }
+                    });
+                }
+                if (running == 0) {
+                    break;
+                }
+
+                OozieJob job = finished.take();
+                running--;
+                release(job);
+                JobStatus status;
+                synchronized (statuses) {
+                    status = statuses.get(job);
+                }
+                Log.stdout("Job " + job.getName() + " " + status);
+                if (status == JobStatus.failed) {
+                    failed = true;
+                    continue;
+                }
+                for (OozieJob child : job.getChildren()) {
+                    int parents = waitingOn.get(child) - 1;
+                    waitingOn.put(child, parents);
+                    if (parents == 0) {
+                        ready.add(child);
+                    }
+                }
+            } while (true);
+        } finally {
+            pool.shutdownNow();
+        }
+        synchronized (statuses) {
+            return statuses;
+        }
+    }
+
+    /**
+     * Takes the job's threads and memory if they are free. A job that asks for more than the host has is given the whole host.
+     */
+    private boolean acquire(OozieJob job) {
+        int jobThreads = Math.min(threads, Math.max(1, job.getJobObject().getThreads()));
+        long jobMemory = Math.min(memoryMb, memory(job));
+        if (jobThreads > freeThreads || jobMemory > freeMemoryMb) {
+            return false;
+        }
+        freeThreads -= jobThreads;
+        freeMemoryMb -= jobMemory;
+        return true;
+    }
+
+    private void release(OozieJob job) {
+        freeThreads += Math.min(threads, Math.max(1, job.getJobObject().getThreads()));
+        freeMemoryMb += Math.min(memoryMb, memory(job));
+    }
+
+    private static long memory(OozieJob job) {
+        String maxMemory = job.getJobObject().getMaxMemory();
+        if (StringUtils.isBlank(maxMemory)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(maxMemory.trim()));
+        } catch (NumberFormatException e) {
+            Log.warn("Ignoring unparseable max memory " + maxMemory + " of job " + job.getName());
+            return 0;
+        }
+    }
+
+    /**
+     * @return the jobs in statuses that have the given status
+     */
+    public static List<OozieJob> withStatus(Map<OozieJob, JobStatus> statuses, JobStatus status) {
+        List<OozieJob> jobs = new ArrayList<>();
+        for (Map.Entry<OozieJob, JobStatus> entry : statuses.entrySet()) {
+            if (entry.getValue() == status) {
+                jobs.add(entry.getKey());
+            }
+        }
+        return jobs;
+    }
+}
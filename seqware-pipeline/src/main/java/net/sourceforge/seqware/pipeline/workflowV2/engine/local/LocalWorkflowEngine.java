@@ -0,0 +1,200 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.local;
+
+import io.seqware.pipeline.api.WorkflowEngine;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import net.sourceforge.seqware.common.util.Log;
+import static net.sourceforge.seqware.common.util.Rethrow.rethrow;
+import net.sourceforge.seqware.common.util.filetools.FileTools;
+import net.sourceforge.seqware.pipeline.workflowV2.AbstractWorkflowDataModel;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.local.LocalScheduler.JobStatus;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.OozieWorkflowEngine;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieJob;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.WorkflowApp;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * This is the implementation of the WorkflowEngine that runs the workflow on the launching host, without HDFS or an Oozie server.
+ *
+ * The jobs and their scripts are the same as for oozie-sge, but instead of being submitted they are run by a {@link LocalScheduler}
+ * within the launcher. Each job still goes through the Runner, so processing events are written back to the MetaDB as usual. The run
+ * is finished once runWorkflow returns, the outcome is also written to a status file in the working directory for watchWorkflow.
+ */
+public class LocalWorkflowEngine implements WorkflowEngine {
+
+    /**
+     * Number of threads of the host available to jobs, defaults to the number of processors.
+     */
+    public static final String LOCAL_ENGINE_THREADS = "LOCAL_ENGINE_THREADS";
+    /**
+     * Megabytes of memory of the host available to jobs, defaults to the physical memory.
+     */
+    public static final String LOCAL_ENGINE_MEMORY_MB = "LOCAL_ENGINE_MEMORY_MB";
+    private static final String STATUS_FILE = "local-status";
+
+    private AbstractWorkflowDataModel dataModel;
+    private final Map<String, String> config;
+    private final File workDir;
+    private List<OozieJob> jobs;
+    private String token = null;
+
+    /**
+     *
+     * @param objectModel
+     * @param config
+     *            the SeqWare settings
+     * @param createDirectories
+     *            true when creating the engine to launch a job
+     */
+    public LocalWorkflowEngine(AbstractWorkflowDataModel objectModel, Map<String, String> config, boolean createDirectories) {
+        this.dataModel = objectModel;
+        this.config = config;
+        if (createDirectories) {
+            try {
+                this.workDir = FileTools.createDirectoryWithUniqueName(new File(objectModel.getEnv().getOOZIE_WORK_DIR()), "local");
+                this.workDir.setWritable(true, false);
+                System.out.println("Using working directory: " + workDir.getAbsolutePath());
+            } catch (IOException e) {
+                throw rethrow(e);
+            }
+        } else {
+            this.workDir = null;
+        }
+    }
+
+    @Override
+    public void prepareWorkflow(AbstractWorkflowDataModel objectModel) {
+        this.dataModel = objectModel;
+        WorkflowApp app = new WorkflowApp(objectModel, workDir.getAbsolutePath(), null, true, new File(
+                OozieWorkflowEngine.seqwareJarPath(objectModel)), null, null);
+        this.jobs = app.getJobs();
+        // writes the runner script of each job
+        for (OozieJob job : jobs) {
+            job.serializeXML();
+        }
+    }
+
+    @Override
+    public ReturnValue runWorkflow() {
+        ReturnValue ret = new ReturnValue(ReturnValue.SUCCESS);
+        this.token = workDir.getAbsolutePath();
+        LocalScheduler scheduler = new LocalScheduler(threads(), memoryMb());
+        Map<OozieJob, JobStatus> statuses;
+        try {
+            statuses = scheduler.run(jobs, new LocalScheduler.JobExecutor() {
+                @Override
+                public boolean execute(OozieJob job) throws IOException, InterruptedException {
+                    return runJob(job);
+                }
+            });
+        } catch (InterruptedException e) {
+            throw rethrow(e);
+        }
+
+        List<OozieJob> failed = LocalScheduler.withStatus(statuses, JobStatus.failed);
+        StringBuilder report = new StringBuilder(failed.isEmpty() ? "completed" : "failed");
+        for (Map.Entry<OozieJob, JobStatus> entry : statuses.entrySet()) {
+            report.append('\n').append(entry.getKey().getName()).append('\t').append(entry.getValue());
+        }
+        try {
+            FileUtils.writeStringToFile(new File(workDir, STATUS_FILE), report.append('\n').toString());
+        } catch (IOException e) {
+            Log.error("Could not write the status of the workflow run to " + workDir, e);
+        }
+
+        if (!failed.isEmpty()) {
+            ret.setExitStatus(ReturnValue.FAILURE);
+            ret.setProcessExitStatus(ReturnValue.FAILURE);
+            ret.setStderr("Failed jobs: " + failed + ", see their output in " + OozieJob.scriptsDir(token));
+        }
+        return ret;
+    }
+
+    private boolean runJob(OozieJob job) throws IOException, InterruptedException {
+        File scriptsDir = OozieJob.scriptsDir(workDir.getAbsolutePath());
+        ProcessBuilder builder = new ProcessBuilder("bash", job.getRunnerScript().getAbsolutePath());
+        builder.directory(workDir);
+        builder.redirectOutput(new File(scriptsDir, job.getName() + ".o"));
+        builder.redirectError(new File(scriptsDir, job.getName() + ".e"));
+        Process process = builder.start();
+        try {
+            return process.waitFor() == 0;
+        } finally {
+            process.destroy();
+        }
+    }
+
+    private int threads() {
+        return (int) setting(LOCAL_ENGINE_THREADS, Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE);
+    }
+
+    private long memoryMb() {
+        long physicalMb = Long.MAX_VALUE;
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            physicalMb = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize() / (1024 * 1024);
+        }
+        return setting(LOCAL_ENGINE_MEMORY_MB, physicalMb, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return the setting, or the default when it is unset, or with a warning when it is not a number from 1 to max
+     */
+    private long setting(String key, long defaultValue, long max) {
+        if (!config.containsKey(key)) {
+            return defaultValue;
+        }
+        String value = config.get(key).trim();
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed > 0 && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // warned below
+        }
+        Log.warn(key + " is set to " + value + ", which is not a number from 1 to " + max + ", using " + defaultValue + " instead");
+        return defaultValue;
+    }
+
+    /**
+     * The run is done once runWorkflow returns, this waits for the status file if the run is still going in another launcher and
+     * reports it.
+     */
+    @Override
+    public ReturnValue watchWorkflow(String jobToken) {
+        File status = new File(jobToken, STATUS_FILE);
+        try {
+            while (!status.exists()) {
+                Log.stdout("\nWorkflow job running ...");
+                Thread.sleep(2 * 1000);
+            }
+            List<String> lines = new ArrayList<>(FileUtils.readLines(status));
+            Log.stdout("\nWorkflow job " + lines.get(0) + " ...");
+            Log.stdout("Application Jobs:");
+            for (String line : lines.subList(1, lines.size())) {
+                String[] job = line.split("\t");
+                Log.stdout("   Name: " + job[0] + " Status: " + job[1]);
+            }
+            return new ReturnValue("completed".equals(lines.get(0)) ? ReturnValue.SUCCESS : ReturnValue.FAILURE);
+        } catch (IOException | InterruptedException e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public String getLookupToken() {
+        return token;
+    }
+
+    @Override
+    public String getWorkingDirectory() {
+        return workDir == null ? null : workDir.getAbsolutePath();
+    }
+}
@@ -0,0 +1,225 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.filetools.FileTools;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * A shared library area on HDFS for the jars that Oozie workflow runs need, so that runs which use the same jar share one copy of it
+ * instead of each writing its own into its lib directory.
+ *
+ * Each jar is stored once under the SHA-1 of its contents, in a directory of its own that a run names in oozie.libpath. A run that uses a
+ * jar leaves a reference to it, named after the run's HDFS work directory. A reference counts for as long as that work directory exists:
+ * a successful run deletes it as its last action, while a failed run keeps it, and its jars, so that it can be retried. Jars that no run
+ * refers to any more, and that have not been staged for a grace period, are deleted by {@link #collectGarbage()}.
+ *
+ * <pre>
+ * OOZIE_APP_ROOT/.seqware-libcache/artifacts/&lt;sha1&gt;/seqware-distribution-1.1.0-full.jar
+ * OOZIE_APP_ROOT/.seqware-libcache/refs/&lt;sha1&gt;/oozie-1b2c...
+ * </pre>
+ */
+public class HdfsLibCache {
+
+    public static final String CACHE_DIR = ".seqware-libcache";
+    private static final String ARTIFACTS = "artifacts";
+    private static final String REFS = "refs";
+    private static final String STAGING = "staging";
+    private static final String LAST_COLLECTION = "last-collection";
+    /**
+     * How long a jar is kept after it was last staged, even when no run refers to it.
+     */
+    public static final long DEFAULT_GRACE_PERIOD = 24 * 60 * 60 * 1000L;
+    /**
+     * How often {@link #collectGarbageIfDue()} collects.
+     */
+    private static final long COLLECTION_INTERVAL = 60 * 60 * 1000L;
+
+    /**
+     * The checksums of local files, by path, size and modification time, so that a launcher does not hash the same jar for every run.
+     */
+    private static final ConcurrentMap<String, String> LOCAL_CHECKSUMS = new ConcurrentHashMap<>();
+
+    private final FileSystem fileSystem;
+    private final Path appRoot;
+    private final Path root;
+    private final long gracePeriod;
+
+    /**
+     * @param fileSystem
+     * @param appRoot
+     *            the directory that holds the HDFS work directories of the runs, OOZIE_APP_ROOT
+     */
+    public HdfsLibCache(FileSystem fileSystem, Path appRoot) {
+        this(fileSystem, appRoot, DEFAULT_GRACE_PERIOD);
+    }
+
+    /**
+     * @param fileSystem
+     * @param appRoot
+     *            the directory that holds the HDFS work directories of the runs, OOZIE_APP_ROOT
+     * @param gracePeriod
+     *            how long in milliseconds a jar is kept after it was last staged
+     */
+    public HdfsLibCache(FileSystem fileSystem, Path appRoot, long gracePeriod) {
+        this.fileSystem = fileSystem;
+        this.appRoot = appRoot;
+        this.root = new Path(appRoot, CACHE_DIR);
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Makes a local jar available to a run, copying it to HDFS only if no earlier run has.
+     *
+     * @param local
+     *            the jar
+     * @param runName
+     *            the name of the run's HDFS work directory under the app root
+     * @return the directory that holds the jar, for oozie.libpath
+     * @throws IOException
+     */
+    public Path stage(File local, String runName) throws IOException {
+        String checksum = checksum(local);
+        // the reference comes first, so that the jar cannot be collected while it is being staged
+        Path refs = new Path(root, REFS + Path.SEPARATOR + checksum);
+        fileSystem.mkdirs(refs);
+        fileSystem.create(new Path(refs, runName), true).close();
+
+        Path artifact = new Path(root, ARTIFACTS + Path.SEPARATOR + checksum);
+        Path target = new Path(artifact, local.getName());
+        if (!fileSystem.exists(target)) {
+            Log.info("Staging " + local.getAbsolutePath() + " to " + target);
+            Path staging = new Path(root, STAGING + Path.SEPARATOR + checksum + "-" + UUID.randomUUID());
+            fileSystem.mkdirs(staging.getParent());
+            fileSystem.copyFromLocalFile(false, true, new Path(local.getAbsolutePath()), staging);
+            fileSystem.mkdirs(artifact);
+            // renaming does not replace a file, so when runs stage the same jar at once one of them wins
+            if (!fileSystem.rename(staging, target)) {
+                fileSystem.delete(staging, false);
+                if (!fileSystem.exists(target)) {
+                    throw new IOException("Could not stage " + local.getAbsolutePath() + " to " + target);
+                }
+            }
+        } else {
+            Log.debug("Using staged " + target);
+        }
+        fileSystem.setTimes(artifact, System.currentTimeMillis(), -1);
+        return fileSystem.getFileStatus(artifact).getPath();
+    }
+
+    /**
+     * @param checksum
+     *            the checksum of a jar
+     * @return the number of runs whose work directories still exist that refer to the jar
+     * @throws IOException
+     */
+    public int references(String checksum) throws IOException {
+        Path refs = new Path(root, REFS + Path.SEPARATOR + checksum);
+        if (!fileSystem.exists(refs)) {
+            return 0;
+        }
+        int live = 0;
+        for (FileStatus ref : fileSystem.listStatus(refs)) {
+            if (fileSystem.exists(new Path(appRoot, ref.getPath().getName()))) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Collects garbage if it has not been done by any launcher in the last hour. A failure is only logged, since it should not stop a run
+     * from launching.
+     */
+    public void collectGarbageIfDue() {
+        try {
+            Path marker = new Path(root, LAST_COLLECTION);
+            if (fileSystem.exists(marker)
+                    && System.currentTimeMillis() - fileSystem.getFileStatus(marker).getModificationTime() < COLLECTION_INTERVAL) {
+                return;
+            }
+            fileSystem.mkdirs(root);
+            fileSystem.create(marker, true).close();
+            collectGarbage();
+        } catch (IOException e) {
+            Log.warn("Could not collect garbage in " + root, e);
+        }
+    }
+
+    /**
+     * Deletes the references of runs whose work directories are gone, then the jars that have no references left and were not staged
+     * within the grace period, and uploads that were abandoned part way.
+     *
+     * @return the number of jars deleted
+     * @throws IOException
+     */
+    public int collectGarbage() throws IOException {
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        Path artifacts = new Path(root, ARTIFACTS);
+        if (fileSystem.exists(artifacts)) {
+            for (FileStatus artifact : fileSystem.listStatus(artifacts)) {
+                String checksum = artifact.getPath().getName();
+                Path refs = new Path(root, REFS + Path.SEPARATOR + checksum);
+                if (fileSystem.exists(refs)) {
+                    for (FileStatus ref : fileSystem.listStatus(refs)) {
+                        if (!fileSystem.exists(new Path(appRoot, ref.getPath().getName()))) {
+                            fileSystem.delete(ref.getPath(), false);
+                        }
+                    }
+                }
+                // look again, a run may have staged the jar meanwhile
+                if (references(checksum) == 0
+                        && now - fileSystem.getFileStatus(artifact.getPath()).getModificationTime() >= gracePeriod) {
+                    Log.info("Deleting unused " + artifact.getPath());
+                    fileSystem.delete(artifact.getPath(), true);
+                    fileSystem.delete(refs, true);
+                    deleted++;
+                }
+            }
+        }
+        Path staging = new Path(root, STAGING);
+        if (fileSystem.exists(staging)) {
+            for (FileStatus upload : fileSystem.listStatus(staging)) {
+                if (now - upload.getModificationTime() >= Math.max(gracePeriod, COLLECTION_INTERVAL)) {
+                    fileSystem.delete(upload.getPath(), true);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @param local
+     * @return the SHA-1 of a local file
+     * @throws IOException
+     */
+    public static String checksum(File local) throws IOException {
+        String key = local.getAbsolutePath() + ":" + local.length() + ":" + local.lastModified();
+        String checksum = LOCAL_CHECKSUMS.get(key);
+        if (checksum == null) {
+            try (InputStream in = new FileInputStream(local)) {
+                MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                byte[] buffer = new byte[64 * 1024];
+                for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) {
+                    digest.update(buffer, 0, count);
+                }
+                checksum = FileTools.byte2HexString(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            LOCAL_CHECKSUMS.put(key, checksum);
+        }
+        return checksum;
+    }
+}
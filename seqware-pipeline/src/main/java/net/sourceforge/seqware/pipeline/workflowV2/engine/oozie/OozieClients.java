@@ -0,0 +1,31 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.oozie.client.OozieClient;
+
+/**
+ * One Oozie client per Oozie URL for the whole process, so that launching or watching many runs does not set up a client for each. A new
+ * client asks the server for its protocol version before its first request. A client opens a connection per request, so it can be shared
+ * by threads.
+ */
+public class OozieClients {
+
+    private static final ConcurrentMap<String, OozieClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * @param oozieUrl
+     * @return the client for the URL
+     */
+    public static OozieClient get(String oozieUrl) {
+        OozieClient client = CLIENTS.get(oozieUrl);
+        if (client == null) {
+            client = new OozieClient(oozieUrl);
+            OozieClient existing = CLIENTS.putIfAbsent(oozieUrl, client);
+            if (existing != null) {
+                client = existing;
+            }
+        }
+        return client;
+    }
+}
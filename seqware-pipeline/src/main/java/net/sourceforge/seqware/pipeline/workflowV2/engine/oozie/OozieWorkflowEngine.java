@@ -36,6 +36,10 @@ public class OozieWorkflowEngine implements WorkflowEngine {
     private final File nfsWorkDir;
     private final Configuration conf;
     private final Path hdfsWorkDir;
+    /**
+     * The shared HDFS directory that holds the seqware jar for this run.
+     */
+    private Path libPath = null;
 
     /**
      * 
@@ -127,6 +131,9 @@ public class OozieWorkflowEngine implements WorkflowEngine {
         try {
             Properties propertiesConf = wc.createConfiguration();
             propertiesConf.setProperty(OozieClient.APP_PATH, hdfsWorkDir.toString());
+            if (libPath != null) {
+                propertiesConf.setProperty(OozieClient.LIBPATH, libPath.toString());
+            }
             propertiesConf.setProperty("jobTracker", this.dataModel.getEnv().getOOZIE_JOBTRACKER());
             propertiesConf.setProperty("nameNode", this.dataModel.getEnv().getOOZIE_NAMENODE());
             propertiesConf.setProperty("queueName", this.dataModel.getEnv().getOOZIE_QUEUENAME());
@@ -182,13 +189,15 @@ public class OozieWorkflowEngine implements WorkflowEngine {
                 }
             }
         }
-        while (wc.getJobInfo(jobId).getStatus() == WorkflowJob.Status.RUNNING) {
+        // one request per poll
+        WorkflowJob job = wc.getJobInfo(jobId);
+        while (job.getStatus() == WorkflowJob.Status.RUNNING) {
             Log.stdout("\nWorkflow job running ...");
-            printWorkflowInfo(wc.getJobInfo(jobId));
+            printWorkflowInfo(job);
             Thread.sleep(10 * 1000);
+            job = wc.getJobInfo(jobId);
         }
         Log.stdout("\nWorkflow job completed ...");
-        WorkflowJob job = wc.getJobInfo(jobId);
         printWorkflowInfo(job);
         if (job.getStatus() != Status.SUCCEEDED) {
             ret = new ReturnValue(ReturnValue.FAILURE);
@@ -215,13 +224,18 @@ public class OozieWorkflowEngine implements WorkflowEngine {
             fileSystem = FileSystem.get(conf);
             Path pathlib = new Path(hdfsWorkDir, "lib");
             fileSystem.mkdirs(pathlib);
-            copyFromLocal(fileSystem, nfsWorkDir + "/job.properties", hdfsWorkDir);
-            copyFromLocal(fileSystem, nfsWorkDir + "/workflow.xml", hdfsWorkDir);
 
             if (!useSge) {
-                // copy lib
-                copyFromLocal(fileSystem, seqwareJarPath(objectModel), pathlib);
+                // reference the seqware jar from the shared lib cache rather than copying it for every run
+                HdfsLibCache libCache = new HdfsLibCache(fileSystem, hdfsWorkDir.getParent());
+                libPath = libCache.stage(new File(seqwareJarPath(objectModel)), hdfsWorkDir.getName());
+                try (FileWriter fw = new FileWriter(new File(nfsWorkDir, "job.properties"), true)) {
+                    fw.write("\n" + OozieClient.LIBPATH + "=" + libPath);
+                }
+                libCache.collectGarbageIfDue();
             }
+            copyFromLocal(fileSystem, nfsWorkDir + "/job.properties", hdfsWorkDir);
+            copyFromLocal(fileSystem, nfsWorkDir + "/workflow.xml", hdfsWorkDir);
             System.out.println("Files copied to " + nfsWorkDir);
         } catch (RuntimeException e) {
             throw e;
@@ -304,8 +318,7 @@ public class OozieWorkflowEngine implements WorkflowEngine {
     }
 
     private OozieClient getOozieClient() {
-        OozieClient oc = new OozieClient(this.dataModel.getEnv().getOOZIE_URL());
-        return oc;
+        return OozieClients.get(this.dataModel.getEnv().getOOZIE_URL());
     }
 
     // @Override
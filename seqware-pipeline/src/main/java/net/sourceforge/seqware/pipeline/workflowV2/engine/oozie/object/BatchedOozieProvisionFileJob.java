@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import static net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieJob.file;
+import net.sourceforge.seqware.common.util.configtools.ConfigTools;
 import net.sourceforge.seqware.pipeline.workflowV2.model.AbstractJob;
 import org.jdom.Element;
 
@@ -21,6 +22,10 @@ public class BatchedOozieProvisionFileJob extends OozieJob {
      * Determines size of buckets to use when batching provision file events
      */
     public static final String OOZIE_BATCH_SIZE = "OOZIE_BATCH_SIZE";
+    /**
+     * Number of provision file events in a bucket that the BatchRunner runs at the same time
+     */
+    public static final String OOZIE_BATCH_THREADS = "OOZIE_BATCH_THREADS";
 
     private List<OozieProvisionFileJob> provisionJobs = new ArrayList<>();
 
@@ -56,19 +61,70 @@ public class BatchedOozieProvisionFileJob extends OozieJob {
         return provisionJobs.size();
     }
 
+    /**
+     * Writes the Runner arguments of every provision file event to a manifest and a script that runs them all in one JVM with the
+     * BatchRunner, which records their metadata together once they are done.
+     */
     private File emitRunnerScript() {
         File localFile = file(scriptsDir, runnerFileName(name), true);
+        File manifest = file(scriptsDir, name + "-manifest.tsv", false);
 
-        ArrayList<String> args = new ArrayList<>();
+        ArrayList<String> lines = new ArrayList<>();
         for (OozieProvisionFileJob batchedJob : provisionJobs) {
             batchedJob.setUseCheckFile(true);
-            args.add(concat(" ", batchedJob.generateRunnerLine()));
+            lines.add(concat("\t", batchedJob.runnerArgs()));
         }
+        write(concat("\n", lines) + "\n", manifest);
 
-        writeScript(concat("\n", args), localFile);
+        ArrayList<String> args = new ArrayList<>();
+        args.add(createPathToJava() + "java");
+        args.add("-Xmx" + getMaxMemory());
+        args.add("-classpath");
+        args.add(seqwareJarPath);
+        args.add("net.sourceforge.seqware.pipeline.runner.BatchRunner");
+        args.add("--threads");
+        args.add(ConfigTools.getSettingsSnapshot().get(OOZIE_BATCH_THREADS, "1"));
+        args.add("--manifest");
+        args.add(manifest.getAbsolutePath());
+
+        writeScript(concat(" ", args), localFile);
         return localFile;
     }
 
+    /**
+     * @return the largest max memory of the batched jobs, as the one JVM that runs them all must have room for any of them
+     */
+    String getMaxMemory() {
+        String max = null;
+        for (OozieProvisionFileJob job : provisionJobs) {
+            String mem = job.jobObj.getCommand().getMaxMemory();
+            if (max == null || toBytes(mem) > toBytes(max)) {
+                max = mem;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @param mem
+     *            in the format {@link net.sourceforge.seqware.pipeline.workflowV2.model.Command#setMaxMemory(String)} accepts
+     */
+    private static long toBytes(String mem) {
+        char unit = Character.toLowerCase(mem.charAt(mem.length() - 1));
+        if (Character.isDigit(unit)) {
+            return Long.parseLong(mem);
+        }
+        long size = Long.parseLong(mem.substring(0, mem.length() - 1));
+        switch (unit) {
+            case 'g':
+                return size << 30;
+            case 'm':
+                return size << 20;
+            default:
+                return size << 10;
+        }
+    }
+
     @Override
     public List<String> getAccessionFile() {
         List<String> list = new ArrayList<>();
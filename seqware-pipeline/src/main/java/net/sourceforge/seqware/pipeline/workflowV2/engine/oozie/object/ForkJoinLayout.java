@@ -0,0 +1,361 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jdom.Element;
+
+/**
+ * Lays out a job graph as nested fork/join blocks, the only structure Oozie accepts.
+ *
+ * The graph is decomposed recursively: jobs that are not connected run in parallel in their own fork path, a job that every other job
+ * depends on (or that depends on every other job) runs in series before (or after) the rest. Only a block that is neither, with several
+ * entry and several exit jobs, is split in two with a barrier in between. Every dependency is kept, so outside of such blocks a job
+ * starts as soon as its own parents are done instead of waiting for a whole breadth level of the graph.
+ */
+public class ForkJoinLayout {
+
+    /**
+     * A block of the layout: a single job, blocks run one after the other, or blocks run in parallel between a fork and a join.
+     */
+    static final class Node {
+
+        enum Kind {
+            JOB, SERIAL, PARALLEL
+        }
+
+        final Kind kind;
+        final OozieJob job;
+        final List<Node> parts;
+
+        private Node(Kind kind, OozieJob job, List<Node> parts) {
+            this.kind = kind;
+            this.job = job;
+            this.parts = parts;
+        }
+    }
+
+    private final Node root;
+    private int forks = 0;
+
+    /**
+     * @param root
+     *            the first job of the workflow, every other job is reachable from it
+     */
+    public ForkJoinLayout(OozieJob root) {
+        Set<OozieJob> all = new LinkedHashSet<>();
+        Deque<OozieJob> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            OozieJob job = queue.poll();
+            if (all.add(job)) {
+                queue.addAll(job.getChildren());
+            }
+        }
+        this.root = decompose(all);
+    }
+
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Serializes the layout. Sets the ok transition of every job.
+     *
+     * @param to
+     *            the node to continue with once every job is done
+     * @param out
+     *            receives the action, fork and join elements in workflow order
+     * @return the name of the first node of the layout
+     */
+    public String serializeXML(String to, List<Element> out) {
+        LinkedList<Element> elements = new LinkedList<>();
+        String entry = emit(root, to, elements);
+        out.addAll(elements);
+        return entry;
+    }
+
+    /**
+     * Emits node backwards, so every node knows where it transitions to, prepending its elements.
+     */
+    private String emit(Node node, String to, LinkedList<Element> out) {
+        switch (node.kind) {
+        case JOB:
+            node.job.setOkTo(to);
+            out.addFirst(node.job.serializeXML());
+            return node.job.getName();
+        case SERIAL:
+            String next = to;
+            for (int i = node.parts.size() - 1; i >= 0; i--) {
+                next = emit(node.parts.get(i), next, out);
+            }
+            return next;
+        default:
+            int count = forks++;
+            String forkName = "fork_" + count;
+            String joinName = "join_" + count;
+            Element joinE = new Element("join", WorkflowApp.NAMESPACE);
+            joinE.setAttribute("name", joinName);
+            joinE.setAttribute("to", to);
+            out.addFirst(joinE);
+            List<String> starts = new LinkedList<>();
+            for (int i = node.parts.size() - 1; i >= 0; i--) {
+                starts.add(0, emit(node.parts.get(i), joinName, out));
+            }
+            Element forkE = new Element("fork", WorkflowApp.NAMESPACE);
+            forkE.setAttribute("name", forkName);
+            for (String start : starts) {
+                Element path = new Element("path", WorkflowApp.NAMESPACE);
+                path.setAttribute("start", start);
+                forkE.addContent(path);
+            }
+            out.addFirst(forkE);
+            return forkName;
+        }
+    }
+
+    private static Node decompose(Set<OozieJob> jobs) {
+        if (jobs.size() == 1) {
+            return job(jobs.iterator().next());
+        }
+        List<Set<OozieJob>> components = components(jobs);
+        if (components.size() > 1) {
+            List<Node> parts = new ArrayList<>();
+            for (Set<OozieJob> component : components) {
+                parts.add(decompose(component));
+            }
+            return new Node(Node.Kind.PARALLEL, null, parts);
+        }
+
+        // peel off jobs that come before or after everything else in this block
+        Set<OozieJob> rest = new LinkedHashSet<>(jobs);
+        List<Node> head = new ArrayList<>();
+        LinkedList<Node> tail = new LinkedList<>();
+        List<OozieJob> sources = sources(rest);
+        while (rest.size() > 1) {
+            List<OozieJob> sinks = sinks(rest);
+            if (sources.size() == 1) {
+                head.add(job(sources.get(0)));
+                rest.remove(sources.get(0));
+            } else if (sinks.size() == 1) {
+                tail.addFirst(job(sinks.get(0)));
+                rest.remove(sinks.get(0));
+            } else {
+                break;
+            }
+            if (components(rest).size() > 1) {
+                break;
+            }
+            sources = sources(rest);
+        }
+
+        List<Node> parts = new ArrayList<>(head);
+        if (rest.size() == 1 || components(rest).size() > 1) {
+            parts.add(decompose(rest));
+        } else {
+            // several entry and exit jobs, this block can only be laid out with a barrier somewhere in the middle
+            Set<OozieJob> before = cut(rest);
+            rest.removeAll(before);
+            parts.add(decompose(before));
+            parts.add(decompose(rest));
+        }
+        parts.addAll(tail);
+        return parts.size() == 1 ? parts.get(0) : new Node(Node.Kind.SERIAL, null, flatten(parts));
+    }
+
+    /**
+     * Picks where to put a barrier in a connected block with several entry and exit jobs. The candidates are everything up to a given
+     * depth from the entry jobs and everything down to a given height above the exit jobs. The one chosen adds the fewest pairs of jobs
+     * where the second waits for the first without depending on it.
+     *
+     * @return the jobs before the barrier
+     */
+    private static Set<OozieJob> cut(Set<OozieJob> jobs) {
+        List<OozieJob> order = topologicalOrder(jobs);
+        int n = order.size();
+        Map<OozieJob, Integer> index = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            index.put(order.get(i), i);
+        }
+        int[] depth = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (OozieJob parent : order.get(i).getParents()) {
+                Integer p = index.get(parent);
+                if (p != null) {
+                    depth[i] = Math.max(depth[i], depth[p] + 1);
+                }
+            }
+        }
+        int[] height = new int[n];
+        BitSet[] descendants = new BitSet[n];
+        for (int i = n - 1; i >= 0; i--) {
+            descendants[i] = new BitSet(n);
+            for (OozieJob child : order.get(i).getChildren()) {
+                Integer c = index.get(child);
+                if (c != null) {
+                    height[i] = Math.max(height[i], height[c] + 1);
+                    descendants[i].set(c);
+                    descendants[i].or(descendants[c]);
+                }
+            }
+        }
+
+        List<BitSet> candidates = new ArrayList<>();
+        for (int k = 1; k <= max(depth); k++) {
+            BitSet before = new BitSet(n);
+            for (int i = 0; i < n; i++) {
+                before.set(i, depth[i] < k);
+            }
+            candidates.add(before);
+        }
+        for (int k = 1; k <= max(height); k++) {
+            BitSet before = new BitSet(n);
+            for (int i = 0; i < n; i++) {
+                before.set(i, height[i] >= k);
+            }
+            candidates.add(before);
+        }
+
+        BitSet best = null;
+        long bestFalse = Long.MAX_VALUE;
+        for (BitSet before : candidates) {
+            BitSet after = new BitSet(n);
+            after.set(0, n);
+            after.andNot(before);
+            long falseDependencies = 0;
+            for (int i = before.nextSetBit(0); i >= 0; i = before.nextSetBit(i + 1)) {
+                BitSet unrelated = (BitSet) after.clone();
+                unrelated.andNot(descendants[i]);
+                falseDependencies += unrelated.cardinality();
+            }
+            if (falseDependencies < bestFalse) {
+                best = before;
+                bestFalse = falseDependencies;
+            }
+        }
+
+        Set<OozieJob> before = new LinkedHashSet<>();
+        for (OozieJob job : jobs) {
+            if (best.get(index.get(job))) {
+                before.add(job);
+            }
+        }
+        return before;
+    }
+
+    private static int max(int[] values) {
+        int max = 0;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static List<OozieJob> topologicalOrder(Set<OozieJob> jobs) {
+        Map<OozieJob, Integer> waiting = new HashMap<>();
+        Deque<OozieJob> ready = new ArrayDeque<>();
+        for (OozieJob job : jobs) {
+            int parents = 0;
+            for (OozieJob parent : job.getParents()) {
+                if (jobs.contains(parent)) {
+                    parents++;
+                }
+            }
+            waiting.put(job, parents);
+            if (parents == 0) {
+                ready.add(job);
+            }
+        }
+        List<OozieJob> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            OozieJob job = ready.poll();
+            order.add(job);
+            for (OozieJob child : job.getChildren()) {
+                Integer parents = waiting.get(child);
+                if (parents != null) {
+                    waiting.put(child, parents - 1);
+                    if (parents == 1) {
+                        ready.add(child);
+                    }
+                }
+            }
+        }
+        if (order.size() != jobs.size()) {
+            throw new IllegalStateException("The workflow has a cycle between " + jobs);
+        }
+        return order;
+    }
+
+    private static List<Node> flatten(List<Node> parts) {
+        List<Node> flat = new ArrayList<>();
+        for (Node part : parts) {
+            if (part.kind == Node.Kind.SERIAL) {
+                flat.addAll(part.parts);
+            } else {
+                flat.add(part);
+            }
+        }
+        return flat;
+    }
+
+    private static Node job(OozieJob job) {
+        return new Node(Node.Kind.JOB, job, Collections.<Node> emptyList());
+    }
+
+    private static List<OozieJob> sources(Set<OozieJob> jobs) {
+        List<OozieJob> sources = new ArrayList<>();
+        for (OozieJob job : jobs) {
+            if (Collections.disjoint(job.getParents(), jobs)) {
+                sources.add(job);
+            }
+        }
+        return sources;
+    }
+
+    private static List<OozieJob> sinks(Set<OozieJob> jobs) {
+        List<OozieJob> sinks = new ArrayList<>();
+        for (OozieJob job : jobs) {
+            if (Collections.disjoint(job.getChildren(), jobs)) {
+                sinks.add(job);
+            }
+        }
+        return sinks;
+    }
+
+    /**
+     * @return the weakly connected components of jobs, ignoring edges that leave the set
+     */
+    private static List<Set<OozieJob>> components(Set<OozieJob> jobs) {
+        List<Set<OozieJob>> components = new ArrayList<>();
+        Set<OozieJob> seen = new LinkedHashSet<>();
+        for (OozieJob start : jobs) {
+            if (!seen.add(start)) {
+                continue;
+            }
+            Set<OozieJob> component = new LinkedHashSet<>();
+            Deque<OozieJob> queue = new ArrayDeque<>();
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                OozieJob job = queue.poll();
+                component.add(job);
+                List<OozieJob> neighbours = new ArrayList<>(job.getParents());
+                neighbours.addAll(job.getChildren());
+                for (OozieJob neighbour : neighbours) {
+                    if (jobs.contains(neighbour) && seen.add(neighbour)) {
+                        queue.add(neighbour);
+                    }
+                }
+            }
+            components.add(component);
+        }
+        return components;
+    }
+}
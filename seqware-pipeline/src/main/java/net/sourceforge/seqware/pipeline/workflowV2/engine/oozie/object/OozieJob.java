@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.List;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.configtools.ConfigTools;
+import net.sourceforge.seqware.common.util.configtools.Settings;
 import static net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieBashJob.OOZIE_RETRY_INTERVAL;
 import static net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieBashJob.OOZIE_RETRY_MAX;
 import net.sourceforge.seqware.pipeline.workflowV2.model.AbstractJob;
@@ -35,6 +36,12 @@ public abstract class OozieJob {
      */
     public static final String SCRIPTS_SUBDIR = "generated-scripts";
 
+    /**
+     * When true, each step keeps a write-ahead journal of its metadata write back next to its processing accession file, see the Runner's
+     * --metadata-journal.
+     */
+    public static final String OOZIE_METADATA_JOURNAL = "OOZIE_METADATA_JOURNAL";
+
     /**
      * Namespace of the Oozie workflow xml nodes.
      */
@@ -95,10 +102,9 @@ public abstract class OozieJob {
     public final Element serializeXML() {
         Element element = new Element("action", WorkflowApp.NAMESPACE);
         element.setAttribute("name", this.name);
-        element.setAttribute("retry-max",
-                ConfigTools.getSettings().containsKey(OOZIE_RETRY_MAX) ? ConfigTools.getSettings().get(OOZIE_RETRY_MAX) : "1");
-        element.setAttribute("retry-interval",
-                ConfigTools.getSettings().containsKey(OOZIE_RETRY_INTERVAL) ? ConfigTools.getSettings().get(OOZIE_RETRY_INTERVAL) : "1");
+        Settings settings = ConfigTools.getSettingsSnapshot();
+        element.setAttribute("retry-max", settings.get(OOZIE_RETRY_MAX, "1"));
+        element.setAttribute("retry-interval", settings.get(OOZIE_RETRY_INTERVAL, "1"));
 
         if (useSge) {
             element.addContent(createSgeElement());
@@ -170,6 +176,12 @@ public abstract class OozieJob {
             args.add(getAccessionFile().get(0) + ".lock");
         }
 
+        if (metadataWriteback && !getAccessionFile().isEmpty()
+                && ConfigTools.getSettingsSnapshot().getBoolean(OOZIE_METADATA_JOURNAL, false)) {
+            args.add("--metadata-journal");
+            args.add(getAccessionFile().get(0) + ".journal");
+        }
+
         return args;
     }
 
@@ -181,6 +193,13 @@ public abstract class OozieJob {
         return jobName + "-runner.sh";
     }
 
+    /**
+     * @return the script that runs this job, written when the job is serialized for SGE
+     */
+    public File getRunnerScript() {
+        return new File(scriptsDir, runnerFileName(name));
+    }
+
     public static String optsFileName(String jobName) {
         return jobName + "-qsub.opts";
     }
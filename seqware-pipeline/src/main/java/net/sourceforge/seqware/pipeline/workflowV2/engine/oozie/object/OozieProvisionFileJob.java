@@ -64,7 +64,7 @@ public class OozieProvisionFileJob extends OozieJob {
         return localFile;
     }
 
-    private List<String> runnerArgs() {
+    protected List<String> runnerArgs() {
         List<String> args = runnerMetaDataArgs();
 
         /*
@@ -3,8 +3,8 @@ package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -27,22 +27,14 @@ import org.jdom.Element;
 public class WorkflowApp {
     public static final String URIOOZIEWORKFLOW = "uri:oozie:workflow:0.4";
     public static org.jdom.Namespace NAMESPACE = org.jdom.Namespace.getNamespace(URIOOZIEWORKFLOW);
-    public static final int BUCKET_SIZE = Integer.valueOf(ConfigTools.getSettings().containsKey(
-            BatchedOozieProvisionFileJob.OOZIE_BATCH_SIZE) ? ConfigTools.getSettings().get(BatchedOozieProvisionFileJob.OOZIE_BATCH_SIZE)
-            : "100");
-    public static final int THRESHOLD = Integer.valueOf(ConfigTools.getSettings().containsKey(
-            BatchedOozieProvisionFileJob.OOZIE_BATCH_THRESHOLD) ? ConfigTools.getSettings().get(
-            BatchedOozieProvisionFileJob.OOZIE_BATCH_THRESHOLD) : "5");
+    public static final int BUCKET_SIZE = ConfigTools.getSettingsSnapshot().getInt(BatchedOozieProvisionFileJob.OOZIE_BATCH_SIZE, 100);
+    public static final int THRESHOLD = ConfigTools.getSettingsSnapshot().getInt(BatchedOozieProvisionFileJob.OOZIE_BATCH_THRESHOLD, 5);
 
     private final AbstractWorkflowDataModel wfdm;
     /**
      * a list of all jobs in order
      */
     private final List<OozieJob> jobs;
-    /**
-     * name of the last join job in a workflow
-     */
-    private String lastJoin;
     /**
      * map of files that are attached directly to the workflow instead of to a specific job used for constructing the graph
      */
@@ -75,20 +67,13 @@ public class WorkflowApp {
 
         if (!this.jobs.isEmpty()) {
             OozieJob job0 = this.jobs.get(0);
+            // keep the real dependencies instead of running the graph level by level
+            List<Element> nodes = new ArrayList<>();
+            String first = new ForkJoinLayout(job0).serializeXML("done", nodes);
             Element start = new Element("start", NAMESPACE);
-            start.setAttribute("to", job0.getName());
+            start.setAttribute("to", first);
             wf.addContent(start);
-            // Set<String> nodes = new HashSet<String>();
-            // Set<OozieJob> jobs = new HashSet<OozieJob>();
-            List<List<OozieJob>> graph = this.reOrganizeGraph(job0);
-            this.generateWorkflowXml2(wf, graph);
-        }
-
-        if (this.lastJoin != null && !this.lastJoin.isEmpty()) {
-            Element lastJoinLocal = new Element("join", NAMESPACE);
-            lastJoinLocal.setAttribute("name", this.lastJoin);
-            lastJoinLocal.setAttribute("to", "done");
-            wf.addContent(lastJoinLocal);
+            wf.addContent(nodes);
         }
 
         Element done = new Element("action", NAMESPACE).setAttribute("name", "done");
@@ -115,62 +100,11 @@ public class WorkflowApp {
         return wf;
     }
 
-    private void generateWorkflowXml2(Element rootElement, List<List<OozieJob>> graph) {
-        OozieJob root = graph.get(0).get(0);
-        Element currentE = root.serializeXML();
-        rootElement.addContent(currentE);
-        for (int i = 1; i < graph.size(); i++) {
-            currentE = this.generateNextLevelXml(rootElement, graph.get(i), currentE, i - 1);
-        }
-        // point the last one to end
-        if (currentE.getName().equals("action")) {
-            currentE.getChild("ok", NAMESPACE).setAttribute("to", "done");
-        } else {
-            currentE.setAttribute("to", "done");
-        }
-
-    }
-
-    private Element generateNextLevelXml(Element rootElement, List<OozieJob> joblist, Element currentElement, int count) {
-        Element ret;
-        // currentElement could be action or join
-        // need to set the next to, action: ok element, join: currentElement
-        Element setNext = currentElement;
-        if (currentElement.getName().equals("action")) {
-            setNext = currentElement.getChild("ok", NAMESPACE);
-        }
-
-        if (joblist.size() > 1) {
-            // has fork and join
-            String forkName = "fork_" + count;
-            setNext.setAttribute("to", forkName);
-            Element forkE = new Element("fork", NAMESPACE);
-            forkE.setAttribute("name", forkName);
-            for (OozieJob job : joblist) {
-                Element path = new Element("path", NAMESPACE);
-                path.setAttribute("start", job.getName());
-                forkE.addContent(path);
-            }
-            rootElement.addContent(forkE);
-            String joinName = "join_" + count;
-            // add action for job
-            for (OozieJob job : joblist) {
-                job.setOkTo(joinName);
-                rootElement.addContent(job.serializeXML());
-            }
-            // add join element
-            Element joinE = new Element("join", NAMESPACE);
-            joinE.setAttribute("name", joinName);
-            rootElement.addContent(joinE);
-            ret = joinE;
-        } else {
-            OozieJob job = joblist.get(0);
-            setNext.setAttribute("to", job.getName());
-            Element nextE = job.serializeXML();
-            rootElement.addContent(nextE);
-            ret = nextE;
-        }
-        return ret;
+    /**
+     * @return every job of the workflow, starting with the job that creates the working directories
+     */
+    public List<OozieJob> getJobs() {
+        return Collections.unmodifiableList(jobs);
     }
 
     private void parseDataModel(AbstractWorkflowDataModel wfdm) {
@@ -243,8 +177,6 @@ public class WorkflowApp {
         }
         // all leaves (nodes that are not provision outs with no children) become parents of all provision outs
         this.linkLeafsAsProvisionOutParents();
-        // joins all leaves to an artificial join if necessary
-        this.setEndJob();
         // go through and
         this.setAccessionFileRelations(oozieRootJob);
         // go through and set stdout/stderr buffer sizes if they are not set by the workflow developer
@@ -258,34 +190,6 @@ public class WorkflowApp {
         }
     }
 
-    /**
-     * if the object model has any jobs that are leaves this method creates an artificial join and transitions the leaves to it
-     */
-    private void setEndJob() {
-        if (needLastJoin()) {
-            // set a unique name for the join action in case of name conflict
-            this.lastJoin = "join_" + Long.toString(System.nanoTime());
-            for (OozieJob job : this.jobs) {
-                if (job.getChildren().isEmpty()) {
-                    job.setOkTo(this.lastJoin);
-                }
-            }
-        }
-    }
-
-    /**
-     * Goes through all jobs in this.jobs and returns true iff there are leaves (nodes with no children)
-     * 
-     * @return
-     */
-    private boolean needLastJoin() {
-        int leafCount = 0;
-        for (OozieJob job : this.jobs) {
-            if (job.getChildren().isEmpty()) leafCount++;
-        }
-        return leafCount > 1;
-    }
-
     private OozieJob createOozieJobObject(AbstractJob job, AbstractWorkflowDataModel wfdm) {
         if (job instanceof BashJob) {
             return new OozieBashJob(job, job.getAlgo() + "_" + this.jobs.size(), this.uniqueWorkingDir, this.useSge, this.seqwareJar,
@@ -316,48 +220,6 @@ public class WorkflowApp {
         return null;
     }
 
-    private List<List<OozieJob>> reOrganizeGraph(OozieJob root) {
-        List<List<OozieJob>> newGraph = new ArrayList<>();
-        // to avoid duplicated action
-        Set<String> jobName = new HashSet<>();
-        // add the root
-        List<OozieJob> rootList = new ArrayList<>();
-        rootList.add(root);
-        newGraph.add(rootList);
-        jobName.add(root.getName());
-        this.getNextLevel(newGraph, jobName);
-        return newGraph;
-    }
-
-    private void getNextLevel(List<List<OozieJob>> graph, Set<String> existingJob) {
-        List<OozieJob> lastLevel = graph.get(graph.size() - 1);
-        List<OozieJob> nextLevel = new ArrayList<>();
-        Set<OozieJob> removed = new HashSet<>();
-        for (OozieJob job : lastLevel) {
-            for (OozieJob child : job.getChildren()) {
-                if (!nextLevel.contains(child)) nextLevel.add(child);
-                // remove it from the upper level
-                if (existingJob.contains(child.getName())) {
-                    removed.add(child);
-                }
-                existingJob.add(child.getName());
-            }
-        }
-        if (!removed.isEmpty()) {
-            for (OozieJob rm : removed) {
-                for (List<OozieJob> level : graph) {
-                    if (level.contains(rm)) {
-                        level.remove(rm);
-                    }
-                }
-            }
-        }
-        if (!nextLevel.isEmpty()) {
-            graph.add(nextLevel);
-            getNextLevel(graph, existingJob);
-        }
-    }
-
     /**
      * Given a graph, duplicate all parent accession files from parents to their children
      * 
@@ -0,0 +1,75 @@
+package io.seqware.pipeline.api;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import net.sourceforge.seqware.common.metadata.MetadataNoConnection;
+import net.sourceforge.seqware.common.model.WorkflowParam;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SchedulerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A run of a batch that cannot be scheduled is reported as failed, and the runs after it are still scheduled.
+     */
+    @Test
+    public void testFailedRunInBatch() throws Exception {
+        File ini = folder.newFile("run.ini");
+        List<Scheduler.ScheduledRun> runs = Arrays.asList(run(new File(folder.getRoot(), "missing.ini")), run(ini));
+        Scheduler scheduler = new Scheduler(new WorkflowMetadata(folder.getRoot()), new HashMap<String, String>());
+        List<ReturnValue> results = scheduler.scheduleInstalledBundle("1", runs, true, new ArrayList<String>(), "localhost", "oozie");
+
+        assertEquals(2, results.size());
+        assertEquals(ReturnValue.FAILURE, results.get(0).getExitStatus());
+        assertEquals(ReturnValue.SUCCESS, results.get(1).getExitStatus());
+        assertEquals(100, results.get(1).getReturnValue());
+    }
+
+    /**
+     * Knows one installed workflow, with accession 1, and gives each new run of it accession 100.
+     */
+    private static class WorkflowMetadata extends MetadataNoConnection {
+
+        private final File bundleDir;
+
+        private WorkflowMetadata(File bundleDir) {
+            this.bundleDir = bundleDir;
+        }
+
+        @Override
+        public Map<String, String> get_workflow_info(int workflowAccession) {
+            Map<String, String> workflow = new HashMap<>();
+            workflow.put("workflow_accession", String.valueOf(workflowAccession));
+            workflow.put("current_working_dir", bundleDir.getAbsolutePath());
+            return workflow;
+        }
+
+        @Override
+        public SortedSet<WorkflowParam> getWorkflowParams(String swAccession) {
+            return new TreeSet<>();
+        }
+
+        @Override
+        public int get_workflow_run_accession(int workflowRunId) {
+            return 100;
+        }
+    }
+
+    private static Scheduler.ScheduledRun run(File ini) {
+        return new Scheduler.ScheduledRun(Collections.singletonList(ini.getAbsolutePath()), new ArrayList<String>(),
+                new ArrayList<String>(), null);
+    }
+}
@@ -0,0 +1,26 @@
+package io.seqware.pipeline.plugins;
+
+import net.sourceforge.seqware.common.metadata.Metadata;
+import net.sourceforge.seqware.common.metadata.MetadataNoConnection;
+import net.sourceforge.seqware.common.metadata.MetadataWS;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+
+public class WorkflowLauncherThreadsTest {
+
+    @Test
+    public void testWebServiceMetadataIsShared() {
+        assertEquals(4, WorkflowLauncher.launchThreads(4, mock(MetadataWS.class)));
+    }
+
+    /**
+     * Metadata other than the web service, such as MetadataDB with its single connection, gets the runs one at a time.
+     */
+    @Test
+    public void testOtherMetadataIsNotShared() {
+        assertEquals(1, WorkflowLauncher.launchThreads(4, new MetadataNoConnection()));
+        assertEquals(1, WorkflowLauncher.launchThreads(4, mock(Metadata.class)));
+        assertEquals(1, WorkflowLauncher.launchThreads(1, new MetadataNoConnection()));
+    }
+}
@@ -0,0 +1,167 @@
+package net.sourceforge.seqware.pipeline.bundle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+import net.sourceforge.seqware.common.metadata.MetadataNoConnection;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import net.sourceforge.seqware.common.util.maptools.MapTools;
+import net.sourceforge.seqware.common.util.workflowtools.WorkflowInfo;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BundleZipTest {
+
+    private static final String METADATA = "<bundle version=\"1.0\">\n"
+            + "  <workflow name=\"HelloWorld\" version=\"1.0\" seqware_version=\"1.1.0\">\n"
+            + "    <description>Says hello</description>\n"
+            + "    <workflow_class path=\"${workflow_bundle_dir}/Workflow_Bundle_HelloWorld/1.0/classes/HelloWorld.java\"/>\n"
+            + "    <config path=\"${workflow_bundle_dir}/Workflow_Bundle_HelloWorld/1.0/config/workflow.ini\"/>\n"
+            + "    <requirements compute=\"single\" memory=\"20M\" network=\"local\" workflow_engine=\"Oozie\" workflow_type=\"java\"/>\n"
+            + "  </workflow>\n" + "</bundle>\n";
+
+    private static final long TIME = 1400000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File createBundle(String name, String ini) throws IOException {
+        File zip = new File(folder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+            add(out, "Workflow_Bundle_HelloWorld/1.0/metadata.xml", METADATA);
+            add(out, "Workflow_Bundle_HelloWorld/1.0/config/workflow.ini", ini);
+            add(out, "Workflow_Bundle_HelloWorld/1.0/bin/metadata.xml", "<not-the-metadata/>");
+            add(out, "Workflow_Bundle_HelloWorld/1.0/data/reference.fa", ">chr1\nACGT\n");
+        }
+        return zip;
+    }
+
+    private static void add(ZipOutputStream out, String name, String contents) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        // a fixed time so that zipping the same contents gives the same central directory
+        entry.setTime(TIME);
+        out.putNextEntry(entry);
+        out.write(contents.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    @Test
+    public void testReadMetadata() throws IOException {
+        try (BundleZip zip = new BundleZip(createBundle("bundle.zip", "foo=bar\n"), null)) {
+            assertEquals("Workflow_Bundle_HelloWorld/1.0/metadata.xml", zip.findMetadataEntry());
+            assertTrue(zip.hasEntry("Workflow_Bundle_HelloWorld/1.0/config/workflow.ini"));
+            assertFalse(zip.hasEntry("Workflow_Bundle_HelloWorld/1.0/config/missing.ini"));
+
+            BundleInfo bi = zip.getBundleInfo();
+            assertEquals(1, bi.getWorkflowInfo().size());
+            WorkflowInfo wi = bi.getWorkflowInfo().get(0);
+            assertEquals("HelloWorld", wi.getName());
+            assertEquals("Says hello", wi.getDescription());
+        }
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        File index = new File(folder.getRoot(), BundleZip.INDEX_DIR);
+        File bundle = createBundle("bundle.zip", "foo=bar\n");
+        String checksum;
+        try (BundleZip zip = new BundleZip(bundle, index)) {
+            checksum = zip.getChecksum();
+            assertEquals(1, zip.getBundleInfo().getWorkflowInfo().size());
+        }
+        assertTrue(new File(index, checksum + ".entries").exists());
+        assertTrue(new File(index, checksum + ".metadata.xml").exists());
+
+        // the same contents zipped again have the same checksum, so the index is used
+        try (BundleZip zip = new BundleZip(createBundle("copy.zip", "foo=bar\n"), index)) {
+            assertEquals(checksum, zip.getChecksum());
+            assertEquals("HelloWorld", zip.getBundleInfo().getWorkflowInfo().get(0).getName());
+            assertEquals(4, zip.getEntries().size());
+        }
+        try (BundleZip zip = new BundleZip(createBundle("changed.zip", "foo=baz\n"), index)) {
+            assertNotEquals(checksum, zip.getChecksum());
+        }
+    }
+
+    @Test
+    public void testExtractOneMember() throws IOException {
+        File outputDir = folder.newFolder("expanded");
+        try (BundleZip zip = new BundleZip(createBundle("bundle.zip", "foo=bar\n"), null)) {
+            File ini = zip.extract("Workflow_Bundle_HelloWorld/1.0/config/workflow.ini", outputDir);
+            assertEquals("foo=bar\n", FileUtils.readFileToString(ini));
+        }
+        assertFalse(new File(outputDir, "Workflow_Bundle_HelloWorld/1.0/data/reference.fa").exists());
+    }
+
+    @Test(expected = ZipException.class)
+    public void testExtractOutsideOfBundle() throws IOException {
+        try (BundleZip zip = new BundleZip(createBundle("bundle.zip", "foo=bar\n"), null)) {
+            zip.extract("../escaped.txt", folder.newFolder("expanded"));
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testNotAZip() throws IOException {
+        File notAZip = folder.newFile("bundle.zip");
+        FileUtils.writeStringToFile(notAZip, "not a zip");
+        new BundleZip(notAZip, null).close();
+    }
+
+    /**
+     * A zip-only install is not unzipped, but the INI of each workflow is still found under the provision dir it is given.
+     */
+    @Test
+    public void testInstallZipOnly() throws IOException {
+        File bundle = createBundle("bundle.zip", "foo=bar\n");
+        Map<String, String> config = new HashMap<>();
+        config.put("SW_BUNDLE_REPO_DIR", folder.newFolder("repo").getAbsolutePath());
+        IniReadingMetadata meta = new IniReadingMetadata();
+        List<String> installed = new ArrayList<>();
+
+        ReturnValue ret = new Bundle(meta, config).installBundleZipOnly(bundle, null, installed);
+        assertEquals(ReturnValue.SUCCESS, ret.getExitStatus());
+        assertEquals("bar", meta.params.get("foo").get("default_value"));
+        assertNull("the provision dir should not be stored", meta.storedProvisionDir);
+        assertFalse("the INI should only be extracted for the install", new File(meta.provisionDir).exists());
+        assertEquals(1, installed.size());
+    }
+
+    /**
+     * Reads the params of the INI like MetadataWS does.
+     */
+    private static class IniReadingMetadata extends MetadataNoConnection {
+
+        private final Map<String, Map<String, String>> params = new HashMap<>();
+        private String provisionDir;
+        private String storedProvisionDir;
+
+        @Override
+        public ReturnValue addWorkflow(String name, String version, String description, String baseCommand, String configFile,
+                String templateFile, String provisionDir, boolean storeProvisionDir, String archiveZip, boolean storeArchiveZip,
+                String workflow_class, String workflow_type, String workflow_engine) {
+            this.provisionDir = provisionDir;
+            if (storeProvisionDir) {
+                storedProvisionDir = provisionDir;
+            }
+            MapTools.ini2RichMap(configFile.replaceAll("\\$\\{workflow_bundle_dir\\}", provisionDir), params);
+            ReturnValue ret = new ReturnValue(ReturnValue.SUCCESS);
+            ret.setAttribute("sw_accession", "1");
+            return ret;
+        }
+    }
+}
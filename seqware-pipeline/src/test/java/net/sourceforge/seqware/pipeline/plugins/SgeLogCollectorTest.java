@@ -0,0 +1,105 @@
+package net.sourceforge.seqware.pipeline.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import net.sourceforge.seqware.common.util.TruncatedLog;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SgeLogCollectorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void append(File f, String text) throws IOException {
+        FileUtils.writeStringToFile(f, text, StandardCharsets.UTF_8.name(), true);
+    }
+
+    @Test
+    public void testReadsOnlyAppendedOutput() throws IOException {
+        File dir = folder.getRoot();
+        File out = new File(dir, "s101_bwa.o101");
+        append(out, "first line\n");
+        append(new File(dir, "s101_bwa.e101"), "warning\n");
+        append(new File(dir, "s101_bwa.sh"), "not output\n");
+
+        SgeLogCollector logs = new SgeLogCollector(dir, 1000);
+        assertTrue(logs.isFirstCollection());
+        String stdOut = logs.collectStdOut();
+        assertTrue(stdOut.contains("Job Name: s101_bwa"));
+        assertTrue(stdOut.contains("Contents:\nfirst line\n"));
+        assertFalse(stdOut.contains("not output"));
+        assertTrue(logs.collectStdErr().contains("warning\n"));
+        logs.commit();
+
+        // a new collector, as the next status checker run would have
+        logs = new SgeLogCollector(dir, 1000);
+        assertFalse(logs.isFirstCollection());
+        assertEquals("", logs.collectStdOut());
+        append(out, "second line\n");
+        stdOut = logs.collectStdOut();
+        assertTrue(stdOut.contains("Contents from byte 11:\nsecond line\n"));
+        assertFalse(stdOut.contains("first line"));
+        assertEquals("", logs.collectStdErr());
+    }
+
+    @Test
+    public void testUncommittedOutputIsReadAgain() throws IOException {
+        File dir = folder.getRoot();
+        append(new File(dir, "s102_gatk.o102"), "lost\n");
+        new SgeLogCollector(dir, 1000).collectStdOut();
+        assertTrue(new SgeLogCollector(dir, 1000).collectStdOut().contains("lost\n"));
+    }
+
+    @Test
+    public void testLargeOutputIsTruncated() throws IOException {
+        File dir = folder.getRoot();
+        StringBuilder sb = new StringBuilder("head");
+        for (int i = 0; i < 10000; i++) {
+            sb.append('.');
+        }
+        append(new File(dir, "s101_bwa.o101"), sb.append("tail").toString());
+        String stdOut = new SgeLogCollector(dir, 200).collectStdOut();
+        assertTrue(stdOut.contains("head"));
+        assertTrue(stdOut.contains(TruncatedLog.MARKER));
+        assertTrue(stdOut.contains("tail"));
+        assertTrue(stdOut.length() < 1000);
+    }
+
+    @Test
+    public void testPartialCharacterIsLeftForLater() {
+        byte[] euro = "a\u20ac".getBytes(StandardCharsets.UTF_8);
+        assertEquals(euro.length, SgeLogCollector.completeLength(euro));
+        assertEquals(1, SgeLogCollector.completeLength(Arrays.copyOf(euro, 3)));
+        assertEquals(1, SgeLogCollector.completeLength(Arrays.copyOf(euro, 2)));
+    }
+
+    @Test
+    public void testTruncationKeepsCharactersWhole() throws IOException {
+        File dir = folder.getRoot();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append('\u20ac');
+        }
+        append(new File(dir, "s101_bwa.o101"), sb.toString());
+        // neither half of what is retained is a whole number of three byte characters
+        String stdOut = new SgeLogCollector(dir, 200).collectStdOut();
+        assertTrue(stdOut.contains(TruncatedLog.MARKER));
+        assertFalse("no character should be split", stdOut.contains("\ufffd"));
+    }
+
+    @Test
+    public void testContinuationBytesAreSkipped() {
+        byte[] euro = "\u20aca".getBytes(StandardCharsets.UTF_8);
+        assertEquals(0, SgeLogCollector.firstCharacter(euro));
+        assertEquals(2, SgeLogCollector.firstCharacter(Arrays.copyOfRange(euro, 1, euro.length)));
+        assertEquals(1, SgeLogCollector.firstCharacter(Arrays.copyOfRange(euro, 2, euro.length)));
+    }
+}
@@ -18,8 +18,10 @@ package net.sourceforge.seqware.pipeline.plugins;
 
 import io.seqware.common.model.WorkflowRunStatus;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import joptsimple.OptionSet;
 import net.sourceforge.seqware.common.model.WorkflowRun;
 import net.sourceforge.seqware.common.module.ReturnValue;
@@ -35,9 +37,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import org.mockito.Mock;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -56,6 +60,9 @@ import org.powermock.modules.junit4.PowerMockRunner;
 @RunWith(PowerMockRunner.class)
 public class WorkflowStatusCheckerTest {
 
+    private static final Set<WorkflowRunStatus> ACTIVE_STATUSES = EnumSet.of(WorkflowRunStatus.running, WorkflowRunStatus.pending,
+            WorkflowRunStatus.submitted_cancel, WorkflowRunStatus.submitted_retry);
+
     @Mock
     private Map<String, String> config;
 
@@ -68,6 +75,9 @@ public class WorkflowStatusCheckerTest {
     @InjectMocks
     private WorkflowStatusChecker workflowStatusChecker;
 
+    private List<WorkflowRun> fakeRuns;
+    private OozieClient oozieClient;
+
     @Before
     public void initMocks() throws Exception {
         reset(config, options, metadata);
@@ -77,6 +87,7 @@ public class WorkflowStatusCheckerTest {
         when(options.has("force-host")).thenReturn(true);
         when(options.valueOf("force-host")).thenReturn("localhost");
         when(config.get("SW_REST_USER")).thenReturn("user");
+        when(config.get("OOZIE_URL")).thenReturn("http://localhost:11000/oozie");
     }
 
     @After
@@ -98,16 +109,27 @@ public class WorkflowStatusCheckerTest {
         workflowStatusChecker.init();
     }
 
+    @Test
+    public void testInitWithoutOozieUrl() {
+        when(config.get("OOZIE_URL")).thenReturn(null);
+        final ReturnValue ret = workflowStatusChecker.init();
+        Assert.assertEquals(ReturnValue.FAILURE, ret.getExitStatus());
+    }
+
+    @Test
+    public void testInitWithNegativeRetainedSize() {
+        when(config.get(WorkflowStatusChecker.LOG_RETAINED_SIZE)).thenReturn("-1");
+        final ReturnValue ret = workflowStatusChecker.init();
+        Assert.assertEquals(ReturnValue.FAILURE, ret.getExitStatus());
+    }
+
     @Test
     public void testEmptyRun() {
         final ReturnValue ret1 = workflowStatusChecker.init();
         Assert.assertTrue("workflowStatusChecker could not init", ret1.getExitStatus() == ReturnValue.SUCCESS);
         final ReturnValue ret2 = workflowStatusChecker.do_run();
         Assert.assertTrue("workflowStatusChecker ran properly", ret2.getExitStatus() == ReturnValue.SUCCESS);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.running);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.pending);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.submitted_cancel);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.submitted_retry);
+        verify(metadata).getWorkflowRunStatuses(ACTIVE_STATUSES, null);
         verifyNoMoreInteractions(metadata);
     }
 
@@ -146,6 +168,30 @@ public class WorkflowStatusCheckerTest {
         verifyNormalRun(ret2);
     }
 
+    @Test
+    public void testListedRunsAreNotLookedUp() throws Exception {
+        final ReturnValue ret1 = workflowStatusChecker.init();
+        Assert.assertTrue("workflowStatusChecker could not init", ret1.getExitStatus() == ReturnValue.SUCCESS);
+        mockupFakeRuns();
+
+        // every job is still running, as the metadata database already knows
+        List<WorkflowJob> listed = new ArrayList<>();
+        for (WorkflowRun wr : fakeRuns) {
+            wr.setStatus(WorkflowRunStatus.running);
+            WorkflowJob job = mock(WorkflowJob.class);
+            when(job.getId()).thenReturn(wr.getStatusCmd());
+            when(job.getStatus()).thenReturn(WorkflowJob.Status.RUNNING);
+            listed.add(job);
+        }
+        when(oozieClient.getJobsInfo(anyString(), anyInt(), anyInt())).thenReturn(listed);
+
+        final ReturnValue ret2 = workflowStatusChecker.do_run();
+        Assert.assertTrue("workflowStatusChecker ran properly", ret2.getExitStatus() == ReturnValue.SUCCESS);
+        verify(oozieClient, never()).getJobInfo(anyString());
+        verify(metadata, never()).updateWorkflowRun(any(WorkflowRun.class));
+        verify(metadata).endBatch();
+    }
+
     /**
      * For testing purposes, create some workflow runs and make our mocks aware of them
      * 
@@ -154,6 +200,7 @@ public class WorkflowStatusCheckerTest {
     private void mockupFakeRuns() throws Exception {
         // mock up some fake workflow_runs so that their status can be checked
         List<WorkflowRun> wrList = new ArrayList<>();
+        fakeRuns = wrList;
         for (int i = 0; i < 100; i++) {
             WorkflowRun wr = new WorkflowRun();
             wr.setOwnerUserName("user");
@@ -173,8 +220,8 @@ public class WorkflowStatusCheckerTest {
         PowerMockito.mockStatic(FileTools.class);
         when(FileTools.getLocalhost(options)).thenReturn(new LocalhostPair("localhost", new ReturnValue(ReturnValue.SUCCESS)));
         when(FileTools.isFileOwner(anyString())).thenReturn(true);
-        final OozieClient oozieClient = mock(OozieClient.class);
-        PowerMockito.whenNew(OozieClient.class).withAnyArguments().thenReturn(oozieClient);
+        oozieClient = mock(OozieClient.class);
+        workflowStatusChecker.setOozieClient(oozieClient);
 
         final WorkflowJob workflowJob = mock(WorkflowJob.class);
         when(oozieClient.getJobInfo(anyString())).thenReturn(workflowJob);
@@ -184,7 +231,7 @@ public class WorkflowStatusCheckerTest {
         fakeReturn.setAttribute("currStep", "1");
         fakeReturn.setAttribute("totalSteps", "1");
 
-        when(metadata.getWorkflowRunsByStatus(WorkflowRunStatus.running)).thenReturn(wrList);
+        when(metadata.getWorkflowRunStatuses(ACTIVE_STATUSES, null)).thenReturn(wrList);
     }
 
     /**
@@ -194,10 +241,7 @@ public class WorkflowStatusCheckerTest {
      */
     private void verifyNormalRun(final ReturnValue ret2) {
         Assert.assertTrue("workflowStatusChecker ran properly", ret2.getExitStatus() == ReturnValue.SUCCESS);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.running);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.pending);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.submitted_cancel);
-        verify(metadata).getWorkflowRunsByStatus(WorkflowRunStatus.submitted_retry);
+        verify(metadata).getWorkflowRunStatuses(ACTIVE_STATUSES, null);
         verify(metadata, times(100)).updateWorkflowRun(any(WorkflowRun.class));
     }
 }
@@ -0,0 +1,212 @@
+package net.sourceforge.seqware.pipeline.runner;
+
+import io.seqware.common.model.ProcessingStatus;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.sourceforge.seqware.common.metadata.MetadataNoConnection;
+import net.sourceforge.seqware.common.metadata.ProcessingEvent;
+import net.sourceforge.seqware.common.model.ProcessingAttribute;
+import net.sourceforge.seqware.common.module.FileMetadata;
+import net.sourceforge.seqware.common.module.ReturnValue;
+import net.sourceforge.seqware.pipeline.module.Module;
+import net.sourceforge.seqware.pipeline.modules.utilities.ProvisionFiles;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private RecordingMetadata meta;
+    private File accessions;
+
+    @Before
+    public void setUp() {
+        meta = new RecordingMetadata();
+        accessions = new File(folder.getRoot(), "accessions.txt");
+    }
+
+    /**
+     * Every line runs, and all processing events are recorded with one call before the accession files are written.
+     */
+    @Test
+    public void testBatch() throws IOException {
+        int exit = run(line(SucceedingModule.class, "/data/first.bam"), line(SucceedingModule.class, "/data/second.bam"));
+
+        assertEquals(ReturnValue.SUCCESS, exit);
+        assertEquals(1, meta.calls);
+        assertEquals(2, meta.events.size());
+        for (ProcessingEvent event : meta.events) {
+            assertEquals(ProcessingStatus.success, event.getStatus());
+        }
+        assertEquals("/data/first.bam", meta.events.get(0).getReturnValue().getFiles().get(0).getFilePath());
+        assertEquals("/data/second.bam", meta.events.get(1).getReturnValue().getFiles().get(0).getFilePath());
+        assertEquals(Arrays.asList("1", "2"), FileUtils.readLines(accessions));
+    }
+
+    /**
+     * A line that fails is recorded as failed and gets no accession file, the others are not held back by it.
+     */
+    @Test
+    public void testFailure() throws IOException {
+        int exit = run(line(FailingModule.class, "/data/first.bam"), line(SucceedingModule.class, "/data/second.bam"));
+
+        assertEquals(ReturnValue.FAILURE, exit);
+        assertEquals(1, meta.calls);
+        assertEquals(ProcessingStatus.failed, meta.events.get(0).getStatus());
+        assertEquals(ProcessingStatus.success, meta.events.get(1).getStatus());
+        assertEquals(Arrays.asList("2"), FileUtils.readLines(accessions));
+    }
+
+    /**
+     * When the events cannot be recorded no accession file is written, so that the batch is run again as a whole.
+     */
+    @Test
+    public void testMetadataFailure() throws IOException {
+        meta.failing = true;
+        int exit = run(line(SucceedingModule.class, "/data/first.bam"), line(SucceedingModule.class, "/data/second.bam"));
+
+        assertEquals(ReturnValue.SQLQUERYFAILED, exit);
+        assertFalse(accessions.exists());
+    }
+
+    /**
+     * ProvisionFiles copies the file, and the attributes of its key-value file are attached to the processing event once it is recorded.
+     */
+    @Test
+    public void testProvisioning() throws IOException {
+        File keyValues = folder.newFile("attributes.txt");
+        FileUtils.writeStringToFile(keyValues, "key\tvalue\n");
+        File output = new File(folder.getRoot(), "output");
+        int exit = run(line(ProvisionFiles.class, "--input-file-metadata", "ProvisionFiles::text/key-value::" + keyValues.getAbsolutePath(),
+                "--output-dir", output.getAbsolutePath(), "--force-copy"));
+
+        assertEquals(ReturnValue.SUCCESS, exit);
+        assertTrue(new File(output, keyValues.getName()).exists());
+        assertEquals(1, meta.events.size());
+        ProcessingAttribute attribute = meta.attributes.get(1).iterator().next();
+        assertEquals("key", attribute.getTag());
+        assertEquals("value", attribute.getValue());
+    }
+
+    /**
+     * Outside of a batch ProvisionFiles does not keep the attributes of a key-value file when it has no processing event.
+     */
+    @Test
+    public void testProvisioningOutsideBatch() throws IOException {
+        File keyValues = folder.newFile("attributes.txt");
+        FileUtils.writeStringToFile(keyValues, "key\tvalue\n");
+        ProvisionFiles provisionFiles = new ProvisionFiles();
+        provisionFiles.setMetadata(meta);
+        provisionFiles.setParameters(Arrays.asList("--input-file-metadata", "ProvisionFiles::text/key-value::" + keyValues.getAbsolutePath(),
+                "--output-dir", new File(folder.getRoot(), "output").getAbsolutePath(), "--force-copy"));
+
+        assertEquals(ReturnValue.SUCCESS, provisionFiles.do_verify_parameters().getExitStatus());
+        assertEquals(ReturnValue.SUCCESS, provisionFiles.do_verify_input().getExitStatus());
+        assertEquals(ReturnValue.SUCCESS, provisionFiles.do_run().getExitStatus());
+        assertTrue(provisionFiles.getDeferredAttributes().isEmpty());
+    }
+
+    private int run(String... lines) throws IOException {
+        File manifest = folder.newFile("batch-manifest.tsv");
+        FileUtils.writeLines(manifest, Arrays.asList(lines));
+        return new BatchRunner(meta).run(new String[] { "--manifest", manifest.getAbsolutePath(), "--threads", "2" });
+    }
+
+    /**
+     * @return a manifest line that runs the module with the parameters
+     */
+    private String line(Class<? extends Module> module, String... parameters) {
+        List<String> args = new ArrayList<>(Arrays.asList("--module", module.getName(), "--metadata-processing-accession-file",
+                accessions.getAbsolutePath(), "--metadata-tries-delay", "0", "--"));
+        args.addAll(Arrays.asList(parameters));
+        StringBuilder line = new StringBuilder();
+        for (String arg : args) {
+            line.append(line.length() == 0 ? "" : "\t").append(arg);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Reports the file it is given as its output.
+     */
+    public static class SucceedingModule extends Module {
+
+        @Override
+        public ReturnValue do_run() {
+            ReturnValue ret = new ReturnValue();
+            ret.getFiles().add(new FileMetadata(getParameters().get(0), "application/bam"));
+            return ret;
+        }
+
+        @Override
+        public ReturnValue do_test() {
+            return new ReturnValue();
+        }
+
+        @Override
+        public ReturnValue do_verify_input() {
+            return new ReturnValue();
+        }
+
+        @Override
+        public ReturnValue do_verify_parameters() {
+            return new ReturnValue();
+        }
+
+        @Override
+        public ReturnValue do_verify_output() {
+            return new ReturnValue();
+        }
+    }
+
+    public static class FailingModule extends SucceedingModule {
+
+        @Override
+        public ReturnValue do_run() {
+            return new ReturnValue(ReturnValue.FAILURE);
+        }
+    }
+
+    /**
+     * Numbers the processing events from 1 in the order they are recorded.
+     */
+    private static class RecordingMetadata extends MetadataNoConnection {
+
+        private final List<ProcessingEvent> events = new ArrayList<>();
+        private final Map<Integer, Set<ProcessingAttribute>> attributes = new HashMap<>();
+        private int calls = 0;
+        private boolean failing = false;
+
+        @Override
+        public synchronized List<Integer> addProcessingEvents(List<ProcessingEvent> events) {
+            calls++;
+            if (failing) {
+                throw new RuntimeException("could not connect");
+            }
+            List<Integer> accessions = new ArrayList<>();
+            for (ProcessingEvent event : events) {
+                this.events.add(event);
+                accessions.add(this.events.size());
+            }
+            return accessions;
+        }
+
+        @Override
+        public synchronized void annotateProcessing(int processingSWID, Set<ProcessingAttribute> atts) {
+            attributes.put(processingSWID, atts);
+        }
+    }
+}
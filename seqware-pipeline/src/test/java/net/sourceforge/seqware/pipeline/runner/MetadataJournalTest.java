@@ -0,0 +1,82 @@
+package net.sourceforge.seqware.pipeline.runner;
+
+import io.seqware.common.model.ProcessingStatus;
+import java.io.File;
+import java.io.IOException;
+import net.sourceforge.seqware.pipeline.runner.MetadataJournal.Record;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MetadataJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNoJournal() throws IOException {
+        assertNull(new MetadataJournal(new File(folder.getRoot(), "missing.journal")).lastStep());
+    }
+
+    @Test
+    public void testCommittedStep() throws IOException {
+        MetadataJournal journal = new MetadataJournal(folder.newFile("step.journal"));
+        journal.append(Record.begin, 12, 3456);
+        journal.append(Record.method, "init", 0);
+        journal.append(Record.method, "do_run", 0);
+        journal.append(Record.commit, ProcessingStatus.success);
+        journal.append(Record.committed, ProcessingStatus.success);
+
+        MetadataJournal.Step step = journal.lastStep();
+        assertEquals(12, step.getProcessingId());
+        assertEquals(3456, step.getAccession());
+        assertTrue(step.isCommitSent());
+        assertEquals(ProcessingStatus.success, step.getCommitted());
+    }
+
+    @Test
+    public void testCrashBeforeCommit() throws IOException {
+        MetadataJournal journal = new MetadataJournal(folder.newFile("step.journal"));
+        journal.append(Record.begin, 12, 3456);
+        journal.append(Record.method, "init", 0);
+
+        MetadataJournal.Step step = journal.lastStep();
+        assertEquals(3456, step.getAccession());
+        assertFalse(step.isCommitSent());
+        assertNull(step.getCommitted());
+    }
+
+    @Test
+    public void testRetryAfterFailure() throws IOException {
+        MetadataJournal journal = new MetadataJournal(folder.newFile("step.journal"));
+        journal.append(Record.begin, 12, 3456);
+        journal.append(Record.commit, ProcessingStatus.failed);
+        journal.append(Record.committed, ProcessingStatus.failed);
+        journal.append(Record.begin, 13, 3457);
+        journal.append(Record.commit, ProcessingStatus.success);
+
+        MetadataJournal.Step step = journal.lastStep();
+        assertEquals(13, step.getProcessingId());
+        assertTrue(step.isCommitSent());
+        assertNull(step.getCommitted());
+    }
+
+    @Test
+    public void testTornRecord() throws IOException {
+        File file = folder.newFile("step.journal");
+        MetadataJournal journal = new MetadataJournal(file);
+        journal.append(Record.begin, 12, 3456);
+        journal.append(Record.commit, ProcessingStatus.success);
+        FileUtils.writeStringToFile(file, FileUtils.readFileToString(file) + "committed\tsucc");
+
+        MetadataJournal.Step step = journal.lastStep();
+        assertEquals(3456, step.getAccession());
+        assertTrue(step.isCommitSent());
+        assertNull(step.getCommitted());
+    }
+}
@@ -0,0 +1,83 @@
+package net.sourceforge.seqware.pipeline.workflowV2;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorkflowBundleCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testProvisionOnce() throws Exception {
+        final WorkflowBundleCache cache = new WorkflowBundleCache();
+        final File bundle = folder.newFolder("bundle");
+        final AtomicInteger provisioned = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<File>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(new Callable<File>() {
+                @Override
+                public File call() throws Exception {
+                    start.await();
+                    return cache.provision("s3://bucket/bundle.zip", new Callable<File>() {
+                        @Override
+                        public File call() throws Exception {
+                            provisioned.incrementAndGet();
+                            Thread.sleep(100);
+                            return bundle;
+                        }
+                    });
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<File> future : futures) {
+            assertEquals(bundle, future.get());
+        }
+        pool.shutdown();
+        assertEquals(1, provisioned.get());
+    }
+
+    @Test
+    public void testFailedProvisionIsRetried() {
+        WorkflowBundleCache cache = new WorkflowBundleCache();
+        try {
+            cache.provision("s3://bucket/bundle.zip", new Callable<File>() {
+                @Override
+                public File call() {
+                    throw new RuntimeException("S3 is down");
+                }
+            });
+            fail("The provisioning failure should be thrown");
+        } catch (RuntimeException e) {
+            assertEquals("S3 is down", e.getMessage());
+        }
+        final File bundle = folder.getRoot();
+        assertEquals(bundle, cache.provision("s3://bucket/bundle.zip", new Callable<File>() {
+            @Override
+            public File call() {
+                return bundle;
+            }
+        }));
+    }
+
+    @Test
+    public void testNoMetadata() throws Exception {
+        assertNull(new WorkflowBundleCache().get(12, folder.newFolder("empty")));
+    }
+}
@@ -0,0 +1,116 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.local;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.local.LocalScheduler.JobStatus;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.OozieJob;
+import net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object.StubOozieJob;
+import net.sourceforge.seqware.pipeline.workflowV2.model.BashJob;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalSchedulerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<OozieJob> jobs = new ArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger mostRunning = new AtomicInteger();
+    private final Map<OozieJob, Long> starts = Collections.synchronizedMap(new HashMap<OozieJob, Long>());
+    private final Map<OozieJob, Long> ends = Collections.synchronizedMap(new HashMap<OozieJob, Long>());
+
+    private OozieJob job(int threads, String memory, OozieJob... parents) {
+        BashJob bashJob = new BashJob("job_" + jobs.size());
+        bashJob.setThreads(threads);
+        bashJob.setMaxMemory(memory);
+        OozieJob job = new StubOozieJob(bashJob, folder.getRoot());
+        for (OozieJob parent : parents) {
+            job.addParent(parent);
+        }
+        jobs.add(job);
+        return job;
+    }
+
+    private Map<OozieJob, JobStatus> run(LocalScheduler scheduler, final OozieJob failing) throws InterruptedException {
+        return scheduler.run(jobs, new LocalScheduler.JobExecutor() {
+            @Override
+            public boolean execute(OozieJob job) throws InterruptedException {
+                starts.put(job, System.nanoTime());
+                int now = running.incrementAndGet();
+                synchronized (mostRunning) {
+                    mostRunning.set(Math.max(mostRunning.get(), now));
+                }
+                Thread.sleep(50);
+                running.decrementAndGet();
+                ends.put(job, System.nanoTime());
+                return job != failing;
+            }
+        });
+    }
+
+    private void assertParentsFirst() {
+        for (OozieJob job : starts.keySet()) {
+            for (OozieJob parent : job.getParents()) {
+                assertTrue(job + " started before " + parent, ends.get(parent) <= starts.get(job));
+            }
+        }
+    }
+
+    @Test
+    public void testDependenciesAndThreads() throws InterruptedException {
+        OozieJob root = job(1, "100");
+        List<OozieJob> middle = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            middle.add(job(1, "100", root));
+        }
+        job(1, "100", middle.toArray(new OozieJob[middle.size()]));
+
+        Map<OozieJob, JobStatus> statuses = run(new LocalScheduler(3, 1000), null);
+        assertEquals(jobs.size(), LocalScheduler.withStatus(statuses, JobStatus.completed).size());
+        assertEquals(3, mostRunning.get());
+        assertParentsFirst();
+    }
+
+    @Test
+    public void testMemory() throws InterruptedException {
+        OozieJob root = job(1, "");
+        for (int i = 0; i < 4; i++) {
+            job(1, "600", root);
+        }
+        Map<OozieJob, JobStatus> statuses = run(new LocalScheduler(4, 1000), null);
+        assertEquals(jobs.size(), LocalScheduler.withStatus(statuses, JobStatus.completed).size());
+        assertEquals(1, mostRunning.get());
+    }
+
+    @Test
+    public void testJobLargerThanHost() throws InterruptedException {
+        OozieJob root = job(1, "100");
+        job(16, "64000", root);
+        job(1, "100", root);
+        Map<OozieJob, JobStatus> statuses = run(new LocalScheduler(2, 1000), null);
+        assertEquals(jobs.size(), LocalScheduler.withStatus(statuses, JobStatus.completed).size());
+        assertEquals(1, mostRunning.get());
+    }
+
+    @Test
+    public void testFailureStopsDescendants() throws InterruptedException {
+        OozieJob root = job(1, "100");
+        OozieJob bad = job(1, "100", root);
+        OozieJob good = job(1, "100", root);
+        OozieJob afterBad = job(1, "100", bad);
+        Map<OozieJob, JobStatus> statuses = run(new LocalScheduler(2, 1000), bad);
+        assertEquals(JobStatus.completed, statuses.get(root));
+        assertEquals(JobStatus.failed, statuses.get(bad));
+        assertEquals(JobStatus.completed, statuses.get(good));
+        assertEquals(JobStatus.pending, statuses.get(afterBad));
+        assertParentsFirst();
+    }
+}
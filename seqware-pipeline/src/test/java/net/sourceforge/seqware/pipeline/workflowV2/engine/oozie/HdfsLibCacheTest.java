@@ -0,0 +1,103 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HdfsLibCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MiniDFSCluster cluster;
+    private FileSystem fileSystem;
+    private Path appRoot;
+
+    @Before
+    public void setUp() throws IOException {
+        Configuration conf = new Configuration();
+        conf.set(MiniDFSCluster.HDFS_MINIDFS_BASEDIR, folder.newFolder("hdfs").getAbsolutePath());
+        cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+        fileSystem = cluster.getFileSystem();
+        appRoot = fileSystem.makeQualified(new Path("/user/seqware/oozie"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fileSystem.close();
+        cluster.shutdown();
+    }
+
+    private File jar(String name, String contents) throws IOException {
+        File jar = new File(folder.getRoot(), name);
+        FileUtils.writeStringToFile(jar, contents);
+        return jar;
+    }
+
+    private Path run(String name) throws IOException {
+        Path workDir = new Path(appRoot, name);
+        fileSystem.mkdirs(workDir);
+        return workDir;
+    }
+
+    @Test
+    public void testRunsShareOneCopy() throws IOException {
+        HdfsLibCache cache = new HdfsLibCache(fileSystem, appRoot);
+        File jar = jar("seqware-distribution-1.1.0-full.jar", "classes");
+
+        Path first = cache.stage(jar, run("oozie-1").getName());
+        Path second = cache.stage(jar, run("oozie-2").getName());
+        assertEquals(first, second);
+        assertTrue(fileSystem.exists(new Path(first, jar.getName())));
+        assertEquals(1, fileSystem.listStatus(first).length);
+        assertEquals(2, cache.references(HdfsLibCache.checksum(jar)));
+
+        Path other = cache.stage(jar("seqware-distribution-1.1.1-full.jar", "other classes"), run("oozie-3").getName());
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void testCollectUnreferenced() throws IOException {
+        HdfsLibCache cache = new HdfsLibCache(fileSystem, appRoot, 0);
+        File used = jar("used.jar", "used");
+        File unused = jar("unused.jar", "unused");
+        Path usedDir = cache.stage(used, run("oozie-1").getName());
+        Path unusedDir = cache.stage(unused, run("oozie-2").getName());
+
+        // the second run succeeded, deleting its work directory
+        fileSystem.delete(new Path(appRoot, "oozie-2"), true);
+        assertEquals(0, cache.references(HdfsLibCache.checksum(unused)));
+
+        assertEquals(1, cache.collectGarbage());
+        assertTrue(fileSystem.exists(usedDir));
+        assertFalse(fileSystem.exists(unusedDir));
+
+        // staging it again brings it back
+        Path restaged = cache.stage(unused, run("oozie-3").getName());
+        assertTrue(fileSystem.exists(new Path(restaged, unused.getName())));
+    }
+
+    @Test
+    public void testGracePeriod() throws IOException {
+        HdfsLibCache cache = new HdfsLibCache(fileSystem, appRoot);
+        File jar = jar("recent.jar", "recent");
+        Path dir = cache.stage(jar, run("oozie-1").getName());
+        fileSystem.delete(new Path(appRoot, "oozie-1"), true);
+
+        assertEquals(0, cache.collectGarbage());
+        assertTrue(fileSystem.exists(dir));
+    }
+}
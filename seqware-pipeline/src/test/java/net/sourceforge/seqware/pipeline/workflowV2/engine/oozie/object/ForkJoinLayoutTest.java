@@ -0,0 +1,211 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.sourceforge.seqware.pipeline.workflowV2.model.BashJob;
+import org.jdom.Element;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Simulates the makespan of the fork/join layout, where every job takes a fixed time and a fork or join takes none, against running the
+ * same graph level by level as the workflow.xml used to.
+ */
+public class ForkJoinLayoutTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<OozieJob, Long> durations = new HashMap<>();
+    private final Map<OozieJob, Long> starts = new HashMap<>();
+    private final Map<OozieJob, Long> ends = new HashMap<>();
+    private final List<OozieJob> jobs = new ArrayList<>();
+
+    private static class TestJob extends OozieJob {
+
+        TestJob(String name, File dir) {
+            super(new BashJob(name), name, dir.getAbsolutePath(), false, new File(dir, "seqware.jar"), null, null);
+        }
+
+        @Override
+        protected Element createSgeElement() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected Element createJavaElement() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        durations.clear();
+        starts.clear();
+        ends.clear();
+        jobs.clear();
+    }
+
+    private OozieJob job(long duration, OozieJob... parents) {
+        OozieJob job = new TestJob("job_" + jobs.size(), folder.getRoot());
+        for (OozieJob parent : parents) {
+            job.addParent(parent);
+        }
+        durations.put(job, duration);
+        jobs.add(job);
+        return job;
+    }
+
+    /**
+     * @return when the node finishes if it starts at time
+     */
+    private long simulate(ForkJoinLayout.Node node, long time) {
+        switch (node.kind) {
+        case JOB:
+            starts.put(node.job, time);
+            ends.put(node.job, time + durations.get(node.job));
+            return ends.get(node.job);
+        case SERIAL:
+            for (ForkJoinLayout.Node part : node.parts) {
+                time = simulate(part, time);
+            }
+            return time;
+        default:
+            long join = time;
+            for (ForkJoinLayout.Node part : node.parts) {
+                join = Math.max(join, simulate(part, time));
+            }
+            return join;
+        }
+    }
+
+    private long layoutMakespan() {
+        long makespan = simulate(new ForkJoinLayout(jobs.get(0)).getRoot(), 0);
+        assertEquals("every job runs once", jobs.size(), starts.size());
+        for (OozieJob job : jobs) {
+            for (OozieJob parent : job.getParents()) {
+                assertTrue(job + " started before its parent " + parent, ends.get(parent) <= starts.get(job));
+            }
+        }
+        return makespan;
+    }
+
+    /**
+     * Each job at the level of its longest path from the root, each level waiting for the slowest job in the previous one.
+     */
+    private long levelMakespan() {
+        Map<OozieJob, Integer> levels = new HashMap<>();
+        int deepest = 0;
+        for (OozieJob job : jobs) {
+            int level = 0;
+            for (OozieJob parent : job.getParents()) {
+                level = Math.max(level, levels.get(parent) + 1);
+            }
+            levels.put(job, level);
+            deepest = Math.max(deepest, level);
+        }
+        long[] slowest = new long[deepest + 1];
+        for (OozieJob job : jobs) {
+            slowest[levels.get(job)] = Math.max(slowest[levels.get(job)], durations.get(job));
+        }
+        long makespan = 0;
+        for (long duration : slowest) {
+            makespan += duration;
+        }
+        return makespan;
+    }
+
+    private long criticalPath() {
+        Map<OozieJob, Long> finish = new HashMap<>();
+        long longest = 0;
+        for (OozieJob job : jobs) {
+            long start = 0;
+            for (OozieJob parent : job.getParents()) {
+                start = Math.max(start, finish.get(parent));
+            }
+            finish.put(job, start + durations.get(job));
+            longest = Math.max(longest, finish.get(job));
+        }
+        return longest;
+    }
+
+    @Test
+    public void testWideAlignment() {
+        OozieJob root = job(1);
+        List<OozieJob> sorted = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // alternate fast provisioning with slow alignment and the reverse
+            OozieJob in = job(i % 2 == 0 ? 5 : 60, root);
+            OozieJob align = job(i % 2 == 0 ? 60 : 5, in);
+            sorted.add(job(10, align));
+        }
+        job(3, sorted.toArray(new OozieJob[sorted.size()]));
+
+        assertEquals(criticalPath(), layoutMakespan());
+        assertEquals(1 + 65 + 10 + 3, layoutMakespan());
+        assertEquals(1 + 60 + 60 + 10 + 3, levelMakespan());
+    }
+
+    @Test
+    public void testProvisionOutsAfterAllLeaves() {
+        OozieJob root = job(1);
+        OozieJob fast = job(2, root);
+        OozieJob slow = job(50, root);
+        OozieJob fastChild = job(40, fast);
+        // every leaf is a parent of every provision out
+        OozieJob out1 = job(5, fastChild, slow);
+        job(7, fastChild, slow);
+        job(1, out1);
+
+        assertEquals(criticalPath(), layoutMakespan());
+        assertTrue(layoutMakespan() < levelMakespan());
+    }
+
+    @Test
+    public void testCrossEdges() {
+        OozieJob root = job(1);
+        OozieJob a1 = job(10, root);
+        OozieJob b1 = job(1, root);
+        OozieJob a2 = job(10, a1);
+        OozieJob b2 = job(1, b1);
+        job(1, a2);
+        job(1, b2, a1);
+
+        // not series-parallel, so the layout may add a barrier, but never break an edge or lose a job
+        assertTrue(layoutMakespan() >= criticalPath());
+        assertTrue(layoutMakespan() <= levelMakespan());
+    }
+
+    @Test
+    public void testRandomGraphs() {
+        Random random = new Random(7);
+        long layoutTotal = 0;
+        long levelTotal = 0;
+        for (int graph = 0; graph < 50; graph++) {
+            setUp();
+            job(1);
+            int size = 2 + random.nextInt(40);
+            for (int i = 1; i < size; i++) {
+                List<OozieJob> parents = new ArrayList<>();
+                parents.add(jobs.get(random.nextInt(jobs.size())));
+                if (random.nextInt(4) == 0) {
+                    parents.add(jobs.get(random.nextInt(jobs.size())));
+                }
+                job(1 + random.nextInt(100), parents.toArray(new OozieJob[parents.size()]));
+            }
+            long makespan = layoutMakespan();
+            assertTrue(makespan >= criticalPath());
+            layoutTotal += makespan;
+            levelTotal += levelMakespan();
+        }
+        assertTrue("layout " + layoutTotal + " should beat levels " + levelTotal, layoutTotal < levelTotal);
+    }
+}
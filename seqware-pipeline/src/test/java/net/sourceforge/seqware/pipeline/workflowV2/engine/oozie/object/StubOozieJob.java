@@ -0,0 +1,29 @@
+package net.sourceforge.seqware.pipeline.workflowV2.engine.oozie.object;
+
+import java.io.File;
+import net.sourceforge.seqware.pipeline.workflowV2.model.BashJob;
+import org.jdom.Element;
+
+/**
+ * A job of the graph for tests of the local scheduling of jobs, which cannot be turned into a workflow.xml action.
+ */
+public class StubOozieJob extends OozieJob {
+
+    public StubOozieJob(BashJob job, File dir) {
+        super(job, job.getAlgo(), dir.getAbsolutePath(), false, new File(dir, "seqware.jar"), null, null);
+    }
+
+    public StubOozieJob(String name, File dir) {
+        this(new BashJob(name), dir);
+    }
+
+    @Override
+    protected Element createSgeElement() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Element createJavaElement() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -134,7 +134,7 @@ public class BulkDownloaderController extends BaseCommandController {
 
         for (File file : filesToZip) {
             BufferedInputStream input = util.getSourceReader(file.getFilePath(), BUFFERSIZE, 0);
-            util.copyToFile(input, targetPath, BUFFERSIZE, file.getFilePath());
+            util.copyToFile(input, targetPath, file.getFilePath());
         }
     }
 
@@ -274,7 +274,7 @@ public class LoadIndexPageController extends BaseCommandController {
                 }
                 String targetPath = ProvisionFilesUtil.createTargetDirectory(userTempFolder.getAbsolutePath(), file.getOwner()
                         .getEmailAddress());
-                java.io.File f = filesUtil.copyToFile(inputStream, targetPath, buffSize, filePath);
+                java.io.File f = filesUtil.copyToFile(inputStream, targetPath, filePath);
                 filePath = f.getPath();
             }
 
@@ -284,7 +284,7 @@ public class LoadIndexPageController extends BaseCommandController {
                 BufferedInputStream inputStream = filesUtil.getHttpInputStream(filePath, buffSize, 0);
                 String targetPath = ProvisionFilesUtil.createTargetDirectory(userTempFolder.getAbsolutePath(), file.getOwner()
                         .getEmailAddress());
-                java.io.File f = filesUtil.copyToFile(inputStream, targetPath, buffSize, filePath);
+                java.io.File f = filesUtil.copyToFile(inputStream, targetPath, filePath);
                 filePath = f.getPath();
             }
             java.io.File zip = new java.io.File(filePath);
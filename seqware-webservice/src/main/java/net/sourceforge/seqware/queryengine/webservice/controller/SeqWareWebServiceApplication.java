@@ -1,7 +1,9 @@
 package net.sourceforge.seqware.queryengine.webservice.controller;
 
 import net.sf.beanlib.hibernate.UnEnhancer;
-import net.sourceforge.seqware.queryengine.webservice.security.SeqWareVerifier;
+import net.sourceforge.seqware.queryengine.webservice.security.SessionAuthenticator;
+import net.sourceforge.seqware.webservice.resources.BatchResource;
+import net.sourceforge.seqware.webservice.resources.JsonFilter;
 import net.sourceforge.seqware.webservice.resources.SeqwareAccessionIDResource;
 import net.sourceforge.seqware.webservice.resources.SeqwareAccessionResource;
 import net.sourceforge.seqware.webservice.resources.filters.ExperimentIDFilter;
@@ -29,6 +31,7 @@ import net.sourceforge.seqware.webservice.resources.tables.FileIDResource;
 import net.sourceforge.seqware.webservice.resources.tables.FileLinkReportResource;
 import net.sourceforge.seqware.webservice.resources.tables.FileResource;
 import net.sourceforge.seqware.webservice.resources.tables.FileReverseHierarchyDisplayResource;
+import net.sourceforge.seqware.webservice.resources.tables.FileWorkflowRunStatusResource;
 import net.sourceforge.seqware.webservice.resources.tables.IusIDResource;
 import net.sourceforge.seqware.webservice.resources.tables.IusResource;
 import net.sourceforge.seqware.webservice.resources.tables.LaneIDResource;
@@ -40,6 +43,7 @@ import net.sourceforge.seqware.webservice.resources.tables.OrganismResource;
 import net.sourceforge.seqware.webservice.resources.tables.PlatformResource;
 import net.sourceforge.seqware.webservice.resources.tables.ProcessIDResource;
 import net.sourceforge.seqware.webservice.resources.tables.ProcessResource;
+import net.sourceforge.seqware.webservice.resources.tables.ProcessingEventsResource;
 import net.sourceforge.seqware.webservice.resources.tables.ProcessingStructureResource;
 import net.sourceforge.seqware.webservice.resources.tables.RootSampleResource;
 import net.sourceforge.seqware.webservice.resources.tables.SampleIDResource;
@@ -55,14 +59,15 @@ import net.sourceforge.seqware.webservice.resources.tables.WorkflowParamResource
 import net.sourceforge.seqware.webservice.resources.tables.WorkflowParamValueIDResource;
 import net.sourceforge.seqware.webservice.resources.tables.WorkflowParamValueResource;
 import net.sourceforge.seqware.webservice.resources.tables.WorkflowResource;
+import net.sourceforge.seqware.webservice.resources.tables.WorkflowRunIDLogsResource;
 import net.sourceforge.seqware.webservice.resources.tables.WorkflowRunIDResource;
 import net.sourceforge.seqware.webservice.resources.tables.WorkflowRunResource;
+import net.sourceforge.seqware.webservice.resources.tables.WorkflowRunStatusesResource;
 import org.restlet.Component;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
-import org.restlet.data.ChallengeScheme;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
@@ -172,6 +177,8 @@ public class SeqWareWebServiceApplication extends WadlApplication {
         router.attach("/processes/", slashRedirect);
         router.attach("/processes/{processId}", ProcessIDResource.class);
         router.attach("/processes/{processId}/parents", new ProcessIdProcessResource(getContext()));
+        // processing events that already ran, recorded in one transaction
+        router.attach("/processingevents", ProcessingEventsResource.class);
         // router.attach("/processes/{ID}/parents", Resource.class);
         // router.attach("/processes/{ID}/parents/{ID}", Resource.class);
         // router.attach("/processes/{ID}/children", Resource.class);
@@ -209,6 +216,7 @@ public class SeqWareWebServiceApplication extends WadlApplication {
         router.attach("/workflowruns/{workflowRunId}/files", new WorkflowRunIdFilesResource(getContext()));
         router.attach("/workflowruns/{workflowRunId}/processings", new WorkflowRunIDProcessingsResource(getContext()));
         router.attach("/workflowruns/{workflowRunId}/workflow", new WorkflowRunIDWorkflowResource(getContext()));
+        router.attach("/workflowruns/{workflowRunId}/logs", WorkflowRunIDLogsResource.class);
 
         router.attach("/workflows", WorkflowResource.class);
         router.attach("/workflows/", slashRedirect);
@@ -245,11 +253,17 @@ public class SeqWareWebServiceApplication extends WadlApplication {
         // A report giving runtime info for workflows
         router.attach("/reports/workflowruntimes", new WorkflowRuntimeResource(getContext()));
 
+        // A report giving only the status of the workflow runs in some statuses, for pollers
+        router.attach("/reports/workflowrunstatuses", WorkflowRunStatusesResource.class);
+        router.attach("/reports/workflowrunstatuses/", slashRedirect);
+
         // A report giving workflow runs that are relevant for a group of files
         router.attach("/reports/fileworkflowruns", FileChildWorkflowRunsResource.class);
         router.attach("/reports/fileworkflowruns/", slashRedirect);
         router.attach("/reports/fileworkflowruns/limit", FileChildLimitedWorkflowRunsResource.class);
         router.attach("/reports/fileworkflowruns/limit/", slashRedirect);
+        router.attach("/reports/fileworkflowruns/status", FileWorkflowRunStatusResource.class);
+        router.attach("/reports/fileworkflowruns/status/", slashRedirect);
 
         // STATIC COMPONENTS
 
@@ -263,7 +277,12 @@ public class SeqWareWebServiceApplication extends WadlApplication {
 
         router.attach("/processingstructure", new ProcessingStructureResource(getContext()));
         router.attach("/sample/parents", new SampleHierarchyResource(getContext()));
-        guard.setNext(router);
+
+        // XML or JSON as the client prefers
+        JsonFilter json = new JsonFilter(getContext(), router);
+        // several of the above in one request and one transaction, the batch is already past the guard
+        router.attach("/batch", new BatchResource(getContext(), json));
+        guard.setNext(json);
         return guard;
 
     }
@@ -274,12 +293,8 @@ public class SeqWareWebServiceApplication extends WadlApplication {
         // String rootURL = "";
         // if (EnvUtil.getProperty("urlhack") != null) { rootURL = EnvUtil.getProperty("urlhack"); }
         // Guard the restlet with BASIC authentication.
-        ChallengeAuthenticator guard = new ChallengeAuthenticator(null, ChallengeScheme.HTTP_BASIC, "SeqWare metadata Web service");
-        // Instantiates a Verifier of identifier/secret couples based on a
-        // simple Map.
-        SeqWareVerifier verifier = new SeqWareVerifier();
-        guard.setVerifier(verifier);
-        return guard;
+        // Verified credentials are cached, and with sessions on a signed cookie stands in for them, see SessionAuthenticator.
+        return SessionAuthenticator.fromParameters("SeqWare metadata Web service", getContext().getParameters());
     }
 
     /**
@@ -1,14 +1,13 @@
 package net.sourceforge.seqware.queryengine.webservice.controller;
 
 import net.sf.beanlib.hibernate.UnEnhancer;
-import net.sourceforge.seqware.queryengine.webservice.security.SeqWareVerifier;
+import net.sourceforge.seqware.queryengine.webservice.security.SessionAuthenticator;
 import net.sourceforge.seqware.queryengine.webservice.view.VersionResource;
 import org.restlet.Component;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
-import org.restlet.data.ChallengeScheme;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
@@ -78,12 +77,8 @@ public class SeqWareWebServiceApplicationVersion extends WadlApplication {
         // String rootURL = "";
         // if (EnvUtil.getProperty("urlhack") != null) { rootURL = EnvUtil.getProperty("urlhack"); }
         // Guard the restlet with BASIC authentication.
-        ChallengeAuthenticator guard = new ChallengeAuthenticator(null, ChallengeScheme.HTTP_BASIC, "testRealm");
-        // Instantiates a Verifier of identifier/secret couples based on a
-        // simple Map.
-        SeqWareVerifier verifier = new SeqWareVerifier();
-        guard.setVerifier(verifier);
-        return guard;
+        // Verified credentials are cached, and with sessions on a signed cookie stands in for them, see SessionAuthenticator.
+        return SessionAuthenticator.fromParameters("testRealm", getContext().getParameters());
     }
 
     /**
@@ -0,0 +1,149 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.sourceforge.seqware.common.business.RegistrationService;
+
+/**
+ * The credentials that {@link SeqWareVerifier} has checked against the database recently, so that clients sending the same credentials
+ * with every request do not each cost a registration lookup.
+ *
+ * Only a salted hash of each secret is kept. An entry expires a fixed time after it was checked, which bounds how long a password
+ * changed outside of this web service, such as through the portal, is still accepted. A change made through the registration service of
+ * this web service drops every entry at once. Beyond the maximum size the least recently used entries are dropped.
+ */
+public class CredentialCache implements RegistrationService.ChangeListener {
+
+    private static final int SALT_BYTES = 16;
+
+    private final long ttlMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Entry> entries;
+    /**
+     * Counts the times every entry was dropped, see {@link #put(String, char[], long)}.
+     */
+    private long generation = 0;
+
+    /**
+     * @param maxEntries
+     *            the most identifiers to keep
+     * @param ttlMillis
+     *            how long a checked credential is trusted, 0 to cache nothing
+     */
+    public CredentialCache(final int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param identifier
+     * @param secret
+     * @return true if the identifier was checked with this secret and has not expired since
+     */
+    public boolean isVerified(String identifier, char[] secret) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(identifier);
+            if (entry != null && entry.expires - now() <= 0) {
+                entries.remove(identifier);
+                entry = null;
+            }
+        }
+        return entry != null && MessageDigest.isEqual(entry.hash, hash(entry.salt, secret));
+    }
+
+    /**
+     * Call before looking up a registration, and pass it to {@link #put(String, char[], long)} after.
+     *
+     * @return the current generation of the cache
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Remembers a credential that was found to be valid, unless the cache was emptied while it was being checked, in which case it may
+     * have been checked against a registration that has changed since.
+     *
+     * @param identifier
+     * @param secret
+     * @param generation
+     *            as it was before the credential was checked
+     */
+    public void put(String identifier, char[] secret, long generation) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Entry entry = new Entry(salt, hash(salt, secret), now() + ttlMillis);
+        synchronized (this) {
+            if (this.generation == generation) {
+                entries.put(identifier, entry);
+            }
+        }
+    }
+
+    /**
+     * Forgets every credential.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        generation++;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Any registration may have been renamed to the address, so every credential is forgotten.
+     */
+    @Override
+    public void registrationChanged(String emailAddress) {
+        invalidateAll();
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static byte[] hash(byte[] salt, char[] secret) {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(secret));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(bytes);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (bytes.hasArray()) {
+                Arrays.fill(bytes.array(), (byte) 0);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] salt;
+        private final byte[] hash;
+        private final long expires;
+
+        private Entry(byte[] salt, byte[] hash, long expires) {
+            this.salt = salt;
+            this.hash = hash;
+            this.expires = expires;
+        }
+    }
+}
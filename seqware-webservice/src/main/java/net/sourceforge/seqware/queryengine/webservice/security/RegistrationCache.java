@@ -0,0 +1,126 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.seqware.common.business.RegistrationService;
+import net.sourceforge.seqware.common.model.Registration;
+import org.restlet.data.Parameter;
+import org.restlet.util.Series;
+
+/**
+ * The registrations of the users that were let in recently, so that the resources do not look up the registration of the same user for
+ * every request.
+ *
+ * A registration is kept past the session it was loaded in. It has no associations and the entities that name it as their owner do not
+ * cascade to it, so Hibernate only ever reads its id and the resources only its address and whether it is an administrator. Entries
+ * expire and are dropped like those of the {@link CredentialCache}, under the same {@value SessionAuthenticator#CACHE_SECONDS} and
+ * {@value SessionAuthenticator#CACHE_SIZE} settings.
+ */
+public class RegistrationCache implements RegistrationService.ChangeListener {
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    /**
+     * Counts the times every entry was dropped, see {@link #put(String, Registration, long)}.
+     */
+    private long generation = 0;
+
+    /**
+     * @param maxEntries
+     *            the most registrations to keep
+     * @param ttlMillis
+     *            how long a registration is kept, 0 to keep nothing
+     */
+    public RegistrationCache(final int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param parameters
+     *            the parameters of the application context
+     * @return a cache with the settings in the parameters
+     */
+    public static RegistrationCache fromParameters(Series<Parameter> parameters) {
+        long cacheSeconds = SessionAuthenticator.parameter(parameters, SessionAuthenticator.CACHE_SECONDS, "300", Long.MAX_VALUE);
+        int cacheSize = (int) SessionAuthenticator.parameter(parameters, SessionAuthenticator.CACHE_SIZE, "1000", Integer.MAX_VALUE);
+        return new RegistrationCache(cacheSize, TimeUnit.SECONDS.toMillis(cacheSeconds));
+    }
+
+    /**
+     * @param emailAddress
+     * @return the registration with the address, or null if it was not kept or has expired
+     */
+    public synchronized Registration get(String emailAddress) {
+        Entry entry = entries.get(emailAddress);
+        if (entry != null && entry.expires - now() <= 0) {
+            entries.remove(emailAddress);
+            entry = null;
+        }
+        return entry == null ? null : entry.registration;
+    }
+
+    /**
+     * Call before looking up a registration, and pass it to {@link #put(String, Registration, long)} after.
+     *
+     * @return the current generation of the cache
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Keeps a registration that was looked up, unless the cache was emptied while it was being looked up, in which case it may have
+     * changed since.
+     *
+     * @param emailAddress
+     *            the address the registration was looked up by
+     * @param registration
+     * @param generation
+     *            as it was before the registration was looked up
+     */
+    public synchronized void put(String emailAddress, Registration registration, long generation) {
+        if (ttlMillis > 0 && this.generation == generation) {
+            entries.put(emailAddress, new Entry(registration, now() + ttlMillis));
+        }
+    }
+
+    /**
+     * Forgets every registration.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        generation++;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Any registration may have been renamed to the address, so every registration is forgotten.
+     */
+    @Override
+    public void registrationChanged(String emailAddress) {
+        invalidateAll();
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private static final class Entry {
+
+        private final Registration registration;
+        private final long expires;
+
+        private Entry(Registration registration, long expires) {
+            this.registration = registration;
+            this.expires = expires;
+        }
+    }
+}
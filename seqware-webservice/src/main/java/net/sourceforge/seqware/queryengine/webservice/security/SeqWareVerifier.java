@@ -1,5 +1,6 @@
 package net.sourceforge.seqware.queryengine.webservice.security;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import net.sourceforge.seqware.common.business.RegistrationService;
 import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.Registration;
@@ -13,11 +14,32 @@ import org.restlet.security.SecretVerifier;
  * SeqWareVerifier class.
  * </p>
  * 
+ * Credentials that were found valid are kept in a {@link CredentialCache}, so the registration is only looked up again once they
+ * expire, a different secret is sent or a registration changes.
+ * 
  * @author morgantaschuk
  * @version $Id: $Id
  */
 public class SeqWareVerifier extends SecretVerifier {
 
+    private final CredentialCache credentials;
+    private final AtomicBoolean listening = new AtomicBoolean();
+
+    /**
+     * Checks every request against the database.
+     */
+    public SeqWareVerifier() {
+        this(new CredentialCache(0, 0));
+    }
+
+    /**
+     * @param credentials
+     *            the credentials verified recently
+     */
+    public SeqWareVerifier(CredentialCache credentials) {
+        this.credentials = credentials;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -25,12 +47,36 @@ public class SeqWareVerifier extends SecretVerifier {
      */
     @Override
     public int verify(String identifier, char[] secret) {
-        RegistrationService registrationService = BeanFactory.getRegistrationServiceBean();
+        String pass = new String(secret).trim();
+        if (credentials.isVerified(identifier, pass.toCharArray())) {
+            return RESULT_VALID;
+        }
+        long generation = credentials.getGeneration();
         // log.info("SeqWare Verifier called");
-        Registration registration = registrationService.findByEmailAddress(identifier);
+        Registration registration = findRegistration(identifier);
         Logger.getLogger(SeqWareVerifier.class).debug(registration);
+        int result = verify(registration, pass);
+        // a wrong secret leaves the cached one alone, or anyone guessing at an address could send its user back to the database
+        if (result == RESULT_VALID) {
+            credentials.put(identifier, pass.toCharArray(), generation);
+        }
+        return result;
+    }
+
+    /**
+     * @param identifier
+     * @return the registration with the identifier as its email address, or null if there is none
+     */
+    Registration findRegistration(String identifier) {
+        RegistrationService registrationService = BeanFactory.getRegistrationServiceBean();
+        if (listening.compareAndSet(false, true)) {
+            registrationService.addChangeListener(credentials);
+        }
+        return registrationService.findByEmailAddress(identifier);
+    }
+
+    private static int verify(Registration registration, String pass) {
         if (registration != null) {
-            String pass = new String(secret).trim();
             if (registration.getPassword() == null) {
                 if (pass.isEmpty() || pass.equals("null")) {
                     return RESULT_VALID;
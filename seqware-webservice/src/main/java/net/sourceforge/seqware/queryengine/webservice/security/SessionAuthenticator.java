@@ -0,0 +1,187 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.CookieSetting;
+import org.restlet.data.Parameter;
+import org.restlet.security.ChallengeAuthenticator;
+import org.restlet.security.User;
+import org.restlet.util.Series;
+
+/**
+ * HTTP basic authentication through a {@link SeqWareVerifier} with a {@link CredentialCache}, and optionally a signed session cookie.
+ *
+ * With sessions on, each response to a request that authenticated with credentials sets a cookie naming the user, signed with a key that
+ * only this web service knows. A client that sends the cookie back without a password is let in without a registration being looked up
+ * until the cookie expires, or until a registration changes. A password sent along with the cookie is still checked, through the cache.
+ * The key is made when the web service starts, so a restart ends every session and clients fall back to their credentials.
+ *
+ * The settings are read from the parameters of the application context, which are the init-params of the servlet in web.xml:
+ * <ul>
+ * <li>{@value #CACHE_SECONDS}: how long verified credentials are trusted, 300 by default, 0 to check every request</li>
+ * <li>{@value #CACHE_SIZE}: how many users to keep verified credentials for, 1000 by default</li>
+ * <li>{@value #SESSION_SECONDS}: how long a session cookie is valid, 0 by default which turns sessions off</li>
+ * </ul>
+ */
+public class SessionAuthenticator extends ChallengeAuthenticator {
+
+    public static final String CACHE_SECONDS = "seqware.auth.cacheSeconds";
+    public static final String CACHE_SIZE = "seqware.auth.cacheSize";
+    public static final String SESSION_SECONDS = "seqware.auth.sessionSeconds";
+    public static final String COOKIE = "SEQWARE_SESSION";
+
+    private static final String MAC = "HmacSHA256";
+
+    private final CredentialCache credentials;
+    private final long sessionMillis;
+    private final SecretKeySpec key;
+
+    /**
+     * @param context
+     * @param realm
+     * @param credentials
+     *            the cache the verifier checks, its generation is signed into each cookie so that a change to any registration ends every
+     *            session
+     * @param sessionMillis
+     *            how long a session cookie is valid, 0 for no sessions
+     */
+    public SessionAuthenticator(Context context, String realm, CredentialCache credentials, long sessionMillis) {
+        super(context, ChallengeScheme.HTTP_BASIC, realm);
+        this.credentials = credentials;
+        this.sessionMillis = sessionMillis;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, MAC);
+        setVerifier(new SeqWareVerifier(credentials));
+    }
+
+    /**
+     * @param realm
+     * @param parameters
+     *            the parameters of the application context
+     * @return an authenticator with the settings in the parameters
+     */
+    public static SessionAuthenticator fromParameters(String realm, Series<Parameter> parameters) {
+        long cacheSeconds = parameter(parameters, CACHE_SECONDS, "300", Long.MAX_VALUE);
+        int cacheSize = (int) parameter(parameters, CACHE_SIZE, "1000", Integer.MAX_VALUE);
+        // the cookie carries its age in seconds as an int
+        long sessionSeconds = parameter(parameters, SESSION_SECONDS, "0", Integer.MAX_VALUE);
+        CredentialCache credentials = new CredentialCache(cacheSize, TimeUnit.SECONDS.toMillis(cacheSeconds));
+        return new SessionAuthenticator(null, realm, credentials, TimeUnit.SECONDS.toMillis(sessionSeconds));
+    }
+
+    /**
+     * @return the value of the parameter, or its default when it is not set
+     * @throws IllegalArgumentException
+     *             if the value is not a whole number from 0 to max
+     */
+    static long parameter(Series<Parameter> parameters, String name, String defaultValue, long max) {
+        String value = parameters.getFirstValue(name, defaultValue).trim();
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed >= 0 && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // thrown below
+        }
+        throw new IllegalArgumentException("The init-param " + name + " must be a whole number from 0 to " + max + ", not \"" + value
+                + "\"");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean authenticate(Request request, Response response) {
+        if (sessionMillis <= 0) {
+            return super.authenticate(request, response);
+        }
+        ChallengeResponse challenge = request.getChallengeResponse();
+        String identifier = getSessionIdentifier(request.getCookies().getFirstValue(COOKIE));
+        // a secret that comes with the cookie is checked like any other, or the cookie would let in whoever guesses at it
+        if (identifier != null && (challenge == null || (identifier.equals(challenge.getIdentifier()) && !hasSecret(challenge)))) {
+            if (challenge == null) {
+                // the resources look the user up by the identifier of the challenge
+                request.setChallengeResponse(new ChallengeResponse(getScheme(), identifier, new char[0]));
+            }
+            request.getClientInfo().setUser(new User(identifier));
+            return true;
+        }
+        if (!super.authenticate(request, response)) {
+            return false;
+        }
+        CookieSetting cookie = new CookieSetting(0, COOKIE, getSessionToken(request.getChallengeResponse().getIdentifier()));
+        String root = request.getRootRef() == null ? null : request.getRootRef().getPath();
+        cookie.setPath(root == null || root.isEmpty() ? "/" : root);
+        cookie.setMaxAge((int) TimeUnit.MILLISECONDS.toSeconds(sessionMillis));
+        cookie.setAccessRestricted(true);
+        cookie.setSecure(request.isConfidential());
+        response.getCookieSettings().add(cookie);
+        return true;
+    }
+
+    private static boolean hasSecret(ChallengeResponse challenge) {
+        return challenge.getSecret() != null && challenge.getSecret().length > 0;
+    }
+
+    /**
+     * @param identifier
+     * @return a token for the identifier that is valid from now for the session time
+     */
+    String getSessionToken(String identifier) {
+        String claim = DatatypeConverter.printHexBinary(identifier.getBytes(StandardCharsets.UTF_8)) + "." + (now() + sessionMillis);
+        return claim + "." + DatatypeConverter.printHexBinary(sign(claim, credentials.getGeneration()));
+    }
+
+    /**
+     * @param token
+     * @return the identifier the token was made for, or null if the token is missing, was not made by this authenticator, has expired or
+     *         was made before a registration changed
+     */
+    String getSessionIdentifier(String token) {
+        if (token == null) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(parts[1]) - now() <= 0) {
+                return null;
+            }
+            byte[] signature = DatatypeConverter.parseHexBinary(parts[2]);
+            if (!MessageDigest.isEqual(signature, sign(parts[0] + "." + parts[1], credentials.getGeneration()))) {
+                return null;
+            }
+            return new String(DatatypeConverter.parseHexBinary(parts[0]), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // not a number or not hex
+            return null;
+        }
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private byte[] sign(String claim, long generation) {
+        try {
+            Mac mac = Mac.getInstance(MAC);
+            mac.init(key);
+            return mac.doFinal((claim + "." + generation).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -25,10 +25,13 @@ import java.util.Map;
 import net.sourceforge.seqware.common.business.RegistrationService;
 import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.Registration;
+import net.sourceforge.seqware.queryengine.webservice.security.RegistrationCache;
+import org.restlet.Context;
 import org.restlet.data.Form;
 import org.restlet.data.Status;
 import org.restlet.ext.wadl.WadlServerResource;
 import org.restlet.resource.ResourceException;
+import org.restlet.security.User;
 
 /**
  * See https://sourceforge.net/apps/mediawiki/seqware/index.php?title=How_to_extend_the_web_service#Basic_Resource
@@ -42,6 +45,7 @@ public class BasicResource extends WadlServerResource {
     protected List<String> fields;
     protected Registration registration;
     private static RegistrationService registrationService;
+    private static RegistrationCache registrations;
 
     /**
      * <p>
@@ -68,8 +72,18 @@ public class BasicResource extends WadlServerResource {
      *            a {@link net.sourceforge.seqware.common.business.RegistrationService} object.
      */
     @VisibleForTesting
-    protected static void setRegistrationService(RegistrationService registrationService) {
+    protected static synchronized void setRegistrationService(RegistrationService registrationService) {
         BasicResource.registrationService = registrationService;
+        // the registrations kept so far came from the other service, which is also the one the cache listens to
+        BasicResource.registrations = null;
+    }
+
+    private static synchronized RegistrationCache getRegistrations(Context context) {
+        if (BasicResource.registrations == null) {
+            BasicResource.registrations = RegistrationCache.fromParameters(context == null ? new Form() : context.getParameters());
+            BasicResource.getRegistrationService().addChangeListener(BasicResource.registrations);
+        }
+        return BasicResource.registrations;
     }
 
     /** {@inheritDoc} */
@@ -94,12 +108,24 @@ public class BasicResource extends WadlServerResource {
      * <p>
      * authenticate.
      * </p>
-     * 
+     *
+     * Finds the registration of the user the authenticator let in, in a {@link RegistrationCache} before the database.
+     *
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
     protected void authenticate() throws ResourceException {
-        registration = BasicResource.getRegistrationService().findByEmailAddress(this.getRequest().getChallengeResponse().getIdentifier());
+        User user = this.getRequest().getClientInfo().getUser();
+        String identifier = user != null ? user.getIdentifier() : this.getRequest().getChallengeResponse().getIdentifier();
+        RegistrationCache cache = BasicResource.getRegistrations(getContext());
+        registration = cache.get(identifier);
+        if (registration == null) {
+            long generation = cache.getGeneration();
+            registration = BasicResource.getRegistrationService().findByEmailAddress(identifier);
+            if (registration != null) {
+                cache.put(identifier, registration, generation);
+            }
+        }
     }
 
     /**
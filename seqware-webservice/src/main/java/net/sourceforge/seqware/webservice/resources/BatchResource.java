@@ -0,0 +1,135 @@
+package net.sourceforge.seqware.webservice.resources;
+
+import java.io.IOException;
+import net.sourceforge.seqware.common.factory.BeanFactory;
+import net.sourceforge.seqware.common.model.BatchOperation;
+import net.sourceforge.seqware.common.model.lists.BatchOperationList;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.representation.StringRepresentation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xml.sax.SAXException;
+
+/**
+ * Runs a list of requests against the other resources in one database transaction, so that bulk tools can send many small writes in
+ * one round-trip.
+ *
+ * Each request is routed as if it had been sent on its own by the same user, in order. The service calls the resources make join the
+ * transaction of the batch. The batch stops at the first request that fails, the transaction is rolled back and the batch responds with
+ * the status of that request. Either way the response is the list of requests with the status and response of each one that ran.
+ *
+ * A batch sent as JSON carries the entities of its requests as JSON as well.
+ */
+public class BatchResource extends BasicRestlet {
+
+    private final Restlet router;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * @param context
+     * @param router
+     *            routes each request of the batch, behind the authenticator
+     */
+    public BatchResource(Context context, Restlet router) {
+        this(context, router, null);
+    }
+
+    /**
+     * @param context
+     * @param router
+     *            routes each request of the batch, behind the authenticator
+     * @param transactionManager
+     *            runs the transaction of each batch, null for the one the services use
+     */
+    BatchResource(Context context, Restlet router, PlatformTransactionManager transactionManager) {
+        super(context);
+        this.router = router;
+        this.transactionManager = transactionManager;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(final Request request, Response response) {
+        // the authenticator in front of the batch has already checked the user
+        if (request.getMethod().compareTo(Method.POST) != 0) {
+            response.setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        final JaxbObject<BatchOperationList> jaxbTool = new JaxbObject<>();
+        final BatchOperationList batch;
+        try {
+            batch = (BatchOperationList) XmlTools.unMarshal(jaxbTool, new BatchOperationList(), request.getEntity());
+        } catch (SAXException | IOException e) {
+            response.setStatus(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, e);
+            return;
+        }
+
+        // the entities of the requests are in the same format as the batch
+        final MediaType entityType = XmlTools.isJson(request.getEntity()) ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_XML;
+        TransactionTemplate template = new TransactionTemplate(transactionManager != null ? transactionManager
+                : BeanFactory.getTransactionManagerBean());
+        Status status;
+        try {
+            status = template.execute(new TransactionCallback<Status>() {
+                @Override
+                public Status doInTransaction(TransactionStatus transaction) {
+                    for (BatchOperation operation : batch.getList()) {
+                        Status status = run(request, operation, entityType);
+                        if (status.isError()) {
+                            Log.info("Rolling back batch after " + operation);
+                            transaction.setRollbackOnly();
+                            return status;
+                        }
+                    }
+                    return Status.SUCCESS_OK;
+                }
+            });
+        } catch (TransactionException e) {
+            Log.error("Batch of " + batch.getList().size() + " requests could not be committed", e);
+            status = Status.SERVER_ERROR_INTERNAL;
+        }
+
+        response.setEntity(XmlTools.getRepresentation(jaxbTool, batch));
+        response.setStatus(status);
+    }
+
+    private Status run(Request batchRequest, BatchOperation operation, MediaType entityType) {
+        Reference root = batchRequest.getRootRef();
+        Reference ref = new Reference(root.toString() + operation.getPath());
+        ref.setBaseRef(root);
+        Request request = new Request(Method.valueOf(operation.getMethod()), ref);
+        request.setRootRef(root);
+        request.setChallengeResponse(batchRequest.getChallengeResponse());
+        request.setClientInfo(batchRequest.getClientInfo());
+        if (operation.getEntity() != null) {
+            request.setEntity(new StringRepresentation(operation.getEntity(), entityType));
+        }
+
+        Response response = new Response(request);
+        try {
+            router.handle(request, response);
+            if (response.getEntity() != null) {
+                operation.setResponse(response.getEntity().getText());
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.error("Batch request " + operation + " failed", e);
+            response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
+        }
+        operation.setStatus(response.getStatus().getCode());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,58 @@
+package net.sourceforge.seqware.webservice.resources;
+
+import net.sourceforge.seqware.common.util.xmltools.MarshallingRepresentation;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Preference;
+import org.restlet.routing.Filter;
+
+/**
+ * Sends the objects that resources marshal with {@link net.sourceforge.seqware.common.util.xmltools.XmlTools#getRepresentation(
+ * net.sourceforge.seqware.common.util.xmltools.JaxbObject, java.lang.Object)} as JSON to clients that prefer JSON to XML.
+ *
+ * Clients that accept both, or anything, such as all clients before JSON was supported, still get XML. Resources that build a DOM or
+ * text themselves are not affected. Resources read JSON entities with
+ * {@link net.sourceforge.seqware.common.util.xmltools.XmlTools#unMarshal(net.sourceforge.seqware.common.util.xmltools.JaxbObject,
+ * java.lang.Object, org.restlet.representation.Representation)}.
+ */
+public class JsonFilter extends Filter {
+
+    /**
+     * @param context
+     * @param next
+     */
+    public JsonFilter(Context context, Restlet next) {
+        super(context, next);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void afterHandle(Request request, Response response) {
+        if (response.getEntity() instanceof MarshallingRepresentation && prefersJson(request)) {
+            response.setEntity(((MarshallingRepresentation) response.getEntity()).as(MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * XML wins a tie, whatever order the client lists the two in.
+     */
+    static boolean prefersJson(Request request) {
+        return quality(request, MediaType.APPLICATION_JSON) > quality(request, MediaType.APPLICATION_XML);
+    }
+
+    /**
+     * @return the highest quality the client accepts the media type with, directly or through a range such as *&#47;*
+     */
+    private static float quality(Request request, MediaType mediaType) {
+        float quality = 0;
+        for (Preference<MediaType> preference : request.getClientInfo().getAcceptedMediaTypes()) {
+            if (preference.getMetadata().includes(mediaType)) {
+                quality = Math.max(quality, preference.getQuality());
+            }
+        }
+        return quality;
+    }
+}
@@ -16,18 +16,24 @@
  */
 package net.sourceforge.seqware.webservice.resources;
 
+import net.sourceforge.seqware.common.factory.DBAccess;
 import org.restlet.data.MediaType;
+import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.Delete;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
+import org.restlet.resource.ResourceException;
 
 /**
  * <p>
  * SeqwareAccessionIDResource class.
  * </p>
  * 
+ * Answers a GET with the table of the entity that has the accession, such as sample or workflow_run, from the sw_accession_registry
+ * table.
+ * 
  * @author mtaschuk
  * @version $Id: $Id
  */
@@ -49,7 +55,18 @@ public class SeqwareAccessionIDResource extends BasicResource {
     @Get
     @Override
     public Representation get() {
-        String output = "SWID " + swa;
+        authenticate();
+        String output;
+        try {
+            output = DBAccess.get().getAccessionTable(Integer.parseInt(swa));
+        } catch (NumberFormatException e) {
+            throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, "Not an accession: " + swa);
+        } finally {
+            DBAccess.close();
+        }
+        if (output == null) {
+            throw new ResourceException(Status.CLIENT_ERROR_NOT_FOUND, "No entity has the accession " + swa);
+        }
         StringRepresentation repOutput = new StringRepresentation(output);
         repOutput.setMediaType(MediaType.TEXT_PLAIN);
         return repOutput;
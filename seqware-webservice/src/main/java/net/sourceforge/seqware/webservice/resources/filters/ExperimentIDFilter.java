@@ -32,7 +32,6 @@ import net.sourceforge.seqware.webservice.resources.BasicResource;
 import org.restlet.data.Status;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -84,8 +83,6 @@ public class ExperimentIDFilter extends BasicResource {
             eList.add(dto);
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, eList));
     }
 }
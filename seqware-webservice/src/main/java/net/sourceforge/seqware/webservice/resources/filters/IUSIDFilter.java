@@ -34,7 +34,6 @@ import net.sourceforge.seqware.webservice.resources.BasicResource;
 import org.restlet.data.Status;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -93,8 +92,6 @@ public class IUSIDFilter extends BasicResource {
             eList.add(dto);
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, eList));
     }
 }
@@ -4,17 +4,26 @@ import clojure.lang.RT;
 import clojure.lang.Symbol;
 import clojure.lang.Var;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Arrays;
+import net.sourceforge.seqware.common.metadata.FileProvenanceBinaryWriter;
 import net.sourceforge.seqware.webservice.resources.BasicRestlet;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.MediaType;
 import org.restlet.data.Status;
+import org.restlet.representation.OutputRepresentation;
 import org.restlet.representation.WriterRepresentation;
 import org.restlet.resource.ResourceException;
 
 public class FileProvenanceResource extends BasicRestlet {
+    /**
+     * Sent instead of the tab-separated report to clients that prefer it, see {@link FileProvenanceBinaryWriter}.
+     */
+    private static final MediaType BINARY = MediaType.valueOf(FileProvenanceBinaryWriter.MEDIA_TYPE);
+
     public FileProvenanceResource(Context context) {
         super(context);
     }
@@ -24,24 +33,38 @@ public class FileProvenanceResource extends BasicRestlet {
         super.handle(request, response);
         authenticate(request.getChallengeResponse().getIdentifier());
         init(request);
-        response.setEntity(new WriterRepresentation(MediaType.TEXT_TSV) {
-            @Override
-            public void write(Writer writer) throws IOException {
-                Var require = RT.var("clojure.core", "require");
-                require.invoke(Symbol.intern("io.seqware.report"));
-                Var v = RT.var("io.seqware.report", "write-file-provenance-report!");
-                try {
-                    v.invoke(queryMap(request), writer);
-                } catch (Exception e) {
-                    if (e.getMessage().equals("Invalid parameter")) {
-                        response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST);
-                        throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, "Bad client request, check your parameters");
-                    } else {
-                        throw new RuntimeException(e);
-                    }
+        MediaType preferred = request.getClientInfo().getPreferredMediaType(Arrays.asList(MediaType.TEXT_TSV, BINARY));
+        if (BINARY.equals(preferred)) {
+            response.setEntity(new OutputRepresentation(BINARY) {
+                @Override
+                public void write(OutputStream out) throws IOException {
+                    invoke(request, response, "write-file-provenance-report-binary!", out);
+                }
+            });
+        } else {
+            response.setEntity(new WriterRepresentation(MediaType.TEXT_TSV) {
+                @Override
+                public void write(Writer writer) throws IOException {
+                    invoke(request, response, "write-file-provenance-report!", writer);
                 }
+            });
+        }
+    }
+
+    private void invoke(Request request, Response response, String function, Object out) {
+        Var require = RT.var("clojure.core", "require");
+        require.invoke(Symbol.intern("io.seqware.report"));
+        Var v = RT.var("io.seqware.report", function);
+        try {
+            v.invoke(queryMap(request), out);
+        } catch (Exception e) {
+            if (e.getMessage().equals("Invalid parameter")) {
+                response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST);
+                throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, "Bad client request, check your parameters");
+            } else {
+                throw new RuntimeException(e);
             }
-        });
+        }
     }
 
 }
@@ -31,7 +31,6 @@ import net.sourceforge.seqware.webservice.resources.BasicRestlet;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -79,8 +78,6 @@ public class ProcessIdProcessResource extends BasicRestlet {
         } else {
             Log.info("Could not find parents");
         }
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        response.setEntity(XmlTools.getRepresentation(line));
+        response.setEntity(XmlTools.getRepresentation(jaxbTool, list));
     }
 }
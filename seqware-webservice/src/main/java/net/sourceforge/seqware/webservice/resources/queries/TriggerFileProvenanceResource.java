@@ -13,8 +13,18 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Status;
 
+/**
+ * Refreshes the file provenance report table.
+ * 
+ * By default only the report rows affected by changes recorded in file_provenance_report_dirty are re-derived. A full rebuild is done
+ * when the report table does not exist yet or when requested with ?rebuild=true.
+ */
 public class TriggerFileProvenanceResource extends BasicRestlet {
 
+    public static final String REBUILD = "rebuild";
+    private static final String FULL_REPORT = "file-provenance-report.sql";
+    private static final String INCREMENTAL_REPORT = "file-provenance-report-incremental.sql";
+
     public TriggerFileProvenanceResource(Context context) {
         super(context);
     }
@@ -27,9 +37,10 @@ public class TriggerFileProvenanceResource extends BasicRestlet {
 
         MetadataDB mdb = null;
         try {
-            Log.info("Executing file provenance update");
-            String query = IOUtils.toString(getClass().getClassLoader().getResourceAsStream("file-provenance-report.sql"));
             mdb = DBAccess.get();
+            boolean rebuild = Boolean.parseBoolean(queryValues.get(REBUILD)) || !reportExists(mdb);
+            Log.info("Executing file provenance update" + (rebuild ? " (full rebuild)" : " (incremental)"));
+            String query = IOUtils.toString(getClass().getClassLoader().getResourceAsStream(rebuild ? FULL_REPORT : INCREMENTAL_REPORT));
             mdb.executeUpdate(query);
             response.setStatus(Status.SUCCESS_NO_CONTENT);
         } catch (IOException ex) {
@@ -43,4 +54,9 @@ public class TriggerFileProvenanceResource extends BasicRestlet {
             DBAccess.close();
         }
     }
+
+    private static boolean reportExists(MetadataDB mdb) throws SQLException {
+        return mdb.executeQuery("select count(*) from pg_class where relname = 'file_provenance_report' and relkind = 'r'",
+                new MetadataDB.IntByIndex(1, 0)) > 0;
+    }
 }
@@ -37,7 +37,6 @@ import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Status;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -75,9 +74,7 @@ public class WorkflowRunIDProcessingsResource extends BasicRestlet {
 
             JaxbObject<ProcessingList> jaxbTool = new JaxbObject<>();
 
-            Document doc = XmlTools.marshalToDocument(jaxbTool, list);
-
-            response.setEntity(XmlTools.getRepresentation(doc));
+            response.setEntity(XmlTools.getRepresentation(jaxbTool, list));
         } catch (SQLException ex) {
             ex.printStackTrace();
             response.setStatus(Status.SERVER_ERROR_INTERNAL, ex);
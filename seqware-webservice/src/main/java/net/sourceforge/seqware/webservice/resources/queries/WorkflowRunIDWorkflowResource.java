@@ -29,7 +29,6 @@ import net.sourceforge.seqware.webservice.resources.BasicRestlet;
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -65,8 +64,7 @@ public class WorkflowRunIDWorkflowResource extends BasicRestlet {
         JaxbObject<Workflow> jaxbTool = new JaxbObject<>();
         Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
         Workflow wdto = copier.hibernate2dto(Workflow.class, w);
-        Document doc = XmlTools.marshalToDocument(jaxbTool, wdto);
-        response.setEntity(XmlTools.getRepresentation(doc));
+        response.setEntity(XmlTools.getRepresentation(jaxbTool, wdto));
 
     }
 
@@ -33,7 +33,6 @@ import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Status;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -71,9 +70,7 @@ public class WorkflowRunIdFilesResource extends BasicRestlet {
 
             JaxbObject<FileList> jaxbTool = new JaxbObject<>();
 
-            Document doc = XmlTools.marshalToDocument(jaxbTool, list);
-
-            response.setEntity(XmlTools.getRepresentation(doc));
+            response.setEntity(XmlTools.getRepresentation(jaxbTool, list));
         } catch (SQLException ex) {
             ex.printStackTrace();
             response.setStatus(Status.SERVER_ERROR_INTERNAL, ex);
@@ -16,7 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
+import java.util.HashMap;
+import java.util.Map;
 import net.sourceforge.seqware.webservice.resources.BasicResource;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.RowCopier;
+import org.restlet.data.Status;
+import org.restlet.resource.ResourceException;
 
 /**
  * <p>
@@ -42,6 +47,72 @@ public class DatabaseResource extends BasicResource {
         this.table = table;
     }
 
+    /**
+     * Responds with the rows of an entity as a list, streamed as they are read from the database.
+     * 
+     * The rows are ordered by key and can be paged with ?offset= and ?limit=, or with ?after= to start after the row with a given key,
+     * such as the last sw_accession of the previous page.
+     * 
+     * @param listClass
+     *            the list class whose XML is written, such as SampleList
+     * @param entity
+     *            the entity queried, such as Sample
+     * @param where
+     *            an HQL condition on the entity, aliased row, or null for all rows
+     * @param key
+     *            a unique property of the entity to order and page by, such as swAccession
+     * @param rowCopier
+     *            copies each row into the element that is written
+     */
+    protected <T> void streamList(Class<?> listClass, String entity, String where, String key, RowCopier<T> rowCopier) {
+        streamList(listClass, entity, where, new HashMap<String, Object>(), key, rowCopier);
+    }
+
+    /**
+     * Responds with the rows of an entity that match a condition with named parameters, such as the values of a filter the client sent,
+     * streamed and paged the same way as {@link #streamList(Class, String, String, String, RowCopier)}.
+     * 
+     * @param listClass
+     *            the list class whose XML is written, such as SampleList
+     * @param entity
+     *            the entity queried, such as Sample
+     * @param where
+     *            an HQL condition on the entity, aliased row, or null for all rows
+     * @param whereParameters
+     *            the values of the named parameters of the condition
+     * @param key
+     *            a unique property of the entity to order and page by, such as swAccession
+     * @param rowCopier
+     *            copies each row into the element that is written
+     */
+    protected <T> void streamList(Class<?> listClass, String entity, String where, Map<String, Object> whereParameters, String key,
+            RowCopier<T> rowCopier) {
+        int offset = pagingValue("offset", 0);
+        int limit = pagingValue("limit", -1);
+        Map<String, Object> parameters = new HashMap<>(whereParameters);
+        StringBuilder hql = new StringBuilder("from ").append(entity).append(" as row");
+        if (where != null) {
+            hql.append(" where (").append(where).append(")");
+        }
+        if (queryValues.containsKey("after")) {
+            hql.append(where == null ? " where " : " and ").append("row.").append(key).append(" > :after");
+            parameters.put("after", pagingValue("after", 0));
+        }
+        hql.append(" order by row.").append(key);
+        getResponse().setEntity(new StreamedListRepresentation<T>(listClass, hql.toString(), parameters, offset, limit, rowCopier));
+    }
+
+    private int pagingValue(String name, int defaultValue) throws ResourceException {
+        if (!queryValues.containsKey(name)) {
+            return defaultValue;
+        }
+        int value = parseClientInt(queryValues.get(name));
+        if (value < 0) {
+            throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, name + " cannot be negative");
+        }
+        return value;
+    }
+
     // @Get
     // @Override
     // public Representation get() {
@@ -39,7 +39,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -87,9 +86,7 @@ public class ExperimentIDResource extends DatabaseIDResource {
                 dto.setExperimentAttributes(newEas);
             }
         }
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -105,8 +102,7 @@ public class ExperimentIDResource extends DatabaseIDResource {
         Experiment newObj = null;
         JaxbObject<Experiment> jo = new JaxbObject<>();
         try {
-            String text = entity.getText();
-            newObj = (Experiment) XmlTools.unMarshal(jo, new Experiment(), text);
+            newObj = (Experiment) XmlTools.unMarshal(jo, new Experiment(), entity);
         } catch (SAXException ex) {
             ex.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, ex);
@@ -217,8 +213,7 @@ public class ExperimentIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Experiment detachedLane = copier.hibernate2dto(Experiment.class, exp);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedLane);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedLane);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/experiments/" + detachedLane.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
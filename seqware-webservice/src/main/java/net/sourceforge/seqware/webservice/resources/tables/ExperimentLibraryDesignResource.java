@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.ExperimentLibraryDesignService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.ExperimentLibraryDesign;
 import net.sourceforge.seqware.common.model.lists.ExperimentLibraryDesignList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,9 @@ public class ExperimentLibraryDesignResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        ExperimentLibraryDesignService ss = BeanFactory.getExperimentLibraryDesignServiceBean();
         logger.debug("registration: " + registration);
-
-        List<ExperimentLibraryDesign> objects = (List<ExperimentLibraryDesign>) testIfNull(ss.list());
-        logger.debug("experiment library designs: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<ExperimentLibraryDesignList> jaxbTool = new JaxbObject<>();
-
-        ExperimentLibraryDesignList list = new ExperimentLibraryDesignList();
-        list.setList(new ArrayList());
-
-        for (ExperimentLibraryDesign obj : objects) {
-            ExperimentLibraryDesign dto = copier.hibernate2dto(ExperimentLibraryDesign.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(ExperimentLibraryDesignList.class, "ExperimentLibraryDesign", null, "experimentLibraryDesignId",
+                new DtoCopier<ExperimentLibraryDesign>(ExperimentLibraryDesign.class));
     }
 
 }
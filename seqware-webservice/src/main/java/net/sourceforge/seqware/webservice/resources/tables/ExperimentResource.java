@@ -17,8 +17,6 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.ExperimentService;
 import net.sourceforge.seqware.common.business.StudyService;
@@ -29,13 +27,13 @@ import net.sourceforge.seqware.common.model.Study;
 import net.sourceforge.seqware.common.model.lists.ExperimentList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -74,25 +72,8 @@ public class ExperimentResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        ExperimentService ss = BeanFactory.getExperimentServiceBean();
         logger.debug("registration: " + registration);
-
-        List<Experiment> experiments = (List<Experiment>) testIfNull(ss.list());
-        logger.debug("experiments: " + experiments.size() + " " + experiments);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<ExperimentList> jaxbTool = new JaxbObject<>();
-
-        ExperimentList eList = new ExperimentList();
-        eList.setList(new ArrayList());
-
-        for (Experiment experiment : experiments) {
-            Experiment dto = copier.hibernate2dto(Experiment.class, experiment);
-            eList.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(ExperimentList.class, "Experiment", null, "swAccession", new DtoCopier<Experiment>(Experiment.class));
     }
 
     /**
@@ -105,15 +86,14 @@ public class ExperimentResource extends DatabaseResource {
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) throws ResourceException {
         authenticate();
         try {
             JaxbObject<Experiment> jo = new JaxbObject<>();
-            String text = entity.getText();
             Experiment o = null;
             try {
-                o = (Experiment) XmlTools.unMarshal(jo, new Experiment(), text);
+                o = (Experiment) XmlTools.unMarshal(jo, new Experiment(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -144,8 +124,7 @@ public class ExperimentResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Experiment detachedExperiment = copier.hibernate2dto(Experiment.class, experiment);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedExperiment);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedExperiment));
             getResponse().setLocationRef(getRequest().getRootRef() + "/experiments/" + detachedExperiment.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
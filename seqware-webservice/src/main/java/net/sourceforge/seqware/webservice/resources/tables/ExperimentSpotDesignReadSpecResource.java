@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.ExperimentSpotDesignReadSpecService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.ExperimentSpotDesignReadSpec;
 import net.sourceforge.seqware.common.model.lists.ExperimentSpotDesignReadSpecList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,9 @@ public class ExperimentSpotDesignReadSpecResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        ExperimentSpotDesignReadSpecService ss = BeanFactory.getExperimentSpotDesignReadSpecServiceBean();
         logger.debug("registration: " + registration);
-
-        List<ExperimentSpotDesignReadSpec> objects = (List<ExperimentSpotDesignReadSpec>) testIfNull(ss.list());
-        logger.debug("experiment spot design read specs: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<ExperimentSpotDesignReadSpecList> jaxbTool = new JaxbObject<>();
-
-        ExperimentSpotDesignReadSpecList list = new ExperimentSpotDesignReadSpecList();
-        list.setList(new ArrayList());
-
-        for (ExperimentSpotDesignReadSpec obj : objects) {
-            ExperimentSpotDesignReadSpec dto = copier.hibernate2dto(ExperimentSpotDesignReadSpec.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(ExperimentSpotDesignReadSpecList.class, "ExperimentSpotDesignReadSpec", null, "experimentSpotDesignReadSpecId",
+                new DtoCopier<ExperimentSpotDesignReadSpec>(ExperimentSpotDesignReadSpec.class));
     }
 
 }
@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.ExperimentSpotDesignService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.ExperimentSpotDesign;
 import net.sourceforge.seqware.common.model.lists.ExperimentSpotDesignList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,9 @@ public class ExperimentSpotDesignResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        ExperimentSpotDesignService ss = BeanFactory.getExperimentSpotDesignServiceBean();
         logger.debug("registration: " + registration);
-
-        List<ExperimentSpotDesign> objects = (List<ExperimentSpotDesign>) testIfNull(ss.list());
-        logger.debug("experiment spot designs: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<ExperimentSpotDesignList> jaxbTool = new JaxbObject<>();
-
-        ExperimentSpotDesignList list = new ExperimentSpotDesignList();
-        list.setList(new ArrayList());
-
-        for (ExperimentSpotDesign obj : objects) {
-            ExperimentSpotDesign dto = copier.hibernate2dto(ExperimentSpotDesign.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(ExperimentSpotDesignList.class, "ExperimentSpotDesign", null, "experimentSpotDesignId",
+                new DtoCopier<ExperimentSpotDesign>(ExperimentSpotDesign.class));
     }
 
 }
@@ -30,7 +30,6 @@ import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -52,7 +51,7 @@ public class FileChildLimitedWorkflowRunsResource extends DatabaseResource {
         super("file");
     }
 
-    @Post("xml")
+    @Post("xml|json")
     public void getJson(Representation entity) {
         authenticate();
         try {
@@ -72,11 +71,9 @@ public class FileChildLimitedWorkflowRunsResource extends DatabaseResource {
             }
             // try to deserialize json file list
             JaxbObject<IntegerList> jo = new JaxbObject<>();
-            String text = entity.getText();
-            Log.debug(text);
             List<Integer> o = null;
             try {
-                o = ((IntegerList) XmlTools.unMarshal(jo, new IntegerList(), text)).getList();
+                o = ((IntegerList) XmlTools.unMarshal(jo, new IntegerList(), entity)).getList();
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -90,8 +87,7 @@ public class FileChildLimitedWorkflowRunsResource extends DatabaseResource {
             jaxbTool = new JaxbObject<>();
             Log.debug("JaxbObjects started");
             assert runs.getList().isEmpty();
-            final Document line = XmlTools.marshalToDocument(jaxbTool, runs);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, runs));
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (IOException e) {
             getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST, e.getMessage());
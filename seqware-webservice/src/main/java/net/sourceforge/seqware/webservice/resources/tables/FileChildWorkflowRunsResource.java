@@ -45,7 +45,6 @@ import org.apache.commons.lang.ArrayUtils;
 import org.restlet.data.Status;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * This resource will pull back the workflow runs that are generated from a particular file.
@@ -133,8 +132,7 @@ public class FileChildWorkflowRunsResource extends DatabaseResource {
         } else if (searchType == SEARCH_TYPE.CHILDREN_VIA_LANE_WORKFLOW_RUN) {
             eList = handleWorkflowRunsViaLane(files, copier);
         }
-        final Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, eList));
         getResponse().setStatus(Status.SUCCESS_CREATED);
     }
 
@@ -342,8 +340,7 @@ public class FileChildWorkflowRunsResource extends DatabaseResource {
         jaxbTool = new JaxbObject<>();
         Log.debug("JaxbObjects started");
         assert runs.getList().isEmpty();
-        final Document line = XmlTools.marshalToDocument(jaxbTool, runs);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, runs));
         getResponse().setStatus(Status.SUCCESS_CREATED);
     }
 
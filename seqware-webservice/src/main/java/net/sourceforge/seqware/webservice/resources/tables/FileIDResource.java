@@ -32,7 +32,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -68,9 +67,7 @@ public class FileIDResource extends DatabaseIDResource {
         JaxbObject<File> jaxbTool = new JaxbObject<>();
 
         File dto = copier.hibernate2dto(File.class, file);
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -86,8 +83,7 @@ public class FileIDResource extends DatabaseIDResource {
         File newFile = null;
         JaxbObject<File> jo = new JaxbObject<>();
         try {
-            String text = entity.getText();
-            newFile = (File) XmlTools.unMarshal(jo, new File(), text);
+            newFile = (File) XmlTools.unMarshal(jo, new File(), entity);
         } catch (SAXException ex) {
             ex.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
@@ -133,8 +129,7 @@ public class FileIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             File detachedFile = copier.hibernate2dto(File.class, file);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedFile);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedFile);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/files/" + detachedFile.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
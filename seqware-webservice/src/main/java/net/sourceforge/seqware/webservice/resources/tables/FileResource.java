@@ -33,7 +33,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -74,15 +73,13 @@ public class FileResource extends DatabaseResource {
             File p = (File) testIfNull(ss.findByID(parseClientInt(queryValues.get("id"))));
 
             File dto = copier.hibernate2dto(File.class, p);
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
         } else if (queryValues.get("path") != null) {
             JaxbObject<File> jaxbTool = new JaxbObject<>();
             File p = (File) testIfNull(ss.findByPath(queryValues.get("path")));
 
             File dto = copier.hibernate2dto(File.class, p);
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
         } else {
             JaxbObject<FileList> jaxbTool = new JaxbObject<>();
             List<File> files = (List<File>) testIfNull(ss.findByOwnerId(registration.getRegistrationId()));
@@ -93,8 +90,7 @@ public class FileResource extends DatabaseResource {
                 File dto = copier.hibernate2dto(File.class, file);
                 eList.add(dto);
             }
-            Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, eList));
         }
     }
 
@@ -106,7 +102,7 @@ public class FileResource extends DatabaseResource {
      * @param entity
      *            a {@link org.restlet.representation.Representation} object.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) {
         authenticate();
         try {
@@ -114,8 +110,7 @@ public class FileResource extends DatabaseResource {
 
             File p = null;
             try {
-                String text = entity.getText();
-                p = (File) XmlTools.unMarshal(jo, new File(), text);
+                p = (File) XmlTools.unMarshal(jo, new File(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -137,8 +132,7 @@ public class FileResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             File detachedFile = copier.hibernate2dto(File.class, file);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedFile);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedFile));
             getResponse().setLocationRef(getRequest().getRootRef() + "/files/" + detachedFile.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
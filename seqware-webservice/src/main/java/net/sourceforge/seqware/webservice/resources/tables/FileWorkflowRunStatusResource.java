@@ -0,0 +1,78 @@
+package net.sourceforge.seqware.webservice.resources.tables;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.seqware.common.factory.DBAccess;
+import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.model.lists.IntegerList;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import static net.sourceforge.seqware.webservice.resources.BasicResource.testIfNull;
+import org.apache.commons.lang.StringUtils;
+import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Post;
+import org.restlet.resource.ResourceException;
+import org.xml.sax.SAXException;
+
+/**
+ * Set-based version of {@link FileChildLimitedWorkflowRunsResource} for callers that check the previous runs of many files at once.
+ *
+ * Takes the same input, a list of file accessions and optionally ?workflows=, but answers with a single query on
+ * workflow_run_input_files and returns one tab-separated line per workflow run rather than full workflow run objects:
+ *
+ * <pre>
+ * Workflow Run SWID	Workflow SWID	Workflow Run Status	Input File SWIDs
+ * 6654	4773	failed	835,838
+ * </pre>
+ */
+public class FileWorkflowRunStatusResource extends DatabaseResource {
+
+    public static final String HEADER = "Workflow Run SWID\tWorkflow SWID\tWorkflow Run Status\tInput File SWIDs";
+
+    public FileWorkflowRunStatusResource() {
+        super("file");
+    }
+
+    @Post("xml|json")
+    public void postXml(Representation entity) {
+        authenticate();
+        try {
+            List<Integer> workflows = new ArrayList<>();
+            if (queryValues.containsKey("workflows")) {
+                for (String swid : queryValues.get("workflows").split(",")) {
+                    workflows.add(Integer.valueOf(swid));
+                }
+            }
+            JaxbObject<IntegerList> jo = new JaxbObject<>();
+            List<Integer> files;
+            try {
+                files = ((IntegerList) XmlTools.unMarshal(jo, new IntegerList(), entity)).getList();
+            } catch (SAXException ex) {
+                throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
+            }
+            files = testIfNull(files);
+            Log.debug("Finding workflow run statuses for " + files.size() + " files and " + workflows.size() + " workflows");
+
+            List<WorkflowRun> runs;
+            try {
+                runs = DBAccess.get().getWorkflowRunStatusesByInputFiles(files, workflows);
+            } finally {
+                DBAccess.close();
+            }
+            StringBuilder sb = new StringBuilder(HEADER).append('\n');
+            for (WorkflowRun run : runs) {
+                sb.append(run.getSwAccession()).append('\t').append(run.getWorkflowAccession()).append('\t').append(run.getStatus())
+                        .append('\t').append(StringUtils.join(run.getInputFileAccessions(), ',')).append('\n');
+            }
+            getResponse().setEntity(new StringRepresentation(sb, MediaType.TEXT_TSV));
+            getResponse().setStatus(Status.SUCCESS_OK);
+        } catch (IOException | NumberFormatException e) {
+            getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST, e.getMessage());
+        }
+    }
+}
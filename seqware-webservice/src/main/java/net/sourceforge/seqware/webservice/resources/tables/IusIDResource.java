@@ -36,7 +36,6 @@ import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -86,8 +85,7 @@ public class IusIDResource extends DatabaseIDResource {
                 dto.setIusAttributes(newias);
             }
         }
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -102,8 +100,7 @@ public class IusIDResource extends DatabaseIDResource {
         IUS newIUS = null;
         JaxbObject<IUS> jo = new JaxbObject<>();
         try {
-            String text = entity.getText();
-            newIUS = (IUS) XmlTools.unMarshal(jo, new IUS(), text);
+            newIUS = (IUS) XmlTools.unMarshal(jo, new IUS(), entity);
         } catch (SAXException ex) {
             ex.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, ex);
@@ -163,8 +160,7 @@ public class IusIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             IUS detachedIUS = copier.hibernate2dto(IUS.class, ius);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedIUS);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedIUS);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/ius/" + detachedIUS.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
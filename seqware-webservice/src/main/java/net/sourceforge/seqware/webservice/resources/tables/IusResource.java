@@ -17,7 +17,6 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.IUSService;
 import net.sourceforge.seqware.common.business.LaneService;
@@ -30,6 +29,7 @@ import net.sourceforge.seqware.common.model.Sample;
 import net.sourceforge.seqware.common.model.lists.IUSList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
@@ -85,15 +85,8 @@ public class IusResource extends DatabaseResource {
 
         } else {
 
-            JaxbObject<IUSList> jaxbTool = new JaxbObject<>();
-            IUSList list = new IUSList();
-            List<IUS> iuses = (List<IUS>) testIfNull(ss.list());
-
-            for (IUS i : iuses) {
-                list.add(copier.hibernate2dto(IUS.class, i));
-            }
-            line = XmlTools.marshalToDocument(jaxbTool, list);
-
+            streamList(IUSList.class, "IUS", null, "swAccession", new DtoCopier<IUS>(IUS.class));
+            return;
         }
         getResponse().setEntity(XmlTools.getRepresentation(line));
     }
@@ -108,15 +101,14 @@ public class IusResource extends DatabaseResource {
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) throws ResourceException {
         authenticate();
         try {
             JaxbObject<IUS> jo = new JaxbObject<>();
-            String text = entity.getText();
             IUS o = null;
             try {
-                o = (IUS) XmlTools.unMarshal(jo, new IUS(), text);
+                o = (IUS) XmlTools.unMarshal(jo, new IUS(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -154,8 +146,7 @@ public class IusResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             IUS detachedIUS = copier.hibernate2dto(IUS.class, obj);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedIUS);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedIUS));
             getResponse().setLocationRef(getRequest().getRootRef() + "/ius/" + detachedIUS.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
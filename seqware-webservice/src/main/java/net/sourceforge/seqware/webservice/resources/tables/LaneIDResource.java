@@ -42,7 +42,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -105,8 +104,7 @@ public class LaneIDResource extends DatabaseIDResource {
             }
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -123,8 +121,7 @@ public class LaneIDResource extends DatabaseIDResource {
         JaxbObject<Lane> jo = new JaxbObject<>();
         try {
 
-            String text = entity.getText();
-            newLane = (Lane) XmlTools.unMarshal(jo, new Lane(), text);
+            newLane = (Lane) XmlTools.unMarshal(jo, new Lane(), entity);
         } catch (SAXException ex) {
             ex.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, ex);
@@ -206,8 +203,7 @@ public class LaneIDResource extends DatabaseIDResource {
             Lane detachedLane = copier.hibernate2dto(Lane.class, lane, new Class<?>[] { LibraryStrategy.class, LibrarySource.class,
                     LibrarySelection.class }, new CollectionPropertyName<?>[] {});
 
-            Document line = XmlTools.marshalToDocument(jo, detachedLane);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedLane);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/lanes/" + detachedLane.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
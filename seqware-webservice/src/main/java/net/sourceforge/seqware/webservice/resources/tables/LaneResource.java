@@ -17,7 +17,6 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.LaneService;
 import net.sourceforge.seqware.common.business.LibrarySelectionService;
@@ -34,6 +33,7 @@ import net.sourceforge.seqware.common.model.SequencerRun;
 import net.sourceforge.seqware.common.model.lists.LaneList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
@@ -88,14 +88,8 @@ public class LaneResource extends DatabaseResource {
             line = XmlTools.marshalToDocument(jaxbTool, dto);
 
         } else {
-            JaxbObject<LaneList> jaxbTool = new JaxbObject<>();
-            LaneList list = new LaneList();
-            List<Lane> lanes = (List<Lane>) testIfNull(ss.list());
-            for (Lane l : lanes) {
-                list.add(copier.hibernate2dto(Lane.class, l));
-            }
-            line = XmlTools.marshalToDocument(jaxbTool, list);
-
+            streamList(LaneList.class, "Lane", null, "swAccession", new DtoCopier<Lane>(Lane.class));
+            return;
         }
 
         getResponse().setEntity(XmlTools.getRepresentation(line));
@@ -112,15 +106,14 @@ public class LaneResource extends DatabaseResource {
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) throws ResourceException {
         authenticate();
         try {
             JaxbObject<Lane> jo = new JaxbObject<>();
-            String text = entity.getText();
             Lane o = null;
             try {
-                o = (Lane) XmlTools.unMarshal(jo, new Lane(), text);
+                o = (Lane) XmlTools.unMarshal(jo, new Lane(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -170,8 +163,7 @@ public class LaneResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Lane detachedLane = copier.hibernate2dto(Lane.class, obj);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedLane);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedLane));
             getResponse().setLocationRef(getRequest().getRootRef() + "/lanes/" + detachedLane.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.LibrarySelectionService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.LibrarySelection;
 import net.sourceforge.seqware.common.model.lists.LibrarySelectionList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,9 @@ public class LibrarySelectionResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        LibrarySelectionService ss = BeanFactory.getLibrarySelectionServiceBean();
         logger.debug("registration: " + registration);
-
-        List<LibrarySelection> objects = (List<LibrarySelection>) testIfNull(ss.list());
-        logger.debug("library_selections: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<LibrarySelectionList> jaxbTool = new JaxbObject<>();
-
-        LibrarySelectionList list = new LibrarySelectionList();
-        list.setList(new ArrayList());
-
-        for (LibrarySelection obj : objects) {
-            LibrarySelection dto = copier.hibernate2dto(LibrarySelection.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(LibrarySelectionList.class, "LibrarySelection", null, "librarySelectionId",
+                new DtoCopier<LibrarySelection>(LibrarySelection.class));
     }
 
 }
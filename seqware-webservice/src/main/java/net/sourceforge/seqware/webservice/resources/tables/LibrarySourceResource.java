@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.LibrarySourceService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.LibrarySource;
 import net.sourceforge.seqware.common.model.lists.LibrarySourceList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,8 @@ public class LibrarySourceResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        LibrarySourceService ss = BeanFactory.getLibrarySourceServiceBean();
         logger.debug("registration: " + registration);
-
-        List<LibrarySource> objects = (List<LibrarySource>) testIfNull(ss.list());
-        logger.debug("library_sources: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<LibrarySourceList> jaxbTool = new JaxbObject<>();
-
-        LibrarySourceList list = new LibrarySourceList();
-        list.setList(new ArrayList());
-
-        for (LibrarySource obj : objects) {
-            LibrarySource dto = copier.hibernate2dto(LibrarySource.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(LibrarySourceList.class, "LibrarySource", null, "librarySourceId", new DtoCopier<LibrarySource>(LibrarySource.class));
     }
 
 }
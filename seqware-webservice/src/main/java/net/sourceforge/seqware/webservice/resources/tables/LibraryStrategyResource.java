@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.LibraryStrategyService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.LibraryStrategy;
 import net.sourceforge.seqware.common.model.lists.LibraryStrategyList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,9 @@ public class LibraryStrategyResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        LibraryStrategyService ss = BeanFactory.getLibraryStrategyServiceBean();
         logger.debug("registration: " + registration);
-
-        List<LibraryStrategy> objects = (List<LibraryStrategy>) testIfNull(ss.list());
-        logger.debug("library_strategies: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<LibraryStrategyList> jaxbTool = new JaxbObject<>();
-
-        LibraryStrategyList list = new LibraryStrategyList();
-        list.setList(new ArrayList());
-
-        for (LibraryStrategy obj : objects) {
-            LibraryStrategy dto = copier.hibernate2dto(LibraryStrategy.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(LibraryStrategyList.class, "LibraryStrategy", null, "libraryStrategyId",
+                new DtoCopier<LibraryStrategy>(LibraryStrategy.class));
     }
 
 }
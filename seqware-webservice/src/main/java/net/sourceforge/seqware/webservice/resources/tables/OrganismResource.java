@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.OrganismService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.Organism;
 import net.sourceforge.seqware.common.model.lists.OrganismList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,8 @@ public class OrganismResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        OrganismService ss = BeanFactory.getOrganismServiceBean();
         logger.debug("registration: " + registration);
-
-        List<Organism> objects = (List<Organism>) testIfNull(ss.list());
-        logger.debug("organisms: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<OrganismList> jaxbTool = new JaxbObject<>();
-
-        OrganismList list = new OrganismList();
-        list.setList(new ArrayList());
-
-        for (Organism obj : objects) {
-            Organism dto = copier.hibernate2dto(Organism.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(OrganismList.class, "Organism", null, "organismId", new DtoCopier<Organism>(Organism.class));
     }
 
 }
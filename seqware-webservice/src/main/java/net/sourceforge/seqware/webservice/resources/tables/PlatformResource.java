@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.PlatformService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.Platform;
 import net.sourceforge.seqware.common.model.lists.PlatformList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,8 @@ public class PlatformResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        PlatformService ss = BeanFactory.getPlatformServiceBean();
         logger.debug("registration: " + registration);
-
-        List<Platform> objects = (List<Platform>) testIfNull(ss.list());
-        logger.debug("platforms: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<PlatformList> jaxbTool = new JaxbObject<>();
-
-        PlatformList list = new PlatformList();
-        list.setList(new ArrayList());
-
-        for (Platform obj : objects) {
-            Platform dto = copier.hibernate2dto(Platform.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(PlatformList.class, "Platform", null, "platformId", new DtoCopier<Platform>(Platform.class));
     }
 
 }
@@ -57,7 +57,6 @@ import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -115,8 +114,7 @@ public class ProcessIDResource extends DatabaseIDResource {
             }
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -129,12 +127,11 @@ public class ProcessIDResource extends DatabaseIDResource {
     public Representation put(Representation rep) {
         authenticate();
         Representation toreturn = null;
-        if (rep.getMediaType().equals(MediaType.APPLICATION_XML)) {
+        if (rep.getMediaType().equals(MediaType.APPLICATION_XML) || XmlTools.isJson(rep)) {
             JaxbObject<Processing> jo = new JaxbObject<>();
             Processing p = null;
             try {
-                String text = rep.getText();
-                p = (Processing) XmlTools.unMarshal(jo, new Processing(), text);
+                p = (Processing) XmlTools.unMarshal(jo, new Processing(), rep);
             } catch (IOException e) {
                 e.printStackTrace();
                 throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, e);
@@ -397,9 +394,7 @@ public class ProcessIDResource extends DatabaseIDResource {
                 }
 
                 Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-                Document line = XmlTools.marshalToDocument(jo, copier.hibernate2dto(processing));
-
-                toreturn = XmlTools.getRepresentation(line);
+                toreturn = XmlTools.getRepresentation(jo, copier.hibernate2dto(processing));
                 getResponse().setEntity(toreturn);
                 getResponse().setStatus(Status.SUCCESS_CREATED);
             } catch (SecurityException e) {
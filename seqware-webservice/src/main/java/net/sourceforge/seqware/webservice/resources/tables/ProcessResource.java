@@ -18,7 +18,6 @@ package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.ProcessingService;
@@ -29,6 +28,7 @@ import net.sourceforge.seqware.common.model.lists.ProcessingList;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
@@ -97,15 +97,8 @@ public class ProcessResource extends DatabaseResource {
             line = XmlTools.marshalToDocument(jaxbTool, dto);
 
         } else {
-            JaxbObject<ProcessingList> jaxbTool = new JaxbObject<>();
-            ProcessingList list = new ProcessingList();
-            List<Processing> processings = (List<Processing>) testIfNull(ss.list());
-            for (Processing p : processings) {
-                list.add(copier.hibernate2dto(Processing.class, p));
-            }
-
-            line = XmlTools.marshalToDocument(jaxbTool, list);
-
+            streamList(ProcessingList.class, "Processing", null, "swAccession", new DtoCopier<Processing>(Processing.class));
+            return;
         }
         getResponse().setEntity(XmlTools.getRepresentation(line));
     }
@@ -118,15 +111,14 @@ public class ProcessResource extends DatabaseResource {
      * @param entity
      *            a {@link org.restlet.representation.Representation} object.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) {
         authenticate();
         try {
             JaxbObject<Processing> jo = new JaxbObject<>();
-            String text = entity.getText();
             Processing p;
             try {
-                p = (Processing) XmlTools.unMarshal(jo, new Processing(), text);
+                p = (Processing) XmlTools.unMarshal(jo, new Processing(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -142,8 +134,7 @@ public class ProcessResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Processing detachedP = copier.hibernate2dto(Processing.class, newProcessing);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedP);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedP));
             getResponse().setLocationRef(getRequest().getRootRef() + "/processes/" + detachedP.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
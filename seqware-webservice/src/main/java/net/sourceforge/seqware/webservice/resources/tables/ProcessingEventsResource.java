@@ -0,0 +1,55 @@
+package net.sourceforge.seqware.webservice.resources.tables;
+
+import java.io.IOException;
+import java.util.List;
+import net.sourceforge.seqware.common.factory.DBAccess;
+import net.sourceforge.seqware.common.model.lists.IntegerList;
+import net.sourceforge.seqware.common.model.lists.ProcessingEventList;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.BasicResource;
+import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.representation.Representation;
+import org.restlet.resource.Post;
+import org.xml.sax.SAXException;
+
+/**
+ * Records processing events that have already run, with their files, workflow run links and final status, see
+ * Metadata#addProcessingEvents.
+ *
+ * Each step of recording an event needs the ids made by the one before it, so unlike a /batch of updates the events cannot be sent as
+ * separate requests. They are recorded here through the direct MetaDB connection, all of them in one database transaction: either every
+ * event of the list is recorded or, if any step fails, none is. The response is the list of the sw_accession of each event, in order.
+ */
+public class ProcessingEventsResource extends BasicResource {
+
+    @Post("xml|json")
+    public void postJaxb(Representation entity) {
+        authenticate();
+        ProcessingEventList events;
+        try {
+            events = (ProcessingEventList) XmlTools.unMarshal(new JaxbObject<ProcessingEventList>(), new ProcessingEventList(), entity);
+        } catch (SAXException | IOException e) {
+            getResponse().setStatus(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, e);
+            return;
+        }
+        List<Integer> accessions;
+        try {
+            accessions = DBAccess.get().addProcessingEvents(events.getList());
+        } catch (RuntimeException e) {
+            // the transaction was rolled back
+            Log.error("Could not record " + events.getList().size() + " processing events", e);
+            getResponse().setStatus(Status.SERVER_ERROR_INTERNAL, e.getMessage());
+            return;
+        } finally {
+            DBAccess.close();
+        }
+        IntegerList list = new IntegerList();
+        list.setList(accessions);
+        getResponse().setEntity(XmlTools.getRepresentation(new JaxbObject<IntegerList>(), list,
+                XmlTools.isJson(entity) ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_XML));
+        getResponse().setStatus(Status.SUCCESS_CREATED);
+    }
+}
@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.SampleService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.Sample;
 import net.sourceforge.seqware.common.model.lists.SampleList;
 import net.sourceforge.seqware.common.util.Log;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * This resource should pull back only samples without parents
@@ -61,26 +54,10 @@ public class RootSampleResource extends DatabaseResource {
     @Get
     public void getXml() {
         authenticate();
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject jaxbTool;
         for (String key : queryValues.keySet()) {
             Log.debug("key: " + key + " -> " + queryValues.get(key));
         }
 
-        SampleService ss = BeanFactory.getSampleServiceBean();
-
-        jaxbTool = new JaxbObject<>();
-        List<Sample> samples = (List<Sample>) testIfNull(ss.list());
-        SampleList eList = new SampleList();
-        eList.setList(new ArrayList());
-
-        for (Sample sample : samples) {
-            if (sample.getParents().isEmpty()) {
-                Sample dto = copier.hibernate2dto(Sample.class, sample);
-                eList.add(dto);
-            }
-        }
-        Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(SampleList.class, "Sample", "row.parents is empty", "swAccession", new DtoCopier<Sample>(Sample.class));
     }
 }
@@ -35,7 +35,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -108,8 +107,7 @@ public class SampleIDResource extends DatabaseIDResource {
             }
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -124,10 +122,9 @@ public class SampleIDResource extends DatabaseIDResource {
         Representation representation = null;
         try {
             JaxbObject<Sample> jo = new JaxbObject<>();
-            String text = entity.getText();
             Sample o = null;
             try {
-                o = (Sample) XmlTools.unMarshal(jo, new Sample(), text);
+                o = (Sample) XmlTools.unMarshal(jo, new Sample(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -200,8 +197,7 @@ public class SampleIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Sample detachedSample = copier.hibernate2dto(Sample.class, sample);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedSample);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedSample));
             getResponse().setLocationRef(getRequest().getRootRef() + "/samples/" + detachedSample.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
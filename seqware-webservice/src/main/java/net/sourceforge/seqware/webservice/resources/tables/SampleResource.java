@@ -16,9 +16,8 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.ExperimentService;
 import net.sourceforge.seqware.common.business.SampleService;
@@ -29,6 +28,7 @@ import net.sourceforge.seqware.common.model.lists.SampleList;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.hibernate.Query;
 import org.hibernate.classic.Session;
 import org.restlet.data.Status;
@@ -36,7 +36,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -86,43 +85,21 @@ public class SampleResource extends DatabaseResource {
             jaxbTool = new JaxbObject<>();
             Sample sample = (Sample) testIfNull(ss.findByTitle(queryValues.get("title")));
             Sample dto = copier.hibernate2dto(Sample.class, sample);
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
 
         } else if (queryValues.get("name") != null) {
 
             jaxbTool = new JaxbObject<>();
             Sample sample = (Sample) testIfNull(ss.findByName(queryValues.get("name")));
             Sample dto = copier.hibernate2dto(Sample.class, sample);
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
 
         } else if (queryValues.get("matches") != null) {
-            jaxbTool = new JaxbObject<>();
-            String name = queryValues.get("matches");
-
-            List<Sample> samples = (List<Sample>) testIfNull(ss.matchName(name));
-            SampleList eList = new SampleList();
-            eList.setList(new ArrayList());
-
-            for (Sample sample : samples) {
-                Sample dto = copier.hibernate2dto(Sample.class, sample);
-                eList.add(dto);
-            }
-            Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            // the same condition as SampleService.matchName()
+            streamList(SampleList.class, "Sample", "row.name like :name", Collections.<String, Object> singletonMap("name",
+                    queryValues.get("matches")), "swAccession", new DtoCopier<Sample>(Sample.class));
         } else {
-            jaxbTool = new JaxbObject<>();
-            List<Sample> samples = (List<Sample>) testIfNull(ss.list());
-            SampleList eList = new SampleList();
-            eList.setList(new ArrayList());
-
-            for (Sample sample : samples) {
-                Sample dto = copier.hibernate2dto(Sample.class, sample);
-                eList.add(dto);
-            }
-            Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            streamList(SampleList.class, "Sample", null, "swAccession", new DtoCopier<Sample>(Sample.class));
         }
     }
 
@@ -136,17 +113,16 @@ public class SampleResource extends DatabaseResource {
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) throws ResourceException {
         try {
 
             authenticate();
 
             JaxbObject<Sample> jo = new JaxbObject<>();
-            String text = entity.getText();
             Sample o = null;
             try {
-                o = (Sample) XmlTools.unMarshal(jo, new Sample(), text);
+                o = (Sample) XmlTools.unMarshal(jo, new Sample(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -223,8 +199,7 @@ public class SampleResource extends DatabaseResource {
                 }
             }
 
-            Document line = XmlTools.marshalToDocument(jo, detachedSample);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedSample));
             getResponse().setLocationRef(getRequest().getRootRef() + "/samples/" + detachedSample.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
@@ -39,7 +39,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -102,8 +101,7 @@ public class SequencerRunIDResource extends DatabaseIDResource {
             }
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
 
     }
 
@@ -120,8 +118,7 @@ public class SequencerRunIDResource extends DatabaseIDResource {
         JaxbObject<SequencerRun> jo = new JaxbObject<>();
         SequencerRun newSequencerRun = null;
         try {
-            String text = entity.getText();
-            newSequencerRun = (SequencerRun) XmlTools.unMarshal(jo, new SequencerRun(), text);
+            newSequencerRun = (SequencerRun) XmlTools.unMarshal(jo, new SequencerRun(), entity);
         } catch (SAXException ex) {
             ex.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, ex.getMessage());
@@ -180,8 +177,7 @@ public class SequencerRunIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             SequencerRun detachedSequencerRun = copier.hibernate2dto(SequencerRun.class, sequencerRun);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedSequencerRun);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedSequencerRun);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/sequencerruns/" + detachedSequencerRun.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
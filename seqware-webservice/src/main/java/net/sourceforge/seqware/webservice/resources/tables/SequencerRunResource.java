@@ -17,8 +17,6 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.PlatformService;
 import net.sourceforge.seqware.common.business.SequencerRunService;
@@ -29,13 +27,13 @@ import net.sourceforge.seqware.common.model.SequencerRun;
 import net.sourceforge.seqware.common.model.lists.SequencerRunList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -76,20 +74,11 @@ public class SequencerRunResource extends DatabaseResource {
             SequencerRun study = (SequencerRun) testIfNull(ss.findByName(name));
             JaxbObject<SequencerRun> jaxbTool = new JaxbObject<>();
             SequencerRun dto = copier.hibernate2dto(SequencerRun.class, study);
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
         } else {
-            JaxbObject<SequencerRunList> jaxbTool = new JaxbObject<>();
-            List<SequencerRun> runs = (List<SequencerRun>) testIfNull(ss.list());
-            SequencerRunList eList = new SequencerRunList();
-            eList.setList(new ArrayList());
-
-            for (SequencerRun sequencerRun : runs) {
-                SequencerRun dto = copier.hibernate2dto(SequencerRun.class, sequencerRun);
-                eList.add(dto);
-            }
-            Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            // SEQWARE-1489, listed through the DTO like SequencerRunDAOHibernate.list()
+            streamList(SequencerRunList.class, "SequencerRunWizardDTO", null, "swAccession", new DtoCopier<SequencerRun>(
+                    SequencerRun.class));
         }
 
     }
@@ -104,15 +93,14 @@ public class SequencerRunResource extends DatabaseResource {
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) throws ResourceException {
         authenticate();
         try {
             JaxbObject<SequencerRun> jo = new JaxbObject<>();
-            String text = entity.getText();
             SequencerRun o = null;
             try {
-                o = (SequencerRun) XmlTools.unMarshal(jo, new SequencerRun(), text);
+                o = (SequencerRun) XmlTools.unMarshal(jo, new SequencerRun(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -143,8 +131,7 @@ public class SequencerRunResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             SequencerRun detachedSequencerRun = copier.hibernate2dto(SequencerRun.class, obj);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedSequencerRun);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedSequencerRun));
             getResponse().setLocationRef(getRequest().getRootRef() + "/sequencerruns/" + detachedSequencerRun.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
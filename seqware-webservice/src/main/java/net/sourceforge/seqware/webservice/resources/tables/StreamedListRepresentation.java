@@ -0,0 +1,148 @@
+package net.sourceforge.seqware.webservice.resources.tables;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
+import net.sourceforge.seqware.common.factory.BeanFactory;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.restlet.data.MediaType;
+import org.restlet.representation.OutputRepresentation;
+
+/**
+ * Writes the rows of an HQL query as the same XML as marshalling the matching list class, such as SampleList, but one row at a time as
+ * it is scrolled from the database.
+ *
+ * The query only runs when the response is written, in its own read-only session. No list of the rows, copy of the list or DOM is
+ * built, and the session is cleared as it goes so that memory does not grow with the number of rows.
+ *
+ * @param <T>
+ *            the type of the elements of the list
+ */
+public class StreamedListRepresentation<T> extends OutputRepresentation {
+
+    /**
+     * The rows fetched from the database at a time, and the rows written between clearing the session.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    /**
+     * Copies a row into the object that is marshalled.
+     *
+     * @param <T>
+     */
+    public interface RowCopier<T> {
+
+        T copy(Hibernate3DtoCopier copier, Object row);
+    }
+
+    /**
+     * Copies the properties of a row but none of its associations, as the list resources always have. Marshalling the row itself would
+     * walk its lazy associations.
+     *
+     * @param <T>
+     */
+    public static class DtoCopier<T> implements RowCopier<T> {
+
+        private final Class<T> type;
+
+        public DtoCopier(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T copy(Hibernate3DtoCopier copier, Object row) {
+            return copier.hibernate2dto(type, row);
+        }
+    }
+
+    private final String listName;
+    private final String hql;
+    private final Map<String, Object> parameters;
+    private final int offset;
+    private final int limit;
+    private final RowCopier<T> rowCopier;
+
+    /**
+     * @param listClass
+     *            the list class whose XML is written, such as SampleList
+     * @param hql
+     *            the query for the rows, in the order they are written
+     * @param parameters
+     *            the named parameters of the query
+     * @param offset
+     *            the number of rows to skip
+     * @param limit
+     *            the most rows to write, or -1 for all of them
+     * @param rowCopier
+     */
+    public StreamedListRepresentation(Class<?> listClass, String hql, Map<String, Object> parameters, int offset, int limit,
+            RowCopier<T> rowCopier) {
+        super(MediaType.APPLICATION_XML);
+        this.listName = listClass.getSimpleName();
+        this.hql = hql;
+        this.parameters = parameters;
+        this.offset = offset;
+        this.limit = limit;
+        this.rowCopier = rowCopier;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        Session session = BeanFactory.getSessionFactoryBean().openSession();
+        // the JDBC driver only fetches in chunks inside a transaction
+        Transaction transaction = session.beginTransaction();
+        ScrollableResults rows = null;
+        try {
+            Query query = session.createQuery(hql);
+            for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+                query.setParameter(parameter.getKey(), parameter.getValue());
+            }
+            query.setFirstResult(offset);
+            if (limit >= 0) {
+                query.setMaxResults(limit);
+            }
+            query.setReadOnly(true);
+            query.setFetchSize(FETCH_SIZE);
+            rows = query.scroll(ScrollMode.FORWARD_ONLY);
+
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement(listName);
+            JaxbObject<T> jaxbTool = new JaxbObject<>();
+            Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
+            int count = 0;
+            while (rows.next()) {
+                jaxbTool.marshalFragment("list", rowCopier.copy(copier, rows.get(0)), writer);
+                if (++count % FETCH_SIZE == 0) {
+                    session.clear();
+                    writer.flush();
+                }
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+            Log.debug("Streamed " + count + " rows of " + listName);
+        } catch (XMLStreamException | JAXBException e) {
+            Log.error("Could not stream " + listName, e);
+            throw new IOException(e);
+        } finally {
+            if (rows != null) {
+                rows.close();
+            }
+            transaction.rollback();
+            session.close();
+        }
+    }
+}
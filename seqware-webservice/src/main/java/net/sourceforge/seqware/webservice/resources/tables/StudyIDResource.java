@@ -30,7 +30,6 @@ import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -77,8 +76,7 @@ public class StudyIDResource extends DatabaseIDResource {
                 dto.setStudyAttributes(newsas);
             }
         }
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -92,10 +90,9 @@ public class StudyIDResource extends DatabaseIDResource {
         Representation representation = null;
         try {
             JaxbObject<Study> jo = new JaxbObject<>();
-            String text = entity.getText();
             Study p = null;
             try {
-                p = (Study) XmlTools.unMarshal(jo, new Study(), text);
+                p = (Study) XmlTools.unMarshal(jo, new Study(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -175,8 +172,7 @@ public class StudyIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Study detachedStudy = copier.hibernate2dto(Study.class, study);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedStudy);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedStudy);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/studies/" + detachedStudy.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
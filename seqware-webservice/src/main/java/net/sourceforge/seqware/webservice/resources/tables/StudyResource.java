@@ -16,8 +16,6 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
 import net.sf.beanlib.CollectionPropertyName;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.StudyService;
@@ -27,12 +25,12 @@ import net.sourceforge.seqware.common.model.StudyType;
 import net.sourceforge.seqware.common.model.lists.StudyList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.RowCopier;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -87,22 +85,16 @@ public class StudyResource extends DatabaseResource {
             Study study = (Study) testIfNull(ss.findByTitle(queryValues.get("title")));
             JaxbObject jaxbTool = new JaxbObject<>();
             Study dto = copier.hibernate2dto(Study.class, study);
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
         } else {
-            JaxbObject jaxbTool = new JaxbObject<>();
-            List<Study> studies = (List<Study>) testIfNull(ss.list());
-            StudyList eList = new StudyList();
-            eList.setList(new ArrayList());
-
-            for (Study study : studies) {
-                CollectionPropertyName<Study>[] createCollectionPropertyNames = CollectionPropertyName.createCollectionPropertyNames(
-                        Study.class, new String[] { "existingType" });
-                Study dto = copier.hibernate2dto(Study.class, study, new Class[] { StudyType.class }, createCollectionPropertyNames);
-                eList.add(dto);
-            }
-            Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            final CollectionPropertyName<Study>[] createCollectionPropertyNames = CollectionPropertyName.createCollectionPropertyNames(
+                    Study.class, new String[] { "existingType" });
+            streamList(StudyList.class, "Study", null, "swAccession", new RowCopier<Study>() {
+                @Override
+                public Study copy(Hibernate3DtoCopier copier, Object row) {
+                    return copier.hibernate2dto(Study.class, row, new Class[] { StudyType.class }, createCollectionPropertyNames);
+                }
+            });
         }
 
     }
@@ -117,14 +109,13 @@ public class StudyResource extends DatabaseResource {
      * @throws org.restlet.resource.ResourceException
      *             if any.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) throws ResourceException {
         try {
             JaxbObject<Study> jo = new JaxbObject<>();
-            String text = entity.getText();
             Study p = null;
             try {
-                p = (Study) XmlTools.unMarshal(jo, new Study(), text);
+                p = (Study) XmlTools.unMarshal(jo, new Study(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -140,8 +131,7 @@ public class StudyResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Study detachedStudy = copier.hibernate2dto(Study.class, study);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedStudy);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedStudy));
             getResponse().setLocationRef(getRequest().getRootRef() + "/studies/" + detachedStudy.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
@@ -16,19 +16,12 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
-import java.util.ArrayList;
-import java.util.List;
-import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
-import net.sourceforge.seqware.common.business.StudyTypeService;
-import net.sourceforge.seqware.common.factory.BeanFactory;
 import net.sourceforge.seqware.common.model.StudyType;
 import net.sourceforge.seqware.common.model.lists.StudyTypeList;
-import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
-import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.apache.log4j.Logger;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 
 /**
  * <p>
@@ -66,25 +59,8 @@ public class StudyTypeResource extends DatabaseResource {
      */
     @Get
     public void getXml() {
-        StudyTypeService ss = BeanFactory.getStudyTypeServiceBean();
         logger.debug("registration: " + registration);
-
-        List<StudyType> objects = (List<StudyType>) testIfNull(ss.list());
-        logger.debug("study_types: " + objects.size() + " " + objects);
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<StudyTypeList> jaxbTool = new JaxbObject<>();
-
-        StudyTypeList list = new StudyTypeList();
-        list.setList(new ArrayList());
-
-        for (StudyType obj : objects) {
-            StudyType dto = copier.hibernate2dto(StudyType.class, obj);
-            list.add(dto);
-        }
-
-        Document line = XmlTools.marshalToDocument(jaxbTool, list);
-
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        streamList(StudyTypeList.class, "StudyType", null, "studyTypeId", new DtoCopier<StudyType>(StudyType.class));
     }
 
 }
@@ -37,7 +37,6 @@ import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -106,8 +105,7 @@ public class WorkflowIDResource extends DatabaseIDResource {
             }
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
     }
 
     /**
@@ -122,8 +120,7 @@ public class WorkflowIDResource extends DatabaseIDResource {
         Workflow newWorkflow = null;
         JaxbObject<Workflow> jo = new JaxbObject<>();
         try {
-            String text = entity.getText();
-            newWorkflow = (Workflow) XmlTools.unMarshal(jo, new Workflow(), text);
+            newWorkflow = (Workflow) XmlTools.unMarshal(jo, new Workflow(), entity);
         } catch (SAXException ex) {
             ex.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, ex.getMessage());
@@ -188,8 +185,7 @@ public class WorkflowIDResource extends DatabaseIDResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Workflow detachedWorkflow = copier.hibernate2dto(Workflow.class, workflow);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedWorkflow);
-            representation = XmlTools.getRepresentation(line);
+            representation = XmlTools.getRepresentation(jo, detachedWorkflow);
             getResponse().setEntity(representation);
             getResponse().setLocationRef(getRequest().getRootRef() + "/workflows/" + detachedWorkflow.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
@@ -17,7 +17,6 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.WorkflowParamService;
 import net.sourceforge.seqware.common.business.WorkflowService;
@@ -27,6 +26,7 @@ import net.sourceforge.seqware.common.model.WorkflowParam;
 import net.sourceforge.seqware.common.model.lists.WorkflowParamList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
@@ -67,10 +67,9 @@ public class WorkflowParamResource extends DatabaseResource {
         authenticate();
         try {
             JaxbObject<WorkflowParam> jo = new JaxbObject<>();
-            String text = entity.getText();
             WorkflowParam p;
             try {
-                p = (WorkflowParam) XmlTools.unMarshal(jo, new WorkflowParam(), text);
+                p = (WorkflowParam) XmlTools.unMarshal(jo, new WorkflowParam(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -87,8 +86,7 @@ public class WorkflowParamResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             WorkflowParam detachedWP = copier.hibernate2dto(WorkflowParam.class, wp);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedWP);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedWP));
             getResponse().setLocationRef(getRequest().getRootRef() + "/workflowparams?id=" + detachedWP.getWorkflowParamId());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
@@ -127,14 +125,9 @@ public class WorkflowParamResource extends DatabaseResource {
             line = XmlTools.marshalToDocument(jaxbTool, dto);
 
         } else {
-            JaxbObject<WorkflowParam> jaxbTool = new JaxbObject<>();
-            List<WorkflowParam> wps = (List<WorkflowParam>) testIfNull(ss.list());
-            WorkflowParamList list = new WorkflowParamList();
-            for (WorkflowParam wp : wps) {
-                list.add(copier.hibernate2dto(WorkflowParam.class, wp));
-            }
-
-            line = XmlTools.marshalToDocument(jaxbTool, list);
+            streamList(WorkflowParamList.class, "WorkflowParam", null, "workflowParamId", new DtoCopier<WorkflowParam>(
+                    WorkflowParam.class));
+            return;
         }
         getResponse().setEntity(XmlTools.getRepresentation(line));
 
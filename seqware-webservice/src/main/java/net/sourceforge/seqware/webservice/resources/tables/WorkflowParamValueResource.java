@@ -17,7 +17,6 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.WorkflowParamValueService;
 import net.sourceforge.seqware.common.factory.BeanFactory;
@@ -25,6 +24,7 @@ import net.sourceforge.seqware.common.model.WorkflowParamValue;
 import net.sourceforge.seqware.common.model.lists.WorkflowParamValueList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
@@ -60,15 +60,14 @@ public class WorkflowParamValueResource extends DatabaseResource {
      * @param entity
      *            a {@link org.restlet.representation.Representation} object.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) {
         authenticate();
         try {
             JaxbObject<WorkflowParamValue> jo = new JaxbObject<>();
-            String text = entity.getText();
             WorkflowParamValue p;
             try {
-                p = (WorkflowParamValue) XmlTools.unMarshal(jo, new WorkflowParamValue(), text);
+                p = (WorkflowParamValue) XmlTools.unMarshal(jo, new WorkflowParamValue(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -80,8 +79,7 @@ public class WorkflowParamValueResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             WorkflowParamValue detachWPV = copier.hibernate2dto(WorkflowParamValue.class, wpv);
 
-            Document line = XmlTools.marshalToDocument(jo, detachWPV);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachWPV));
             getResponse().setLocationRef(getRequest().getRootRef() + "/workflowparamvalues?id=" + detachWPV.getWorkflowParamValueId());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
@@ -115,17 +113,9 @@ public class WorkflowParamValueResource extends DatabaseResource {
             line = XmlTools.marshalToDocument(jaxbTool, dto);
 
         } else {
-            Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-            JaxbObject<WorkflowParamValueList> jaxbTool = new JaxbObject<>();
-
-            WorkflowParamValueList list = new WorkflowParamValueList();
-            List<WorkflowParamValue> wpvs = (List<WorkflowParamValue>) testIfNull(ss.list());
-
-            for (WorkflowParamValue wpv : wpvs) {
-                list.add(copier.hibernate2dto(WorkflowParamValue.class, wpv));
-            }
-
-            line = XmlTools.marshalToDocument(jaxbTool, list);
+            streamList(WorkflowParamValueList.class, "WorkflowParamValue", null, "workflowParamValueId",
+                    new DtoCopier<WorkflowParamValue>(WorkflowParamValue.class));
+            return;
         }
         getResponse().setEntity(XmlTools.getRepresentation(line));
 
@@ -17,7 +17,7 @@
 package net.sourceforge.seqware.webservice.resources.tables;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.WorkflowService;
@@ -28,6 +28,7 @@ import net.sourceforge.seqware.common.model.lists.WorkflowList;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
@@ -70,23 +71,23 @@ public class WorkflowResource extends DatabaseResource {
             Workflow p = (Workflow) testIfNull(ss.findByID(parseClientInt(queryValues.get("id"))));
             line = detachWorkflow(p);
 
-        } else if (queryValues.get("name") != null) {
+        } else if (queryValues.get("name") != null && queryValues.get("version") != null) {
             List<Workflow> workflows = (List<Workflow>) testIfNull(ss.findByName(queryValues.get("name")));
-
-            if (queryValues.get("version") != null) {
-                String version = queryValues.get("version").trim();
-                for (Workflow workflow : workflows) {
-                    if (version.equals(workflow.getVersion())) {
-                        line = detachWorkflow(workflow);
-                    }
+            String version = queryValues.get("version").trim();
+            for (Workflow workflow : workflows) {
+                if (version.equals(workflow.getVersion())) {
+                    line = detachWorkflow(workflow);
                 }
-            } else {
-                line = detachWorkflowList(workflows);
             }
 
+        } else if (queryValues.get("name") != null) {
+            // the same condition as WorkflowService.findByName()
+            streamList(WorkflowList.class, "Workflow", "row.name = :name", Collections.<String, Object> singletonMap("name",
+                    queryValues.get("name")), "swAccession", new DtoCopier<Workflow>(Workflow.class));
+            return;
         } else {
-            List<Workflow> workflows = ss.list();
-            line = detachWorkflowList(workflows);
+            streamList(WorkflowList.class, "Workflow", null, "swAccession", new DtoCopier<Workflow>(Workflow.class));
+            return;
         }
 
         getResponse().setEntity(XmlTools.getRepresentation(line));
@@ -100,20 +101,6 @@ public class WorkflowResource extends DatabaseResource {
         return line;
     }
 
-    private Document detachWorkflowList(List<Workflow> workflows) {
-        Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-        JaxbObject<WorkflowList> jaxbTool = new JaxbObject<>();
-        WorkflowList eList = new WorkflowList();
-        eList.setList(new ArrayList());
-
-        for (Workflow workflow : workflows) {
-            Workflow dto = copier.hibernate2dto(Workflow.class, workflow);
-            eList.add(dto);
-        }
-        Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-        return line;
-    }
-
     /**
      * <p>
      * postJaxb.
@@ -122,15 +109,14 @@ public class WorkflowResource extends DatabaseResource {
      * @param entity
      *            a {@link org.restlet.representation.Representation} object.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) {
         authenticate();
         try {
             JaxbObject<Workflow> jo = new JaxbObject<>();
-            String text = entity.getText();
             Workflow p;
             try {
-                p = (Workflow) XmlTools.unMarshal(jo, new Workflow(), text);
+                p = (Workflow) XmlTools.unMarshal(jo, new Workflow(), entity);
             } catch (SAXException ex) {
                 throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
             }
@@ -151,8 +137,7 @@ public class WorkflowResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             Workflow detachedW = copier.hibernate2dto(Workflow.class, w);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedW);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedW));
             getResponse().setLocationRef(getRequest().getRootRef() + "/workflows/" + detachedW.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
 
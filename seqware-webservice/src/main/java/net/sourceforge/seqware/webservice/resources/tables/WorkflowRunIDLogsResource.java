@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2011 SeqWare
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sourceforge.seqware.webservice.resources.tables;
+
+import java.io.IOException;
+import java.util.Date;
+import net.sourceforge.seqware.common.business.WorkflowRunService;
+import net.sourceforge.seqware.common.factory.BeanFactory;
+import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.util.Log;
+import net.sourceforge.seqware.common.util.TruncatedLog;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import org.restlet.data.Status;
+import org.restlet.representation.Representation;
+import org.restlet.resource.Post;
+import org.restlet.resource.ResourceException;
+import org.xml.sax.SAXException;
+
+/**
+ * Appends output to the stdout and stderr of a workflow run, so that the status checker can send only what a run wrote since it last
+ * looked.
+ *
+ * Takes a workflow run with only stdOut and stdErr set, either may be left out. Each is kept within ?retainedSize= characters, as its head
+ * and its tail, see {@link TruncatedLog}.
+ */
+public class WorkflowRunIDLogsResource extends DatabaseIDResource {
+
+    public WorkflowRunIDLogsResource() {
+        super("workflowRunId");
+    }
+
+    @Post("xml|json")
+    public void postXml(Representation entity) {
+        authenticate();
+        WorkflowRun logs;
+        int retainedSize;
+        try {
+            logs = (WorkflowRun) XmlTools.unMarshal(new JaxbObject<WorkflowRun>(), new WorkflowRun(), entity);
+            retainedSize = queryValues.containsKey("retainedSize") ? parseClientInt(queryValues.get("retainedSize"))
+                    : TruncatedLog.DEFAULT_RETAINED_SIZE;
+            if (retainedSize < 0) {
+                throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, "retainedSize must not be negative");
+            }
+        } catch (IOException e) {
+            throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, e);
+        } catch (SAXException ex) {
+            throw new ResourceException(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, ex);
+        }
+        try {
+            WorkflowRunService wrs = BeanFactory.getWorkflowRunServiceBean();
+            WorkflowRun wr = testIfNull(wrs.findBySWAccession(getId()));
+            wr.givesPermission(registration);
+            Log.debug("Appending " + length(logs.getStdOut()) + " characters of stdout and " + length(logs.getStdErr())
+                    + " characters of stderr to " + attribute);
+            wr.setStdOut(TruncatedLog.append(wr.getStdOut(), logs.getStdOut(), retainedSize));
+            wr.setStdErr(TruncatedLog.append(wr.getStdErr(), logs.getStdErr(), retainedSize));
+            wr.setUpdateTimestamp(new Date());
+            wrs.update(registration, wr);
+            getResponse().setStatus(Status.SUCCESS_NO_CONTENT);
+        } catch (SecurityException e) {
+            getResponse().setStatus(Status.CLIENT_ERROR_FORBIDDEN, e);
+        }
+    }
+
+    private static int length(String log) {
+        return log == null ? 0 : log.length();
+    }
+}
@@ -51,7 +51,6 @@ import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -154,8 +153,7 @@ public class WorkflowRunIDResource extends DatabaseIDResource {
             }
         }
 
-        Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
+        getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
 
     }
 
@@ -210,21 +208,51 @@ public class WorkflowRunIDResource extends DatabaseIDResource {
             }
         }
 
-        wr.setCommand(newWR.getCommand());
-        wr.setCurrentWorkingDir(newWR.getCurrentWorkingDir());
-        wr.setDax(newWR.getDax());
-        wr.setHost(newWR.getHost());
-        wr.setIniFile(newWR.getIniFile());
-        wr.setName(newWR.getName());
-        wr.setStatus(newWR.getStatus());
-        wr.setStatusCmd(newWR.getStatusCmd());
-        wr.setTemplate(newWR.getTemplate());
-        wr.setSeqwareRevision(newWR.getSeqwareRevision());
-        wr.setUserName(newWR.getUserName());
+        // fields that are left out are kept, the status checker sends back runs read from /reports/workflowrunstatuses which only carry
+        // a few of them, and appends output through /workflowruns/{id}/logs
+        if (newWR.getCommand() != null) {
+            wr.setCommand(newWR.getCommand());
+        }
+        if (newWR.getCurrentWorkingDir() != null) {
+            wr.setCurrentWorkingDir(newWR.getCurrentWorkingDir());
+        }
+        if (newWR.getDax() != null) {
+            wr.setDax(newWR.getDax());
+        }
+        if (newWR.getHost() != null) {
+            wr.setHost(newWR.getHost());
+        }
+        if (newWR.getIniFile() != null) {
+            wr.setIniFile(newWR.getIniFile());
+        }
+        if (newWR.getName() != null) {
+            wr.setName(newWR.getName());
+        }
+        if (newWR.getStatus() != null) {
+            wr.setStatus(newWR.getStatus());
+        }
+        if (newWR.getStatusCmd() != null) {
+            wr.setStatusCmd(newWR.getStatusCmd());
+        }
+        if (newWR.getTemplate() != null) {
+            wr.setTemplate(newWR.getTemplate());
+        }
+        if (newWR.getSeqwareRevision() != null) {
+            wr.setSeqwareRevision(newWR.getSeqwareRevision());
+        }
+        if (newWR.getUserName() != null) {
+            wr.setUserName(newWR.getUserName());
+        }
         wr.setUpdateTimestamp(new Date());
-        wr.setStdErr(newWR.getStdErr());
-        wr.setStdOut(newWR.getStdOut());
-        wr.setWorkflowEngine(newWR.getWorkflowEngine());
+        if (newWR.getStdErr() != null) {
+            wr.setStdErr(newWR.getStdErr());
+        }
+        if (newWR.getStdOut() != null) {
+            wr.setStdOut(newWR.getStdOut());
+        }
+        if (newWR.getWorkflowEngine() != null) {
+            wr.setWorkflowEngine(newWR.getWorkflowEngine());
+        }
         if (newWR.getInputFileAccessions() != null) {
             Log.debug("Saving " + wr.getInputFileAccessions().size() + " input files");
             wr.getInputFileAccessions().addAll(newWR.getInputFileAccessions());
@@ -305,14 +333,12 @@ public class WorkflowRunIDResource extends DatabaseIDResource {
     @Override
     public Representation put(Representation entity) {
         Representation toreturn = null;
-        if (entity.getMediaType().equals(MediaType.APPLICATION_XML)) {
+        if (entity.getMediaType().equals(MediaType.APPLICATION_XML) || XmlTools.isJson(entity)) {
             WorkflowRun newWR = null;
 
             JaxbObject<WorkflowRun> jo = new JaxbObject<>();
             try {
-                String text = entity.getText();
-                Log.debug(text);
-                newWR = (WorkflowRun) XmlTools.unMarshal(jo, new WorkflowRun(), text);
+                newWR = (WorkflowRun) XmlTools.unMarshal(jo, new WorkflowRun(), entity);
             } catch (SAXException ex) {
                 ex.printStackTrace();
                 throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, ex);
@@ -325,8 +351,7 @@ public class WorkflowRunIDResource extends DatabaseIDResource {
                 WorkflowRun wr = updateWorkflowRun(newWR);
 
                 Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
-                Document line = XmlTools.marshalToDocument(jo, copier.hibernate2dto(wr));
-                toreturn = XmlTools.getRepresentation(line);
+                toreturn = XmlTools.getRepresentation(jo, copier.hibernate2dto(wr));
                 getResponse().setEntity(toreturn);
                 getResponse().setLocationRef(getRequest().getRootRef() + "/workflowruns/" + newWR.getSwAccession());
                 getResponse().setStatus(Status.SUCCESS_CREATED);
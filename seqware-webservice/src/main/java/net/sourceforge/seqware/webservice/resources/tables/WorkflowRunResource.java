@@ -16,9 +16,9 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
+import io.seqware.common.model.WorkflowRunStatus;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import net.sf.beanlib.hibernate3.Hibernate3DtoCopier;
 import net.sourceforge.seqware.common.business.RegistrationService;
 import net.sourceforge.seqware.common.business.WorkflowRunService;
@@ -31,12 +31,12 @@ import net.sourceforge.seqware.common.model.lists.WorkflowRunList2;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import net.sourceforge.seqware.webservice.resources.tables.StreamedListRepresentation.DtoCopier;
 import org.restlet.data.Status;
 import org.restlet.representation.Representation;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
 import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
@@ -74,24 +74,26 @@ public class WorkflowRunResource extends DatabaseResource {
             WorkflowRun wr = (WorkflowRun) testIfNull(ss.findByID(parseClientInt(queryValues.get("id"))));
             WorkflowRun dto = copier.hibernate2dto(WorkflowRun.class, wr);
 
-            Document line = XmlTools.marshalToDocument(jaxbTool, dto);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jaxbTool, dto));
         } else if (queryValues.get("email") != null) {
             // SEQWARE-1134
             RegistrationService rs = BeanFactory.getRegistrationServiceBean();
             RegistrationDTO regDTO = (RegistrationDTO) testIfNull(rs.findByEmailAddress(queryValues.get("email")));
             Integer registrationId = regDTO.getRegistrationId();
-            List<WorkflowRun> runs = ss.findByOwnerID(registrationId);
-            respondWithList(runs, copier);
-        } else {
-
-            List<WorkflowRun> runs = null;
-            if (queryValues.get("status") != null) {
-                runs = ss.findByCriteria("wr.status='" + queryValues.get("status") + "'");
-            } else {
-                runs = (List<WorkflowRun>) testIfNull(ss.list());
+            streamList(WorkflowRunList2.class, "WorkflowRun", "row.owner.registrationId = :owner",
+                    Collections.<String, Object> singletonMap("owner", registrationId), "swAccession", new DtoCopier<WorkflowRun>(
+                            WorkflowRun.class));
+        } else if (queryValues.get("status") != null) {
+            WorkflowRunStatus status;
+            try {
+                status = WorkflowRunStatus.valueOf(queryValues.get("status"));
+            } catch (IllegalArgumentException e) {
+                throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, "Unknown status " + queryValues.get("status"));
             }
-            respondWithList(runs, copier);
+            streamList(WorkflowRunList2.class, "WorkflowRun", "row.status = :status", Collections.<String, Object> singletonMap("status",
+                    status), "swAccession", new DtoCopier<WorkflowRun>(WorkflowRun.class));
+        } else {
+            streamList(WorkflowRunList2.class, "WorkflowRun", null, "swAccession", new DtoCopier<WorkflowRun>(WorkflowRun.class));
         }
     }
 
@@ -103,15 +105,14 @@ public class WorkflowRunResource extends DatabaseResource {
      * @param entity
      *            a {@link org.restlet.representation.Representation} object.
      */
-    @Post("xml")
+    @Post("xml|json")
     public void postJaxb(Representation entity) {
         authenticate();
 
         WorkflowRun p = null;
         JaxbObject<WorkflowRun> jo = new JaxbObject<>();
         try {
-            String text = entity.getText();
-            p = (WorkflowRun) XmlTools.unMarshal(jo, new WorkflowRun(), text);
+            p = (WorkflowRun) XmlTools.unMarshal(jo, new WorkflowRun(), entity);
         } catch (IOException e) {
             e.printStackTrace();
             throw new ResourceException(Status.CLIENT_ERROR_BAD_REQUEST, e);
@@ -134,8 +135,7 @@ public class WorkflowRunResource extends DatabaseResource {
             Hibernate3DtoCopier copier = new Hibernate3DtoCopier();
             WorkflowRun detachedWR = copier.hibernate2dto(WorkflowRun.class, wr);
 
-            Document line = XmlTools.marshalToDocument(jo, detachedWR);
-            getResponse().setEntity(XmlTools.getRepresentation(line));
+            getResponse().setEntity(XmlTools.getRepresentation(jo, detachedWR));
             getResponse().setLocationRef(getRequest().getRootRef() + "/workflowruns/" + detachedWR.getSwAccession());
             getResponse().setStatus(Status.SUCCESS_CREATED);
         } catch (SecurityException e) {
@@ -166,18 +166,4 @@ public class WorkflowRunResource extends DatabaseResource {
         WorkflowRun wr = wrs.findBySWAccession(id);
         return wr;
     }
-
-    private void respondWithList(List<WorkflowRun> runs, Hibernate3DtoCopier copier) {
-        WorkflowRunList2 eList = new WorkflowRunList2();
-        ArrayList<WorkflowRun> list = new ArrayList<>();
-        JaxbObject<WorkflowRunList2> jaxbTool = new JaxbObject<>();
-
-        for (WorkflowRun run : runs) {
-            WorkflowRun dto = copier.hibernate2dto(WorkflowRun.class, run);
-            list.add(dto);
-        }
-        eList.setList(list);
-        Document line = XmlTools.marshalToDocument(jaxbTool, eList);
-        getResponse().setEntity(XmlTools.getRepresentation(line));
-    }
 }
@@ -0,0 +1,87 @@
+package net.sourceforge.seqware.webservice.resources.tables;
+
+import io.seqware.common.model.WorkflowRunStatus;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import net.sourceforge.seqware.common.factory.DBAccess;
+import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.util.Log;
+import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Get;
+
+/**
+ * Status-only listing of workflow runs for the status checker and the launcher, which poll the runs in a few statuses and never read their
+ * logs or INI.
+ *
+ * Takes ?status= with one or more comma-separated statuses and optionally ?updated-since= in milliseconds since the epoch, and returns one
+ * tab-separated line per workflow run rather than full workflow run objects:
+ *
+ * <pre>
+ * Workflow Run SWID	Workflow SWID	Workflow Run Status	Status Command	Workflow Engine	Host	Owner	Current Working Dir	Updated
+ * 6654	4773	running	0000012-140312120035045-oozie-oozi-W	oozie-sge	master	admin@admin.com	/tmp/oozie-1	1394646035000
+ * </pre>
+ *
+ * Values that are not set are left empty.
+ */
+public class WorkflowRunStatusesResource extends DatabaseResource {
+
+    public static final String HEADER = "Workflow Run SWID\tWorkflow SWID\tWorkflow Run Status\tStatus Command\tWorkflow Engine\tHost\tOwner\tCurrent Working Dir\tUpdated";
+
+    public WorkflowRunStatusesResource() {
+        super("workflow_run");
+    }
+
+    @Get
+    public void getTsv() {
+        authenticate();
+        try {
+            if (!queryValues.containsKey("status")) {
+                getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST, "?status= is required");
+                return;
+            }
+            Set<WorkflowRunStatus> statuses = EnumSet.noneOf(WorkflowRunStatus.class);
+            for (String status : queryValues.get("status").split(",")) {
+                statuses.add(WorkflowRunStatus.valueOf(status));
+            }
+            Date updatedSince = null;
+            if (queryValues.containsKey("updated-since")) {
+                updatedSince = new Date(Long.parseLong(queryValues.get("updated-since")));
+            }
+            Log.debug("Finding workflow runs in " + statuses + " updated since " + updatedSince);
+
+            List<WorkflowRun> runs;
+            try {
+                runs = DBAccess.get().getWorkflowRunStatuses(statuses, updatedSince);
+            } finally {
+                DBAccess.close();
+            }
+            StringBuilder sb = new StringBuilder(HEADER).append('\n');
+            for (WorkflowRun run : runs) {
+                sb.append(run.getSwAccession()).append('\t').append(run.getWorkflowAccession()).append('\t').append(run.getStatus());
+                sb.append('\t').append(column(run.getStatusCmd())).append('\t').append(column(run.getWorkflowEngine()));
+                sb.append('\t').append(column(run.getHost())).append('\t').append(column(run.getOwnerUserName()));
+                sb.append('\t').append(column(run.getCurrentWorkingDir())).append('\t');
+                if (run.getUpdateTimestamp() != null) {
+                    sb.append(run.getUpdateTimestamp().getTime());
+                }
+                sb.append('\n');
+            }
+            getResponse().setEntity(new StringRepresentation(sb, MediaType.TEXT_TSV));
+            getResponse().setStatus(Status.SUCCESS_OK);
+        } catch (IllegalArgumentException e) {
+            // an unknown status or a malformed time
+            getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Tabs and line breaks would break the line apart, they are not expected in any of these values.
+     */
+    private static String column(String value) {
+        return value == null ? "" : value.replaceAll("[\t\r\n]", " ");
+    }
+}
@@ -0,0 +1,448 @@
+-- Incremental refresh of file_provenance_report, see file-provenance-report.sql for the full rebuild.
+-- Consumes the keys recorded in file_provenance_report_dirty by the schema triggers, resolves them to the 
+-- files whose report rows they affect, and re-derives only those rows. Everything runs in one transaction 
+-- so that a failed refresh leaves the dirty keys in place for the next attempt.
+
+begin;
+
+create temporary table file_provenance_report_dirty_keys (kind character varying(32), id integer) on commit drop;
+with consumed as (
+    delete from file_provenance_report_dirty returning kind, id
+)
+insert into file_provenance_report_dirty_keys select distinct kind, id from consumed;
+
+create temporary table file_provenance_report_dirty_files (file_swa integer) on commit drop;
+insert into file_provenance_report_dirty_files
+with recursive processing_descendants (processing_id) as (
+    select id as processing_id
+    from file_provenance_report_dirty_keys
+    where kind = 'processing_tree'
+union
+    select pr.child_id as processing_id
+    from processing_relationship pr
+    join processing_descendants pd on pd.processing_id = pr.parent_id
+    where pr.child_id is not null
+)
+-- files keyed directly
+select d.id as file_swa
+from file_provenance_report_dirty_keys d
+where d.kind = 'file'
+union
+select f.sw_accession
+from file_provenance_report_dirty_keys d
+join file f on f.file_id = d.id
+where d.kind = 'file_id'
+-- files owned by a changed processing, or by a processing below a changed link
+union
+select f.sw_accession
+from file_provenance_report_dirty_keys d
+join processing_files pf on pf.processing_id = d.id
+join file f on f.file_id = pf.file_id
+where d.kind = 'processing'
+union
+select f.sw_accession
+from processing_descendants pd
+join processing_files pf on pf.processing_id = pd.processing_id
+join file f on f.file_id = pf.file_id
+-- files reached through a changed workflow run, including ones not yet in the report
+union
+select f.sw_accession
+from file_provenance_report_dirty_keys d
+join processing p on p.workflow_run_id = d.id or p.ancestor_workflow_run_id = d.id
+join processing_files pf on pf.processing_id = p.processing_id
+join file f on f.file_id = pf.file_id
+where d.kind = 'workflow_run'
+-- changes further up the hierarchy only affect files that are already reported
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join workflow_run wr on wr.workflow_run_id = d.id
+join file_provenance_report r on r.workflow_run_swa = wr.sw_accession
+where d.kind = 'workflow_run'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join workflow wf on wf.workflow_id = d.id
+join file_provenance_report r on r.workflow_swa = wf.sw_accession
+where d.kind = 'workflow'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join study st on st.study_id = d.id
+join file_provenance_report r on r.study_swa = st.sw_accession
+where d.kind = 'study'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join experiment e on e.experiment_id = d.id
+join file_provenance_report r on r.experiment_swa = e.sw_accession
+where d.kind = 'experiment'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join sample s on s.sample_id = d.id
+join file_provenance_report r on r.sample_swa = s.sw_accession
+where d.kind = 'sample'
+union
+-- parent samples contribute names, attributes and skip flags to the rows of their descendants
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join sample s on s.sample_id = d.id
+join file_provenance_report r on ':'||r.sample_parent_swas||':' like '%:'||s.sw_accession||':%'
+where d.kind = 'sample'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join sequencer_run sr on sr.sequencer_run_id = d.id
+join file_provenance_report r on r.sequencer_run_swa = sr.sw_accession
+where d.kind = 'sequencer_run'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join lane l on l.lane_id = d.id
+join file_provenance_report r on r.lane_swa = l.sw_accession
+where d.kind = 'lane'
+union
+select r.file_swa
+from file_provenance_report_dirty_keys d
+join ius i on i.ius_id = d.id
+join file_provenance_report r on r.ius_swa = i.sw_accession
+where d.kind = 'ius';
+
+create temporary table file_provenance_report_temp on commit drop as (
+-- processings owning a dirty file plus all their ancestors, only paths through these can reach a dirty file
+with recursive dirty_file_ids (file_id) as (
+    select f.file_id
+    from file f
+    join file_provenance_report_dirty_files d on d.file_swa = f.sw_accession
+)
+
+, dirty_processings (processing_id) as (
+    select pf.processing_id
+    from processing_files pf
+    join dirty_file_ids d on d.file_id = pf.file_id
+union
+    select pr.parent_id as processing_id
+    from processing_relationship pr
+    join dirty_processings dp on dp.processing_id = pr.child_id
+    where pr.parent_id is not null
+)
+
+, study_samples (study_id, experiment_id, sample_id) as (
+    select study.study_id
+         , experiment.experiment_id
+         , sample.sample_id
+    from study
+    join experiment on experiment.study_id = study.study_id
+    join sample on sample.experiment_id = experiment.experiment_id
+    --studyWhereClause
+)
+
+, study_processings (study_id, experiment_id, sample_id, sequencer_run_id, lane_id, ius_id, processing_id) as (
+    select ss.study_id
+         , ss.experiment_id
+         , ss.sample_id
+         , null as sequencer_run_id
+         , null as lane_id
+         , null as ius_id
+         , ps.processing_id
+    from processing_samples ps
+    join study_samples ss on ss.sample_id = ps.sample_id
+    where ps.processing_id in (select processing_id from dirty_processings)
+union
+    select ss.study_id
+         , ss.experiment_id
+         , ss.sample_id
+         , sr.sequencer_run_id
+         , l.lane_id
+         , i.ius_id
+         , pi.processing_id
+    from processing_ius pi
+    join ius i on i.ius_id = pi.ius_id
+    join lane l on l.lane_id = i.lane_id
+    join sequencer_run sr on sr.sequencer_run_id = l.sequencer_run_id
+    join study_samples ss on ss.sample_id = i.sample_id
+    where pi.processing_id in (select processing_id from dirty_processings)
+union
+    select sp.study_id
+         , sp.experiment_id
+         , sp.sample_id
+         , sp.sequencer_run_id
+         , sp.lane_id
+         , sp.ius_id
+         , pr.child_id as processing_id
+    from study_processings sp
+    join processing_relationship pr on pr.parent_id = sp.processing_id
+    where pr.child_id in (select processing_id from dirty_processings)
+)
+
+, study_report_ids (study_id, experiment_id, sample_id, sequencer_run_id, lane_id, ius_id, processing_id, file_id) as (
+    select sp.study_id
+         , sp.experiment_id
+         , sp.sample_id
+         , sp.sequencer_run_id
+         , sp.lane_id
+         , sp.ius_id
+         , sp.processing_id
+         , pf.file_id
+    from study_processings sp
+    join processing_files pf on pf.processing_id = sp.processing_id
+    where pf.file_id in (select file_id from dirty_file_ids)
+)
+
+, sample_ancestors (sample_id, ancestor_id) as (
+    select sample_id
+         , parent_id as ancestor_id
+         , 1 as rank
+    from sample_hierarchy
+    where parent_id is not null
+      and sample_id in (select sample_id from study_report_ids)
+union all
+    select sa.sample_id
+         , sh.parent_id as ancestor_id
+         , sa.rank + 1 as rank
+    from sample_ancestors sa
+    join sample_hierarchy sh on sh.sample_id = sa.ancestor_id
+    where parent_id is not null
+)
+
+, study_attrs as (
+    select study_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from study_attribute
+    where study_id is not null and tag is not null
+      and study_id in (select study_id from study_report_ids)
+    group by study_id, tag
+)
+
+
+, study_attrs_str as (
+    select study_id
+         , array_to_string(array_agg('study.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from study_attrs attr
+    group by study_id
+)
+
+, experiment_attrs as (
+    select experiment_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from experiment_attribute
+    where experiment_id is not null and tag is not null
+      and experiment_id in (select experiment_id from study_report_ids)
+    group by experiment_id, tag
+)
+
+, experiment_attrs_str as (
+    select experiment_id
+         , array_to_string(array_agg('experiment.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from experiment_attrs attr
+    group by experiment_id
+)
+
+, sample_attrs as (
+    select sample_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from sample_attribute
+    where sample_id is not null and tag is not null
+      and (sample_id in (select sample_id from study_report_ids) or sample_id in (select ancestor_id from sample_ancestors))
+    group by sample_id, tag
+)
+
+, sample_attrs_str as (
+    select sample_id
+         , array_to_string(array_agg('sample.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from sample_attrs attr
+    group by sample_id
+)
+
+, sequencer_run_attrs as (
+    -- bug: table has sample_id instead of sequencer_run_id
+    select sample_id as sequencer_run_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from sequencer_run_attribute
+    where sample_id is not null and tag is not null
+      and sample_id in (select sequencer_run_id from study_report_ids)
+    group by sample_id, tag
+)
+
+, sequencer_run_attrs_str as (
+    select sequencer_run_id
+         , array_to_string(array_agg('sequencerrun.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from sequencer_run_attrs attr
+    group by sequencer_run_id
+)
+
+, lane_attrs as (
+    select lane_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from lane_attribute
+    where lane_id is not null and tag is not null
+      and lane_id in (select lane_id from study_report_ids)
+    group by lane_id, tag
+)
+
+, lane_attrs_str as (
+    select lane_id
+         , array_to_string(array_agg('lane.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from lane_attrs attr
+    group by lane_id
+)
+
+, ius_attrs as (
+    select ius_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from ius_attribute
+    where ius_id is not null and tag is not null
+      and ius_id in (select ius_id from study_report_ids)
+    group by ius_id, tag
+)
+
+, ius_attrs_str as (
+    select ius_id
+         , array_to_string(array_agg('ius.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from ius_attrs attr
+    group by ius_id
+)
+
+, processing_attrs as (
+    select processing_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from processing_attribute
+    where processing_id is not null and tag is not null
+      and processing_id in (select processing_id from study_report_ids)
+    group by processing_id, tag
+)
+
+, processing_attrs_str as (
+    select processing_id
+         , array_to_string(array_agg('processing.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from processing_attrs attr
+    group by processing_id
+)
+
+, file_attrs as (
+    select file_id, tag, array_to_string(array_agg(value order by value), '&') as vals
+    from file_attribute
+    where file_id is not null and tag is not null
+      and file_id in (select file_id from study_report_ids)
+    group by file_id, tag
+)
+
+, file_attrs_str as (
+    select file_id
+         , array_to_string(array_agg('file.'||tag||'='||vals order by tag,vals), ';') as attrs
+    from file_attrs attr
+    group by file_id
+)
+
+-- concatenated values from sample parents
+, sample_parent_swas_names (sample_id, parent_swas, parent_names, parent_organism_ids) as (
+    select anc.sample_id
+         , array_to_string(array_agg(sw_accession  order by rank), ':') as parent_swas
+         , array_to_string(array_agg(coalesce(nullif(s.name,''),s.title) order by rank), ':') as parent_names
+         , array_to_string(array_agg(organism_id order by rank), ':') as parent_organism_ids
+    from sample_ancestors anc
+    join sample s on s.sample_id = anc.ancestor_id
+    group by anc.sample_id
+)
+
+, root_sample_swas_names as(
+    select anc.sample_id, s.sample_id as root_id, s.name as root_name, s.sw_accession as root_accession from sample s join sample_ancestors anc on 
+    s.sample_id = anc.ancestor_id join  
+    (select anc.sample_id, max(rank)
+    from sample_ancestors anc
+    group by anc.sample_id) max_ranks
+    on (max_ranks.sample_id = anc.sample_id and anc.rank = max_ranks.max) 
+)
+
+, sample_parent_attrs (sample_id, parent_attrs) as (
+    select anc.sample_id
+         , array_to_string(array_agg('parent_sample.'||tag||'.'||sw_accession||'='||vals order by rank), ';') as parent_attrs
+    from sample_ancestors anc
+    join sample_attrs attr on attr.sample_id = anc.ancestor_id
+    join sample s on s.sample_id = anc.ancestor_id
+    group by anc.sample_id
+)
+
+, sample_parent_skip (sample_id, skip) as (
+    select anc.sample_id
+         , (true = any(array_agg(s.skip))) as skip
+    from sample_ancestors anc
+    join sample s on anc.ancestor_id = s.sample_id
+    group by anc.sample_id
+)
+
+select p.update_tstmp as last_modified
+     , translate(st.title, ' ', '_') as study_title
+     , st.sw_accession as study_swa
+     , sta.attrs as study_attrs
+     , translate(case when e.name is not null and e.name <> '' then e.name else e.title end , ' ', '_') as experiment_name
+     , e.sw_accession as experiment_swa
+     , ea.attrs as experiment_attrs
+     , r.root_name as root_sample_name
+     , r.root_accession as root_sample_swa
+     , translate(spn.parent_names, ' ', '_') as sample_parent_names
+     , spn.parent_swas as sample_parent_swas
+     , spn.parent_organism_ids as parent_organism_ids
+     , spa.parent_attrs as sample_parent_attrs
+     , translate(case when s.name is not null and s.name <> '' then s.name else s.title end , ' ', '_') as sample_name
+     , s.sw_accession as sample_swa
+     , org.organism_id as organism_id
+     , translate(org.code, ' ', '_') as organism_code 
+     , sa.attrs as sample_attrs
+     , translate(sr.name, ' ', '_') as sequencer_run_name
+     , sr.sw_accession as sequencer_run_swa
+     , sra.attrs as sequencer_run_attrs
+     , pla.platform_id as platform_id
+     , translate(pla.name, ' ', '_') as platform_name
+     , translate(l.name, ' ', '_') as lane_name
+     , coalesce(l.lane_index,0)+1 as lane_number
+     , l.sw_accession as lane_swa
+     , la.attrs as lane_attrs
+     , coalesce(i.tag,'NoIndex') as ius_tag
+     , i.sw_accession as ius_swa
+     , ia.attrs as ius_attrs
+     , translate(wf.name, ' ', '_') as workflow_name
+     , wf.version as workflow_version
+     , wf.sw_accession as workflow_swa
+     , translate(wfr.name, ' ', '_') as workflow_run_name
+     , wfr.status as workflow_run_status
+     , wfr.sw_accession as workflow_run_swa
+     , p.algorithm as processing_algorithm
+     , p.sw_accession as processing_swa
+     , pa.attrs as processing_attrs
+     , p.status as processing_status
+     , f.meta_type as file_meta_type
+     , f.sw_accession as file_swa
+     , fa.attrs as file_attrs
+     , f.file_path as file_path
+     , f.md5sum as file_md5sum
+     , f.size as file_size
+     , f.description as file_description
+     , (case when (f.skip or sr.skip or l.skip or i.skip or s.skip or sps.skip) = true
+             then true else false end) as skip
+from study_report_ids ids
+join file f on f.file_id = ids.file_id
+left join file_attrs_str fa on fa.file_id = ids.file_id
+join study st on st.study_id = ids.study_id
+left join study_attrs_str sta on sta.study_id = ids.study_id
+join experiment e on e.experiment_id = ids.experiment_id
+left join experiment_attrs_str ea on ea.experiment_id = ids.experiment_id
+join processing p on p.processing_id = ids.processing_id
+left join processing_attrs_str pa on pa.processing_id = ids.processing_id
+left join root_sample_swas_names r on r.sample_id = ids.sample_id  
+left join sample_parent_swas_names spn on spn.sample_id = ids.sample_id
+left join sample_parent_attrs spa on spa.sample_id = ids.sample_id
+left join sample_parent_skip sps on sps.sample_id = ids.sample_id
+left join sample s on s.sample_id = ids.sample_id
+left join organism org on s.organism_id = org.organism_id  
+left join sample_attrs_str sa on sa.sample_id = ids.sample_id
+left join lane l on l.lane_id = ids.lane_id
+left join lane_attrs_str la on la.lane_id = ids.lane_id
+left join sequencer_run sr on sr.sequencer_run_id = ids.sequencer_run_id
+left join platform pla on sr.platform_id = pla.platform_id
+left join sequencer_run_attrs_str sra on sra.sequencer_run_id = ids.sequencer_run_id
+left join ius i on i.ius_id = ids.ius_id
+left join ius_attrs_str ia on ia.ius_id = ids.ius_id
+left join workflow_run wfr on (p.workflow_run_id is not null and wfr.workflow_run_id = p.workflow_run_id)
+                           or (p.workflow_run_id is null and wfr.workflow_run_id = p.ancestor_workflow_run_id)
+left join workflow wf on wf.workflow_id = wfr.workflow_id
+);
+
+delete from file_provenance_report where file_swa in (select file_swa from file_provenance_report_dirty_files);
+insert into file_provenance_report select * from file_provenance_report_temp;
+
+commit;
@@ -1,3 +1,6 @@
+-- keys marked before the rebuild starts are covered by it, later ones are left for file-provenance-report-incremental.sql
+delete from file_provenance_report_dirty;
+
 drop table if exists file_provenance_report_temp;
 create temporary table file_provenance_report_temp as (
 with recursive study_samples (study_id, experiment_id, sample_id) as (
@@ -321,6 +324,16 @@ left join workflow wf on wf.workflow_id = wfr.workflow_id
 begin;
 drop table if exists file_provenance_report;
 create table file_provenance_report as (select * from file_provenance_report_temp);
+-- lookups used by the incremental refresh to find report rows affected by a change
+create index file_provenance_report_file_swa on file_provenance_report (file_swa);
+create index file_provenance_report_study_swa on file_provenance_report (study_swa);
+create index file_provenance_report_experiment_swa on file_provenance_report (experiment_swa);
+create index file_provenance_report_sample_swa on file_provenance_report (sample_swa);
+create index file_provenance_report_sequencer_run_swa on file_provenance_report (sequencer_run_swa);
+create index file_provenance_report_lane_swa on file_provenance_report (lane_swa);
+create index file_provenance_report_ius_swa on file_provenance_report (ius_swa);
+create index file_provenance_report_workflow_swa on file_provenance_report (workflow_swa);
+create index file_provenance_report_workflow_run_swa on file_provenance_report (workflow_run_swa);
 commit;
 
 --- Discard temporary tables for sure
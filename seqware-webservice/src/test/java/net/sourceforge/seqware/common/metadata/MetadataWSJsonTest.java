@@ -0,0 +1,17 @@
+package net.sourceforge.seqware.common.metadata;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+
+/**
+ * Runs the tests of {@link MetadataWSTest} with objects sent to and read from the web service as JSON rather than XML.
+ */
+public class MetadataWSJsonTest extends MetadataWSTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        MetadataWSTest.setUpClass();
+        Assume.assumeTrue(instance instanceof MetadataWS);
+        ((MetadataWS) instance).setJson(true);
+    }
+}
@@ -23,10 +23,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import net.sourceforge.seqware.common.err.NotFoundException;
 import net.sourceforge.seqware.common.factory.DBAccess;
@@ -39,6 +42,7 @@ import net.sourceforge.seqware.common.model.SequencerRun;
 import net.sourceforge.seqware.common.model.Workflow;
 import net.sourceforge.seqware.common.model.WorkflowParam;
 import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.module.FileMetadata;
 import net.sourceforge.seqware.common.module.ReturnValue;
 import net.sourceforge.seqware.common.util.Log;
 import net.sourceforge.seqware.common.util.configtools.ConfigTools;
@@ -49,6 +53,7 @@ import org.apache.log4j.Logger;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -737,6 +742,39 @@ public class MetadataWSTest {
                 .getInputFileAccessions().size() == 4);
     }
 
+    @Test
+    public void testGetWorkflowRunStatuses() {
+        BasicTestDatabaseCreator.resetDatabaseWithUsers();
+        Set<WorkflowRunStatus> statuses = EnumSet.of(WorkflowRunStatus.completed, WorkflowRunStatus.failed);
+        Set<Integer> expected = new HashSet<>();
+        for (WorkflowRunStatus status : statuses) {
+            for (WorkflowRun wr : instance.getWorkflowRunsByStatus(status)) {
+                expected.add(wr.getSwAccession());
+            }
+        }
+        List<WorkflowRun> runs = instance.getWorkflowRunStatuses(statuses, null);
+        Set<Integer> found = new HashSet<>();
+        for (WorkflowRun wr : runs) {
+            Assert.assertTrue("unexpected status " + wr.getStatus(), statuses.contains(wr.getStatus()));
+            Assert.assertNull("logs should not be sent", wr.getStdOut());
+            found.add(wr.getSwAccession());
+        }
+        Assert.assertEquals(expected, found);
+        Assert.assertTrue("no run should have been updated since now",
+                instance.getWorkflowRunStatuses(statuses, new Date(System.currentTimeMillis() + 60000)).isEmpty());
+
+        // sending back a status-only run leaves the rest of it alone
+        WorkflowRun run = runs.get(0);
+        String iniFile = instance.getWorkflowRun(run.getSwAccession()).getIniFile();
+        run.setStatus(WorkflowRunStatus.running);
+        instance.updateWorkflowRun(run);
+        WorkflowRun updated = instance.getWorkflowRun(run.getSwAccession());
+        Assert.assertEquals(WorkflowRunStatus.running, updated.getStatus());
+        Assert.assertEquals(iniFile, updated.getIniFile());
+        Assert.assertTrue("the update should be found since it was made",
+                instance.getWorkflowRunStatuses(EnumSet.of(WorkflowRunStatus.running), new Date(0)).contains(run));
+    }
+
     @Test
     public void getDirectFilesAssociatedWithWorkflowRuns() {
         BasicTestDatabaseCreator.resetDatabaseWithUsers();
@@ -791,6 +829,175 @@ public class MetadataWSTest {
             Assert.assertTrue("input files for the returned workflow runs should include f1 or f4",
                     r.getInputFileAccessions().contains(f1_sw_accession) || r.getInputFileAccessions().contains(f4_sw_accession));
         }
+
+        // the status lookup should find the same runs with the same input files and statuses
+        List<WorkflowRun> statuses = instance.getWorkflowRunStatusesByInputFiles(files, new ArrayList<Integer>());
+        Assert.assertTrue("should have been 2 workflow run statuses, found " + statuses.size(), statuses.size() == 2);
+        for (int i = 0; i < result.size(); i++) {
+            Assert.assertEquals(result.get(i).getSwAccession(), statuses.get(i).getSwAccession());
+            Assert.assertEquals(result.get(i).getStatus(), statuses.get(i).getStatus());
+            Assert.assertEquals(result.get(i).getInputFileAccessions(), statuses.get(i).getInputFileAccessions());
+        }
+        // and narrow them down by workflow
+        List<Integer> workflows = new ArrayList<>();
+        workflows.add(statuses.get(1).getWorkflowAccession());
+        statuses = instance.getWorkflowRunStatusesByInputFiles(files, workflows);
+        Assert.assertTrue("incorrect workflow runs found", statuses.get(statuses.size() - 1).getSwAccession() == workflow_run2);
+        Assert.assertTrue("should have been no runs", instance.getWorkflowRunStatusesByInputFiles(new ArrayList<Integer>(), workflows)
+                .isEmpty());
+    }
+
+    /**
+     * Updates queued in a batch are only sent when the batch ends, in order, so the last update of an object wins.
+     */
+    @Test
+    public void testBatchUpdates() {
+        final int wr_sw_accession = 6480;
+        WorkflowRun wr = instance.getWorkflowRun(wr_sw_accession);
+        String statusCmd = wr.getStatusCmd();
+        instance.startBatch(10);
+        try {
+            updateStatusCmd(wr, "testBatchUpdates first");
+            if (instance instanceof MetadataWS) {
+                Assert.assertEquals("a queued update should not be sent before the batch ends", statusCmd,
+                        instance.getWorkflowRun(wr_sw_accession).getStatusCmd());
+            }
+            updateStatusCmd(wr, "testBatchUpdates second");
+        } finally {
+            instance.endBatch();
+        }
+        Assert.assertEquals("testBatchUpdates second", instance.getWorkflowRun(wr_sw_accession).getStatusCmd());
+    }
+
+    /**
+     * A full chunk is sent without waiting for the end of the batch.
+     */
+    @Test
+    public void testBatchChunk() {
+        final int wr_sw_accession = 6480;
+        WorkflowRun wr = instance.getWorkflowRun(wr_sw_accession);
+        instance.startBatch(1);
+        try {
+            updateStatusCmd(wr, "testBatchChunk");
+            Assert.assertEquals("testBatchChunk", instance.getWorkflowRun(wr_sw_accession).getStatusCmd());
+        } finally {
+            instance.endBatch();
+        }
+    }
+
+    /**
+     * When one update of a chunk fails, the updates before it in the chunk are rolled back too.
+     */
+    @Test
+    public void testBatchRollback() {
+        Assume.assumeTrue(instance instanceof MetadataWS);
+        final int wr_sw_accession = 6603;
+        WorkflowRun wr = instance.getWorkflowRun(wr_sw_accession);
+        String statusCmd = wr.getStatusCmd();
+        WorkflowRun missing = new WorkflowRun();
+        missing.setSwAccession(Integer.MAX_VALUE);
+        instance.startBatch(10);
+        updateStatusCmd(wr, "testBatchRollback");
+        instance.updateWorkflowRun(missing);
+        try {
+            instance.endBatch();
+            Assert.fail("the batch should fail on the missing workflow run");
+        } catch (RuntimeException expected) {
+            // the chunk was rolled back
+        }
+        Assert.assertEquals(statusCmd, instance.getWorkflowRun(wr_sw_accession).getStatusCmd());
+    }
+
+    private void updateStatusCmd(WorkflowRun wr, String statusCmd) {
+        instance.update_workflow_run(wr.getWorkflowRunId(), wr.getCommand(), wr.getTemplate(), wr.getStatus(), statusCmd,
+                wr.getCurrentWorkingDir(), wr.getDax(), wr.getIniFile(), wr.getHost(), wr.getStdOut(), wr.getStdErr(),
+                wr.getWorkflowEngine(), wr.getInputFileAccessions());
+    }
+
+    @Test
+    public void testAddProcessingEvents() {
+        ProcessingEvent first = newProcessingEvent("testAddProcessingEvents", 4707);
+        first.getReturnValue().getFiles().add(new FileMetadata("/tmp/testAddProcessingEvents.bam", "application/bam"));
+        ProcessingEvent second = newProcessingEvent("testAddProcessingEvents", 4765);
+        second.setStatus(ProcessingStatus.failed);
+
+        List<Integer> accessions = instance.addProcessingEvents(Arrays.asList(first, second));
+        Assert.assertEquals(2, accessions.size());
+        Assert.assertEquals(1, count("select count(*) from processing where algorithm = 'testAddProcessingEvents' and status = 'success' "
+                + "and sw_accession = " + accessions.get(0)));
+        Assert.assertEquals(1, count("select count(*) from processing where algorithm = 'testAddProcessingEvents' and status = 'failed' "
+                + "and sw_accession = " + accessions.get(1)));
+        Assert.assertEquals(1, count("select count(*) from processing_files pf, processing p, file f "
+                + "where pf.processing_id = p.processing_id and pf.file_id = f.file_id and p.sw_accession = " + accessions.get(0)
+                + " and f.file_path = '/tmp/testAddProcessingEvents.bam'"));
+        Assert.assertEquals(1, count("select count(*) from processing_lanes pl, lane l, processing p "
+                + "where pl.lane_id = l.lane_id and pl.processing_id = p.processing_id and l.sw_accession = 4707 and p.sw_accession = "
+                + accessions.get(0)));
+    }
+
+    /**
+     * When one event cannot be recorded, none of the events before it are.
+     */
+    @Test
+    public void testAddProcessingEventsRollback() {
+        int processing = count("select count(*) from processing");
+        int files = count("select count(*) from file");
+        ProcessingEvent first = newProcessingEvent("testAddProcessingEventsRollback", 4707);
+        first.getReturnValue().getFiles().add(new FileMetadata("/tmp/testAddProcessingEventsRollback.bam", "application/bam"));
+        // no such parent
+        ProcessingEvent second = newProcessingEvent("testAddProcessingEventsRollback", Integer.MAX_VALUE);
+        try {
+            instance.addProcessingEvents(Arrays.asList(first, second));
+            Assert.fail("the second event should not be recorded");
+        } catch (RuntimeException expected) {
+            // the transaction was rolled back
+        }
+        Assert.assertEquals(0, count("select count(*) from processing where algorithm = 'testAddProcessingEventsRollback'"));
+        Assert.assertEquals(processing, count("select count(*) from processing"));
+        Assert.assertEquals(files, count("select count(*) from file"));
+    }
+
+    /**
+     * A reserved event sent again after its answer was lost is not recorded a second time.
+     */
+    @Test
+    public void testAddProcessingEventsReplay() {
+        ReturnValue reserved = instance.add_empty_processing_event_by_parent_accession(new int[] { 4707 });
+        Assert.assertEquals(ReturnValue.SUCCESS, reserved.getExitStatus());
+        ProcessingEvent event = newProcessingEvent("testAddProcessingEventsReplay", 4707);
+        event.setProcessingId(reserved.getReturnValue());
+        event.setSwAccession(instance.mapProcessingIdToAccession(reserved.getReturnValue()));
+        event.getReturnValue().getFiles().add(new FileMetadata("/tmp/testAddProcessingEventsReplay.bam", "application/bam"));
+
+        List<Integer> accessions = instance.addProcessingEvents(Arrays.asList(event));
+        Assert.assertEquals(accessions, instance.addProcessingEvents(Arrays.asList(event)));
+        Assert.assertEquals(1, count("select count(*) from processing_files pf, file f where pf.file_id = f.file_id "
+                + "and f.file_path = '/tmp/testAddProcessingEventsReplay.bam'"));
+    }
+
+    private static ProcessingEvent newProcessingEvent(String algorithm, int parentAccession) {
+        ProcessingEvent event = new ProcessingEvent();
+        event.setParentAccessions(new int[] { parentAccession });
+        ReturnValue ret = new ReturnValue();
+        ret.setAlgorithm(algorithm);
+        event.setReturnValue(ret);
+        return event;
+    }
+
+    private int count(String sql) {
+        logger.debug(sql);
+        try {
+            return DBAccess.get().executeQuery(sql, new ResultSetHandler<Integer>() {
+                @Override
+                public Integer handle(ResultSet rs) throws SQLException {
+                    return rs.next() ? rs.getInt("count") : 0;
+                }
+            });
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            DBAccess.close();
+        }
     }
 
 }
@@ -164,6 +164,18 @@ public class BasicDeciderTest extends PluginTest {
                 decider.getFinalChecks() == 3);
     }
 
+    @Test
+    public void testNumberOfChecksStreamingReport() {
+        String[] params = {"--all", "--wf-accession", "6685", "--parent-wf-accessions", "4767", "--stream-report", "--test"};
+        launchAndCaptureOutput(params);
+        // streaming the report should consider exactly the same groups as loading it
+        TestingDecider decider = (TestingDecider) instance;
+        Assert.assertTrue("output does not contain the correct number of files, we saw " + decider.getFileCount(),
+                decider.getFileCount() == 3);
+        Assert.assertTrue("output does not contain the correct number of launches, we saw " + decider.getFinalChecks(),
+                decider.getFinalChecks() == 3);
+    }
+
     @Test
     public void testNumberOfChecksForAllFileTypes() {
         String[] params = {
@@ -307,6 +319,30 @@ public class BasicDeciderTest extends PluginTest {
                 decider.getLaunches() == 34);
     }
 
+    @Test
+    public void testDoNotLaunchFailedWorkflowsConcurrently() {
+        // prefetching previous runs and checking them on several threads should make the same decisions
+        String[] params = new String[]{"--sample", "", "--wf-accession", "4773", "--meta-types",
+            "application/bam,text/vcf-4,chemical/seq-na-fastq-gzip", "--rerun-max", "1", "--threads", "4", "--test"};
+        launchAndCaptureOutput(params);
+        TestingDecider decider = (TestingDecider) instance;
+        Assert.assertTrue("output does not contain the correct number of files, we saw " + decider.getFileCount(),
+                decider.getFileCount() == 47);
+        Assert.assertTrue("output does not contain the correct number of launches, we saw " + decider.getLaunches(),
+                decider.getLaunches() == 34);
+    }
+
+    @Test
+    public void testLaunchMaxConcurrently() {
+        String[] params = new String[]{"--sample", "", "--wf-accession", "4773", "--meta-types",
+            "application/bam,text/vcf-4,chemical/seq-na-fastq-gzip", "--rerun-max", "1", "--threads", "4", "--launch-max", "5",
+            "--test"};
+        launchAndCaptureOutput(params);
+        TestingDecider decider = (TestingDecider) instance;
+        Assert.assertTrue("output does not contain the correct number of launches, we saw " + decider.getLaunches(),
+                decider.getLaunches() == 5);
+    }
+
     @Test
     public void testSEQWARE1918RerunMax0() {
         String[] params = new String[]{"--sample", "", "--wf-accession", "4773", "--meta-types",
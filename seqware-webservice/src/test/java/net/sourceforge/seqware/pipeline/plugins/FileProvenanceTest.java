@@ -57,6 +57,37 @@ public class FileProvenanceTest extends ExtendedPluginTest {
         Assert.assertTrue("report should be filled in but was size " + fileProvenanceReport.size(), fileProvenanceReport.size() == 483);
     }
 
+    @Test
+    public void testFileProvenanceIncrementalPass() {
+        metadata.fileProvenanceReportTrigger();
+        BasicTestDatabaseCreator dbCreator = new BasicTestDatabaseCreator();
+        dbCreator.runUpdate("update file set description = 'incremental_description' WHERE sw_accession IN (SELECT file_swa from file_provenance_report WHERE study_swa=120);");
+        dbCreator.runUpdate("update workflow_run set status = 'failed' where sw_accession = 6481;");
+        metadata.fileProvenanceReportTrigger(false);
+        List<Map<String, String>> incremental = metadata.fileProvenanceReport(new HashMap());
+        Assert.assertTrue("report should be filled in but was size " + incremental.size(), incremental.size() == 483);
+        metadata.fileProvenanceReportTrigger(true);
+        List<Map<String, String>> rebuilt = metadata.fileProvenanceReport(new HashMap());
+        Assert.assertTrue("report should be filled in but was size " + rebuilt.size(), rebuilt.size() == 483);
+
+        int changed = countMatching(rebuilt, "File Description", "incremental_description");
+        Assert.assertTrue("rebuilt report should contain updated files", changed > 0);
+        Assert.assertEquals("incremental refresh did not pick up file changes", changed,
+                countMatching(incremental, "File Description", "incremental_description"));
+        Assert.assertEquals("incremental refresh did not pick up workflow run changes", countMatching(rebuilt, "Workflow Run Status", "failed"),
+                countMatching(incremental, "Workflow Run Status", "failed"));
+    }
+
+    private static int countMatching(List<Map<String, String>> report, String header, String value) {
+        int count = 0;
+        for (Map<String, String> row : report) {
+            if (value.equals(row.get(header))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @Test(expected = RuntimeException.class)
     public void testFileProvenanceFunkyNameFail() {
         metadata.fileProvenanceReportTrigger();
@@ -0,0 +1,100 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Runs {@link CredentialCache} on a clock that only moves when it is told to.
+ */
+public class CredentialCacheTest {
+
+    private static final long TTL = 1000;
+
+    @Test
+    public void testExpiry() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        cache.put("admin@admin.com", "admin".toCharArray(), cache.getGeneration());
+        cache.time += TTL - 1;
+        assertTrue(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+
+        cache.time += 1;
+        assertFalse(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+    }
+
+    /**
+     * Beyond its size the cache drops the identifier that was checked the longest time ago, not the one that was put first.
+     */
+    @Test
+    public void testEviction() {
+        ClockedCache cache = new ClockedCache(2, TTL);
+        cache.put("first@admin.com", "first".toCharArray(), cache.getGeneration());
+        cache.put("second@admin.com", "second".toCharArray(), cache.getGeneration());
+        assertTrue(cache.isVerified("first@admin.com", "first".toCharArray()));
+
+        cache.put("third@admin.com", "third".toCharArray(), cache.getGeneration());
+        assertTrue(cache.isVerified("first@admin.com", "first".toCharArray()));
+        assertFalse(cache.isVerified("second@admin.com", "second".toCharArray()));
+        assertTrue(cache.isVerified("third@admin.com", "third".toCharArray()));
+    }
+
+    /**
+     * A different secret is not verified, and does not drop the one that was.
+     */
+    @Test
+    public void testWrongSecret() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        cache.put("admin@admin.com", "admin".toCharArray(), cache.getGeneration());
+        assertFalse(cache.isVerified("admin@admin.com", "guess".toCharArray()));
+        assertFalse(cache.isVerified("admin@admin.com", new char[0]));
+        assertTrue(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+    }
+
+    @Test
+    public void testRegistrationChanged() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        long generation = cache.getGeneration();
+        cache.put("admin@admin.com", "admin".toCharArray(), generation);
+
+        cache.registrationChanged("other@admin.com");
+        assertFalse(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+        assertEquals(generation + 1, cache.getGeneration());
+    }
+
+    /**
+     * A credential checked against a registration that changed while it was being checked is not kept.
+     */
+    @Test
+    public void testStaleGeneration() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        long generation = cache.getGeneration();
+        cache.registrationChanged("admin@admin.com");
+        cache.put("admin@admin.com", "admin".toCharArray(), generation);
+        assertFalse(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+
+        cache.put("admin@admin.com", "admin".toCharArray(), cache.getGeneration());
+        assertTrue(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+    }
+
+    @Test
+    public void testNoTtl() {
+        ClockedCache cache = new ClockedCache(10, 0);
+        cache.put("admin@admin.com", "admin".toCharArray(), cache.getGeneration());
+        assertFalse(cache.isVerified("admin@admin.com", "admin".toCharArray()));
+    }
+
+    static class ClockedCache extends CredentialCache {
+
+        long time = 1000000;
+
+        ClockedCache(int maxEntries, long ttlMillis) {
+            super(maxEntries, ttlMillis);
+        }
+
+        @Override
+        long now() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import net.sourceforge.seqware.common.model.Registration;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.restlet.data.Form;
+
+/**
+ * Runs {@link RegistrationCache} on a clock that only moves when it is told to.
+ */
+public class RegistrationCacheTest {
+
+    private static final long TTL = 1000;
+
+    @Test
+    public void testExpiry() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        Registration registration = registration("admin@admin.com");
+        cache.put("admin@admin.com", registration, cache.getGeneration());
+        cache.time += TTL - 1;
+        assertSame(registration, cache.get("admin@admin.com"));
+
+        cache.time += 1;
+        assertNull(cache.get("admin@admin.com"));
+    }
+
+    @Test
+    public void testEviction() {
+        ClockedCache cache = new ClockedCache(2, TTL);
+        cache.put("first@admin.com", registration("first@admin.com"), cache.getGeneration());
+        cache.put("second@admin.com", registration("second@admin.com"), cache.getGeneration());
+        assertNotNull(cache.get("first@admin.com"));
+
+        cache.put("third@admin.com", registration("third@admin.com"), cache.getGeneration());
+        assertNotNull(cache.get("first@admin.com"));
+        assertNull(cache.get("second@admin.com"));
+        assertNotNull(cache.get("third@admin.com"));
+    }
+
+    @Test
+    public void testRegistrationChanged() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        cache.put("admin@admin.com", registration("admin@admin.com"), cache.getGeneration());
+        cache.registrationChanged("other@admin.com");
+        assertNull(cache.get("admin@admin.com"));
+    }
+
+    /**
+     * A registration looked up while another one changed is not kept.
+     */
+    @Test
+    public void testStaleGeneration() {
+        ClockedCache cache = new ClockedCache(10, TTL);
+        long generation = cache.getGeneration();
+        cache.registrationChanged("admin@admin.com");
+        cache.put("admin@admin.com", registration("admin@admin.com"), generation);
+        assertNull(cache.get("admin@admin.com"));
+    }
+
+    @Test
+    public void testNoTtl() {
+        ClockedCache cache = new ClockedCache(10, 0);
+        cache.put("admin@admin.com", registration("admin@admin.com"), cache.getGeneration());
+        assertNull(cache.get("admin@admin.com"));
+    }
+
+    @Test
+    public void testParameters() {
+        Form parameters = new Form();
+        parameters.add(SessionAuthenticator.CACHE_SECONDS, "0");
+        RegistrationCache cache = RegistrationCache.fromParameters(parameters);
+        cache.put("admin@admin.com", registration("admin@admin.com"), cache.getGeneration());
+        assertNull(cache.get("admin@admin.com"));
+    }
+
+    private static Registration registration(String emailAddress) {
+        Registration registration = new Registration();
+        registration.setEmailAddress(emailAddress);
+        return registration;
+    }
+
+    private static class ClockedCache extends RegistrationCache {
+
+        private long time = 1000000;
+
+        private ClockedCache(int maxEntries, long ttlMillis) {
+            super(maxEntries, ttlMillis);
+        }
+
+        @Override
+        long now() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import net.sourceforge.seqware.common.model.Registration;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import org.restlet.security.Verifier;
+
+/**
+ * Runs {@link SeqWareVerifier} against one registration instead of the database, counting the lookups.
+ */
+public class SeqWareVerifierTest {
+
+    private CredentialCache credentials;
+    private CountingVerifier verifier;
+
+    @Before
+    public void setUp() {
+        credentials = new CredentialCache(10, 60000);
+        verifier = new CountingVerifier(credentials);
+    }
+
+    @Test
+    public void testCached() {
+        assertEquals(Verifier.RESULT_VALID, verifier.verify("admin@admin.com", "admin".toCharArray()));
+        assertEquals(Verifier.RESULT_VALID, verifier.verify("admin@admin.com", "admin".toCharArray()));
+        assertEquals(1, verifier.lookups);
+    }
+
+    /**
+     * A wrong password is checked against the registration, but the right one stays cached.
+     */
+    @Test
+    public void testWrongPassword() {
+        assertEquals(Verifier.RESULT_VALID, verifier.verify("admin@admin.com", "admin".toCharArray()));
+        assertEquals(Verifier.RESULT_INVALID, verifier.verify("admin@admin.com", "guess".toCharArray()));
+        assertEquals(2, verifier.lookups);
+
+        assertEquals(Verifier.RESULT_VALID, verifier.verify("admin@admin.com", "admin".toCharArray()));
+        assertEquals(2, verifier.lookups);
+    }
+
+    @Test
+    public void testMissing() {
+        assertEquals(Verifier.RESULT_MISSING, verifier.verify("nobody@admin.com", "admin".toCharArray()));
+        assertEquals(Verifier.RESULT_MISSING, verifier.verify("nobody@admin.com", "admin".toCharArray()));
+        assertEquals(2, verifier.lookups);
+    }
+
+    @Test
+    public void testRegistrationChanged() {
+        verifier.verify("admin@admin.com", "admin".toCharArray());
+        credentials.registrationChanged("admin@admin.com");
+        verifier.password = "changed";
+
+        assertEquals(Verifier.RESULT_INVALID, verifier.verify("admin@admin.com", "admin".toCharArray()));
+        assertEquals(2, verifier.lookups);
+    }
+
+    private static class CountingVerifier extends SeqWareVerifier {
+
+        private String password = "admin";
+        private int lookups = 0;
+
+        private CountingVerifier(CredentialCache credentials) {
+            super(credentials);
+        }
+
+        @Override
+        Registration findRegistration(String identifier) {
+            lookups++;
+            if (!identifier.equals("admin@admin.com")) {
+                return null;
+            }
+            Registration registration = new Registration();
+            registration.setEmailAddress(identifier);
+            registration.setPassword(password);
+            return registration;
+        }
+    }
+}
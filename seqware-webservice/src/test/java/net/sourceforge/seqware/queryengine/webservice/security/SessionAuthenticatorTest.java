@@ -0,0 +1,272 @@
+package net.sourceforge.seqware.queryengine.webservice.security;
+
+import java.nio.charset.StandardCharsets;
+import javax.xml.bind.DatatypeConverter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Cookie;
+import org.restlet.data.CookieSetting;
+import org.restlet.data.Form;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.security.MapVerifier;
+
+/**
+ * Runs {@link SessionAuthenticator} on a clock that only moves when it is told to, with credentials checked against a map instead of
+ * the database.
+ */
+public class SessionAuthenticatorTest {
+
+    private static final long SESSION = 60000;
+
+    private CredentialCache credentials;
+    private ClockedAuthenticator authenticator;
+    private RecordingRestlet next;
+
+    @Before
+    public void setUp() {
+        credentials = new CredentialCache(10, SESSION);
+        authenticator = new ClockedAuthenticator(credentials, SESSION);
+        next = new RecordingRestlet();
+        authenticator.setNext(next);
+    }
+
+    @Test
+    public void testToken() {
+        String token = authenticator.getSessionToken("admin@admin.com");
+        assertEquals("admin@admin.com", authenticator.getSessionIdentifier(token));
+    }
+
+    @Test
+    public void testTamperedToken() {
+        String[] parts = authenticator.getSessionToken("admin@admin.com").split("\\.");
+        String other = DatatypeConverter.printHexBinary("other@admin.com".getBytes(StandardCharsets.UTF_8));
+        assertNull(authenticator.getSessionIdentifier(other + "." + parts[1] + "." + parts[2]));
+        assertNull(authenticator.getSessionIdentifier(parts[0] + "." + (Long.parseLong(parts[1]) + SESSION) + "." + parts[2]));
+        char flipped = parts[2].charAt(0) == '0' ? '1' : '0';
+        assertNull(authenticator.getSessionIdentifier(parts[0] + "." + parts[1] + "." + flipped + parts[2].substring(1)));
+    }
+
+    /**
+     * Each authenticator signs with its own key, as a web service that restarted would.
+     */
+    @Test
+    public void testOtherKey() {
+        String token = new ClockedAuthenticator(credentials, SESSION).getSessionToken("admin@admin.com");
+        assertNull(authenticator.getSessionIdentifier(token));
+    }
+
+    @Test
+    public void testExpiredToken() {
+        String token = authenticator.getSessionToken("admin@admin.com");
+        authenticator.time += SESSION - 1;
+        assertEquals("admin@admin.com", authenticator.getSessionIdentifier(token));
+        authenticator.time += 1;
+        assertNull(authenticator.getSessionIdentifier(token));
+    }
+
+    /**
+     * A change to any registration ends every session.
+     */
+    @Test
+    public void testRegistrationChanged() {
+        String token = authenticator.getSessionToken("admin@admin.com");
+        credentials.registrationChanged("other@admin.com");
+        assertNull(authenticator.getSessionIdentifier(token));
+        assertEquals("admin@admin.com", authenticator.getSessionIdentifier(authenticator.getSessionToken("admin@admin.com")));
+    }
+
+    @Test
+    public void testMalformedToken() {
+        assertNull(authenticator.getSessionIdentifier(null));
+        assertNull(authenticator.getSessionIdentifier(""));
+        assertNull(authenticator.getSessionIdentifier("admin@admin.com"));
+        assertNull(authenticator.getSessionIdentifier("a.b.c"));
+        assertNull(authenticator.getSessionIdentifier("zz.99999999999999.zz"));
+        assertNull(authenticator.getSessionIdentifier("00.1.00.00"));
+    }
+
+    /**
+     * A request with only the cookie is let in as the user it names, with a challenge response for the resources to find the user by.
+     */
+    @Test
+    public void testCookieOnly() {
+        Request request = request(null, authenticator.getSessionToken("admin@admin.com"));
+        Response response = handle(request);
+
+        assertEquals(1, next.handled);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("admin@admin.com", request.getChallengeResponse().getIdentifier());
+        assertEquals("admin@admin.com", request.getClientInfo().getUser().getIdentifier());
+        assertTrue("the cookie is not set again", response.getCookieSettings().isEmpty());
+    }
+
+    @Test
+    public void testBadCookie() {
+        Response response = handle(request(null, "00.99999999999999.00"));
+        assertEquals(0, next.handled);
+        assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, response.getStatus());
+    }
+
+    /**
+     * Credentials that check out are answered with a cookie for the user, which is then enough on its own.
+     */
+    @Test
+    public void testCredentialsSetCookie() {
+        Response response = handle(request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "admin"), null));
+        assertEquals(1, next.handled);
+        CookieSetting cookie = response.getCookieSettings().getFirst(SessionAuthenticator.COOKIE);
+        assertNotNull(cookie);
+        assertEquals((int) (SESSION / 1000), cookie.getMaxAge());
+        assertTrue(cookie.isAccessRestricted());
+
+        handle(request(null, cookie.getValue()));
+        assertEquals(2, next.handled);
+    }
+
+    @Test
+    public void testWrongCredentials() {
+        Response response = handle(request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "guess"), null));
+        assertEquals(0, next.handled);
+        assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, response.getStatus());
+        assertTrue(response.getCookieSettings().isEmpty());
+    }
+
+    /**
+     * The cookie of one user does not let in a request with the credentials of another, those are checked as they are.
+     */
+    @Test
+    public void testCookieOfOtherUser() {
+        String token = authenticator.getSessionToken("other@admin.com");
+        Response response = handle(request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "guess"), token));
+        assertEquals(0, next.handled);
+        assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, response.getStatus());
+    }
+
+    /**
+     * The cookie of a user does not stand in for a wrong password of the same user.
+     */
+    @Test
+    public void testCookieWithWrongPassword() {
+        String token = authenticator.getSessionToken("admin@admin.com");
+        Response response = handle(request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "guess"), token));
+        assertEquals(0, next.handled);
+        assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, response.getStatus());
+    }
+
+    @Test
+    public void testCookieWithPassword() {
+        String token = authenticator.getSessionToken("admin@admin.com");
+        Response response = handle(request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "admin"), token));
+        assertEquals(1, next.handled);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+    }
+
+    /**
+     * A challenge without a password, as a client that only has the cookie may send, is answered by the cookie.
+     */
+    @Test
+    public void testCookieWithoutPassword() {
+        String token = authenticator.getSessionToken("admin@admin.com");
+        Request request = request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", ""), token);
+        Response response = handle(request);
+        assertEquals(1, next.handled);
+        assertEquals("admin@admin.com", request.getClientInfo().getUser().getIdentifier());
+        assertTrue(response.getCookieSettings().isEmpty());
+    }
+
+    @Test
+    public void testNoSessions() {
+        authenticator = new ClockedAuthenticator(credentials, 0);
+        authenticator.setNext(next);
+        Response response = handle(request(null, authenticator.getSessionToken("admin@admin.com")));
+        assertEquals(0, next.handled);
+        assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, response.getStatus());
+
+        response = handle(request(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "admin"), null));
+        assertEquals(1, next.handled);
+        assertTrue(response.getCookieSettings().isEmpty());
+    }
+
+    @Test
+    public void testParameters() {
+        Form parameters = new Form();
+        parameters.add(SessionAuthenticator.CACHE_SECONDS, " 60 ");
+        parameters.add(SessionAuthenticator.SESSION_SECONDS, "0");
+        assertNotNull(SessionAuthenticator.fromParameters("SeqWare", parameters));
+        assertNotNull(SessionAuthenticator.fromParameters("SeqWare", new Form()));
+    }
+
+    @Test
+    public void testBadParameters() {
+        assertRejected(SessionAuthenticator.CACHE_SECONDS, "abc");
+        assertRejected(SessionAuthenticator.CACHE_SECONDS, "-1");
+        assertRejected(SessionAuthenticator.CACHE_SIZE, "1.5");
+        assertRejected(SessionAuthenticator.CACHE_SIZE, "");
+        assertRejected(SessionAuthenticator.SESSION_SECONDS, String.valueOf(Integer.MAX_VALUE + 1L));
+    }
+
+    private static void assertRejected(String name, String value) {
+        Form parameters = new Form();
+        parameters.add(name, value);
+        try {
+            SessionAuthenticator.fromParameters("SeqWare", parameters);
+            fail(name + " should not take \"" + value + "\"");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(name));
+        }
+    }
+
+    private static Request request(ChallengeResponse challenge, String token) {
+        Request request = new Request(Method.GET, "http://localhost:8889/seqware-webservice/samples/1");
+        request.setChallengeResponse(challenge);
+        if (token != null) {
+            request.getCookies().add(new Cookie(SessionAuthenticator.COOKIE, token));
+        }
+        return request;
+    }
+
+    private Response handle(Request request) {
+        Response response = new Response(request);
+        authenticator.handle(request, response);
+        return response;
+    }
+
+    private static class ClockedAuthenticator extends SessionAuthenticator {
+
+        private long time = 1000000;
+
+        private ClockedAuthenticator(CredentialCache credentials, long sessionMillis) {
+            super(null, "SeqWare", credentials, sessionMillis);
+            MapVerifier verifier = new MapVerifier();
+            verifier.getLocalSecrets().put("admin@admin.com", "admin".toCharArray());
+            setVerifier(verifier);
+        }
+
+        @Override
+        long now() {
+            return time;
+        }
+    }
+
+    private static class RecordingRestlet extends Restlet {
+
+        private int handled = 0;
+
+        @Override
+        public void handle(Request request, Response response) {
+            handled++;
+            response.setStatus(Status.SUCCESS_OK);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package net.sourceforge.seqware.webservice.resources;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.sourceforge.seqware.common.model.BatchOperation;
+import net.sourceforge.seqware.common.model.lists.BatchOperationList;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.xml.sax.SAXException;
+
+/**
+ * Runs {@link BatchResource} against a router that only records the requests it is sent, and a transaction manager that only counts
+ * commits and rollbacks.
+ */
+public class BatchResourceTest {
+
+    private static final String ROOT = "http://localhost:8889/seqware-webservice";
+
+    private RecordingRouter router;
+    private RecordingTransactionManager transactions;
+    private BatchResource batchResource;
+
+    @Before
+    public void setUp() {
+        router = new RecordingRouter();
+        transactions = new RecordingTransactionManager();
+        batchResource = new BatchResource(null, router, transactions);
+    }
+
+    @Test
+    public void testCommitInOrder() throws SAXException, IOException {
+        Response response = post(batch("PUT /workflowruns/6480", "POST /workflowruns/6480/logs?retainedSize=0", "PUT /files/835"),
+                MediaType.APPLICATION_XML);
+
+        Assert.assertEquals(Status.SUCCESS_OK, response.getStatus());
+        Assert.assertEquals(Arrays.asList("PUT /workflowruns/6480", "POST /workflowruns/6480/logs?retainedSize=0", "PUT /files/835"),
+                router.handled);
+        Assert.assertEquals(MediaType.APPLICATION_XML, router.entityTypes.get(0));
+        Assert.assertEquals(1, transactions.commits);
+        Assert.assertEquals(0, transactions.rollbacks);
+        for (BatchOperation operation : ran(response).getList()) {
+            Assert.assertEquals(200, operation.getStatus());
+            Assert.assertEquals("ok " + operation.getEntity(), operation.getResponse());
+        }
+    }
+
+    /**
+     * The batch stops at the request that fails and rolls back the ones before it.
+     */
+    @Test
+    public void testRollbackOnFailure() throws SAXException, IOException {
+        router.failing = "PUT /files/835";
+        Response response = post(batch("PUT /workflowruns/6480", "PUT /files/835", "PUT /lanes/4707"), MediaType.APPLICATION_XML);
+
+        Assert.assertEquals(Status.CLIENT_ERROR_NOT_FOUND, response.getStatus());
+        Assert.assertEquals(Arrays.asList("PUT /workflowruns/6480", "PUT /files/835"), router.handled);
+        Assert.assertEquals(0, transactions.commits);
+        Assert.assertEquals(1, transactions.rollbacks);
+        List<BatchOperation> operations = ran(response).getList();
+        Assert.assertEquals(200, operations.get(0).getStatus());
+        Assert.assertEquals(404, operations.get(1).getStatus());
+        Assert.assertEquals("not found", operations.get(1).getResponse());
+        Assert.assertEquals("the request after the failure should not run", 0, operations.get(2).getStatus());
+    }
+
+    @Test
+    public void testRollbackOnException() throws SAXException, IOException {
+        router.throwing = "PUT /files/835";
+        Response response = post(batch("PUT /workflowruns/6480", "PUT /files/835"), MediaType.APPLICATION_XML);
+
+        Assert.assertEquals(Status.SERVER_ERROR_INTERNAL, response.getStatus());
+        Assert.assertEquals(0, transactions.commits);
+        Assert.assertEquals(1, transactions.rollbacks);
+        Assert.assertEquals(500, ran(response).getList().get(1).getStatus());
+    }
+
+    /**
+     * A batch sent as JSON carries the entities of its requests as JSON.
+     */
+    @Test
+    public void testJsonBatch() throws SAXException, IOException {
+        Response response = post(batch("PUT /workflowruns/6480", "PUT /files/835"), MediaType.APPLICATION_JSON);
+
+        Assert.assertEquals(Status.SUCCESS_OK, response.getStatus());
+        Assert.assertEquals(Arrays.asList("PUT /workflowruns/6480", "PUT /files/835"), router.handled);
+        Assert.assertEquals(Arrays.asList(MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON), router.entityTypes);
+        Assert.assertEquals(1, transactions.commits);
+        for (BatchOperation operation : ran(response).getList()) {
+            Assert.assertEquals(200, operation.getStatus());
+            Assert.assertEquals("ok " + operation.getEntity(), operation.getResponse());
+        }
+    }
+
+    @Test
+    public void testOnlyPost() {
+        Request request = new Request(Method.GET, ROOT + "/batch");
+        request.setRootRef(new Reference(ROOT));
+        Response response = new Response(request);
+        batchResource.handle(request, response);
+
+        Assert.assertEquals(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED, response.getStatus());
+        Assert.assertTrue(router.handled.isEmpty());
+        Assert.assertEquals(0, transactions.commits + transactions.rollbacks);
+    }
+
+    @Test
+    public void testUnreadableBatch() {
+        Response response = post(new StringRepresentation("<batchOperationList><list>", MediaType.APPLICATION_XML));
+
+        Assert.assertEquals(Status.CLIENT_ERROR_UNPROCESSABLE_ENTITY, response.getStatus());
+        Assert.assertTrue(router.handled.isEmpty());
+    }
+
+    /**
+     * @param requests
+     *            the method and path of each request
+     */
+    private static BatchOperationList batch(String... requests) {
+        BatchOperationList batch = new BatchOperationList();
+        for (String request : requests) {
+            String[] parts = request.split(" ");
+            batch.add(new BatchOperation(parts[0], parts[1], "<entity>" + parts[1] + "</entity>"));
+        }
+        return batch;
+    }
+
+    private Response post(BatchOperationList batch, MediaType mediaType) {
+        return post(XmlTools.getRepresentation(new JaxbObject<BatchOperationList>(), batch, mediaType));
+    }
+
+    private Response post(Representation entity) {
+        Request request = new Request(Method.POST, ROOT + "/batch");
+        request.setRootRef(new Reference(ROOT));
+        request.setChallengeResponse(new ChallengeResponse(ChallengeScheme.HTTP_BASIC, "admin@admin.com", "admin"));
+        request.setEntity(entity);
+        Response response = new Response(request);
+        batchResource.handle(request, response);
+        return response;
+    }
+
+    private static BatchOperationList ran(Response response) throws SAXException, IOException {
+        return (BatchOperationList) XmlTools.unMarshal(new JaxbObject<BatchOperationList>(), new BatchOperationList(),
+                response.getEntity());
+    }
+
+    /**
+     * Answers each request with its own entity, except for the one request it is told to fail.
+     */
+    private static class RecordingRouter extends Restlet {
+
+        private final List<String> handled = new ArrayList<>();
+        private final List<MediaType> entityTypes = new ArrayList<>();
+        private String failing = null;
+        private String throwing = null;
+
+        @Override
+        public void handle(Request request, Response response) {
+            String call = request.getMethod() + " " + request.getResourceRef().toString().substring(ROOT.length());
+            handled.add(call);
+            entityTypes.add(request.getEntity().getMediaType());
+            if (call.equals(throwing)) {
+                throw new IllegalStateException("could not handle " + call);
+            }
+            if (call.equals(failing)) {
+                response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+                response.setEntity("not found", MediaType.TEXT_PLAIN);
+                return;
+            }
+            response.setStatus(Status.SUCCESS_OK);
+            response.setEntity("ok " + request.getEntityAsText(), MediaType.TEXT_PLAIN);
+        }
+    }
+
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private int commits = 0;
+        private int rollbacks = 0;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package net.sourceforge.seqware.webservice.resources;
+
+import net.sourceforge.seqware.common.model.Sample;
+import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
+import net.sourceforge.seqware.common.util.xmltools.XmlTools;
+import org.junit.Assert;
+import org.junit.Test;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+
+/**
+ * Runs {@link JsonFilter} in front of a resource that answers with a marshalled object, or with text it built itself.
+ */
+public class JsonFilterTest {
+
+    private static final String ROOT = "http://localhost:8889/seqware-webservice";
+
+    @Test
+    public void testPrefersJson() {
+        Assert.assertEquals(MediaType.APPLICATION_JSON, get(true, MediaType.APPLICATION_JSON).getEntity().getMediaType());
+    }
+
+    @Test
+    public void testXmlWinsATie() {
+        Assert.assertEquals(MediaType.APPLICATION_XML, get(true, MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON).getEntity()
+                .getMediaType());
+        Assert.assertEquals(MediaType.APPLICATION_XML, get(true, MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML).getEntity()
+                .getMediaType());
+    }
+
+    @Test
+    public void testAnythingGetsXml() {
+        Assert.assertEquals(MediaType.APPLICATION_XML, get(true).getEntity().getMediaType());
+        Assert.assertEquals(MediaType.APPLICATION_XML, get(true, MediaType.ALL).getEntity().getMediaType());
+    }
+
+    /**
+     * What a resource did not marshal is left as it is, even for a client that prefers JSON.
+     */
+    @Test
+    public void testOtherEntitiesAreLeft() {
+        Response response = get(false, MediaType.APPLICATION_JSON);
+        Assert.assertEquals(MediaType.TEXT_PLAIN, response.getEntity().getMediaType());
+        Assert.assertEquals("sample", response.getEntityAsText());
+    }
+
+    /**
+     * @param marshalled
+     *            whether the resource answers with a marshalled object rather than text
+     * @param accepted
+     *            the media types the client accepts, in the order it lists them
+     */
+    private static Response get(final boolean marshalled, MediaType... accepted) {
+        Request request = new Request(Method.GET, ROOT + "/samples/1");
+        for (MediaType mediaType : accepted) {
+            request.getClientInfo().getAcceptedMediaTypes().add(new Preference<>(mediaType));
+        }
+        Response response = new Response(request);
+        new JsonFilter(null, new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setStatus(Status.SUCCESS_OK);
+                if (marshalled) {
+                    response.setEntity(XmlTools.getRepresentation(new JaxbObject<Sample>(), new Sample()));
+                } else {
+                    response.setEntity("sample", MediaType.TEXT_PLAIN);
+                }
+            }
+        }).handle(request, response);
+        return response;
+    }
+}
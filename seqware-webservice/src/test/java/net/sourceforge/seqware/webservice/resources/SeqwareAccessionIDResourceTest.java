@@ -26,7 +26,7 @@ import org.restlet.representation.Representation;
 public class SeqwareAccessionIDResourceTest extends AbstractResourceTest {
 
     public SeqwareAccessionIDResourceTest() {
-        super("/SWA/1");
+        super("/SWA/4758");
     }
 
     /**
@@ -53,8 +53,7 @@ public class SeqwareAccessionIDResourceTest extends AbstractResourceTest {
         System.out.println(getRelativeURI() + " GET");
         try {
             Representation rep = resource.get();
-            rep.write(System.out);
-            rep.exhaust();
+            Assert.assertEquals("4758 is a study", "study", rep.getText());
             rep.release();
         } catch (Exception e) {
             Assert.fail(e.getMessage());
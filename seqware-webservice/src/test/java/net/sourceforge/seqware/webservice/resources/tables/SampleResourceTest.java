@@ -19,10 +19,13 @@ package net.sourceforge.seqware.webservice.resources.tables;
 import java.util.Date;
 import java.util.Set;
 import net.sourceforge.seqware.common.model.Sample;
+import net.sourceforge.seqware.common.model.lists.SampleList;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
 import org.junit.Assert;
+import org.junit.Test;
 import org.restlet.representation.Representation;
+import org.restlet.resource.ClientResource;
 import org.w3c.dom.Document;
 
 /**
@@ -91,4 +94,30 @@ public class SampleResourceTest extends DatabaseResourceTest {
             Assert.fail(e.getMessage());
         }
     }
+
+    @Test
+    public void testGetPage() {
+        System.out.println(getRelativeURI() + " GET page");
+        JaxbObject<SampleList> jbo = new JaxbObject<>();
+        try {
+            ClientResource page = resource.getChild("?offset=1&limit=2");
+            Representation rep = page.get();
+            SampleList list = (SampleList) XmlTools.unMarshal(jbo, new SampleList(), rep.getText());
+            rep.exhaust();
+            rep.release();
+            Assert.assertEquals("Should have a page of 2 samples", 2, list.getList().size());
+            Assert.assertTrue("Should be ordered by accession", list.getList().get(0).getSwAccession() < list.getList().get(1)
+                    .getSwAccession());
+
+            page = resource.getChild("?limit=1&after=" + list.getList().get(0).getSwAccession());
+            rep = page.get();
+            SampleList next = (SampleList) XmlTools.unMarshal(jbo, new SampleList(), rep.getText());
+            rep.exhaust();
+            rep.release();
+            Assert.assertEquals(list.getList().get(1).getSwAccession(), next.getList().get(0).getSwAccession());
+        } catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail(e.getMessage());
+        }
+    }
 }
@@ -55,7 +55,14 @@ import org.junit.runners.Suite;
         net.sourceforge.seqware.webservice.resources.tables.SequencerRunIDResourceTest.class,
         net.sourceforge.seqware.webservice.resources.tables.ExperimentResourceTest.class,
         net.sourceforge.seqware.webservice.resources.tables.LaneResourceTest.class,
-        net.sourceforge.seqware.common.metadata.MetadataWSTest.class, net.sourceforge.seqware.common.metadata.MetadataDBTest.class })
+        net.sourceforge.seqware.webservice.resources.BatchResourceTest.class,
+        net.sourceforge.seqware.webservice.resources.JsonFilterTest.class,
+        net.sourceforge.seqware.queryengine.webservice.security.CredentialCacheTest.class,
+        net.sourceforge.seqware.queryengine.webservice.security.RegistrationCacheTest.class,
+        net.sourceforge.seqware.queryengine.webservice.security.SeqWareVerifierTest.class,
+        net.sourceforge.seqware.queryengine.webservice.security.SessionAuthenticatorTest.class,
+        net.sourceforge.seqware.common.metadata.MetadataWSTest.class, net.sourceforge.seqware.common.metadata.MetadataWSJsonTest.class,
+        net.sourceforge.seqware.common.metadata.MetadataDBTest.class })
 public class WSResourceTestSuite {
 
     protected SessionFactory sessionFactory = null;
@@ -16,12 +16,17 @@
  */
 package net.sourceforge.seqware.webservice.resources.tables;
 
+import io.seqware.common.model.WorkflowRunStatus;
 import net.sourceforge.seqware.common.model.Workflow;
 import net.sourceforge.seqware.common.model.WorkflowRun;
+import net.sourceforge.seqware.common.model.lists.WorkflowRunList2;
 import net.sourceforge.seqware.common.util.xmltools.JaxbObject;
 import net.sourceforge.seqware.common.util.xmltools.XmlTools;
 import org.junit.Assert;
+import org.junit.Test;
+import org.restlet.data.Status;
 import org.restlet.representation.Representation;
+import org.restlet.resource.ResourceException;
 import org.w3c.dom.Document;
 
 /**
@@ -72,4 +77,34 @@ public class WorkflowRunResourceTest extends DatabaseResourceTest {
         }
     }
 
+    /**
+     * A filtered list is paged like the whole list.
+     */
+    @Test
+    public void testGetPageByStatus() {
+        JaxbObject<WorkflowRunList2> jbo = new JaxbObject<>();
+        try {
+            Representation rep = resource.getChild("?status=completed&limit=2").get();
+            WorkflowRunList2 list = (WorkflowRunList2) XmlTools.unMarshal(jbo, new WorkflowRunList2(), rep.getText());
+            rep.exhaust();
+            rep.release();
+            Assert.assertTrue("Should have at most a page of 2 runs", list.getList().size() <= 2);
+            for (WorkflowRun run : list.getList()) {
+                Assert.assertEquals(WorkflowRunStatus.completed, run.getStatus());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetUnknownStatus() {
+        try {
+            resource.getChild("?status=finished").get();
+            Assert.fail("An unknown status should be refused");
+        } catch (ResourceException e) {
+            Assert.assertEquals(Status.CLIENT_ERROR_BAD_REQUEST, e.getStatus());
+        }
+    }
 }